@@ -0,0 +1,69 @@
+package benchmarks;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.IndiceBuscaProdutos;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo de uma consulta ao {@link IndiceBuscaProdutos} sobre um catálogo sintético de
+ * 100 mil produtos: palavra completa, prefixo, erro de digitação, várias palavras e ID.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BuscaProdutosBenchmark {
+
+    private static final String[] NOMES = {"Arroz", "Feijão", "Açúcar", "Café", "Leite", "Óleo", "Macarrão",
+            "Farinha", "Sabão", "Detergente", "Biscoito", "Refrigerante", "Suco", "Água", "Cerveja", "Chocolate"};
+    private static final String[] VARIANTES = {"Tipo 1", "Carioca", "Cristal", "Torrado", "Integral", "de Soja",
+            "Espaguete", "de Trigo", "em Pó", "Neutro", "Recheado", "Cola", "de Uva", "Mineral", "Pilsen", "ao Leite"};
+    private static final String[] MARCAS = {"Camil", "Tio João", "União", "Pilão", "Italac", "Liza", "Renata",
+            "Dona Benta", "Omo", "Ypê", "Nestlé", "Coca", "Del Valle", "Crystal", "Skol", "Lacta"};
+    private static final String[] TIPOS = {"Mercearia", "Bebidas", "Limpeza", "Laticínios", "Frios"};
+
+    @Param({"feijao", "fei", "fejião", "leite integral italac", "sku-4242"})
+    public String consulta;
+
+    private IndiceBuscaProdutos indice;
+
+    @Setup
+    public void preparar() {
+        indice = new IndiceBuscaProdutos();
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            String id = "sku-" + i;
+            String nome = NOMES[aleatorio.nextInt(NOMES.length)] + " " + VARIANTES[aleatorio.nextInt(VARIANTES.length)]
+                    + " " + MARCAS[aleatorio.nextInt(MARCAS.length)] + " " + (100 + aleatorio.nextInt(900)) + "g";
+            indice.atualizar(id, new Produto(id, TIPOS[aleatorio.nextInt(TIPOS.length)], nome, 1 + aleatorio.nextInt(50), 10));
+        }
+    }
+
+    @Benchmark
+    public List<Produto> buscar() {
+        return indice.buscar(consulta, IndiceBuscaProdutos.LIMITE_PADRAO);
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.CacheProdutos;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura pelo {@link CacheProdutos} com a distribuição típica de um caixa: 80% das leituras
+ * caem em 2% de um catálogo de 100 mil produtos, e o restante na cauda longa. O carregador
+ * devolve o produto na hora, de modo que o tempo medido é o do próprio cache; a taxa de
+ * acerto é impressa ao final de cada iteração.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheProdutosBenchmark {
+
+    private static final int PRODUTOS = 100_000;
+    private static final int SEQUENCIA = 1 << 20;
+
+    @Param({"2500", "10000"})
+    public long pesoMaximo;
+
+    private CacheProdutos cache;
+    private String[] ids;
+    private int posicao;
+
+    @Setup
+    public void preparar() {
+        Produto[] produtos = new Produto[PRODUTOS];
+        for (int i = 0; i < PRODUTOS; i++) {
+            produtos[i] = new Produto("sku-" + i, "Mercearia", "Produto " + i, 10, 100);
+        }
+        cache = new CacheProdutos(null,
+                id -> CompletableFuture.completedFuture(produtos[Integer.parseInt(id.substring(4))]),
+                pesoMaximo, p -> 1, 0);
+
+        Random aleatorio = new Random(42);
+        int quentes = PRODUTOS / 50;
+        ids = new String[SEQUENCIA];
+        for (int i = 0; i < SEQUENCIA; i++) {
+            int indice = aleatorio.nextInt(100) < 80
+                    ? aleatorio.nextInt(quentes)
+                    : quentes + aleatorio.nextInt(PRODUTOS - quentes);
+            ids[i] = "sku-" + indice;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void relatar() {
+        System.out.println("LOG: Cache de produtos: " + cache.getEstatisticas());
+    }
+
+    @Benchmark
+    public Produto buscar() {
+        int i = posicao++ & (SEQUENCIA - 1);
+        return cache.buscar(ids[i]).join();
+    }
+}
@@ -0,0 +1,124 @@
+package benchmarks;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.firebase.database.DataSnapshot;
+import database.BancoMemoria;
+import model.Atendente;
+import model.Produto;
+import model.VendaDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da conversão feita pelo SDK do Firebase em {@link DataSnapshot#getValue(Class)},
+ * que usa reflexão para preencher o objeto. Mede um registro isolado e a decodificação
+ * de um nó com 1000 produtos, como na carga do catálogo.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecodificacaoBenchmark {
+
+    private DataSnapshot produto;
+    private DataSnapshot produtos;
+    private DataSnapshot venda;
+    private DataSnapshot usuario;
+
+    @Setup
+    public void preparar() {
+        BancoMemoria banco = new BancoMemoria();
+        banco.carregar("produtos/prod001", produto(1));
+        produto = banco.ler("produtos/prod001");
+
+        Map<String, Object> todos = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            todos.put(String.format("prod%04d", i), produto(i));
+        }
+        banco.carregar("produtos", todos);
+        produtos = banco.ler("produtos");
+
+        Map<String, Object> v = new HashMap<>();
+        v.put("id", "venda-1");
+        v.put("matriculaUsuario", 1001);
+        v.put("idProduto", "prod001");
+        v.put("quantidade", 3);
+        v.put("dataHora", "2025-01-01T10:00:00");
+        v.put("timestamp", 1735736400000L);
+        v.put("formaPagamento", "PIX");
+        v.put("valorTotal", 7.0);
+        banco.carregar("vendas/venda-1", v);
+        venda = banco.ler("vendas/venda-1");
+
+        Map<String, Object> permissoes = new HashMap<>();
+        permissoes.put("REALIZAR_VENDA", true);
+        permissoes.put("VISUALIZAR_ESTOQUE", true);
+        permissoes.put("GERENCIAR_ESTOQUE", false);
+        permissoes.put("CADASTRAR_PRODUTO", false);
+        permissoes.put("GERENCIAR_USUARIOS", false);
+        Map<String, Object> u = new HashMap<>();
+        u.put("matricula", 1001);
+        u.put("nome", "Atendente");
+        u.put("usuario", "atendente");
+        u.put("senha", "$2a$10$abcdefghijklmnopqrstuu5qkZ0Q9D9QFbZp2aA5TiBHsTU2i2XW");
+        u.put("cargo", "ATENDENTE");
+        u.put("ativo", true);
+        u.put("permissoes", permissoes);
+        banco.carregar("usuarios/1001", u);
+        usuario = banco.ler("usuarios/1001");
+    }
+
+    private static Map<String, Object> produto(int i) {
+        Map<String, Object> p = new HashMap<>();
+        p.put("id", String.format("prod%04d", i));
+        p.put("tipo", "Tipo " + (i % 10));
+        p.put("nome", "Produto " + i);
+        p.put("preco", 1.5 + i);
+        p.put("quantidade", 100 + i);
+        return p;
+    }
+
+    @Benchmark
+    public Produto decodificarProduto() {
+        return produto.getValue(Produto.class);
+    }
+
+    @Benchmark
+    public VendaDTO decodificarVenda() {
+        return venda.getValue(VendaDTO.class);
+    }
+
+    @Benchmark
+    public Atendente decodificarUsuario() {
+        return usuario.getValue(Atendente.class);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void decodificarCatalogo(Blackhole bh) {
+        for (DataSnapshot filho : produtos.getChildren()) {
+            bh.consume(filho.getValue(Produto.class));
+        }
+    }
+}
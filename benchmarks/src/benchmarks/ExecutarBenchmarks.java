@@ -0,0 +1,51 @@
+package benchmarks;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Ponto de entrada dos benchmarks. Executa todas as classes do pacote {@code benchmarks}
+ * (ou as indicadas na linha de comando, com a sintaxe do JMH) e grava os resultados em JSON
+ * em {@code benchmarks/resultados/jmh-<data>.json}, para comparação entre versões.
+ * <p>
+ * Exemplos de argumentos: {@code UsuarioBenchmark -p custo=10} ou {@code -f 1 -wi 2 -i 3}.
+ */
+public class ExecutarBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+
+        File pasta = new File("benchmarks/resultados");
+        pasta.mkdirs();
+        String arquivo = new File(pasta, "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json").getPath();
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(linhaDeComando);
+        if (linhaDeComando.getIncludes().isEmpty()) {
+            builder.include("benchmarks\\..*Benchmark");
+        }
+        if (!linhaDeComando.getResult().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON).result(arquivo);
+        }
+        Options opcoes = builder.build();
+
+        new Runner(opcoes).run();
+        System.out.println("LOG: Resultados gravados em " + (linhaDeComando.getResult().hasValue() ? linhaDeComando.getResult().get() : arquivo));
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import database.HistogramaLatencia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de registrar uma latência no {@link HistogramaLatencia}, com uma e com quatro
+ * threads no mesmo histograma, e de calcular o resumo com os percentis. Com
+ * {@code -prof gc}, o registro deve mostrar zero bytes alocados por operação.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricasBenchmark {
+
+    private static final int AMOSTRAS = 1 << 12;
+
+    private HistogramaLatencia histograma;
+    private long[] latencias;
+    private int posicao;
+
+    @Setup
+    public void preparar() {
+        histograma = new HistogramaLatencia("benchmark");
+        latencias = new long[AMOSTRAS];
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < AMOSTRAS; i++) {
+            // Distribuição log-normal em torno de 2 ms, como as leituras do Firebase.
+            latencias[i] = (long) (2_000_000 * Math.exp(aleatorio.nextGaussian()));
+            histograma.registrar(latencias[i]);
+        }
+    }
+
+    @Benchmark
+    public void registrar() {
+        histograma.registrar(latencias[posicao++ & (AMOSTRAS - 1)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void registrarConcorrente() {
+        histograma.registrar(latencias[(int) (Thread.currentThread().getId() * 31 + System.nanoTime()) & (AMOSTRAS - 1)]);
+    }
+
+    @Benchmark
+    public HistogramaLatencia.Resumo resumo() {
+        return histograma.resumo();
+    }
+}
@@ -0,0 +1,129 @@
+package benchmarks;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import database.BancoMemoria;
+import database.FirebaseConfig;
+import excecoes.EstoqueInsuficienteException;
+import excecoes.ProdutoNaoEncontradoException;
+import model.Atendente;
+import model.FormaPagamento;
+import model.Produto;
+import model.Usuario;
+import model.Venda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.DiarioVendas;
+import repository.VendaRepository;
+import service.ProdutoService;
+import service.VendaService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Custo do fluxo completo de {@link VendaService#registrarVenda}, com os serviços e
+ * repositórios reais sobre um {@link BancoMemoria} no lugar do Firebase:
+ * <ul>
+ *     <li>{@code online}: produto lido da réplica do catálogo, transação de estoque no banco e
+ *     entrega da venda ao buffer de escrita;</li>
+ *     <li>{@code diario}: confirmação local no {@link DiarioVendas}, com gravação em disco.</li>
+ * </ul>
+ * A latência de cada operação do banco pode ser simulada com {@code -p latenciaMs=...}.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegistrarVendaBenchmark {
+
+    @Param({"online", "diario"})
+    String modo;
+
+    @Param({"0"})
+    long latenciaMs;
+
+    private Path diretorio;
+    private DiarioVendas diario;
+    private VendaService vendaService;
+    private Usuario usuario;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException, InterruptedException {
+        diretorio = Files.createTempDirectory("pdv-benchmark");
+        System.setProperty("pdv.armazem.dir", diretorio.resolve("armazem").toString());
+
+        BancoMemoria banco = new BancoMemoria(latenciaMs, 0, 0);
+        FirebaseConfig.usarBanco(banco);
+        Map<String, Produto> produtos = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            String id = String.format("prod%03d", i);
+            produtos.put(id, new Produto(id, "Tipo", "Produto " + i, 10.0, Integer.MAX_VALUE / 2));
+        }
+        banco.carregar("produtos", produtos);
+
+        ProdutoService produtoService = new ProdutoService();
+        while (!produtoService.isCatalogoCarregado()) {
+            Thread.sleep(1);
+        }
+        if (modo.equals("diario")) {
+            diario = new DiarioVendas(diretorio.resolve("diario"), 16 * 1024 * 1024);
+        }
+        vendaService = new VendaService(produtoService, new VendaRepository(), diario);
+        usuario = new Atendente(1001, "Atendente", "atendente", "hash");
+    }
+
+    /**
+     * Confirma as entradas do diário ao fim de cada iteração, para que os segmentos aplicados
+     * sejam apagados e o estoque pendente não se acumule entre as iterações.
+     */
+    @TearDown(Level.Iteration)
+    public void esvaziarDiario() throws InterruptedException {
+        if (diario == null) {
+            return;
+        }
+        DiarioVendas.Entrada entrada;
+        while ((entrada = diario.aguardarProxima(0, TimeUnit.MILLISECONDS)) != null) {
+            diario.confirmar(entrada.getSequencia());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        if (diario != null) {
+            diario.close();
+        }
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Venda registrarVenda() throws ProdutoNaoEncontradoException, EstoqueInsuficienteException {
+        return vendaService.registrarVenda(usuario, "prod042", 1, FormaPagamento.PIX, 0);
+    }
+}
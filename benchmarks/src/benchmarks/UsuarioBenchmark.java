@@ -0,0 +1,95 @@
+package benchmarks;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import excecoes.AutenticacaoException;
+import model.Atendente;
+import model.Gerente;
+import model.Permissao;
+import model.Usuario;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das verificações feitas a cada ação do usuário: a consulta de permissão, que
+ * testa um bit da máscara de permissões, e a autenticação por BCrypt, medida para vários fatores
+ * de custo (o padrão de {@link BCrypt#gensalt()} é 10).
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UsuarioBenchmark {
+
+    /**
+     * Estado da consulta de permissões.
+     */
+    @State(Scope.Thread)
+    public static class Permissoes {
+        Usuario atendente;
+        Usuario gerente;
+
+        @Setup
+        public void preparar() {
+            atendente = new Atendente(1001, "Atendente", "atendente", "hash");
+            gerente = new Gerente(1, "Gerente", "gerente", "hash");
+        }
+    }
+
+    /**
+     * Estado da autenticação, com a senha gravada no fator de custo do parâmetro.
+     */
+    @State(Scope.Benchmark)
+    public static class Autenticacao {
+        @Param({"4", "8", "10", "12"})
+        int custo;
+
+        Usuario usuario;
+
+        @Setup
+        public void preparar() {
+            String hash = BCrypt.hashpw("senha123", BCrypt.gensalt(custo));
+            usuario = new Atendente(1001, "Atendente", "atendente", hash);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean temPermissaoConcedida(Permissoes estado) {
+        return estado.gerente.temPermissao(Permissao.GERENCIAR_USUARIOS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean temPermissaoNegada(Permissoes estado) {
+        return estado.atendente.temPermissao(Permissao.GERENCIAR_USUARIOS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 3)
+    @Fork(1)
+    public boolean autenticar(Autenticacao estado) throws AutenticacaoException {
+        return estado.usuario.autenticar("senha123");
+    }
+}
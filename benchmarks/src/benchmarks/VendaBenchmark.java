@@ -0,0 +1,66 @@
+package benchmarks;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.Atendente;
+import model.FormaPagamento;
+import model.Produto;
+import model.Usuario;
+import model.Venda;
+import model.VendaDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de criar uma {@link Venda} (que lê o relógio e formata a data) e de convertê-la
+ * para o {@link VendaDTO} gravado no Firebase.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VendaBenchmark {
+
+    private Usuario usuario;
+    private Produto produto;
+    private Venda venda;
+
+    @Setup
+    public void preparar() {
+        usuario = new Atendente(1001, "Atendente", "atendente", "hash");
+        produto = new Produto("prod001", "Bebidas", "Água", 2.5, 1000);
+        venda = new Venda("venda-1", usuario, produto, 3, FormaPagamento.PIX, 0.5);
+    }
+
+    @Benchmark
+    public Venda criarVenda() {
+        return new Venda("venda-1", usuario, produto, 3, FormaPagamento.PIX, 0.5);
+    }
+
+    @Benchmark
+    public VendaDTO converterParaDTO() {
+        return new VendaDTO(venda);
+    }
+
+    @Benchmark
+    public VendaDTO criarVendaEConverter() {
+        return new VendaDTO(new Venda("venda-1", usuario, produto, 3, FormaPagamento.PIX, 0.5));
+    }
+}
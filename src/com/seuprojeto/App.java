@@ -9,6 +9,8 @@ package com.seuprojeto;
 
 import controller.LoginViewController;
 import database.FirebaseConfig;
+import repository.BufferEscritaVendas;
+import repository.DiarioVendas;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -51,6 +53,18 @@ public class App extends Application {
         primaryStage.show();
     }
 
+    /**
+     * Chamado pelo JavaFX quando a aplicação é encerrada.
+     * Garante que as vendas ainda retidas no buffer de escrita sejam enviadas ao Firebase.
+     * As vendas do diário local que ainda não foram enviadas permanecem no disco e são
+     * reenviadas na próxima execução.
+     */
+    @Override
+    public void stop() {
+        DiarioVendas.fecharPadrao();
+        BufferEscritaVendas.fecharPadrao();
+    }
+
     /**
      * O ponto de entrada padrão da aplicação Java.
      * Suas principais funções são realizar configurações prévias que não dependem
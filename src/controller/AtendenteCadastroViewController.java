@@ -7,6 +7,7 @@ package controller;
  * Lorena da Silva Borges
  */
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
@@ -15,6 +16,7 @@ import javafx.scene.control.TextField;
 import excecoes.AcessoNegadoException;
 import model.Atendente;
 import model.Usuario;
+import service.Futuros;
 import service.UsuarioService;
 
 /**
@@ -66,18 +68,24 @@ public class AtendenteCadastroViewController {
 
             Atendente novoAtendente = new Atendente(matricula, nome, usuario, "temp");
             novoAtendente.definirNovaSenha(senha);
-            usuarioService.cadastrarAtendente(gerenteLogado, novoAtendente);
-
-            statusLabel.setText("Atendente " + nome + " cadastrado com sucesso!");
-            limparCampos();
+            usuarioService.cadastrarAtendenteAsync(gerenteLogado, novoAtendente)
+                    .whenComplete((ok, erro) -> Platform.runLater(() -> {
+                        if (erro == null) {
+                            statusLabel.setText("Atendente " + nome + " cadastrado com sucesso!");
+                            limparCampos();
+                            return;
+                        }
+                        Throwable causa = Futuros.causa(erro);
+                        if (causa instanceof AcessoNegadoException || causa instanceof IllegalArgumentException) {
+                            statusLabel.setText(causa.getMessage());
+                        } else {
+                            statusLabel.setText("ERRO: Ocorreu um problema inesperado.");
+                            causa.printStackTrace();
+                        }
+                    }));
 
         } catch (NumberFormatException e) {
             statusLabel.setText("ERRO: Matrícula deve ser um número válido.");
-        } catch (AcessoNegadoException e) {
-            statusLabel.setText(e.getMessage());
-        } catch (Exception e) {
-            statusLabel.setText("ERRO: Ocorreu um problema inesperado.");
-            e.printStackTrace();
         }
     }
 
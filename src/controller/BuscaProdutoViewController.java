@@ -7,29 +7,42 @@ package controller;
  * Lorena da Silva Borges
  */
 
-import javafx.collections.FXCollections;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.control.TextField;
 import javafx.stage.Stage;
-import java.util.List;
+import javafx.util.Duration;
 
 import model.Produto;
+import repository.IndiceBuscaProdutos;
+import repository.Pagina;
 import service.ProdutoService;
 
+import java.util.concurrent.CompletableFuture;
+
 
 /**
  * Classe para a tela de busca de produtos.
  * Esta classe gerencia a janela pop-up utilizada para listar e selecionar um produto.
  * Suas responsabilidades incluem popular a {@link TableView} com dados do
  * {@link ProdutoService} e retornar o ID do produto selecionado para a tela que a invocou.
+ * <p>
+ * Com o campo de busca vazio, a tabela lista o catálogo página por página. Ao digitar, a
+ * pesquisa é refeita quando o usuário pausa a digitação por {@link #ESPERA_DIGITACAO_MS}
+ * milissegundos, e a tabela mostra os {@link IndiceBuscaProdutos#LIMITE_PADRAO} produtos
+ * mais relevantes.
  *
  * @see VendaViewController
  * @see EstoqueViewController
  */
 public class BuscaProdutoViewController {
 
+    /** Pausa na digitação, em milissegundos, a partir da qual a pesquisa é refeita. */
+    private static final long ESPERA_DIGITACAO_MS = 150;
+
+    @FXML private TextField campoBusca;
     @FXML private TableView<Produto> tabelaProdutos;
     @FXML private TableColumn<Produto, String> colunaId;
     @FXML private TableColumn<Produto, String> colunaNome;
@@ -37,22 +50,55 @@ public class BuscaProdutoViewController {
     @FXML private TableColumn<Produto, Integer> colunaEstoque;
 
     private final ProdutoService produtoService = new ProdutoService();
+    private final PauseTransition espera = new PauseTransition(Duration.millis(ESPERA_DIGITACAO_MS));
+    private DadosTabela<Produto> dados;
+    private RolagemInfinita<Produto> rolagem;
+    private String consulta = "";
     private String produtoIdSelecionado = null;
 
     /**
      * Metodo de inicialização do JavaFX, chamado automaticamente após o FXML ser carregado.
-     * Configura as colunas da tabela para se vincularem aos atributos da classe {@link Produto}
-     * e carrega a lista inicial de todos os produtos do banco de dados.
+     * Configura as colunas da tabela para se vincularem aos atributos da classe {@link Produto},
+     * liga o campo de busca à pesquisa e carrega a primeira página do catálogo.
      */
     @FXML
     public void initialize() {
-        colunaId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colunaNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
-        colunaPreco.setCellValueFactory(new PropertyValueFactory<>("preco"));
-        colunaEstoque.setCellValueFactory(new PropertyValueFactory<>("quantidade"));
+        dados = new DadosTabela<>(tabelaProdutos, Produto::getId);
+        dados.coluna(colunaId, Produto::getId);
+        dados.coluna(colunaNome, Produto::getNome, String.CASE_INSENSITIVE_ORDER);
+        dados.coluna(colunaPreco, Produto::getPreco);
+        dados.coluna(colunaEstoque, Produto::getQuantidade);
+
+        rolagem = new RolagemInfinita<>(tabelaProdutos, dados.getItens(), this::buscar,
+                RolagemInfinita.TAMANHO_PAGINA_PADRAO,
+                erro -> System.err.println("ERRO: Não foi possível carregar os produtos: " + erro.getMessage()));
+
+        espera.setOnFinished(evento -> {
+            consulta = campoBusca.getText() == null ? "" : campoBusca.getText().trim();
+            rolagem.reiniciar();
+        });
+        campoBusca.textProperty().addListener((obs, antigo, novo) -> espera.playFromStart());
+        campoBusca.setOnAction(evento -> {
+            if (espera.getStatus() == PauseTransition.Status.RUNNING) {
+                espera.stop();
+                espera.getOnFinished().handle(evento);
+            }
+            tabelaProdutos.getSelectionModel().selectFirst();
+            tabelaProdutos.requestFocus();
+        });
+        rolagem.reiniciar();
+    }
 
-        List<Produto> todosProdutos = produtoService.buscarTodosProdutos();
-        tabelaProdutos.setItems(FXCollections.observableArrayList(todosProdutos));
+    /**
+     * Fonte das páginas da tabela: o catálogo em ordem de ID quando não há consulta, ou uma
+     * única página com os resultados da pesquisa.
+     */
+    private CompletableFuture<Pagina<Produto>> buscar(String cursor, int tamanho) {
+        if (consulta.isEmpty()) {
+            return produtoService.buscarPaginaProdutosAsync(cursor, tamanho);
+        }
+        return produtoService.pesquisarProdutosAsync(consulta, IndiceBuscaProdutos.LIMITE_PADRAO)
+                .thenApply(produtos -> new Pagina<>(produtos, null));
     }
 
     /**
@@ -0,0 +1,740 @@
+package controller;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Camada de dados de uma {@link TableView} com muitas linhas. As linhas ficam em uma lista
+ * base, indexada pela chave de cada item (o ID do produto, por exemplo). A tabela exibe
+ * uma visão dessa lista: um vetor com as posições das linhas visíveis, na ordem atual.
+ * <p>
+ * As colunas são registradas com uma função tipada que extrai o valor da célula, sem a
+ * reflexão da {@link javafx.scene.control.cell.PropertyValueFactory}. Para cada coluna
+ * ordenável é mantido um vetor com as posições das linhas em ordem crescente. Esse vetor é
+ * calculado em segundo plano assim que as linhas chegam, ou no primeiro clique, e depois
+ * reaproveitado: a ordem decrescente só o percorre de trás para frente. O filtro apenas
+ * marca quais linhas são visíveis, sem copiar os itens.
+ * <p>
+ * {@link #atualizar(Object)} troca uma linha pela chave. A linha é reposicionada nos vetores
+ * de ordem, e a tabela recebe uma única alteração, na linha afetada, em vez de uma lista nova.
+ * <p>
+ * Todos os métodos devem ser chamados na thread da interface do JavaFX.
+ *
+ * @param <T> O tipo das linhas.
+ * @see EstoqueViewController
+ * @see RolagemInfinita
+ */
+public class DadosTabela<T> {
+
+    private final TableView<T> tabela;
+    private final Function<? super T, String> chave;
+    private final Visao visao = new Visao();
+
+    private final List<T> linhas = new ArrayList<>();
+    private final Map<String, Integer> indicePorChave = new HashMap<>();
+    private final BitSet visiveis = new BitSet();
+    private Predicate<? super T> filtro = null;
+
+    private final Map<TableColumn<T, ?>, Comparator<T>> comparadores = new LinkedHashMap<>();
+    private final Map<TableColumn<T, ?>, Ordem> ordens = new HashMap<>();
+    private final Ordem ordemNatural = new Ordem(null);
+    private Ordem ordemAtual = ordemNatural;
+    private boolean reverso = false;
+
+    private int[] exibidas = new int[0];
+    private int quantidadeExibida = 0;
+    private long versao = 0;
+
+    /**
+     * Cria a camada de dados e a associa à tabela, que passa a exibir a visão e a ser
+     * ordenada pelos vetores de ordem em vez de reordenar a lista.
+     *
+     * @param tabela A tabela a ser preenchida.
+     * @param chave  Extrai a chave única de cada linha.
+     */
+    public DadosTabela(TableView<T> tabela, Function<? super T, String> chave) {
+        this.tabela = tabela;
+        this.chave = chave;
+        tabela.setItems(visao);
+        tabela.setSortPolicy(t -> {
+            ordenarPor(t.getSortOrder());
+            return true;
+        });
+    }
+
+    /**
+     * Registra uma coluna: o valor de cada célula vem de {@code valor}, e a ordenação usa
+     * {@code comparador}, com os valores nulos primeiro.
+     *
+     * @param coluna     A coluna da tabela.
+     * @param valor      Extrai o valor exibido a partir da linha.
+     * @param comparador A ordem dos valores, ou {@code null} se a coluna não puder ser ordenada.
+     * @param <V>        O tipo do valor da coluna.
+     */
+    public <V> void coluna(TableColumn<T, V> coluna, Function<? super T, V> valor, Comparator<? super V> comparador) {
+        coluna.setCellValueFactory(celula -> new ReadOnlyObjectWrapper<>(valor.apply(celula.getValue())));
+        coluna.setSortable(comparador != null);
+        if (comparador != null) {
+            comparadores.put(coluna, Comparator.comparing(valor, Comparator.nullsFirst(comparador)));
+        }
+    }
+
+    /**
+     * Registra uma coluna ordenada pela ordem natural dos seus valores.
+     *
+     * @param coluna A coluna da tabela.
+     * @param valor  Extrai o valor exibido a partir da linha.
+     * @param <V>    O tipo do valor da coluna.
+     */
+    public <V extends Comparable<? super V>> void coluna(TableColumn<T, V> coluna, Function<? super T, V> valor) {
+        coluna(coluna, valor, Comparator.naturalOrder());
+    }
+
+    /**
+     * Retorna a lista exibida pela tabela. Ela aceita {@link ObservableList#addAll(Collection)}
+     * e {@link ObservableList#clear()}, que equivalem a {@link #adicionarItens(Collection)} e
+     * {@link #limpar()}, para ser usada com a {@link RolagemInfinita}.
+     *
+     * @return A visão das linhas exibidas.
+     */
+    public ObservableList<T> getItens() {
+        return visao;
+    }
+
+    /**
+     * Substitui todas as linhas. Os vetores de ordem das colunas registradas são calculados
+     * em segundo plano e passam a ser usados se nenhuma linha mudar nesse meio-tempo.
+     *
+     * @param itens As novas linhas; a lista não é guardada, apenas os seus itens.
+     */
+    public void definirItens(Collection<? extends T> itens) {
+        List<T> removidas = copiarExibidas();
+        limparLinhas();
+        acrescentar(itens);
+        reconstruirVisao(removidas);
+        precalcularOrdens();
+    }
+
+    /**
+     * Acrescenta linhas ao fim da lista base. Uma linha cuja chave já existe substitui a
+     * anterior, como em {@link #atualizar(Object)}.
+     *
+     * @param itens As linhas a acrescentar.
+     */
+    public void adicionarItens(Collection<? extends T> itens) {
+        List<T> novas = new ArrayList<>(itens.size());
+        List<T> existentes = new ArrayList<>();
+        for (T item : itens) {
+            (indicePorChave.containsKey(chave.apply(item)) ? existentes : novas).add(item);
+        }
+        if (!existentes.isEmpty()) {
+            atualizarTodos(existentes);
+        }
+        if (novas.isEmpty()) {
+            return;
+        }
+        List<T> removidas = ordemAtual == ordemNatural && !reverso ? null : copiarExibidas();
+        int inicio = linhas.size();
+        acrescentar(novas);
+        if (removidas == null) {
+            // Sem ordenação, as linhas novas visíveis vão para o fim da tabela.
+            int antes = quantidadeExibida;
+            garantirExibidas(quantidadeExibida + novas.size());
+            for (int i = inicio; i < linhas.size(); i++) {
+                if (visiveis.get(i)) {
+                    exibidas[quantidadeExibida++] = i;
+                }
+            }
+            if (quantidadeExibida > antes) {
+                visao.iniciar();
+                visao.adicionado(antes, quantidadeExibida);
+                visao.terminar();
+            }
+        } else {
+            reconstruirVisao(removidas);
+        }
+    }
+
+    /**
+     * Remove todas as linhas.
+     */
+    public void limpar() {
+        if (linhas.isEmpty()) {
+            return;
+        }
+        List<T> removidas = copiarExibidas();
+        limparLinhas();
+        reconstruirVisao(removidas);
+    }
+
+    /**
+     * Troca a linha de mesma chave pela versão informada, reposicionando-a na ordem e no
+     * filtro atuais. A tabela recebe uma alteração apenas nessa linha. O item pode ser o
+     * próprio objeto já exibido, alterado no lugar.
+     *
+     * @param item A nova versão da linha.
+     * @return {@code true} se havia uma linha com a chave do item.
+     */
+    public boolean atualizar(T item) {
+        return atualizarTodos(Collections.singletonList(item)) > 0;
+    }
+
+    /**
+     * Troca várias linhas pela chave de uma só vez, como as alterações recebidas do banco em
+     * um mesmo quadro. As linhas que mudaram de lugar na ordem atual chegam à tabela como uma
+     * permutação, que preserva a seleção, e cada linha trocada como uma substituição na sua
+     * posição. Só quando uma linha entra ou sai do filtro a visão é refeita. As chaves que não
+     * estão na tabela são ignoradas.
+     *
+     * @param itens As novas versões das linhas.
+     * @return A quantidade de linhas trocadas.
+     */
+    public int atualizarTodos(Collection<? extends T> itens) {
+        Map<Integer, T> antigos = new LinkedHashMap<>();
+        for (T item : itens) {
+            Integer indice = indicePorChave.get(chave.apply(item));
+            if (indice != null) {
+                antigos.putIfAbsent(indice, linhas.set(indice, item));
+            }
+        }
+        if (antigos.isEmpty()) {
+            return 0;
+        }
+        versao++;
+
+        for (Ordem ordem : ordensMantidas()) {
+            if (ordem.comparador == null) {
+                continue;
+            }
+            BitSet movidas = new BitSet();
+            for (Map.Entry<Integer, T> entrada : antigos.entrySet()) {
+                T antigo = entrada.getValue();
+                T novo = linhas.get(entrada.getKey());
+                if (antigo == novo || ordem.comparador.compare(antigo, novo) != 0) {
+                    movidas.set(entrada.getKey());
+                }
+            }
+            ordem.reposicionar(movidas);
+        }
+        boolean visibilidadeMudou = false;
+        for (Integer indice : antigos.keySet()) {
+            boolean visivel = filtro == null || filtro.test(linhas.get(indice));
+            visibilidadeMudou |= visivel != visiveis.get(indice);
+            visiveis.set(indice, visivel);
+        }
+
+        int[] anteriores = Arrays.copyOf(exibidas, quantidadeExibida);
+        quantidadeExibida = 0;
+        preencherExibidas();
+        if (visibilidadeMudou) {
+            List<T> removidas = new ArrayList<>(anteriores.length);
+            for (int indice : anteriores) {
+                removidas.add(antigos.getOrDefault(indice, linhas.get(indice)));
+            }
+            reconstruirVisao(removidas);
+            return antigos.size();
+        }
+        if (!Arrays.equals(anteriores, 0, anteriores.length, exibidas, 0, quantidadeExibida)) {
+            emitirPermutacao(anteriores);
+        }
+        visao.iniciar();
+        for (int posicao = 0; posicao < quantidadeExibida; posicao++) {
+            T antigo = antigos.get(exibidas[posicao]);
+            if (antigo != null) {
+                visao.substituido(posicao, antigo);
+            }
+        }
+        visao.terminar();
+        return antigos.size();
+    }
+
+    /**
+     * Remove a linha com a chave informada, se houver.
+     *
+     * @param chaveLinha A chave da linha.
+     * @return {@code true} se a linha existia.
+     */
+    public boolean remover(String chaveLinha) {
+        Integer indice = indicePorChave.remove(chaveLinha);
+        if (indice == null) {
+            return false;
+        }
+        versao++;
+        int posicao = visiveis.get(indice) ? posicaoExibida(indice) : -1;
+        T antigo = linhas.remove((int) indice);
+        for (int i = indice; i < linhas.size(); i++) {
+            indicePorChave.put(chave.apply(linhas.get(i)), i);
+        }
+        for (int i = indice; i < linhas.size(); i++) {
+            visiveis.set(i, visiveis.get(i + 1));
+        }
+        visiveis.clear(linhas.size());
+        for (Ordem ordem : ordensMantidas()) {
+            ordem.retirar(indice);
+        }
+        if (posicao >= 0) {
+            System.arraycopy(exibidas, posicao + 1, exibidas, posicao, quantidadeExibida - posicao - 1);
+            quantidadeExibida--;
+        }
+        for (int i = 0; i < quantidadeExibida; i++) {
+            if (exibidas[i] > indice) {
+                exibidas[i]--;
+            }
+        }
+        if (posicao >= 0) {
+            visao.iniciar();
+            visao.removido(posicao, Collections.singletonList(antigo));
+            visao.terminar();
+        }
+        return true;
+    }
+
+    /**
+     * Retorna a linha com a chave informada.
+     *
+     * @param chaveLinha A chave da linha.
+     * @return A linha, ou {@code null} se não houver.
+     */
+    public T buscar(String chaveLinha) {
+        Integer indice = indicePorChave.get(chaveLinha);
+        return indice == null ? null : linhas.get(indice);
+    }
+
+    /**
+     * Retorna a quantidade total de linhas, visíveis ou não.
+     * @return O número de linhas.
+     */
+    public int tamanho() {
+        return linhas.size();
+    }
+
+    /**
+     * Exibe apenas as linhas aceitas pelo filtro, na ordem atual.
+     *
+     * @param filtro O filtro, ou {@code null} para exibir todas as linhas.
+     */
+    public void filtrar(Predicate<? super T> filtro) {
+        List<T> removidas = copiarExibidas();
+        this.filtro = filtro;
+        for (int i = 0; i < linhas.size(); i++) {
+            visiveis.set(i, filtro == null || filtro.test(linhas.get(i)));
+        }
+        reconstruirVisao(removidas);
+    }
+
+    /**
+     * Aplica a ordenação escolhida na tabela. Uma única coluna usa o seu vetor de ordem; várias
+     * colunas combinam os comparadores em um vetor próprio. A tabela recebe uma permutação,
+     * que preserva a seleção.
+     */
+    private void ordenarPor(List<TableColumn<T, ?>> colunas) {
+        Ordem nova = ordemNatural;
+        boolean novoReverso = false;
+        List<TableColumn<T, ?>> ordenaveis = new ArrayList<>(colunas.size());
+        for (TableColumn<T, ?> coluna : colunas) {
+            if (comparadores.containsKey(coluna)) {
+                ordenaveis.add(coluna);
+            }
+        }
+        if (ordenaveis.size() == 1) {
+            TableColumn<T, ?> coluna = ordenaveis.get(0);
+            nova = ordens.computeIfAbsent(coluna, c -> new Ordem(comparadores.get(c)).ordenarTudo());
+            novoReverso = coluna.getSortType() == TableColumn.SortType.DESCENDING;
+        } else if (ordenaveis.size() > 1) {
+            Comparator<T> combinado = null;
+            for (TableColumn<T, ?> coluna : ordenaveis) {
+                Comparator<T> comparador = comparadores.get(coluna);
+                if (coluna.getSortType() == TableColumn.SortType.DESCENDING) {
+                    comparador = comparador.reversed();
+                }
+                combinado = combinado == null ? comparador : combinado.thenComparing(comparador);
+            }
+            nova = new Ordem(combinado).ordenarTudo();
+        }
+        if (nova == ordemAtual && novoReverso == reverso) {
+            return;
+        }
+
+        int[] antigas = Arrays.copyOf(exibidas, quantidadeExibida);
+        ordemAtual = nova;
+        reverso = novoReverso;
+        quantidadeExibida = 0;
+        preencherExibidas();
+        emitirPermutacao(antigas);
+    }
+
+    /**
+     * Avisa a tabela de que as mesmas linhas exibidas em {@code antigas} estão agora na ordem
+     * de {@link #exibidas}.
+     */
+    private void emitirPermutacao(int[] antigas) {
+        int[] posicaoNova = new int[linhas.size()];
+        for (int i = 0; i < quantidadeExibida; i++) {
+            posicaoNova[exibidas[i]] = i;
+        }
+        int[] permutacao = new int[antigas.length];
+        for (int i = 0; i < antigas.length; i++) {
+            permutacao[i] = posicaoNova[antigas[i]];
+        }
+        visao.iniciar();
+        visao.permutado(permutacao);
+        visao.terminar();
+    }
+
+    /**
+     * Calcula fora da thread da interface os vetores de ordem das colunas que ainda não têm um,
+     * sobre uma cópia das referências das linhas.
+     */
+    private void precalcularOrdens() {
+        long versaoInicial = versao;
+        List<T> copia = new ArrayList<>(linhas);
+        for (Map.Entry<TableColumn<T, ?>, Comparator<T>> entrada : comparadores.entrySet()) {
+            TableColumn<T, ?> coluna = entrada.getKey();
+            if (ordens.containsKey(coluna)) {
+                continue;
+            }
+            Comparator<T> comparador = entrada.getValue();
+            CompletableFuture.supplyAsync(() -> ordenar(copia.size(), compararIndices(copia, comparador)))
+                    .thenAccept(indices -> Platform.runLater(() -> {
+                        if (versao == versaoInicial && !ordens.containsKey(coluna)) {
+                            Ordem ordem = new Ordem(comparador);
+                            ordem.indices = indices;
+                            ordem.tamanho = indices.length;
+                            ordens.put(coluna, ordem);
+                        }
+                    }));
+        }
+    }
+
+    private void limparLinhas() {
+        versao++;
+        linhas.clear();
+        indicePorChave.clear();
+        visiveis.clear();
+        // Só a ordem em uso é mantida, pois as novas linhas precisam ser exibidas nela; as
+        // demais são recalculadas em segundo plano por precalcularOrdens().
+        ordens.values().removeIf(ordem -> ordem != ordemAtual);
+        ordemNatural.tamanho = 0;
+        ordemAtual.tamanho = 0;
+    }
+
+    /**
+     * Acrescenta as linhas ao fim da lista base, marca as visíveis e as inclui em todos os
+     * vetores de ordem.
+     */
+    private void acrescentar(Collection<? extends T> itens) {
+        versao++;
+        int inicio = linhas.size();
+        for (T item : itens) {
+            String chaveItem = chave.apply(item);
+            Integer existente = indicePorChave.putIfAbsent(chaveItem, linhas.size());
+            if (existente != null) {
+                linhas.set(existente, item);
+                continue;
+            }
+            visiveis.set(linhas.size(), filtro == null || filtro.test(item));
+            linhas.add(item);
+        }
+        int fim = linhas.size();
+        for (Ordem ordem : ordensMantidas()) {
+            ordem.acrescentar(inicio, fim);
+        }
+    }
+
+    /**
+     * Retorna os vetores de ordem que acompanham as mudanças das linhas: o natural, o de cada
+     * coluna já calculado e o da ordenação atual, se for de várias colunas.
+     */
+    private List<Ordem> ordensMantidas() {
+        List<Ordem> mantidas = new ArrayList<>(ordens.size() + 2);
+        mantidas.add(ordemNatural);
+        mantidas.addAll(ordens.values());
+        if (!mantidas.contains(ordemAtual)) {
+            mantidas.add(ordemAtual);
+        }
+        return mantidas;
+    }
+
+    /**
+     * Refaz a visão a partir da ordem e do filtro atuais e avisa a tabela com uma única troca
+     * de todo o conteúdo.
+     *
+     * @param removidas As linhas exibidas antes da mudança, obtidas com {@link #copiarExibidas()}.
+     */
+    private void reconstruirVisao(List<T> removidas) {
+        quantidadeExibida = 0;
+        preencherExibidas();
+        visao.iniciar();
+        if (!removidas.isEmpty()) {
+            visao.removido(0, removidas);
+        }
+        if (quantidadeExibida > 0) {
+            visao.adicionado(0, quantidadeExibida);
+        }
+        visao.terminar();
+    }
+
+    private List<T> copiarExibidas() {
+        List<T> copia = new ArrayList<>(quantidadeExibida);
+        for (int i = 0; i < quantidadeExibida; i++) {
+            copia.add(linhas.get(exibidas[i]));
+        }
+        return copia;
+    }
+
+    private void preencherExibidas() {
+        garantirExibidas(linhas.size());
+        int n = ordemAtual.tamanho;
+        for (int k = 0; k < n; k++) {
+            int indice = ordemAtual.indices[reverso ? n - 1 - k : k];
+            if (visiveis.get(indice)) {
+                exibidas[quantidadeExibida++] = indice;
+            }
+        }
+    }
+
+    private int posicaoExibida(int indice) {
+        for (int i = 0; i < quantidadeExibida; i++) {
+            if (exibidas[i] == indice) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void garantirExibidas(int capacidade) {
+        if (exibidas.length < capacidade) {
+            exibidas = Arrays.copyOf(exibidas, Math.max(capacidade, exibidas.length * 2));
+        }
+    }
+
+    private IntBinaryOperator compararIndices(List<T> base, Comparator<T> comparador) {
+        if (comparador == null) {
+            return Integer::compare;
+        }
+        return (a, b) -> {
+            int c = comparador.compare(base.get(a), base.get(b));
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+    }
+
+    /**
+     * Ordena as posições {@code 0..n-1} por um merge sort sobre {@code int[]}, sem encaixotar
+     * cada posição em um {@link Integer}.
+     */
+    private static int[] ordenar(int n, IntBinaryOperator comparador) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i;
+        }
+        int[] aux = new int[n];
+        for (int largura = 1; largura < n; largura *= 2) {
+            for (int inicio = 0; inicio < n - largura; inicio += 2 * largura) {
+                int meio = inicio + largura;
+                int fim = Math.min(inicio + 2 * largura, n);
+                if (comparador.applyAsInt(a[meio - 1], a[meio]) <= 0) {
+                    continue;
+                }
+                System.arraycopy(a, inicio, aux, inicio, fim - inicio);
+                int i = inicio;
+                int j = meio;
+                for (int k = inicio; k < fim; k++) {
+                    if (i < meio && (j >= fim || comparador.applyAsInt(aux[i], aux[j]) <= 0)) {
+                        a[k] = aux[i++];
+                    } else {
+                        a[k] = aux[j++];
+                    }
+                }
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Vetor com as posições da lista base em ordem crescente por um comparador, com a
+     * posição como desempate para que cada linha tenha um lugar único.
+     */
+    private final class Ordem {
+        private final Comparator<T> comparador;
+        private int[] indices = new int[0];
+        private int tamanho = 0;
+
+        Ordem(Comparator<T> comparador) {
+            this.comparador = comparador;
+        }
+
+        Ordem ordenarTudo() {
+            indices = ordenar(linhas.size(), compararIndices(linhas, comparador));
+            tamanho = indices.length;
+            return this;
+        }
+
+        /**
+         * Inclui as posições {@code [inicio, fim)}: ordena as novas e as intercala com as atuais.
+         */
+        void acrescentar(int inicio, int fim) {
+            int novas = fim - inicio;
+            if (novas <= 0) {
+                return;
+            }
+            int[] resultado = new int[Math.max(tamanho + novas, indices.length)];
+            IntBinaryOperator comparar = compararIndices(linhas, comparador);
+            int[] ordenadas = ordenar(novas, (a, b) -> comparar.applyAsInt(inicio + a, inicio + b));
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < tamanho || j < novas) {
+                if (j >= novas || (i < tamanho && comparar.applyAsInt(indices[i], inicio + ordenadas[j]) <= 0)) {
+                    resultado[k++] = indices[i++];
+                } else {
+                    resultado[k++] = inicio + ordenadas[j++];
+                }
+            }
+            indices = resultado;
+            tamanho = k;
+        }
+
+        /**
+         * Recoloca em ordem as linhas cujo valor mudou: retira as posições marcadas, ordena
+         * apenas elas e insere cada uma por busca binária. Para k linhas alteradas, são
+         * O(k log n) comparações e uma cópia do vetor.
+         */
+        void reposicionar(BitSet movidas) {
+            int quantidade = movidas.cardinality();
+            if (comparador == null || quantidade == 0) {
+                return;
+            }
+            int[] retiradas = new int[quantidade];
+            int r = 0;
+            int k = 0;
+            for (int i = 0; i < tamanho; i++) {
+                int atual = indices[i];
+                if (movidas.get(atual)) {
+                    retiradas[r++] = atual;
+                } else {
+                    indices[k++] = atual;
+                }
+            }
+            IntBinaryOperator comparar = compararIndices(linhas, comparador);
+            int[] ordem = ordenar(r, (a, b) -> comparar.applyAsInt(retiradas[a], retiradas[b]));
+            int restantes = k;
+            int[] resultado = new int[indices.length];
+            int origem = 0;
+            int destino = 0;
+            for (int j = 0; j < r; j++) {
+                int linha = retiradas[ordem[j]];
+                int baixo = origem;
+                int alto = restantes;
+                while (baixo < alto) {
+                    int meio = (baixo + alto) >>> 1;
+                    if (comparar.applyAsInt(indices[meio], linha) < 0) {
+                        baixo = meio + 1;
+                    } else {
+                        alto = meio;
+                    }
+                }
+                System.arraycopy(indices, origem, resultado, destino, baixo - origem);
+                destino += baixo - origem;
+                origem = baixo;
+                resultado[destino++] = linha;
+            }
+            System.arraycopy(indices, origem, resultado, destino, restantes - origem);
+            indices = resultado;
+            tamanho = destino + restantes - origem;
+        }
+
+        /**
+         * Retira uma posição removida da lista base e ajusta as posições seguintes.
+         */
+        void retirar(int indice) {
+            int k = 0;
+            for (int i = 0; i < tamanho; i++) {
+                int atual = indices[i];
+                if (atual != indice) {
+                    indices[k++] = atual > indice ? atual - 1 : atual;
+                }
+            }
+            tamanho = k;
+        }
+    }
+
+    /**
+     * A lista observada pela tabela: lê as linhas através do vetor de posições exibidas.
+     */
+    private final class Visao extends ObservableListBase<T> {
+
+        @Override
+        public T get(int i) {
+            if (i < 0 || i >= quantidadeExibida) {
+                throw new IndexOutOfBoundsException("Linha " + i + " de " + quantidadeExibida);
+            }
+            return linhas.get(exibidas[i]);
+        }
+
+        @Override
+        public int size() {
+            return quantidadeExibida;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends T> itens) {
+            adicionarItens(itens);
+            return !itens.isEmpty();
+        }
+
+        @Override
+        public void clear() {
+            limpar();
+        }
+
+        void iniciar() {
+            beginChange();
+        }
+
+        void terminar() {
+            endChange();
+        }
+
+        void adicionado(int de, int ate) {
+            nextAdd(de, ate);
+        }
+
+        void removido(int posicao, List<? extends T> removidos) {
+            nextRemove(posicao, removidos);
+        }
+
+        void substituido(int posicao, T antigo) {
+            nextSet(posicao, antigo);
+        }
+
+        void permutado(int[] permutacao) {
+            nextPermutation(0, permutacao.length, permutacao);
+        }
+    }
+}
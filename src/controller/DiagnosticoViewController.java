@@ -0,0 +1,164 @@
+package controller;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import database.HistogramaLatencia;
+import database.Metricas;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Usuario;
+
+/**
+ * Classe para a view de diagnóstico de desempenho ({@code DiagnosticoView.fxml}), exibida
+ * apenas para gerentes. Mostra, para cada métrica de {@link Metricas}, o número de chamadas,
+ * os erros, a vazão desde a leitura anterior e os percentis de latência.
+ * <p>
+ * A tabela é atualizada a cada {@link #INTERVALO_ATUALIZACAO_S} segundos enquanto a tela
+ * estiver aberta; cada leitura substitui as linhas pelo nome da métrica, mantendo a
+ * ordenação e a seleção escolhidas.
+ *
+ * @see MainViewController
+ * @see HistogramaLatencia
+ */
+public class DiagnosticoViewController {
+
+    /** Intervalo, em segundos, entre duas leituras automáticas das métricas. */
+    public static final long INTERVALO_ATUALIZACAO_S = Long.getLong("pdv.telas.intervaloDiagnosticoSegundos", 2);
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    @FXML private TableView<HistogramaLatencia.Resumo> tabelaMetricas;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, String> colunaNome;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, Long> colunaContagem;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, Long> colunaErros;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, Double> colunaVazao;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, Double> colunaMedia;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, Double> colunaP50;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, Double> colunaP99;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, Double> colunaP999;
+    @FXML private TableColumn<HistogramaLatencia.Resumo, Double> colunaMaximo;
+    @FXML private Label statusLabel;
+
+    private DadosTabela<HistogramaLatencia.Resumo> dados;
+    private Timeline atualizacao;
+
+    /** Contagens da leitura anterior, por métrica, para calcular a vazão. */
+    private final Map<String, Long> contagensAnteriores = new HashMap<>();
+    private final Map<String, Double> vazoes = new HashMap<>();
+    private long ultimaLeitura = 0;
+
+    /**
+     * Metodo de inicialização do JavaFX, chamado automaticamente após o FXML ser carregado.
+     * Configura as colunas e inicia a atualização periódica.
+     */
+    @FXML
+    public void initialize() {
+        dados = new DadosTabela<>(tabelaMetricas, HistogramaLatencia.Resumo::getNome);
+        dados.coluna(colunaNome, HistogramaLatencia.Resumo::getNome);
+        dados.coluna(colunaContagem, HistogramaLatencia.Resumo::getContagem);
+        dados.coluna(colunaErros, HistogramaLatencia.Resumo::getErros);
+        dados.coluna(colunaVazao, r -> vazoes.getOrDefault(r.getNome(), 0.0));
+        dados.coluna(colunaMedia, HistogramaLatencia.Resumo::getMediaMs);
+        dados.coluna(colunaP50, HistogramaLatencia.Resumo::getP50Ms);
+        dados.coluna(colunaP99, HistogramaLatencia.Resumo::getP99Ms);
+        dados.coluna(colunaP999, HistogramaLatencia.Resumo::getP999Ms);
+        dados.coluna(colunaMaximo, HistogramaLatencia.Resumo::getMaxMs);
+        formatar(colunaVazao, "%.1f");
+        formatar(colunaMedia, "%.3f");
+        formatar(colunaP50, "%.3f");
+        formatar(colunaP99, "%.3f");
+        formatar(colunaP999, "%.3f");
+        formatar(colunaMaximo, "%.3f");
+
+        atualizacao = new Timeline(new KeyFrame(Duration.seconds(INTERVALO_ATUALIZACAO_S), evento -> atualizar()));
+        atualizacao.setCycleCount(Animation.INDEFINITE);
+    }
+
+    /**
+     * Recebe o usuário logado e exibe a primeira leitura das métricas.
+     *
+     * @param usuario O gerente logado.
+     */
+    public void inicializarDados(Usuario usuario) {
+        atualizar();
+        atualizacao.play();
+    }
+
+    /**
+     * Interrompe a atualização periódica. Chamado pela {@link MainViewController} quando
+     * outra tela é aberta.
+     */
+    public void encerrar() {
+        atualizacao.stop();
+    }
+
+    /**
+     * Processa o clique no botão "Atualizar".
+     */
+    @FXML
+    private void handleAtualizar() {
+        atualizar();
+    }
+
+    /**
+     * Processa o clique no botão "Zerar Métricas", descartando os registros acumulados.
+     */
+    @FXML
+    private void handleZerar() {
+        Metricas.zerar();
+        contagensAnteriores.clear();
+        ultimaLeitura = 0;
+        System.out.println("LOG: Métricas de latência zeradas pela tela de diagnóstico.");
+        atualizar();
+    }
+
+    /**
+     * Lê as métricas, calcula a vazão desde a leitura anterior e atualiza as linhas.
+     */
+    private void atualizar() {
+        List<HistogramaLatencia.Resumo> resumos = Metricas.resumos();
+        long agora = System.nanoTime();
+        double segundos = (agora - ultimaLeitura) / 1e9;
+        for (HistogramaLatencia.Resumo resumo : resumos) {
+            Long anterior = contagensAnteriores.put(resumo.getNome(), resumo.getContagem());
+            double vazao = ultimaLeitura == 0 || anterior == null ? 0
+                    : Math.max(0, resumo.getContagem() - anterior) / segundos;
+            vazoes.put(resumo.getNome(), vazao);
+        }
+        ultimaLeitura = agora;
+        dados.adicionarItens(resumos);
+        statusLabel.setText(resumos.size() + " métricas. Última leitura às " + LocalTime.now().format(FORMATO_HORA) + ".");
+    }
+
+    /**
+     * Exibe os valores da coluna com o formato informado.
+     */
+    private static void formatar(TableColumn<HistogramaLatencia.Resumo, Double> coluna, String formato) {
+        coluna.setCellFactory(c -> new TableCell<HistogramaLatencia.Resumo, Double>() {
+            @Override
+            protected void updateItem(Double valor, boolean vazio) {
+                super.updateItem(valor, vazio);
+                setText(vazio || valor == null ? null : String.format(formato, valor));
+            }
+        });
+    }
+}
@@ -0,0 +1,173 @@
+package controller;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Leva à thread da interface as alterações recebidas do banco em outra thread, agrupadas por
+ * quadro. Cada alteração substitui a anterior da mesma chave ainda não entregue, de modo que
+ * uma rajada de vendas do mesmo produto chega à tela como uma única troca de linha.
+ * <p>
+ * A primeira alteração pendente agenda um único {@link Platform#runLater(Runnable)}; as
+ * seguintes apenas se juntam ao lote. Se a entrega anterior foi há menos de
+ * {@link #INTERVALO_PADRAO_MS}, o lote espera o restante do quadro em uma
+ * {@link PauseTransition}, que termina em um pulso da interface. Assim, mesmo com centenas de
+ * alterações por segundo, a fila de eventos recebe no máximo uma tarefa por quadro.
+ *
+ * @param <T> O tipo dos itens alterados.
+ * @see EstoqueViewController
+ */
+public class EntregaPorQuadro<T> {
+
+    /**
+     * Intervalo mínimo, em milissegundos, entre duas entregas; o padrão corresponde a um
+     * quadro a 60 Hz.
+     */
+    public static final long INTERVALO_PADRAO_MS = Long.getLong("pdv.telas.intervaloAtualizacaoMs", 16);
+
+    /** Marca, no lote pendente, uma chave cujo item foi removido. */
+    private static final Object REMOVIDO = new Object();
+
+    private final Map<String, Object> pendentes = new ConcurrentHashMap<>();
+    private final AtomicBoolean agendada = new AtomicBoolean(false);
+    private final BiConsumer<List<T>, List<String>> aoEntregar;
+    private final long intervaloNanos;
+    private final PauseTransition espera = new PauseTransition();
+    private volatile boolean encerrada = false;
+    private long ultimaEntrega = 0;
+
+    private final LongAdder recebidas = new LongAdder();
+    private final LongAdder entregues = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+
+    /**
+     * Cria a entrega com o intervalo padrão.
+     *
+     * @param aoEntregar Recebe, na thread da interface, os itens alterados e as chaves removidas.
+     */
+    public EntregaPorQuadro(BiConsumer<List<T>, List<String>> aoEntregar) {
+        this(aoEntregar, INTERVALO_PADRAO_MS);
+    }
+
+    /**
+     * Cria a entrega.
+     *
+     * @param aoEntregar  Recebe, na thread da interface, os itens alterados e as chaves removidas.
+     * @param intervaloMs O intervalo mínimo entre duas entregas, em milissegundos.
+     */
+    public EntregaPorQuadro(BiConsumer<List<T>, List<String>> aoEntregar, long intervaloMs) {
+        this.aoEntregar = aoEntregar;
+        this.intervaloNanos = intervaloMs * 1_000_000L;
+        espera.setOnFinished(evento -> entregar());
+    }
+
+    /**
+     * Registra uma alteração. Pode ser chamado de qualquer thread.
+     *
+     * @param chave A chave do item.
+     * @param item  O novo estado do item, ou {@code null} se ele foi removido.
+     */
+    public void publicar(String chave, T item) {
+        if (encerrada) {
+            return;
+        }
+        recebidas.increment();
+        pendentes.put(chave, item == null ? REMOVIDO : item);
+        if (agendada.compareAndSet(false, true)) {
+            Platform.runLater(this::aoAgendar);
+        }
+    }
+
+    /**
+     * Descarta as alterações pendentes e ignora as seguintes. Deve ser chamado na thread da
+     * interface.
+     */
+    public void encerrar() {
+        encerrada = true;
+        espera.stop();
+        pendentes.clear();
+    }
+
+    /**
+     * Retorna quantas alterações foram recebidas.
+     * @return O número de alterações publicadas.
+     */
+    public long getRecebidas() {
+        return recebidas.sum();
+    }
+
+    /**
+     * Retorna quantas alterações chegaram à tela depois do agrupamento por chave.
+     * @return O número de alterações entregues.
+     */
+    public long getEntregues() {
+        return entregues.sum();
+    }
+
+    /**
+     * Retorna quantos lotes foram entregues à thread da interface.
+     * @return O número de entregas.
+     */
+    public long getLotes() {
+        return lotes.sum();
+    }
+
+    /**
+     * Executado na thread da interface: entrega o lote agora ou espera o fim do quadro.
+     */
+    private void aoAgendar() {
+        if (encerrada) {
+            return;
+        }
+        long restante = ultimaEntrega + intervaloNanos - System.nanoTime();
+        if (ultimaEntrega == 0 || restante <= 0) {
+            entregar();
+        } else {
+            espera.setDuration(Duration.millis(restante / 1_000_000.0));
+            espera.playFromStart();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void entregar() {
+        if (encerrada) {
+            return;
+        }
+        // Libera o agendamento antes de esvaziar o lote: uma alteração que chegar durante a
+        // entrega agenda a próxima, e nenhuma fica esquecida.
+        agendada.set(false);
+        List<T> alterados = new ArrayList<>();
+        List<String> removidos = new ArrayList<>();
+        for (String chave : pendentes.keySet()) {
+            Object valor = pendentes.remove(chave);
+            if (valor == REMOVIDO) {
+                removidos.add(chave);
+            } else if (valor != null) {
+                alterados.add((T) valor);
+            }
+        }
+        ultimaEntrega = System.nanoTime();
+        if (alterados.isEmpty() && removidos.isEmpty()) {
+            return;
+        }
+        lotes.increment();
+        entregues.add(alterados.size() + removidos.size());
+        aoEntregar.accept(alterados, removidos);
+    }
+}
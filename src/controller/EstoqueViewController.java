@@ -7,18 +7,26 @@ package controller;
  * Lorena da Silva Borges
  */
 
-import javafx.collections.FXCollections;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.control.TextInputDialog;
 import java.util.Optional;
 
+import interfaces.IInscricao;
 import model.Permissao;
 import model.Produto;
 import model.Usuario;
+import repository.ResultadoEstoque;
+import repository.VendaRepository;
+import service.Futuros;
 import service.ProdutoService;
+import service.VendaService;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Classe para a view de gerenciamento de estoque ({@code GerenciarEstoqueView.fxml}).
@@ -26,38 +34,96 @@ import service.ProdutoService;
  * nas permissões do usuário logado. Para Atendentes, funciona como uma tela de
  * visualização. Para Gerentes, habilita controles para adicionar/remover
  * estoque e atualizar preços.
+ * <p>
+ * A coluna "Disponível" mostra o estoque que ainda pode ser vendido neste terminal,
+ * descontadas as vendas locais não enviadas e as unidades reservadas por vendas em andamento.
+ * <p>
+ * As linhas ficam em uma {@link DadosTabela}. Com a réplica do catálogo carregada, a tabela
+ * recebe o catálogo inteiro de uma vez, e a ordenação e o filtro valem para todos os produtos;
+ * sem ela, os produtos chegam página por página conforme a rolagem, e a ordenação e o filtro
+ * valem para as páginas já carregadas. Uma edição troca apenas a linha do produto editado.
+ * <p>
+ * Enquanto a tela está aberta, as alterações de estoque feitas em outros terminais chegam
+ * pelo Firebase e são aplicadas às linhas, agrupadas por quadro em uma {@link EntregaPorQuadro}.
+ * O {@link MainViewController} chama {@link #encerrar()} ao trocar de tela.
  *
  * @see MainViewController
  * @see service.ProdutoService
  */
 public class EstoqueViewController {
 
+    @FXML private TextField filtroField;
     @FXML private TableView<Produto> tabelaProdutos;
     @FXML private TableColumn<Produto, String> colunaId;
     @FXML private TableColumn<Produto, String> colunaNome;
     @FXML private TableColumn<Produto, Double> colunaPreco;
     @FXML private TableColumn<Produto, Integer> colunaEstoque;
+    @FXML private TableColumn<Produto, Integer> colunaDisponivel;
     @FXML private HBox controlesGerenteHBox;
     @FXML private TextField quantidadeField;
     @FXML private Label statusLabel;
 
     private Usuario usuarioLogado;
     private final ProdutoService produtoService = new ProdutoService();
+    private final VendaService vendaService = new VendaService(produtoService, new VendaRepository());
+    private DadosTabela<Produto> dados;
+    private RolagemInfinita<Produto> rolagem;
+    private EntregaPorQuadro<Produto> entrega;
+    private IInscricao inscricao;
+    private boolean catalogoCompleto = false;
 
     /**
      * Metodo de inicialização do JavaFX. Configura as colunas da tabela
      * para se vincularem aos atributos da classe {@link Produto} e carrega os dados.
+     * A coluna "Disponível" não é ordenável, pois o seu valor muda com as reservas de
+     * outras vendas sem que a linha seja alterada.
      */
     @FXML
     public void initialize() {
-        colunaId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colunaNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
-        colunaPreco.setCellValueFactory(new PropertyValueFactory<>("preco"));
-        colunaEstoque.setCellValueFactory(new PropertyValueFactory<>("quantidade"));
+        dados = new DadosTabela<>(tabelaProdutos, Produto::getId);
+        dados.coluna(colunaId, Produto::getId);
+        dados.coluna(colunaNome, Produto::getNome, String.CASE_INSENSITIVE_ORDER);
+        dados.coluna(colunaPreco, Produto::getPreco);
+        dados.coluna(colunaEstoque, Produto::getQuantidade);
+        dados.coluna(colunaDisponivel, vendaService::getDisponivelParaVenda, null);
+
+        rolagem = new RolagemInfinita<>(tabelaProdutos, dados.getItens(),
+                produtoService::buscarPaginaProdutosAsync, RolagemInfinita.TAMANHO_PAGINA_PADRAO,
+                erro -> exibirAlerta(erro.getMessage()));
+        filtroField.textProperty().addListener((obs, antigo, novo) -> filtrar(novo));
 
+        entrega = new EntregaPorQuadro<>(this::aplicarAlteracoes);
+        inscricao = produtoService.ouvirAlteracoes(entrega::publicar);
         carregarProdutos();
     }
 
+    /**
+     * Cancela a inscrição nas alterações de produtos. Chamado quando a tela deixa de ser exibida.
+     */
+    public void encerrar() {
+        if (inscricao != null) {
+            inscricao.cancelar();
+            inscricao = null;
+        }
+        entrega.encerrar();
+    }
+
+    /**
+     * Aplica um lote de alterações recebidas de outros terminais. Com o catálogo inteiro na
+     * tabela, produtos novos são acrescentados; com a tabela paginada, só as linhas já
+     * carregadas são trocadas, e as demais chegam atualizadas com a sua página.
+     */
+    private void aplicarAlteracoes(List<Produto> alterados, List<String> removidos) {
+        if (catalogoCompleto) {
+            dados.adicionarItens(alterados);
+        } else {
+            dados.atualizarTodos(alterados);
+        }
+        for (String id : removidos) {
+            dados.remover(id);
+        }
+    }
+
     /**
      * Recebe o usuário logado e ajusta a visibilidade dos controles de edição
      * com base na permissão {@link Permissao#GERENCIAR_ESTOQUE}.
@@ -71,10 +137,41 @@ public class EstoqueViewController {
     }
 
     /**
-     * Busca os dados mais recentes dos produtos e atualiza a tabela.
+     * Carrega a tabela. Com a réplica do catálogo carregada, todos os produtos entram de uma
+     * vez a partir do snapshot em memória. Caso contrário, a tabela começa pela primeira
+     * página, e as seguintes são buscadas conforme o usuário rola a tabela, sem bloquear a
+     * thread da interface.
      */
     private void carregarProdutos() {
-        tabelaProdutos.setItems(FXCollections.observableArrayList(produtoService.buscarTodosProdutos()));
+        if (!produtoService.isCatalogoCarregado()) {
+            rolagem.reiniciar();
+            return;
+        }
+        produtoService.buscarTodosProdutosAsync().whenComplete((produtos, erro) -> Platform.runLater(() -> {
+            if (erro != null) {
+                exibirAlerta(Futuros.causa(erro).getMessage());
+                return;
+            }
+            dados.definirItens(produtos);
+            catalogoCompleto = true;
+        }));
+    }
+
+    /**
+     * Exibe apenas os produtos cujo nome, ID ou tipo contém o texto digitado, sem diferenciar
+     * maiúsculas de minúsculas.
+     */
+    private void filtrar(String texto) {
+        String termo = texto == null ? "" : texto.trim().toLowerCase(Locale.ROOT);
+        if (termo.isEmpty()) {
+            dados.filtrar(null);
+            return;
+        }
+        dados.filtrar(p -> contem(p.getNome(), termo) || contem(p.getId(), termo) || contem(p.getTipo(), termo));
+    }
+
+    private static boolean contem(String valor, String termo) {
+        return valor != null && valor.toLowerCase(Locale.ROOT).contains(termo);
     }
 
     /** Processa o clique no botão "Adicionar". */
@@ -91,6 +188,8 @@ public class EstoqueViewController {
 
     /**
      * Lógica central para adicionar ou remover estoque de um produto selecionado.
+     * A linha do produto recebe a quantidade confirmada pela transação, sem reler a tabela.
+     * Se a tabela foi recarregada nesse meio-tempo e o produto não está mais nela, nada é trocado.
      * @param isAdicao {@code true} para adicionar, {@code false} para remover.
      */
     private void editarEstoque(boolean isAdicao) {
@@ -99,22 +198,31 @@ public class EstoqueViewController {
             exibirAlerta("Selecione um produto na tabela primeiro.");
             return;
         }
+        int quantidade;
         try {
-            int quantidade = Integer.parseInt(quantidadeField.getText());
-            if (isAdicao) {
-                produtoService.adicionarEstoque(produtoSelecionado.getId(), quantidade);
-                statusLabel.setText(quantidade + " unidades adicionadas ao estoque de " + produtoSelecionado.getNome());
-            } else {
-                produtoService.reduzirEstoque(produtoSelecionado.getId(), quantidade);
-                statusLabel.setText(quantidade + " unidades removidas do estoque de " + produtoSelecionado.getNome());
-            }
-            quantidadeField.clear();
-            carregarProdutos();
+            quantidade = Integer.parseInt(quantidadeField.getText());
         } catch (NumberFormatException e) {
             exibirAlerta("A quantidade deve ser um número válido.");
-        } catch (Exception e) {
-            exibirAlerta(e.getMessage());
+            return;
         }
+
+        CompletableFuture<ResultadoEstoque> operacao = isAdicao
+                ? produtoService.adicionarEstoqueAsync(produtoSelecionado.getId(), quantidade)
+                : produtoService.reduzirEstoqueAsync(produtoSelecionado.getId(), quantidade);
+        controlesGerenteHBox.setDisable(true);
+        operacao.whenComplete((resultado, erro) -> Platform.runLater(() -> {
+            controlesGerenteHBox.setDisable(false);
+            if (erro != null) {
+                exibirAlerta(Futuros.causa(erro).getMessage());
+                return;
+            }
+            statusLabel.setText(quantidade + (isAdicao ? " unidades adicionadas ao estoque de " : " unidades removidas do estoque de ")
+                    + produtoSelecionado.getNome());
+            quantidadeField.clear();
+            Produto atualizado = new Produto(produtoSelecionado);
+            atualizado.setQuantidade(resultado.getQuantidadeFinal());
+            dados.atualizar(atualizado);
+        }));
     }
 
     /**
@@ -136,16 +244,24 @@ public class EstoqueViewController {
         Optional<String> result = dialog.showAndWait();
 
         result.ifPresent(novoPrecoStr -> {
+            double novoPreco;
             try {
-                double novoPreco = Double.parseDouble(novoPrecoStr);
-                produtoService.atualizarPrecoProduto(produtoSelecionado.getId(), novoPreco);
-                statusLabel.setText("Preço de " + produtoSelecionado.getNome() + " atualizado com sucesso.");
-                carregarProdutos();
+                novoPreco = Double.parseDouble(novoPrecoStr);
             } catch (NumberFormatException e) {
                 exibirAlerta("O preço deve ser um número válido.");
-            } catch (Exception e) {
-                exibirAlerta(e.getMessage());
+                return;
             }
+            produtoService.atualizarPrecoProdutoAsync(produtoSelecionado.getId(), novoPreco)
+                    .whenComplete((ok, erro) -> Platform.runLater(() -> {
+                        if (erro != null) {
+                            exibirAlerta(Futuros.causa(erro).getMessage());
+                            return;
+                        }
+                        statusLabel.setText("Preço de " + produtoSelecionado.getNome() + " atualizado com sucesso.");
+                        Produto atualizado = new Produto(produtoSelecionado);
+                        atualizado.setPreco(novoPreco);
+                        dados.atualizar(atualizado);
+                    }));
         });
     }
 
@@ -7,17 +7,16 @@ package controller;
  * Lorena da Silva Borges
  */
 
-import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import javafx.scene.control.cell.PropertyValueFactory;
 
 import model.Gerente;
 import model.Usuario;
+import service.Futuros;
 import service.UsuarioService;
 
 /**
@@ -39,6 +38,7 @@ public class GerenciarAtendentesViewController {
 
     private Usuario gerenteLogado;
     private final UsuarioService usuarioService = new UsuarioService();
+    private DadosTabela<Usuario> dados;
 
     /**
      * Metodo de inicialização do JavaFX, chamado automaticamente após o FXML ser carregado.
@@ -48,11 +48,11 @@ public class GerenciarAtendentesViewController {
      */
     @FXML
     public void initialize() {
-        colunaMatricula.setCellValueFactory(new PropertyValueFactory<>("matricula"));
-        colunaNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
-        colunaUsuario.setCellValueFactory(new PropertyValueFactory<>("usuario"));
-        colunaStatus.setCellValueFactory(cellData ->
-                new SimpleStringProperty(cellData.getValue().isAtivo() ? "Ativo" : "Inativo"));
+        dados = new DadosTabela<>(tabelaAtendentes, u -> String.valueOf(u.getMatricula()));
+        dados.coluna(colunaMatricula, Usuario::getMatricula);
+        dados.coluna(colunaNome, Usuario::getNome, String.CASE_INSENSITIVE_ORDER);
+        dados.coluna(colunaUsuario, Usuario::getUsuario);
+        dados.coluna(colunaStatus, u -> u.isAtivo() ? "Ativo" : "Inativo");
     }
 
     public void inicializarDados(Usuario gerente) {
@@ -64,7 +64,13 @@ public class GerenciarAtendentesViewController {
      * Busca os dados mais recentes dos usuários no serviço e atualiza a tabela.
      */
     private void carregarAtendentes() {
-        tabelaAtendentes.setItems(FXCollections.observableArrayList(usuarioService.buscarTodosUsuarios()));
+        usuarioService.buscarTodosUsuariosAsync().whenComplete((usuarios, erro) -> Platform.runLater(() -> {
+            if (erro != null) {
+                exibirAlerta(Futuros.causa(erro).getMessage());
+                return;
+            }
+            dados.definirItens(usuarios);
+        }));
     }
 
     /**
@@ -99,14 +105,18 @@ public class GerenciarAtendentesViewController {
             return;
         }
 
-        try {
-            usuarioService.alterarStatusAtendente(gerenteLogado, selecionado.getMatricula(), novoStatus);
-            statusLabel.setText("Status de " + selecionado.getNome() + " alterado com sucesso.");
-            carregarAtendentes(); // Recarrega a tabela para mostrar a mudança
-        } catch (Exception e) {
-            exibirAlerta(e.getMessage());
-            e.printStackTrace();
-        }
+        usuarioService.alterarStatusAtendenteAsync(gerenteLogado, selecionado.getMatricula(), novoStatus)
+                .whenComplete((ok, erro) -> Platform.runLater(() -> {
+                    if (erro != null) {
+                        Throwable causa = Futuros.causa(erro);
+                        exibirAlerta(causa.getMessage());
+                        causa.printStackTrace();
+                        return;
+                    }
+                    statusLabel.setText("Status de " + selecionado.getNome() + " alterado com sucesso.");
+                    selecionado.setAtivo(novoStatus);
+                    dados.atualizar(selecionado); // Atualiza só a linha do usuário alterado
+                }));
     }
 
     /**
@@ -7,19 +7,17 @@ package controller;
  * Lorena da Silva Borges
  */
 
-import javafx.collections.FXCollections;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.EnumSet;
 
 import model.Atendente;
 import model.Permissao;
 import model.Usuario;
+import service.Futuros;
 import service.UsuarioService;
 
 /**
@@ -42,6 +40,7 @@ public class GerenciarPermissoesViewController {
 
     private Usuario gerenteLogado;
     private final UsuarioService usuarioService = new UsuarioService();
+    private RolagemInfinita<Usuario> rolagem;
 
     /**
      * Metodo de inicialização do JavaFX, chamado automaticamente após o FXML ser carregado.
@@ -65,6 +64,12 @@ public class GerenciarPermissoesViewController {
         listaUsuarios.getSelectionModel().selectedItemProperty().addListener(
                 (obs, oldSelection, newSelection) -> exibirPermissoes(newSelection)
         );
+
+        rolagem = new RolagemInfinita<>(listaUsuarios, listaUsuarios.getItems(),
+                (cursor, tamanho) -> usuarioService.buscarPaginaUsuariosAsync(cursor, tamanho)
+                        .thenApply(pagina -> pagina.filtrar(u -> u instanceof Atendente)),
+                RolagemInfinita.TAMANHO_PAGINA_PADRAO,
+                erro -> statusLabel.setText("ERRO: " + erro.getMessage()));
     }
 
     public void inicializarDados(Usuario gerente) {
@@ -73,13 +78,11 @@ public class GerenciarPermissoesViewController {
     }
 
     /**
-     * Busca os usuários do serviço, filtra para exibir apenas Atendentes, e popula a ListView.
+     * Recarrega a lista a partir da primeira página de usuários, exibindo apenas Atendentes.
+     * As páginas seguintes são buscadas conforme o usuário rola a lista.
      */
     private void carregarUsuariosNaLista() {
-        List<Usuario> atendentes = usuarioService.buscarTodosUsuarios().stream()
-                .filter(u -> u instanceof Atendente)
-                .collect(Collectors.toList());
-        listaUsuarios.setItems(FXCollections.observableArrayList(atendentes));
+        rolagem.reiniciar();
     }
 
     /**
@@ -98,7 +101,7 @@ public class GerenciarPermissoesViewController {
 
         for (Permissao p : Permissao.values()) {
             CheckBox checkBox = new CheckBox(p.getDescricao());
-            checkBox.setSelected(usuario.getPermissoes().getOrDefault(p.name(), false));
+            checkBox.setSelected(usuario.temPermissao(p));
             checkBox.setUserData(p);
             painelPermissoesVBox.getChildren().add(checkBox);
         }
@@ -107,7 +110,7 @@ public class GerenciarPermissoesViewController {
 
     /**
      * Processa o clique no botão "Salvar Permissões".
-     * Reconstrói o mapa de permissões com base no estado atual das checkboxes
+     * Reconstrói o conjunto de permissões com base no estado atual das checkboxes
      * e chama o serviço para persistir as alterações no banco de dados.
      */
     @FXML
@@ -117,21 +120,28 @@ public class GerenciarPermissoesViewController {
             return;
         }
 
-        Map<String, Boolean> novasPermissoes = new HashMap<>();
+        EnumSet<Permissao> novasPermissoes = EnumSet.noneOf(Permissao.class);
         for (Node node : painelPermissoesVBox.getChildren()) {
             if (node instanceof CheckBox) {
                 CheckBox checkBox = (CheckBox) node;
-                Permissao p = (Permissao) checkBox.getUserData();
-                novasPermissoes.put(p.name(), checkBox.isSelected());
+                if (checkBox.isSelected()) {
+                    novasPermissoes.add((Permissao) checkBox.getUserData());
+                }
             }
         }
 
-        try {
-            usuarioService.atualizarPermissoes(gerenteLogado, usuarioSelecionado.getMatricula(), novasPermissoes);
-            statusLabel.setText("Permissões de " + usuarioSelecionado.getNome() + " salvas com sucesso!");
-        } catch (Exception e) {
-            statusLabel.setText("ERRO: " + e.getMessage());
-            e.printStackTrace();
-        }
+        salvarButton.setDisable(true);
+        usuarioService.atualizarPermissoesAsync(gerenteLogado, usuarioSelecionado.getMatricula(), novasPermissoes)
+                .whenComplete((ok, erro) -> Platform.runLater(() -> {
+                    salvarButton.setDisable(false);
+                    if (erro != null) {
+                        Throwable causa = Futuros.causa(erro);
+                        statusLabel.setText("ERRO: " + causa.getMessage());
+                        causa.printStackTrace();
+                        return;
+                    }
+                    usuarioSelecionado.definirPermissoes(novasPermissoes);
+                    statusLabel.setText("Permissões de " + usuarioSelecionado.getNome() + " salvas com sucesso!");
+                }));
     }
 }
\ No newline at end of file
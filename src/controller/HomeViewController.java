@@ -19,6 +19,8 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import model.Usuario;
+import service.Sessao;
+import service.SessaoService;
 
 import java.io.IOException;
 
@@ -39,6 +41,7 @@ public class HomeViewController {
     @FXML private MenuItem loginMenuItem;
 
     private Usuario usuarioLogado;
+    private Sessao sessao;
     private Parent mainView;
     private MainViewController mainViewController;
 
@@ -73,6 +76,7 @@ public class HomeViewController {
                 loginStage.showAndWait();
 
                 Usuario usuarioAutenticado = loginController.getUsuarioAutenticado();
+                this.sessao = loginController.getSessao();
 
                 this.usuarioLogado = usuarioAutenticado;
                 atualizarParaTelaPrincipal();
@@ -87,8 +91,17 @@ public class HomeViewController {
 
     /**
      * Executa a lógica de logout, redefinindo o estado da aplicação para o inicial.
+     * A view aberta na tela principal é encerrada antes, para que não continue recebendo
+     * eventos do banco nem se atualizando sem ninguém logado.
      */
     private void handleLogoutAction() {
+        if (mainViewController != null) {
+            mainViewController.encerrar();
+        }
+        if (sessao != null) {
+            SessaoService.getInstancia().encerrar(sessao.getToken());
+            sessao = null;
+        }
         this.usuarioLogado = null;
         atualizarParaTelaInicial();
     }
@@ -7,6 +7,7 @@ package controller;
  * Lorena da Silva Borges
  */
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -16,17 +17,19 @@ import javafx.stage.Stage;
 
 import excecoes.AutenticacaoException;
 import model.Usuario;
-import service.UsuarioService;
+import service.Futuros;
+import service.Sessao;
+import service.SessaoService;
 
 /**
  * Classe para a view de login modal ({@code LoginView.fxml}).
  * Esta classe gerencia a janela pop-up de login. Sua responsabilidade é capturar as
- * credenciais do usuário, invocar o {@link UsuarioService} para a validação e,
+ * credenciais do usuário, invocar o {@link SessaoService} para a validação e,
  * em caso de sucesso, armazenar o objeto {@link Usuario} autenticado para que a
  * tela principal possa recuperá-lo.
  *
  * @see HomeViewController
- * @see service.UsuarioService
+ * @see service.SessaoService
  */
 public class LoginViewController {
 
@@ -35,14 +38,15 @@ public class LoginViewController {
     @FXML private Label statusLabel;
     @FXML private Button loginButton;
 
-    private final UsuarioService usuarioService = new UsuarioService();
-    private Usuario usuarioAutenticado = null;
+    private final SessaoService sessaoService = SessaoService.getInstancia();
+    private Sessao sessao = null;
 
     /**
      * Processa o evento de clique do botão "Entrar".
      * Coleta as credenciais da interface, chama o serviço de autenticação e, se
      * o login for bem-sucedido, armazena o resultado e fecha a janela. Se ocorrer
-     * uma falha, exibe uma mensagem de erro para o usuário.
+     * uma falha, exibe uma mensagem de erro para o usuário. O botão fica desabilitado
+     * enquanto a autenticação está em andamento.
      */
     @FXML
     private void handleLogin() {
@@ -54,21 +58,27 @@ public class LoginViewController {
             return;
         }
 
-        try {
-            Usuario resultadoDaAutenticacao = usuarioService.autenticar(usuario, senha);
-            this.usuarioAutenticado = resultadoDaAutenticacao;
+        loginButton.setDisable(true);
+        statusLabel.setText("Autenticando...");
+        sessaoService.entrarAsync(usuario, senha).whenComplete((resultadoDaAutenticacao, erro) -> Platform.runLater(() -> {
+            loginButton.setDisable(false);
+            if (erro == null) {
+                this.sessao = resultadoDaAutenticacao;
 
-            Stage stage = (Stage) loginButton.getScene().getWindow();
-            stage.close();
+                Stage stage = (Stage) loginButton.getScene().getWindow();
+                stage.close();
+                return;
+            }
 
-        } catch (AutenticacaoException e) {
-            statusLabel.setText(e.getMessage());
-            this.usuarioAutenticado = null;
-        } catch (Exception e) {
-            statusLabel.setText("Erro inesperado no sistema.");
-            this.usuarioAutenticado = null;
-            e.printStackTrace();
-        }
+            this.sessao = null;
+            Throwable causa = Futuros.causa(erro);
+            if (causa instanceof AutenticacaoException) {
+                statusLabel.setText(causa.getMessage());
+            } else {
+                statusLabel.setText("Erro inesperado no sistema.");
+                causa.printStackTrace();
+            }
+        }));
     }
 
     /**
@@ -81,6 +91,16 @@ public class LoginViewController {
      * se a autenticação falhou ou a janela foi fechada.
      */
     public Usuario getUsuarioAutenticado() {
-        return usuarioAutenticado;
+        return sessao == null ? null : sessao.getUsuario();
+    }
+
+    /**
+     * Retorna a sessão emitida no login, cujo token deve ser encerrado no logout.
+     *
+     * @return A {@link Sessao} em caso de sucesso, ou {@code null} se a autenticação falhou
+     * ou a janela foi fechada.
+     */
+    public Sessao getSessao() {
+        return sessao;
     }
 }
\ No newline at end of file
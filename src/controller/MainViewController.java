@@ -17,6 +17,7 @@ import javafx.scene.layout.VBox;
 import java.io.IOException;
 
 
+import model.Gerente;
 import model.Permissao;
 import model.Usuario;
 
@@ -31,6 +32,7 @@ import model.Usuario;
  * @see LoginViewController
  * @see VendaViewController
  * @see EstoqueViewController
+ * @see DiagnosticoViewController
  */
 public class MainViewController {
 
@@ -50,9 +52,12 @@ public class MainViewController {
     private VBox centerPane;
     @FXML
     private Button gerenciarPermissoesButton;
+    @FXML
+    private Button diagnosticoButton;
 
 
     private Usuario usuarioLogado;
+    private Object controllerAtual;
 
     /**
      * Metodo de inicialização que recebe o usuário autenticado da tela de login.
@@ -70,6 +75,7 @@ public class MainViewController {
         cadastrarAtendenteButton.setVisible(usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS));
         gerenciarAtendentesButton.setVisible(usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS));
         gerenciarPermissoesButton.setVisible(usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS));
+        diagnosticoButton.setVisible(usuarioLogado instanceof Gerente);
 
         gerenciarEstoqueButton.setText(
                 usuarioLogado.temPermissao(Permissao.GERENCIAR_ESTOQUE) ? "Gerenciar Estoque" : "Visualizar Estoque"
@@ -85,6 +91,15 @@ public class MainViewController {
         carregarView("/view/GerenciarPermissoesView.fxml");
     }
 
+    /**
+     * Processa o clique no botão "Diagnóstico", carregando a view de métricas de desempenho.
+     * @param event O evento de ação do clique.
+     */
+    @FXML
+    private void handleDiagnostico(ActionEvent event) {
+        carregarView("/view/DiagnosticoView.fxml");
+    }
+
     /**
      * Manipula o clique no botão "Realizar Venda", carregando a view de vendas.
      * @param event O evento de ação do clique.
@@ -134,7 +149,8 @@ public class MainViewController {
      * Metodo utilitário reutilizável para carregar uma view FXML no painel central da tela.
      * Este metodo é o núcleo da navegação "single-window" da aplicação. Ele carrega a
      * view especificada, obtém seu controller e passa o contexto do usuário logado
-     * para ele, antes de exibi-lo no painel central.
+     * para ele, antes de exibi-lo no painel central. A view anterior é encerrada, para
+     * que ouvintes do banco registrados por ela não continuem ativos.
      *
      * @param fxmlPath O caminho do recurso para o arquivo FXML a ser carregado.
      */
@@ -155,12 +171,38 @@ public class MainViewController {
             }
             else if (controller instanceof GerenciarPermissoesViewController) {
                 ((GerenciarPermissoesViewController) controller).inicializarDados(this.usuarioLogado);
+            } else if (controller instanceof DiagnosticoViewController) {
+                ((DiagnosticoViewController) controller).inicializarDados(this.usuarioLogado);
             }
 
+            encerrarViewAtual();
+            controllerAtual = controller;
             centerPane.getChildren().setAll(view);
         } catch (IOException e) {
             System.err.println("Erro ao carregar a view: " + fxmlPath);
             e.printStackTrace();
         }
     }
+
+    /**
+     * Encerra a view aberta no painel central e a remove, para que seus ouvintes do banco e
+     * atualizações periódicas não continuem ativos depois do logout. Chamado pela
+     * {@link HomeViewController}; a próxima sessão começa com o painel vazio.
+     */
+    public void encerrar() {
+        encerrarViewAtual();
+        controllerAtual = null;
+        centerPane.getChildren().clear();
+    }
+
+    /**
+     * Interrompe os ouvintes e temporizadores do controller da view atual, se ele tiver algum.
+     */
+    private void encerrarViewAtual() {
+        if (controllerAtual instanceof EstoqueViewController) {
+            ((EstoqueViewController) controllerAtual).encerrar();
+        } else if (controllerAtual instanceof DiagnosticoViewController) {
+            ((DiagnosticoViewController) controllerAtual).encerrar();
+        }
+    }
 }
\ No newline at end of file
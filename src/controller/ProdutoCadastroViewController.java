@@ -7,11 +7,13 @@ package controller;
  * Lorena da Silva Borges
  */
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 
 import model.Produto;
+import service.Futuros;
 import service.ProdutoService;
 
 /**
@@ -56,19 +58,22 @@ public class ProdutoCadastroViewController {
             }
 
             Produto novoProduto = new Produto(id, tipo, nome, preco, quantidade);
-            produtoService.cadastrarProduto(novoProduto);
-
-            statusLabel.setText("Produto '" + nome + "' cadastrado com sucesso!");
-            statusLabel.setTextFill(javafx.scene.paint.Color.GREEN);
-            limparCampos();
+            produtoService.cadastrarProdutoAsync(novoProduto).whenComplete((ok, erro) -> Platform.runLater(() -> {
+                if (erro == null) {
+                    statusLabel.setText("Produto '" + nome + "' cadastrado com sucesso!");
+                    statusLabel.setTextFill(javafx.scene.paint.Color.GREEN);
+                    limparCampos();
+                    return;
+                }
+                Throwable causa = Futuros.causa(erro);
+                statusLabel.setText("ERRO: " + causa.getMessage());
+                statusLabel.setTextFill(javafx.scene.paint.Color.RED);
+                causa.printStackTrace();
+            }));
 
         } catch (NumberFormatException e) {
             statusLabel.setText("ERRO: Preço e Quantidade devem ser números válidos.");
             statusLabel.setTextFill(javafx.scene.paint.Color.RED);
-        } catch (Exception e) {
-            statusLabel.setText("ERRO: " + e.getMessage());
-            statusLabel.setTextFill(javafx.scene.paint.Color.RED);
-            e.printStackTrace();
         }
     }
 
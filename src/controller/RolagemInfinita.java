@@ -0,0 +1,157 @@
+package controller;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.Control;
+import javafx.scene.control.ScrollBar;
+
+import repository.Pagina;
+import service.Futuros;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Carrega os itens de uma tabela ou lista sob demanda, uma página por vez.
+ * A primeira página é exibida assim que chega; as seguintes são buscadas quando a
+ * barra de rolagem vertical se aproxima do fim, ou enquanto o conteúdo ainda não
+ * preenche a área visível do componente.
+ * <p>
+ * Todos os métodos devem ser chamados na thread da interface do JavaFX.
+ *
+ * @param <T> O tipo dos itens exibidos.
+ * @see EstoqueViewController
+ * @see GerenciarPermissoesViewController
+ */
+public class RolagemInfinita<T> {
+
+    /** Quantidade padrão de itens buscada a cada página. */
+    public static final int TAMANHO_PAGINA_PADRAO = 50;
+
+    /** Fração da rolagem a partir da qual a próxima página é buscada. */
+    private static final double LIMIAR_ROLAGEM = 0.9;
+
+    private final Control controle;
+    private final ObservableList<T> itens;
+    private final BiFunction<String, Integer, CompletableFuture<Pagina<T>>> buscador;
+    private final int tamanhoPagina;
+    private final Consumer<Throwable> tratadorErro;
+
+    private String cursor = null;
+    private boolean fim = false;
+    private boolean carregando = false;
+    private int geracao = 0;
+    private ScrollBar barraVertical;
+
+    /**
+     * Cria o carregador e o associa ao componente.
+     *
+     * @param controle      A tabela ou lista cuja rolagem será observada.
+     * @param itens         A lista de itens exibida pelo componente.
+     * @param buscador      A função que busca uma página a partir do cursor e do tamanho.
+     * @param tamanhoPagina A quantidade de itens por página.
+     * @param tratadorErro  O callback chamado, na thread da interface, se uma busca falhar.
+     */
+    public RolagemInfinita(Control controle, ObservableList<T> itens,
+                           BiFunction<String, Integer, CompletableFuture<Pagina<T>>> buscador,
+                           int tamanhoPagina, Consumer<Throwable> tratadorErro) {
+        this.controle = controle;
+        this.itens = itens;
+        this.buscador = buscador;
+        this.tamanhoPagina = tamanhoPagina;
+        this.tratadorErro = tratadorErro;
+        controle.skinProperty().addListener((obs, antiga, nova) -> Platform.runLater(this::localizarBarra));
+        if (controle.getSkin() != null) {
+            localizarBarra();
+        }
+    }
+
+    /**
+     * Descarta os itens exibidos e carrega novamente a partir da primeira página.
+     * Respostas de buscas anteriores que ainda estejam em andamento são ignoradas.
+     */
+    public void reiniciar() {
+        geracao++;
+        itens.clear();
+        cursor = null;
+        fim = false;
+        carregando = false;
+        carregarMais();
+    }
+
+    /**
+     * Busca a próxima página, se houver e se nenhuma busca estiver em andamento.
+     */
+    public void carregarMais() {
+        if (carregando || fim) {
+            return;
+        }
+        carregando = true;
+        int geracaoDaBusca = geracao;
+        buscador.apply(cursor, tamanhoPagina).whenComplete((pagina, erro) -> Platform.runLater(() -> {
+            if (geracaoDaBusca != geracao) {
+                return;
+            }
+            carregando = false;
+            if (erro != null) {
+                fim = true;
+                tratadorErro.accept(Futuros.causa(erro));
+                return;
+            }
+            itens.addAll(pagina.getItens());
+            cursor = pagina.getProximoCursor();
+            fim = !pagina.temProxima();
+            // Se o conteúdo ainda não gera rolagem, o evento de rolagem nunca virá.
+            Platform.runLater(this::verificarPreenchimento);
+        }));
+    }
+
+    /**
+     * Indica se todas as páginas já foram carregadas.
+     * @return {@code true} se não há mais itens a buscar.
+     */
+    public boolean isCompleto() {
+        return fim;
+    }
+
+    /**
+     * Procura a barra de rolagem vertical criada pela skin do componente e passa a observá-la.
+     */
+    private void localizarBarra() {
+        for (Node no : controle.lookupAll(".scroll-bar")) {
+            if (no instanceof ScrollBar && ((ScrollBar) no).getOrientation() == Orientation.VERTICAL) {
+                if (no != barraVertical) {
+                    barraVertical = (ScrollBar) no;
+                    barraVertical.valueProperty().addListener((obs, antigo, novo) -> verificarRolagem());
+                    barraVertical.visibleProperty().addListener((obs, antigo, novo) -> verificarPreenchimento());
+                }
+                return;
+            }
+        }
+    }
+
+    private void verificarRolagem() {
+        if (barraVertical != null && barraVertical.getValue() >= barraVertical.getMax() * LIMIAR_ROLAGEM) {
+            carregarMais();
+        }
+    }
+
+    private void verificarPreenchimento() {
+        if (barraVertical == null) {
+            localizarBarra();
+        }
+        if (barraVertical == null || !barraVertical.isVisible()) {
+            carregarMais();
+        }
+    }
+}
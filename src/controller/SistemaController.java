@@ -8,14 +8,34 @@ package controller;
  */
 
 import database.FirebaseConfig;
+import database.Metricas;
 import excecoes.*;
 import model.*;
+import repository.AgregacaoVendas;
+import repository.DimensaoVenda;
+import repository.RelatorioIndiceLogin;
+import repository.ReservasEstoque;
 import repository.UsuarioRepository;
+import service.ContextoLeitura;
+import service.ExportadorVendas;
 import service.ProdutoService;
+import service.ProgressoImportacao;
+import service.ResumoExportacao;
+import service.Sessao;
+import service.SessaoService;
 import service.UsuarioService;
 import service.VendaService;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -38,6 +58,7 @@ public class SistemaController {
     private final ProdutoService produtoService;
     private final UsuarioService usuarioService;
     private final VendaService vendaService;
+    private final SessaoService sessaoService;
 
     /**
      * Constrói o controlador, inicializando todas as dependências de serviço necessárias.
@@ -48,6 +69,7 @@ public class SistemaController {
         this.produtoService = new ProdutoService();
         this.usuarioService = new UsuarioService();
         this.vendaService = new VendaService(this.produtoService, new repository.VendaRepository());
+        this.sessaoService = SessaoService.getInstancia();
     }
 
     /**
@@ -61,13 +83,16 @@ public class SistemaController {
 
          //setupUsuariosIniciais(); // Descomente para popular o banco na primeira execução.
 
-        Usuario usuarioLogado = executarLoopDeLogin();
+        Sessao sessao = executarLoopDeLogin();
 
-        if (usuarioLogado != null) {
-            executarLoopPrincipal(usuarioLogado);
+        if (sessao != null) {
+            executarLoopPrincipal(sessao);
+            sessaoService.encerrar(sessao.getToken());
         }
 
         System.out.println("Encerrando o sistema...");
+        repository.DiarioVendas.fecharPadrao();
+        repository.BufferEscritaVendas.fecharPadrao();
         scanner.close();
     }
 
@@ -75,18 +100,19 @@ public class SistemaController {
      * Gerencia o fluxo de autenticação, solicitando credenciais até que um login
      * válido seja realizado.
      *
-     * @return O objeto {@link Usuario} que foi autenticado com sucesso.
+     * @return A {@link Sessao} do usuário que foi autenticado com sucesso.
      */
-    private Usuario executarLoopDeLogin() {
-        Usuario usuarioLogado = null;
-        while (usuarioLogado == null) {
+    private Sessao executarLoopDeLogin() {
+        Sessao sessao = null;
+        while (sessao == null) {
             try {
                 System.out.println("\n--- LOGIN DO SISTEMA ---");
                 System.out.print("Usuário: ");
                 String login = scanner.nextLine();
                 System.out.print("Senha: ");
                 String senha = scanner.nextLine();
-                usuarioLogado = usuarioService.autenticar(login, senha);
+                sessao = sessaoService.entrar(login, senha);
+                Usuario usuarioLogado = sessao.getUsuario();
                 System.out.println("\nLogin bem-sucedido! Bem-vindo(a), " + usuarioLogado.getNome() + " (" + usuarioLogado.getCargo() + ")");
             } catch (AutenticacaoException e) {
                 System.err.println("ACESSO NEGADO: " + e.getMessage());
@@ -94,18 +120,30 @@ public class SistemaController {
                 System.err.println("Ocorreu um erro inesperado no login: " + e.getMessage());
             }
         }
-        return usuarioLogado;
+        return sessao;
     }
 
     /**
      * Gerencia o loop principal da aplicação, exibindo o menu e processando as opções
-     * do usuário até que a opção de sair seja escolhida.
+     * do usuário até que a opção de sair seja escolhida. A sessão é revalidada antes de
+     * cada opção, sem verificar a senha de novo; se o usuário tiver sido inativado ou a
+     * sessão expirar, o loop termina.
      *
-     * @param usuarioLogado O usuário que está logado e interagindo com o sistema.
+     * @param sessao A sessão do usuário que está logado e interagindo com o sistema.
      */
-    private void executarLoopPrincipal(Usuario usuarioLogado) {
+    private void executarLoopPrincipal(Sessao sessao) {
         boolean executando = true;
         while (executando) {
+            Usuario usuarioLogado;
+            try {
+                usuarioLogado = sessaoService.validar(sessao.getToken());
+            } catch (AutenticacaoException e) {
+                System.err.println("ACESSO NEGADO: " + e.getMessage());
+                return;
+            } catch (PersistenciaException e) {
+                System.err.println("ERRO: " + e.getMessage() + " Mantendo as permissões atuais da sessão.");
+                usuarioLogado = sessao.getUsuario();
+            }
             exibirMenu(usuarioLogado);
             try {
                 int opcao = scanner.nextInt();
@@ -129,6 +167,41 @@ public class SistemaController {
                         if (usuarioLogado.temPermissao(Permissao.GERENCIAR_ESTOQUE)) adicionarEstoqueProduto();
                         else System.err.println("Acesso Negado.");
                         break;
+                    case 5:
+                        if (usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) manterIndiceLogin(usuarioLogado);
+                        else System.err.println("Acesso Negado.");
+                        break;
+                    case 6:
+                        if (usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) consultarVendasDoDia();
+                        else System.err.println("Acesso Negado.");
+                        break;
+                    case 7:
+                        if (usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) preencherTimestampsVendas();
+                        else System.err.println("Acesso Negado.");
+                        break;
+                    case 8:
+                        if (usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) fechamentoDoDia();
+                        else System.err.println("Acesso Negado.");
+                        break;
+                    case 9:
+                        if (usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) relatorioReceitaPorTipo();
+                        else System.err.println("Acesso Negado.");
+                        break;
+                    case 10:
+                        if (usuarioLogado.temPermissao(Permissao.CADASTRAR_PRODUTO)) importarProdutos();
+                        else System.err.println("Acesso Negado.");
+                        break;
+                    case 11:
+                        if (usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) exportarVendas();
+                        else System.err.println("Acesso Negado.");
+                        break;
+                    case 12:
+                        if (usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) diagnosticoDesempenho();
+                        else System.err.println("Acesso Negado.");
+                        break;
+                    case 13:
+                        executando = bloquearTerminal(sessao);
+                        break;
                     case 0:
                         executando = false;
                         break;
@@ -142,6 +215,35 @@ public class SistemaController {
         }
     }
 
+    /**
+     * Bloqueia o terminal até que o usuário da sessão digite a senha de novo. A senha é
+     * conferida pelo {@link SessaoService#desbloquear(String, String)}, sem o BCrypt e sem
+     * consultar o banco.
+     *
+     * @param sessao A sessão do usuário logado.
+     * @return {@code true} se o terminal foi desbloqueado, ou {@code false} se o usuário
+     * preferiu sair do sistema.
+     */
+    private boolean bloquearTerminal(Sessao sessao) {
+        System.out.println("\n--- TERMINAL BLOQUEADO ---");
+        while (true) {
+            System.out.print("Senha de " + sessao.getUsuario().getUsuario() + " (vazio para sair do sistema): ");
+            String senha = scanner.nextLine();
+            if (senha.isEmpty()) {
+                return false;
+            }
+            try {
+                sessaoService.desbloquear(sessao.getToken(), senha);
+                System.out.println("Terminal desbloqueado.");
+                return true;
+            } catch (AutenticacaoException e) {
+                System.err.println("ACESSO NEGADO: " + e.getMessage());
+            } catch (Exception e) {
+                System.err.println("Ocorreu um erro inesperado no desbloqueio: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Exibe o menu de opções apropriado com base nas permissões do usuário..
      *
@@ -154,6 +256,7 @@ public class SistemaController {
         }
         if (usuario.temPermissao(Permissao.CADASTRAR_PRODUTO)) {
             System.out.println("2. Cadastrar Produto");
+            System.out.println("10. Importar Produtos de CSV");
         }
         if (usuario.temPermissao(Permissao.GERENCIAR_USUARIOS)) {
             System.out.println("3. Cadastrar Novo Atendente");
@@ -161,6 +264,16 @@ public class SistemaController {
         if (usuario.temPermissao(Permissao.GERENCIAR_ESTOQUE)) {
             System.out.println("4. Gerenciar Estoque");
         }
+        if (usuario.temPermissao(Permissao.GERENCIAR_USUARIOS)) {
+            System.out.println("5. Verificar/Reconstruir Índice de Login");
+            System.out.println("6. Consultar Vendas do Dia");
+            System.out.println("7. Preencher Timestamp de Vendas Antigas");
+            System.out.println("8. Fechamento do Dia");
+            System.out.println("9. Receita por Tipo e Semana (mês)");
+            System.out.println("11. Exportar Vendas");
+            System.out.println("12. Diagnóstico de Desempenho");
+        }
+        System.out.println("13. Bloquear Terminal");
         System.out.println("0. Sair do Sistema");
         System.out.print("Escolha uma opção: ");
     }
@@ -206,15 +319,19 @@ public class SistemaController {
      * @param usuario O usuário que está realizando a venda.
      */
     private void realizarVenda(Usuario usuario) {
+        ReservasEstoque.Reserva reserva = null;
+        ContextoLeitura contexto = new ContextoLeitura();
         try {
             System.out.println("\n--- REGISTRO DE VENDA ---");
             System.out.print("Digite o ID do produto: ");
             String produtoId = scanner.nextLine();
-            Produto produto = produtoService.buscarProduto(produtoId);
+            Produto produto = produtoService.buscarProduto(produtoId, contexto);
             System.out.println("Produto encontrado: " + produto.getNome() + " | Preço Unitário: R$" + produto.getPreco());
             System.out.print("Digite a quantidade: ");
             int quantidade = scanner.nextInt();
             scanner.nextLine();
+            reserva = vendaService.reservar(produtoId, quantidade, contexto);
+            System.out.println(quantidade + " unidade(s) reservada(s) para esta venda.");
             System.out.print("Digite o desconto em R$ (ou 0): ");
             double desconto = scanner.nextDouble();
             scanner.nextLine();
@@ -226,16 +343,21 @@ public class SistemaController {
             int formaPagamentoOp = scanner.nextInt();
             scanner.nextLine();
             FormaPagamento formaPagamento = FormaPagamento.values()[formaPagamentoOp - 1];
-            Venda venda = vendaService.registrarVenda(usuario, produtoId, quantidade, formaPagamento, desconto);
+            Venda venda = vendaService.registrarVenda(usuario, reserva, formaPagamento, desconto, contexto);
             System.out.println("\nVENDA REALIZADA COM SUCESSO!");
             System.out.println("Valor Total Pago: R$" + String.format("%.2f", venda.getValorTotal()));
-            System.out.println("Estoque restante do produto: " + produtoService.buscarProduto(produtoId).getQuantidade());
+            Produto restante = produtoService.buscarProduto(produtoId, contexto);
+            System.out.println("Estoque disponível do produto: " + vendaService.getDisponivelParaVenda(restante));
         } catch (ProdutoNaoEncontradoException | EstoqueInsuficienteException e) {
             System.err.println("Erro na venda: " + e.getMessage());
         } catch (IllegalArgumentException e) {
             System.err.println("Erro de validação: " + e.getMessage());
         } catch (Exception e) {
             System.err.println("Ocorreu um erro inesperado ao registrar a venda: " + e.getMessage());
+        } finally {
+            if (reserva != null && vendaService.liberarReserva(reserva)) {
+                System.out.println("LOG: Reserva da venda não concluída liberada.");
+            }
         }
     }
 
@@ -270,6 +392,38 @@ public class SistemaController {
         }
     }
 
+    /**
+     * Gerencia a interface de console para a importação de produtos a partir de um arquivo
+     * CSV, exibindo o andamento a cada lote.
+     */
+    private void importarProdutos() {
+        System.out.println("\n--- IMPORTAÇÃO DE PRODUTOS ---");
+        System.out.println("Colunas esperadas no cabeçalho: id, tipo, nome, preco, quantidade");
+        System.out.print("Caminho do arquivo CSV: ");
+        Path arquivo = Paths.get(scanner.nextLine().trim());
+        if (!Files.isRegularFile(arquivo)) {
+            System.err.println("Arquivo não encontrado: " + arquivo);
+            return;
+        }
+        try {
+            ProgressoImportacao resultado = produtoService.importarCsv(arquivo, progresso -> {
+                if (!progresso.isConcluida()) {
+                    System.out.print("\rLidas: " + progresso.getLidas() + " | Importadas: " + progresso.getImportadas()
+                            + " | Rejeitadas: " + progresso.getRejeitadas());
+                }
+            });
+            System.out.println("\nImportação concluída em " + resultado.getDuracaoMs() / 1000.0 + " s: "
+                    + resultado.getImportadas() + " produto(s) importado(s), " + resultado.getRejeitadas() + " rejeitado(s).");
+            if (resultado.getArquivoRejeitadas() != null) {
+                System.out.println("Linhas rejeitadas e motivos em: " + resultado.getArquivoRejeitadas());
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro no arquivo: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Ocorreu um erro ao importar os produtos: " + e.getMessage());
+        }
+    }
+
     /**
      * Gerencia a interface de console para o caso de uso "Cadastrar Novo Atendente".
      *
@@ -299,6 +453,169 @@ public class SistemaController {
         }
     }
 
+    /**
+     * Gerencia a interface de console para a verificação e a reconstrução do índice de login.
+     *
+     * @param gerenteLogado O gerente que está executando a ação.
+     */
+    private void manterIndiceLogin(Usuario gerenteLogado) {
+        try {
+            System.out.println("\n--- ÍNDICE DE LOGIN ---");
+            RelatorioIndiceLogin relatorio = usuarioService.verificarIndiceLogin(gerenteLogado);
+            System.out.println(relatorio);
+            if (relatorio.isConsistente()) {
+                return;
+            }
+
+            System.out.print("Deseja reconstruir o índice agora? (s/n): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("s")) {
+                int entradas = usuarioService.reconstruirIndiceLogin(gerenteLogado);
+                System.out.println("\nÍndice reconstruído com " + entradas + " entradas.");
+            }
+        } catch (AcessoNegadoException e) {
+            System.err.println("Erro de Permissão: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Ocorreu um erro ao manter o índice de login: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gerencia a interface de console para a consulta das vendas de um dia.
+     * A consulta é feita por período sobre o timestamp indexado, lendo apenas as vendas do dia.
+     */
+    private void consultarVendasDoDia() {
+        try {
+            System.out.println("\n--- VENDAS DO DIA ---");
+            System.out.print("Data (dd/MM/aaaa, vazio para hoje): ");
+            String texto = scanner.nextLine().trim();
+            LocalDate dia = texto.isEmpty() ? LocalDate.now() : LocalDate.parse(texto, DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+
+            List<VendaDTO> vendas = vendaService.buscarVendasDoDia(dia);
+            double total = 0;
+            for (VendaDTO v : vendas) {
+                System.out.println(v.getDataHora() + " | Produto: " + v.getIdProduto() + " | Qtd: " + v.getQuantidade()
+                        + " | " + v.getFormaPagamento() + " | R$" + String.format("%.2f", v.getValorTotal()));
+                total += v.getValorTotal();
+            }
+            System.out.println("\n" + vendas.size() + " venda(s) | Total: R$" + String.format("%.2f", total));
+        } catch (DateTimeParseException e) {
+            System.err.println("Erro de validação: Data inválida.");
+        } catch (Exception e) {
+            System.err.println("Ocorreu um erro ao consultar as vendas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gerencia a interface de console para o preenchimento do timestamp das vendas
+     * gravadas antes de o campo existir.
+     */
+    private void preencherTimestampsVendas() {
+        try {
+            int atualizadas = vendaService.preencherTimestampsVendas();
+            System.out.println("\nTimestamp preenchido em " + atualizadas + " venda(s).");
+        } catch (Exception e) {
+            System.err.println("Ocorreu um erro ao preencher o timestamp das vendas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gerencia a interface de console para o fechamento do dia, exibindo os contadores
+     * consolidados e permitindo recalculá-los a partir das vendas.
+     */
+    private void fechamentoDoDia() {
+        try {
+            System.out.println("\n--- FECHAMENTO DO DIA ---");
+            System.out.print("Data (dd/MM/aaaa, vazio para hoje): ");
+            String texto = scanner.nextLine().trim();
+            LocalDate dia = texto.isEmpty() ? LocalDate.now() : LocalDate.parse(texto, DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+
+            System.out.println(vendaService.buscarConsolidadoDoDia(dia));
+            System.out.print("\nDeseja recalcular o consolidado a partir das vendas? (s/n): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("s")) {
+                System.out.println(vendaService.reconstruirConsolidadoDoDia(dia));
+            }
+        } catch (DateTimeParseException e) {
+            System.err.println("Erro de validação: Data inválida.");
+        } catch (Exception e) {
+            System.err.println("Ocorreu um erro no fechamento do dia: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gerencia a interface de console para o relatório de receita por tipo de produto e por
+     * semana de um mês, calculado sobre o armazém analítico local.
+     */
+    private void relatorioReceitaPorTipo() {
+        try {
+            System.out.println("\n--- RECEITA POR TIPO E SEMANA ---");
+            System.out.print("Mês (MM/aaaa, vazio para o mês atual): ");
+            String texto = scanner.nextLine().trim();
+            YearMonth mes = texto.isEmpty() ? YearMonth.now() : YearMonth.parse(texto, DateTimeFormatter.ofPattern("MM/yyyy"));
+
+            AgregacaoVendas relatorio = vendaService.agregarVendas(mes.atDay(1).atStartOfDay(),
+                    mes.plusMonths(1).atDay(1).atStartOfDay(), DimensaoVenda.TIPO, DimensaoVenda.SEMANA);
+            System.out.println(relatorio);
+        } catch (DateTimeParseException e) {
+            System.err.println("Erro de validação: Mês inválido.");
+        } catch (Exception e) {
+            System.err.println("Ocorreu um erro ao gerar o relatório: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exibe as métricas de latência das operações do sistema e permite zerá-las.
+     */
+    private void diagnosticoDesempenho() {
+        System.out.println("\n--- DIAGNÓSTICO DE DESEMPENHO (ms) ---");
+        System.out.print(Metricas.relatorio());
+        System.out.print("Zerar as métricas? (s/N): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("s")) {
+            Metricas.zerar();
+            System.out.println("LOG: Métricas de latência zeradas.");
+        }
+    }
+
+    /**
+     * Gerencia a interface de console para a exportação de vendas, de um período ou de todo
+     * o histórico, em CSV ou JSON Lines.
+     */
+    private void exportarVendas() {
+        try {
+            System.out.println("\n--- EXPORTAR VENDAS ---");
+            DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+            System.out.print("Data inicial (dd/MM/aaaa, vazio para todo o histórico): ");
+            String textoInicio = scanner.nextLine().trim();
+            LocalDateTime inicio = null;
+            LocalDateTime fim = null;
+            if (!textoInicio.isEmpty()) {
+                inicio = LocalDate.parse(textoInicio, formato).atStartOfDay();
+                System.out.print("Data final, inclusiva (dd/MM/aaaa, vazio para hoje): ");
+                String textoFim = scanner.nextLine().trim();
+                LocalDate ultimoDia = textoFim.isEmpty() ? LocalDate.now() : LocalDate.parse(textoFim, formato);
+                fim = ultimoDia.plusDays(1).atStartOfDay();
+            }
+            System.out.print("Formato (1 - CSV, 2 - JSON Lines): ");
+            ExportadorVendas.Formato tipo = scanner.nextLine().trim().equals("2")
+                    ? ExportadorVendas.Formato.JSONL : ExportadorVendas.Formato.CSV;
+            System.out.print("Comprimir com gzip? (s/n): ");
+            boolean gzip = scanner.nextLine().trim().equalsIgnoreCase("s");
+            String extensao = (tipo == ExportadorVendas.Formato.CSV ? ".csv" : ".jsonl") + (gzip ? ".gz" : "");
+            System.out.print("Caminho do arquivo (vazio para vendas" + extensao + "): ");
+            String caminho = scanner.nextLine().trim();
+            Path destino = Paths.get(caminho.isEmpty() ? "vendas" + extensao : caminho);
+
+            ResumoExportacao resumo = vendaService.exportarVendas(destino, inicio, fim, tipo, gzip);
+            System.out.println("Exportação concluída em " + resumo.getDuracaoMs() / 1000.0 + " s: " + resumo.getVendas()
+                    + " venda(s), " + resumo.getLinhas() + " linha(s), " + resumo.getBytes() + " bytes em " + resumo.getArquivo());
+        } catch (DateTimeParseException e) {
+            System.err.println("Erro de validação: Data inválida.");
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro de validação: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Ocorreu um erro ao exportar as vendas: " + e.getMessage());
+        }
+    }
+
     /**
      * Gerencia a interface de console para o caso de uso "Adicionar Estoque de Produto".
      */
@@ -308,16 +625,17 @@ public class SistemaController {
             System.out.print("Digite o ID do produto para atualizar: ");
             String produtoId = scanner.nextLine();
 
-            Produto produto = produtoService.buscarProduto(produtoId);
+            ContextoLeitura contexto = new ContextoLeitura();
+            Produto produto = produtoService.buscarProduto(produtoId, contexto);
             System.out.println("Produto: " + produto.getNome() + " | Estoque Atual: " + produto.getQuantidade());
 
             System.out.print("Digite a quantidade a ser ADICIONADA ao estoque: ");
             int quantidadeAdicional = scanner.nextInt();
             scanner.nextLine();
 
-            produtoService.adicionarEstoque(produtoId, quantidadeAdicional);
+            produtoService.adicionarEstoque(produtoId, quantidadeAdicional, contexto);
 
-            Produto produtoAtualizado = produtoService.buscarProduto(produtoId);
+            Produto produtoAtualizado = produtoService.buscarProduto(produtoId, contexto);
             System.out.println("\nESTOQUE ATUALIZADO COM SUCESSO!");
             System.out.println("Novo estoque do produto '" + produtoAtualizado.getNome() + "': " + produtoAtualizado.getQuantidade());
 
@@ -7,8 +7,10 @@ package controller;
  * Lorena da Silva Borges
  */
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
@@ -18,10 +20,14 @@ import javafx.scene.Scene;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import model.FormaPagamento;
 import model.Usuario;
+import model.Venda;
+import repository.ReservasEstoque;
 import repository.VendaRepository;
+import service.Futuros;
 import service.ProdutoService;
 import service.VendaService;
 import excecoes.EstoqueInsuficienteException;
@@ -32,6 +38,10 @@ import excecoes.ProdutoNaoEncontradoException;
  * Esta classe gerencia o formulário de vendas, capturando as entradas do usuário,
  * orquestrando a busca de produtos através de uma janela modal e delegando a lógica
  * de negócio para o {@link VendaService}.
+ * <p>
+ * Assim que o produto e a quantidade são informados, as unidades são reservadas, para que
+ * a venda não seja recusada por falta de estoque depois de o cliente ter pago. A reserva
+ * acompanha as alterações dos campos e é liberada se o formulário for limpo.
  *
  * @see MainViewController
  * @see BuscaProdutoViewController
@@ -44,10 +54,12 @@ public class VendaViewController {
     @FXML private TextField descontoField;
     @FXML private ComboBox<FormaPagamento> formaPagamentoBox;
     @FXML private Label statusVendaLabel;
+    @FXML private Button registrarVendaButton;
 
     private Usuario usuarioLogado;
     private final ProdutoService produtoService = new ProdutoService();
     private final VendaService vendaService = new VendaService(produtoService, new VendaRepository());
+    private ReservasEstoque.Reserva reserva;
 
     /**
      * Metodo de inicialização do JavaFX, chamado automaticamente após o FXML ser carregado.
@@ -58,6 +70,12 @@ public class VendaViewController {
     public void initialize() {
         formaPagamentoBox.getItems().setAll(FormaPagamento.values());
         formaPagamentoBox.getSelectionModel().selectFirst();
+        produtoIdField.focusedProperty().addListener((obs, antes, focado) -> {
+            if (!focado) atualizarReserva();
+        });
+        quantidadeField.focusedProperty().addListener((obs, antes, focado) -> {
+            if (!focado) atualizarReserva();
+        });
     }
 
     /**
@@ -95,6 +113,7 @@ public class VendaViewController {
             String idSelecionado = buscaController.getProdutoIdSelecionado();
             if (idSelecionado != null) {
                 produtoIdField.setText(idSelecionado);
+                atualizarReserva();
             }
 
         } catch (IOException e) {
@@ -103,39 +122,112 @@ public class VendaViewController {
         }
     }
 
+    /**
+     * Reserva as unidades do produto e da quantidade informados, liberando a reserva anterior
+     * se os campos mudaram. Campos incompletos apenas liberam a reserva.
+     */
+    private void atualizarReserva() {
+        String produtoId = produtoIdField.getText();
+        int quantidade;
+        try {
+            quantidade = Integer.parseInt(quantidadeField.getText());
+        } catch (NumberFormatException e) {
+            quantidade = 0;
+        }
+        if (reservaCorresponde(produtoId, quantidade)) {
+            return;
+        }
+        liberarReserva();
+        if (produtoId == null || produtoId.isEmpty() || quantidade <= 0) {
+            return;
+        }
+        int quantidadeReservada = quantidade;
+        vendaService.reservarAsync(produtoId, quantidade).whenComplete((nova, erro) -> Platform.runLater(() -> {
+            if (erro != null) {
+                statusVendaLabel.setText(Futuros.causa(erro).getMessage());
+                return;
+            }
+            if (reserva != null || !produtoId.equals(produtoIdField.getText())
+                    || !String.valueOf(quantidadeReservada).equals(quantidadeField.getText())) {
+                vendaService.liberarReserva(nova);
+                return;
+            }
+            reserva = nova;
+            statusVendaLabel.setText(quantidadeReservada + " unidade(s) reservada(s).");
+        }));
+    }
+
+    private boolean reservaCorresponde(String produtoId, int quantidade) {
+        return reserva != null && reserva.isAtiva()
+                && reserva.getProdutoId().equals(produtoId) && reserva.getQuantidade() == quantidade;
+    }
+
+    private void liberarReserva() {
+        if (reserva != null) {
+            vendaService.liberarReserva(reserva);
+            reserva = null;
+        }
+    }
+
     /**
      * Manipula o clique no botão "Registrar Venda".
      * Coleta todos os dados do formulário, valida as entradas numéricas e chama
-     * o {@link VendaService} para processar a venda. Exibe alertas para o usuário
+     * o {@link VendaService} para processar a venda, usando a reserva feita para os mesmos
+     * produto e quantidade, se houver. Exibe alertas para o usuário
      * em caso de erro ou uma mensagem de sucesso.
      */
     @FXML
     private void handleRegistrarVenda() {
+        String produtoId = produtoIdField.getText();
+        int quantidade;
+        double desconto;
         try {
-            String produtoId = produtoIdField.getText();
-            int quantidade = Integer.parseInt(quantidadeField.getText());
-            double desconto = Double.parseDouble(descontoField.getText());
-            FormaPagamento formaPagamento = formaPagamentoBox.getValue();
-
-            vendaService.registrarVenda(usuarioLogado, produtoId, quantidade, formaPagamento, desconto);
-
-            statusVendaLabel.setText("Venda registrada com sucesso!");
-            limparCampos();
-
+            quantidade = Integer.parseInt(quantidadeField.getText());
+            desconto = Double.parseDouble(descontoField.getText());
         } catch (NumberFormatException e) {
             exibirAlerta("Erro de Formato", "Quantidade e desconto devem ser números válidos.");
-        } catch (ProdutoNaoEncontradoException | EstoqueInsuficienteException | IllegalArgumentException e) {
-            exibirAlerta("Erro de Venda", e.getMessage());
-        } catch (Exception e) {
-            exibirAlerta("Erro Inesperado", "Ocorreu um erro: " + e.getMessage());
-            e.printStackTrace();
+            return;
         }
+        FormaPagamento formaPagamento = formaPagamentoBox.getValue();
+
+        definirProcessando(true);
+        CompletableFuture<Venda> registro = reservaCorresponde(produtoId, quantidade)
+                ? vendaService.registrarVendaAsync(usuarioLogado, reserva, formaPagamento, desconto)
+                : vendaService.registrarVendaAsync(usuarioLogado, produtoId, quantidade, formaPagamento, desconto);
+        registro.whenComplete((venda, erro) -> Platform.runLater(() -> {
+            definirProcessando(false);
+            if (erro == null) {
+                statusVendaLabel.setText("Venda registrada com sucesso!");
+                limparCampos();
+                return;
+            }
+            Throwable causa = Futuros.causa(erro);
+            if (causa instanceof ProdutoNaoEncontradoException || causa instanceof EstoqueInsuficienteException
+                    || causa instanceof IllegalArgumentException) {
+                exibirAlerta("Erro de Venda", causa.getMessage());
+            } else {
+                exibirAlerta("Erro Inesperado", "Ocorreu um erro: " + causa.getMessage());
+                causa.printStackTrace();
+            }
+        }));
+    }
+
+    /**
+     * Indica visualmente que uma venda está em processamento, impedindo que o mesmo
+     * formulário seja enviado duas vezes.
+     *
+     * @param processando {@code true} enquanto a venda não for concluída.
+     */
+    private void definirProcessando(boolean processando) {
+        registrarVendaButton.setDisable(processando);
+        statusVendaLabel.setText(processando ? "Processando venda..." : "");
     }
 
     /**
      * Metodo auxiliar para limpar todos os campos do formulário após uma operação bem-sucedida.
      */
     private void limparCampos() {
+        liberarReserva();
         produtoIdField.clear();
         quantidadeField.clear();
         descontoField.setText("0.0");
@@ -0,0 +1,179 @@
+package database;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.api.core.ApiFuture;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+import interfaces.IBancoDados;
+import interfaces.IConsulta;
+import interfaces.IReferencia;
+
+import java.util.Map;
+
+/**
+ * Implementação de {@link IBancoDados} sobre o Firebase Realtime Database. Cada método apenas
+ * repassa a chamada à {@link Query} ou à {@link DatabaseReference} correspondente do SDK.
+ *
+ * @see FirebaseConfig
+ */
+public class BancoFirebase implements IBancoDados {
+
+    private final FirebaseDatabase database;
+
+    /**
+     * Cria o banco sobre uma instância já inicializada do SDK.
+     *
+     * @param database A instância do Realtime Database.
+     */
+    public BancoFirebase(FirebaseDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public IReferencia getReferencia() {
+        return new ReferenciaFirebase(database.getReference());
+    }
+
+    @Override
+    public IReferencia getReferencia(String caminho) {
+        return new ReferenciaFirebase(database.getReference(caminho));
+    }
+
+    /**
+     * Consulta do SDK exposta como {@link IConsulta}.
+     */
+    private static class ConsultaFirebase implements IConsulta {
+        private final Query query;
+
+        ConsultaFirebase(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        public IConsulta orderByKey() {
+            return new ConsultaFirebase(query.orderByKey());
+        }
+
+        @Override
+        public IConsulta orderByChild(String caminho) {
+            return new ConsultaFirebase(query.orderByChild(caminho));
+        }
+
+        @Override
+        public IConsulta startAt(String valor) {
+            return new ConsultaFirebase(query.startAt(valor));
+        }
+
+        @Override
+        public IConsulta startAt(double valor) {
+            return new ConsultaFirebase(query.startAt(valor));
+        }
+
+        @Override
+        public IConsulta startAt(double valor, String chave) {
+            return new ConsultaFirebase(query.startAt(valor, chave));
+        }
+
+        @Override
+        public IConsulta endAt(String valor) {
+            return new ConsultaFirebase(query.endAt(valor));
+        }
+
+        @Override
+        public IConsulta endAt(double valor) {
+            return new ConsultaFirebase(query.endAt(valor));
+        }
+
+        @Override
+        public IConsulta equalTo(String valor) {
+            return new ConsultaFirebase(query.equalTo(valor));
+        }
+
+        @Override
+        public IConsulta limitToFirst(int limite) {
+            return new ConsultaFirebase(query.limitToFirst(limite));
+        }
+
+        @Override
+        public IConsulta limitToLast(int limite) {
+            return new ConsultaFirebase(query.limitToLast(limite));
+        }
+
+        @Override
+        public void addListenerForSingleValueEvent(ValueEventListener ouvinte) {
+            query.addListenerForSingleValueEvent(ouvinte);
+        }
+
+        @Override
+        public ValueEventListener addValueEventListener(ValueEventListener ouvinte) {
+            return query.addValueEventListener(ouvinte);
+        }
+
+        @Override
+        public ChildEventListener addChildEventListener(ChildEventListener ouvinte) {
+            return query.addChildEventListener(ouvinte);
+        }
+
+        @Override
+        public void removeEventListener(ValueEventListener ouvinte) {
+            query.removeEventListener(ouvinte);
+        }
+
+        @Override
+        public void removeEventListener(ChildEventListener ouvinte) {
+            query.removeEventListener(ouvinte);
+        }
+    }
+
+    /**
+     * Referência do SDK exposta como {@link IReferencia}.
+     */
+    private static class ReferenciaFirebase extends ConsultaFirebase implements IReferencia {
+        private final DatabaseReference ref;
+
+        ReferenciaFirebase(DatabaseReference ref) {
+            super(ref);
+            this.ref = ref;
+        }
+
+        @Override
+        public IReferencia child(String caminho) {
+            return new ReferenciaFirebase(ref.child(caminho));
+        }
+
+        @Override
+        public String getKey() {
+            return ref.getKey();
+        }
+
+        @Override
+        public ApiFuture<Void> setValueAsync(Object valor) {
+            return ref.setValueAsync(valor);
+        }
+
+        @Override
+        public ApiFuture<Void> updateChildrenAsync(Map<String, Object> atualizacoes) {
+            return ref.updateChildrenAsync(atualizacoes);
+        }
+
+        @Override
+        public ApiFuture<Void> removeValueAsync() {
+            return ref.removeValueAsync();
+        }
+
+        @Override
+        public void runTransaction(Transaction.Handler handler) {
+            ref.runTransaction(handler);
+        }
+    }
+}
@@ -0,0 +1,872 @@
+package database;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseException;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.InternalHelpers;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+import com.google.firebase.database.core.Path;
+import com.google.firebase.database.snapshot.ChildKey;
+import com.google.firebase.database.snapshot.EmptyNode;
+import com.google.firebase.database.snapshot.Index;
+import com.google.firebase.database.snapshot.IndexedNode;
+import com.google.firebase.database.snapshot.KeyIndex;
+import com.google.firebase.database.snapshot.NamedNode;
+import com.google.firebase.database.snapshot.Node;
+import com.google.firebase.database.snapshot.NodeUtilities;
+import com.google.firebase.database.snapshot.PathIndex;
+import com.google.firebase.database.utilities.encoding.CustomClassMapper;
+import interfaces.IBancoDados;
+import interfaces.IConsulta;
+import interfaces.IReferencia;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Banco de dados em memória com a semântica do Firebase Realtime Database, para testes de
+ * carga e benchmarks do fluxo de venda sem rede e sem conta de serviço.
+ * <p>
+ * Os dados ficam em uma árvore de nós imutável do próprio SDK, e os ouvintes recebem
+ * {@link DataSnapshot}s reais, de modo que a conversão para as classes do modelo é a mesma
+ * do Firebase. São suportados:
+ * <ul>
+ *     <li>leituras únicas e ouvintes de valor e de filhos, com as consultas de {@link IConsulta};</li>
+ *     <li>escritas, remoções e atualizações multi-caminho atômicas;</li>
+ *     <li>transações, executadas uma de cada vez sobre o valor atual ou, como no SDK, primeiro
+ *     sobre o valor em cache no cliente ({@link #setTransacoesComCacheLocal(boolean)});</li>
+ *     <li>o nó {@code .info/connected}, alterado por {@link #setConectado(boolean)}.</li>
+ * </ul>
+ * Como no SDK, todos os callbacks são chamados por uma única thread ("banco-memoria"), e as
+ * escritas de um mesmo cliente são aplicadas na ordem em que foram feitas. Eventos
+ * {@code onChildMoved} não são gerados. Para os ouvintes de filhos sem ordenação nem limites,
+ * cada escrita compara apenas os filhos que ela tocou, e não o nó observado inteiro.
+ * <p>
+ * Cada operação pode receber uma latência fixa somada a uma variação aleatória, e falhar com a
+ * probabilidade configurada: escritas completam o {@link ApiFuture} com exceção, transações
+ * chamam {@code onComplete} com erro e leituras únicas chamam {@code onCancelled}, sempre com o
+ * código {@link DatabaseError#UNAVAILABLE}. Ouvintes contínuos não sofrem falhas. Enquanto o
+ * banco estiver desconectado, as operações ficam retidas e são executadas, em ordem, na reconexão.
+ *
+ * @see FirebaseConfig
+ */
+public class BancoMemoria implements IBancoDados {
+
+    private static final ChildKey INFO = ChildKey.fromString(".info");
+    private static FirebaseDatabase referencias;
+
+    private final ScheduledExecutorService servidor;
+    private final Random aleatorio = new Random();
+    private final List<Ouvinte> ouvintes = new CopyOnWriteArrayList<>();
+    private final Set<LeituraUnica> leiturasPendentes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong operacoes = new AtomicLong();
+    private final AtomicLong falhasInjetadas = new AtomicLong();
+
+    /** Estado do servidor, acessado somente pela thread "banco-memoria". */
+    private Node dados = EmptyNode.Empty();
+    private boolean conectado = true;
+    private final List<Runnable> retidas = new ArrayList<>();
+    private final Map<String, IndexedNode> indexados = new HashMap<>();
+
+    private volatile long latenciaNanos;
+    private volatile long variacaoNanos;
+    private volatile double taxaFalhas;
+    private volatile boolean transacoesComCacheLocal;
+    private long proximaEscrita = Long.MIN_VALUE;
+
+    /**
+     * Cria um banco vazio, sem latência e sem falhas.
+     */
+    public BancoMemoria() {
+        this(0, 0, 0);
+    }
+
+    /**
+     * Cria um banco vazio com latência e falhas injetadas.
+     *
+     * @param latenciaMillis A latência mínima de cada operação, em milissegundos.
+     * @param variacaoMillis A variação aleatória somada à latência, de zero até este valor.
+     * @param taxaFalhas     A probabilidade, entre 0 e 1, de uma operação falhar.
+     */
+    public BancoMemoria(long latenciaMillis, long variacaoMillis, double taxaFalhas) {
+        setLatencia(latenciaMillis, variacaoMillis);
+        setTaxaFalhas(taxaFalhas);
+        this.servidor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "banco-memoria");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Cria um banco configurado pelas propriedades de sistema {@code pdv.banco.latenciaMs},
+     * {@code pdv.banco.variacaoMs}, {@code pdv.banco.taxaFalhas}, {@code pdv.banco.semente} e
+     * {@code pdv.banco.transacoesCacheLocal}.
+     *
+     * @return O novo banco.
+     */
+    public static BancoMemoria dePropriedades() {
+        BancoMemoria banco = new BancoMemoria(Long.getLong("pdv.banco.latenciaMs", 0L),
+                Long.getLong("pdv.banco.variacaoMs", 0L),
+                Double.parseDouble(System.getProperty("pdv.banco.taxaFalhas", "0")));
+        Long semente = Long.getLong("pdv.banco.semente");
+        if (semente != null) {
+            banco.setSemente(semente);
+        }
+        banco.setTransacoesComCacheLocal(Boolean.getBoolean("pdv.banco.transacoesCacheLocal"));
+        return banco;
+    }
+
+    @Override
+    public IReferencia getReferencia() {
+        return new ReferenciaMemoria(Path.getEmptyPath());
+    }
+
+    @Override
+    public IReferencia getReferencia(String caminho) {
+        return new ReferenciaMemoria(new Path(caminho));
+    }
+
+    /**
+     * Altera a latência das próximas operações.
+     *
+     * @param latenciaMillis A latência mínima, em milissegundos.
+     * @param variacaoMillis A variação aleatória máxima, em milissegundos.
+     */
+    public void setLatencia(long latenciaMillis, long variacaoMillis) {
+        if (latenciaMillis < 0 || variacaoMillis < 0) {
+            throw new IllegalArgumentException("ERRO: A latência do banco em memória não pode ser negativa.");
+        }
+        this.latenciaNanos = TimeUnit.MILLISECONDS.toNanos(latenciaMillis);
+        this.variacaoNanos = TimeUnit.MILLISECONDS.toNanos(variacaoMillis);
+    }
+
+    /**
+     * Altera a probabilidade de falha das próximas operações.
+     *
+     * @param taxaFalhas A probabilidade, entre 0 e 1.
+     */
+    public void setTaxaFalhas(double taxaFalhas) {
+        if (!(taxaFalhas >= 0 && taxaFalhas <= 1)) {
+            throw new IllegalArgumentException("ERRO: A taxa de falhas deve estar entre 0 e 1.");
+        }
+        this.taxaFalhas = taxaFalhas;
+    }
+
+    /**
+     * Fixa a semente do gerador aleatório, para repetir a mesma sequência de latências e falhas.
+     *
+     * @param semente A semente.
+     */
+    public void setSemente(long semente) {
+        aleatorio.setSeed(semente);
+    }
+
+    /**
+     * Define o valor recebido pela primeira chamada de {@code doTransaction}. Desligado (o
+     * padrão), a transação sempre parte do valor atual do servidor. Ligado, ela parte, como no
+     * SDK, do valor em cache no cliente: o último valor entregue a um ouvinte sem ordenação
+     * nem limites que observe o caminho, ou {@code null} se não houver nenhum. Se a primeira
+     * chamada abortar, a transação termina sem consultar o servidor; se o valor em cache
+     * diferir do servidor, {@code doTransaction} é chamado de novo com o valor do servidor.
+     * Assim, um handler que aborta quando recebe {@code null} falha aqui como falharia no SDK.
+     *
+     * @param ligado {@code true} para partir do valor em cache.
+     */
+    public void setTransacoesComCacheLocal(boolean ligado) {
+        this.transacoesComCacheLocal = ligado;
+    }
+
+    /**
+     * Simula a perda ou a volta da conexão. Desconectado, o banco retém as operações e
+     * publica {@code false} em {@code .info/connected}; na reconexão, executa as operações
+     * retidas na ordem em que foram feitas.
+     *
+     * @param conectado {@code true} para conectar, {@code false} para desconectar.
+     */
+    public void setConectado(boolean conectado) {
+        servidor.execute(() -> {
+            if (this.conectado == conectado) {
+                return;
+            }
+            this.conectado = conectado;
+            System.out.println("LOG: Banco em memória " + (conectado ? "reconectado" : "desconectado") + ".");
+            notificar(Collections.singletonList(new Path(INFO)));
+            if (conectado) {
+                List<Runnable> pendentes = new ArrayList<>(retidas);
+                retidas.clear();
+                pendentes.forEach(this::executar);
+            }
+        });
+    }
+
+    /**
+     * Grava um valor diretamente, sem latência e sem falhas, e aguarda a gravação.
+     * Serve para preparar os dados de um teste; não deve ser chamado de dentro de um callback.
+     *
+     * @param caminho O caminho absoluto do nó.
+     * @param valor   O conteúdo a ser gravado.
+     */
+    public void carregar(String caminho, Object valor) {
+        Path path = new Path(caminho);
+        validarEscrita(path);
+        Node no = converter(valor);
+        aguardar(() -> {
+            dados = dados.updateChild(path, no);
+            notificar(Collections.singletonList(path));
+            return null;
+        });
+    }
+
+    /**
+     * Lê um nó diretamente, sem latência e sem falhas, e aguarda o resultado.
+     * Não deve ser chamado de dentro de um callback.
+     *
+     * @param caminho O caminho absoluto do nó.
+     * @return O conteúdo atual do nó.
+     */
+    public DataSnapshot ler(String caminho) {
+        Path path = new Path(caminho);
+        return aguardar(() -> snapshot(path, ler(path), null));
+    }
+
+    /**
+     * Retorna a quantidade de operações recebidas desde a criação do banco.
+     * @return O número de operações.
+     */
+    public long getTotalOperacoes() {
+        return operacoes.get();
+    }
+
+    /**
+     * Retorna a quantidade de operações que falharam por injeção desde a criação do banco.
+     * @return O número de falhas injetadas.
+     */
+    public long getTotalFalhasInjetadas() {
+        return falhasInjetadas.get();
+    }
+
+    private <T> T aguardar(Callable<T> tarefa) {
+        try {
+            return servidor.submit(tarefa).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ERRO: Operação no banco em memória interrompida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("ERRO: Falha no banco em memória: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Agendamento, latência e falhas
+    // ---------------------------------------------------------------------------------------
+
+    private long sortearAtraso() {
+        long variacao = variacaoNanos;
+        return latenciaNanos + (variacao > 0 ? (long) (aleatorio.nextDouble() * variacao) : 0);
+    }
+
+    /**
+     * Agenda uma leitura. As leituras de {@code .info}, que no SDK são respondidas pelo próprio
+     * cliente, são executadas sem latência e mesmo com o banco desconectado.
+     */
+    private void agendarLeitura(Path caminho, Runnable tarefa) {
+        if (INFO.equals(caminho.getFront())) {
+            servidor.execute(() -> executar(tarefa));
+        } else {
+            agendar(sortearAtraso(), tarefa);
+        }
+    }
+
+    /**
+     * Agenda uma escrita para depois da anterior, preservando a ordem das escritas mesmo
+     * quando a variação de latência sorteada for menor.
+     */
+    private synchronized void agendarEscrita(Runnable tarefa) {
+        long agora = System.nanoTime();
+        long instante = Math.max(proximaEscrita, agora + sortearAtraso());
+        proximaEscrita = instante;
+        agendar(instante - agora, tarefa);
+    }
+
+    private void agendar(long atrasoNanos, Runnable tarefa) {
+        operacoes.incrementAndGet();
+        Runnable execucao = () -> {
+            if (conectado) {
+                executar(tarefa);
+            } else {
+                retidas.add(tarefa);
+            }
+        };
+        if (atrasoNanos <= 0) {
+            servidor.execute(execucao);
+        } else {
+            servidor.schedule(execucao, atrasoNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void executar(Runnable tarefa) {
+        try {
+            tarefa.run();
+        } catch (RuntimeException e) {
+            System.err.println("ERRO: Exceção em um callback do banco em memória: " + e);
+        }
+    }
+
+    private boolean sortearFalha() {
+        double taxa = taxaFalhas;
+        if (taxa > 0 && aleatorio.nextDouble() < taxa) {
+            falhasInjetadas.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private static DatabaseError erroInjetado() {
+        return DatabaseError.fromStatus("unavailable", "Falha injetada pelo banco em memória.");
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Dados e eventos (somente na thread "banco-memoria")
+    // ---------------------------------------------------------------------------------------
+
+    private Node ler(Path caminho) {
+        if (INFO.equals(caminho.getFront())) {
+            return NodeUtilities.NodeFromJSON(Collections.singletonMap("connected", conectado)).getChild(caminho.popFront());
+        }
+        return dados.getChild(caminho);
+    }
+
+    private static void validarEscrita(Path caminho) {
+        if (INFO.equals(caminho.getFront())) {
+            throw new DatabaseException("Invalid write location: " + caminho);
+        }
+    }
+
+    private static Node converter(Object valor) {
+        return NodeUtilities.NodeFromJSON(CustomClassMapper.convertToPlainJavaTypes(valor));
+    }
+
+    private DataSnapshot snapshot(Path caminho, Node no, Index indice) {
+        IndexedNode indexado = indice == null ? IndexedNode.from(no) : IndexedNode.from(no, indice);
+        return InternalHelpers.createDataSnapshot(getReferencias().getReference(caminho.toString()), indexado);
+    }
+
+    /**
+     * Retorna o nó indexado pelo índice da consulta, reaproveitando o índice da consulta
+     * anterior sobre o mesmo caminho enquanto o nó não for alterado.
+     */
+    private IndexedNode indexar(Path caminho, Node no, Index indice) {
+        String chave = caminho + "|" + indice.getQueryDefinition();
+        IndexedNode indexado = indexados.get(chave);
+        if (indexado == null || indexado.getNode() != no) {
+            indexado = IndexedNode.from(no, indice);
+            indexados.put(chave, indexado);
+        }
+        return indexado;
+    }
+
+    private void aplicar(Path base, Map<Path, Node> alteracoes) {
+        List<Path> escritos = new ArrayList<>(alteracoes.size());
+        for (Map.Entry<Path, Node> alteracao : alteracoes.entrySet()) {
+            Path caminho = base.child(alteracao.getKey());
+            dados = dados.updateChild(caminho, alteracao.getValue());
+            escritos.add(caminho);
+        }
+        notificar(escritos);
+    }
+
+    /**
+     * Entrega o novo resultado a cada ouvinte cuja consulta possa ter sido afetada pelas
+     * escritas nos caminhos informados, se o resultado mudou.
+     */
+    private void notificar(List<Path> escritos) {
+        for (Ouvinte ouvinte : ouvintes) {
+            if (!ouvinte.iniciado) {
+                continue;
+            }
+            Path observado = ouvinte.consulta.caminho;
+            boolean afetado = false;
+            // Filhos imediatos tocados pelas escritas; null quando o nó inteiro pode ter mudado.
+            Set<ChildKey> filhos = new TreeSet<>();
+            for (Path escrito : escritos) {
+                if (escrito.contains(observado)) {
+                    afetado = true;
+                    filhos = null;
+                    break;
+                }
+                if (observado.contains(escrito)) {
+                    afetado = true;
+                    filhos.add(Path.getRelative(observado, escrito).getFront());
+                }
+            }
+            if (!afetado) {
+                continue;
+            }
+            Node atual = ouvinte.consulta.avaliar();
+            if (ouvinte.filhos != null && filhos != null && ouvinte.consulta.simples()) {
+                entregarFilhos(ouvinte, atual, filhos);
+            } else if (!atual.equals(ouvinte.ultimo)) {
+                entregar(ouvinte, atual);
+            }
+        }
+    }
+
+    /**
+     * Entrega a um ouvinte de filhos sem ordenação nem limites os eventos dos filhos
+     * informados, sem percorrer os demais; como em {@link #entregar}, as remoções vêm antes.
+     */
+    private void entregarFilhos(Ouvinte ouvinte, Node atual, Set<ChildKey> filhos) {
+        Node anterior = ouvinte.ultimo;
+        ouvinte.ultimo = atual;
+        Path caminho = ouvinte.consulta.caminho;
+        for (ChildKey chave : filhos) {
+            Node antes = anterior.getImmediateChild(chave);
+            if (!antes.isEmpty() && !atual.hasChild(chave)) {
+                DataSnapshot snapshot = snapshot(caminho.child(chave), antes, null);
+                executar(() -> ouvinte.filhos.onChildRemoved(snapshot));
+            }
+        }
+        for (ChildKey chave : filhos) {
+            Node antes = anterior.getImmediateChild(chave);
+            Node depois = atual.getImmediateChild(chave);
+            if (depois.isEmpty() || antes.equals(depois)) {
+                continue;
+            }
+            DataSnapshot snapshot = snapshot(caminho.child(chave), depois, null);
+            ChildKey predecessor = atual.getPredecessorChildKey(chave);
+            String anteriorAoFilho = predecessor == null ? null : predecessor.asString();
+            if (antes.isEmpty()) {
+                executar(() -> ouvinte.filhos.onChildAdded(snapshot, anteriorAoFilho));
+            } else {
+                executar(() -> ouvinte.filhos.onChildChanged(snapshot, anteriorAoFilho));
+            }
+        }
+    }
+
+    private void entregar(Ouvinte ouvinte, Node atual) {
+        Node anterior = ouvinte.ultimo;
+        ouvinte.ultimo = atual;
+        ConsultaMemoria consulta = ouvinte.consulta;
+        if (ouvinte.valor != null) {
+            DataSnapshot snapshot = snapshot(consulta.caminho, atual, consulta.indice);
+            executar(() -> ouvinte.valor.onDataChange(snapshot));
+            return;
+        }
+        Index indice = consulta.indiceEfetivo();
+        for (NamedNode filho : IndexedNode.from(anterior, indice)) {
+            if (!atual.hasChild(filho.getName())) {
+                DataSnapshot snapshot = snapshot(consulta.caminho.child(filho.getName()), filho.getNode(), null);
+                executar(() -> ouvinte.filhos.onChildRemoved(snapshot));
+            }
+        }
+        String chaveAnterior = null;
+        for (NamedNode filho : IndexedNode.from(atual, indice)) {
+            Node antes = anterior.getImmediateChild(filho.getName());
+            DataSnapshot snapshot = snapshot(consulta.caminho.child(filho.getName()), filho.getNode(), null);
+            String anteriorAoFilho = chaveAnterior;
+            if (antes.isEmpty()) {
+                executar(() -> ouvinte.filhos.onChildAdded(snapshot, anteriorAoFilho));
+            } else if (!antes.equals(filho.getNode())) {
+                executar(() -> ouvinte.filhos.onChildChanged(snapshot, anteriorAoFilho));
+            }
+            chaveAnterior = filho.getName().asString();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Operações
+    // ---------------------------------------------------------------------------------------
+
+    private ApiFuture<Void> escrever(Path base, Map<Path, Node> alteracoes) {
+        validarEscrita(base);
+        SettableApiFuture<Void> future = SettableApiFuture.create();
+        agendarEscrita(() -> {
+            if (sortearFalha()) {
+                future.setException(erroInjetado().toException());
+                return;
+            }
+            aplicar(base, alteracoes);
+            future.set(null);
+        });
+        return future;
+    }
+
+    private void transacao(Path caminho, Transaction.Handler handler) {
+        validarEscrita(caminho);
+        agendarEscrita(() -> {
+            if (sortearFalha()) {
+                handler.onComplete(erroInjetado(), false, null);
+                return;
+            }
+            Node atual = dados.getChild(caminho);
+            Transaction.Result resultado;
+            try {
+                if (transacoesComCacheLocal) {
+                    Node local = valorLocal(caminho);
+                    resultado = handler.doTransaction(InternalHelpers.createMutableData(local));
+                    if (!resultado.isSuccess()) {
+                        handler.onComplete(null, false, snapshot(caminho, local, null));
+                        return;
+                    }
+                    if (!local.equals(atual)) {
+                        resultado = handler.doTransaction(InternalHelpers.createMutableData(atual));
+                    }
+                } else {
+                    resultado = handler.doTransaction(InternalHelpers.createMutableData(atual));
+                }
+            } catch (RuntimeException e) {
+                handler.onComplete(DatabaseError.fromException(e), false, null);
+                return;
+            }
+            if (!resultado.isSuccess()) {
+                handler.onComplete(null, false, snapshot(caminho, atual, null));
+                return;
+            }
+            aplicar(caminho, Collections.singletonMap(Path.getEmptyPath(), resultado.getNode()));
+            handler.onComplete(null, true, snapshot(caminho, resultado.getNode(), null));
+        });
+    }
+
+    /**
+     * Retorna o valor que o cliente do SDK teria em cache para o caminho: o último valor
+     * entregue a um ouvinte sem ordenação nem limites sobre o caminho ou um ancestral dele,
+     * ou o nó vazio se nenhum ouvinte o observa.
+     */
+    private Node valorLocal(Path caminho) {
+        for (Ouvinte ouvinte : ouvintes) {
+            Path observado = ouvinte.consulta.caminho;
+            if (ouvinte.iniciado && ouvinte.consulta.simples() && observado.contains(caminho)) {
+                return ouvinte.ultimo.getChild(Path.getRelative(observado, caminho));
+            }
+        }
+        return EmptyNode.Empty();
+    }
+
+    private void lerUmaVez(ConsultaMemoria consulta, ValueEventListener ouvinte) {
+        LeituraUnica leitura = new LeituraUnica(ouvinte);
+        leiturasPendentes.add(leitura);
+        boolean local = INFO.equals(consulta.caminho.getFront());
+        agendarLeitura(consulta.caminho, () -> {
+            if (!leiturasPendentes.remove(leitura)) {
+                return;
+            }
+            if (!local && sortearFalha()) {
+                ouvinte.onCancelled(erroInjetado());
+                return;
+            }
+            ouvinte.onDataChange(snapshot(consulta.caminho, consulta.avaliar(), consulta.indice));
+        });
+    }
+
+    private void ouvir(Ouvinte ouvinte) {
+        ouvintes.add(ouvinte);
+        agendarLeitura(ouvinte.consulta.caminho, () -> {
+            if (!ouvintes.contains(ouvinte)) {
+                return;
+            }
+            ouvinte.iniciado = true;
+            entregar(ouvinte, ouvinte.consulta.avaliar());
+        });
+    }
+
+    private void removerOuvinte(Object ouvinte) {
+        ouvintes.removeIf(o -> o.valor == ouvinte || o.filhos == ouvinte);
+        leiturasPendentes.removeIf(l -> l.ouvinte == ouvinte);
+    }
+
+    /**
+     * Retorna o banco do SDK usado apenas para criar as referências dos {@link DataSnapshot}s.
+     * Ele pertence a um app próprio, com credenciais falsas e mantido offline, e nunca é
+     * usado para ler ou gravar.
+     */
+    private static synchronized FirebaseDatabase getReferencias() {
+        if (referencias == null) {
+            FirebaseOptions options = FirebaseOptions.builder()
+                    .setCredentials(GoogleCredentials.create(
+                            new AccessToken("banco-memoria", Date.from(Instant.now().plus(Duration.ofDays(3650))))))
+                    .setDatabaseUrl("https://pdv-banco-memoria.firebaseio.com")
+                    .build();
+            FirebaseApp app = FirebaseApp.getApps().stream()
+                    .filter(a -> a.getName().equals("pdv-banco-memoria"))
+                    .findFirst()
+                    .orElseGet(() -> FirebaseApp.initializeApp(options, "pdv-banco-memoria"));
+            referencias = FirebaseDatabase.getInstance(app);
+            referencias.goOffline();
+        }
+        return referencias;
+    }
+
+    /**
+     * Um ouvinte contínuo e o último resultado entregue a ele.
+     */
+    private static final class Ouvinte {
+        final ConsultaMemoria consulta;
+        final ValueEventListener valor;
+        final ChildEventListener filhos;
+        volatile boolean iniciado;
+        Node ultimo = EmptyNode.Empty();
+
+        Ouvinte(ConsultaMemoria consulta, ValueEventListener valor, ChildEventListener filhos) {
+            this.consulta = consulta;
+            this.valor = valor;
+            this.filhos = filhos;
+        }
+    }
+
+    /**
+     * Uma leitura única ainda não entregue, que pode ser cancelada com {@code removeEventListener}.
+     */
+    private static final class LeituraUnica {
+        final ValueEventListener ouvinte;
+
+        LeituraUnica(ValueEventListener ouvinte) {
+            this.ouvinte = ouvinte;
+        }
+    }
+
+    /**
+     * Consulta sobre um caminho do banco em memória: a ordenação, os limites do intervalo
+     * (na forma usada pelos índices do SDK) e a quantidade máxima de filhos.
+     */
+    private class ConsultaMemoria implements IConsulta {
+        final Path caminho;
+        final Index indice;
+        final NamedNode inicio;
+        final NamedNode fim;
+        final int limite;
+        final boolean ultimos;
+
+        ConsultaMemoria(Path caminho, Index indice, NamedNode inicio, NamedNode fim, int limite, boolean ultimos) {
+            this.caminho = caminho;
+            this.indice = indice;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.limite = limite;
+            this.ultimos = ultimos;
+        }
+
+        Index indiceEfetivo() {
+            return indice == null ? KeyIndex.getInstance() : indice;
+        }
+
+        /**
+         * Indica se a consulta observa o nó inteiro, sem ordenação, intervalo nem limite.
+         */
+        boolean simples() {
+            return indice == null && inicio == null && fim == null && limite == 0;
+        }
+
+        /**
+         * Calcula o resultado da consulta sobre os dados atuais.
+         */
+        Node avaliar() {
+            Node no = ler(caminho);
+            if (simples()) {
+                return no;
+            }
+            Index ordem = indiceEfetivo();
+            List<NamedNode> selecionados = new ArrayList<>();
+            for (NamedNode filho : indexar(caminho, no, ordem)) {
+                if (inicio != null && ordem.compare(filho, inicio) < 0) {
+                    continue;
+                }
+                if (fim != null && ordem.compare(filho, fim) > 0) {
+                    break;
+                }
+                selecionados.add(filho);
+            }
+            if (limite > 0 && selecionados.size() > limite) {
+                selecionados = ultimos
+                        ? selecionados.subList(selecionados.size() - limite, selecionados.size())
+                        : selecionados.subList(0, limite);
+            }
+            Node resultado = EmptyNode.Empty();
+            for (NamedNode filho : selecionados) {
+                resultado = resultado.updateImmediateChild(filho.getName(), filho.getNode());
+            }
+            return resultado;
+        }
+
+        private NamedNode limite(Object valor, ChildKey chave) {
+            Index ordem = indiceEfetivo();
+            if (ordem instanceof KeyIndex) {
+                if (!(valor instanceof String)) {
+                    throw new IllegalArgumentException("ERRO: A ordenação por chave aceita apenas limites de texto.");
+                }
+                return new NamedNode(ChildKey.fromString((String) valor), EmptyNode.Empty());
+            }
+            return ordem.makePost(chave, NodeUtilities.NodeFromJSON(valor));
+        }
+
+        private ConsultaMemoria comOrdem(Index novoIndice) {
+            return new ConsultaMemoria(caminho, novoIndice, inicio, fim, limite, ultimos);
+        }
+
+        private ConsultaMemoria comIntervalo(NamedNode novoInicio, NamedNode novoFim) {
+            return new ConsultaMemoria(caminho, indiceEfetivo(), novoInicio, novoFim, limite, ultimos);
+        }
+
+        private ConsultaMemoria comLimite(int novoLimite, boolean novosUltimos) {
+            if (novoLimite <= 0) {
+                throw new IllegalArgumentException("ERRO: O limite da consulta deve ser maior que zero.");
+            }
+            return new ConsultaMemoria(caminho, indice, inicio, fim, novoLimite, novosUltimos);
+        }
+
+        @Override
+        public IConsulta orderByKey() {
+            return comOrdem(KeyIndex.getInstance());
+        }
+
+        @Override
+        public IConsulta orderByChild(String campo) {
+            return comOrdem(new PathIndex(new Path(campo)));
+        }
+
+        @Override
+        public IConsulta startAt(String valor) {
+            return comIntervalo(limite(valor, ChildKey.getMinName()), fim);
+        }
+
+        @Override
+        public IConsulta startAt(double valor) {
+            return comIntervalo(limite(valor, ChildKey.getMinName()), fim);
+        }
+
+        @Override
+        public IConsulta startAt(double valor, String chave) {
+            return comIntervalo(limite(valor, ChildKey.fromString(chave)), fim);
+        }
+
+        @Override
+        public IConsulta endAt(String valor) {
+            return comIntervalo(inicio, limite(valor, ChildKey.getMaxName()));
+        }
+
+        @Override
+        public IConsulta endAt(double valor) {
+            return comIntervalo(inicio, limite(valor, ChildKey.getMaxName()));
+        }
+
+        @Override
+        public IConsulta equalTo(String valor) {
+            return comIntervalo(limite(valor, ChildKey.getMinName()), limite(valor, ChildKey.getMaxName()));
+        }
+
+        @Override
+        public IConsulta limitToFirst(int quantidade) {
+            return comLimite(quantidade, false);
+        }
+
+        @Override
+        public IConsulta limitToLast(int quantidade) {
+            return comLimite(quantidade, true);
+        }
+
+        @Override
+        public void addListenerForSingleValueEvent(ValueEventListener ouvinte) {
+            lerUmaVez(this, ouvinte);
+        }
+
+        @Override
+        public ValueEventListener addValueEventListener(ValueEventListener ouvinte) {
+            ouvir(new Ouvinte(this, ouvinte, null));
+            return ouvinte;
+        }
+
+        @Override
+        public ChildEventListener addChildEventListener(ChildEventListener ouvinte) {
+            ouvir(new Ouvinte(this, null, ouvinte));
+            return ouvinte;
+        }
+
+        @Override
+        public void removeEventListener(ValueEventListener ouvinte) {
+            removerOuvinte(ouvinte);
+        }
+
+        @Override
+        public void removeEventListener(ChildEventListener ouvinte) {
+            removerOuvinte(ouvinte);
+        }
+    }
+
+    /**
+     * Referência para um caminho do banco em memória.
+     */
+    private class ReferenciaMemoria extends ConsultaMemoria implements IReferencia {
+
+        ReferenciaMemoria(Path caminho) {
+            super(caminho, null, null, null, 0, false);
+        }
+
+        @Override
+        public IReferencia child(String filho) {
+            return new ReferenciaMemoria(caminho.child(new Path(filho)));
+        }
+
+        @Override
+        public String getKey() {
+            return caminho.isEmpty() ? null : caminho.getBack().asString();
+        }
+
+        @Override
+        public ApiFuture<Void> setValueAsync(Object valor) {
+            return escrever(caminho, Collections.singletonMap(Path.getEmptyPath(), converter(valor)));
+        }
+
+        @Override
+        public ApiFuture<Void> updateChildrenAsync(Map<String, Object> atualizacoes) {
+            Map<Path, Node> alteracoes = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> atualizacao : atualizacoes.entrySet()) {
+                alteracoes.put(new Path(atualizacao.getKey()), converter(atualizacao.getValue()));
+            }
+            return escrever(caminho, alteracoes);
+        }
+
+        @Override
+        public ApiFuture<Void> removeValueAsync() {
+            return escrever(caminho, Collections.singletonMap(Path.getEmptyPath(), EmptyNode.Empty()));
+        }
+
+        @Override
+        public void runTransaction(Transaction.Handler handler) {
+            transacao(caminho, handler);
+        }
+    }
+}
@@ -10,8 +10,9 @@ package database;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
-import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import interfaces.IBancoDados;
+import interfaces.IReferencia;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -19,33 +20,46 @@ import java.io.InputStream;
 
 public class FirebaseConfig {
 
-    private static FirebaseDatabase firebaseDatabase;
+    private static IBancoDados banco;
 
-    public static void initialize() {
+    /**
+     * Inicializa o banco de dados usado pelos repositórios. Por padrão é o Firebase Realtime
+     * Database; com a propriedade de sistema {@code pdv.banco=memoria}, é um {@link BancoMemoria}
+     * configurado pelas propriedades {@code pdv.banco.*}, sem rede e sem conta de serviço.
+     */
+    public static synchronized void initialize() {
+        if (banco != null) {
+            return;
+        }
+        if ("memoria".equalsIgnoreCase(System.getProperty("pdv.banco", "firebase"))) {
+            banco = BancoMemoria.dePropriedades();
+            System.out.println("LOG: Usando o banco de dados em memória.");
+            return;
+        }
         try {
-            // Caminho do arquivo JSON na raiz do src
-            //FileInputStream serviceAccount = new FileInputStream("/serviceAccountKey.json");
-            InputStream serviceAccount = FirebaseConfig.class
-                    .getResourceAsStream("/serviceAccountKey.json");
+            // Inicializa o app do Firebase, mas somente se ainda não tiver inicializado
+            if (FirebaseApp.getApps().stream().noneMatch(app -> app.getName().equals(FirebaseApp.DEFAULT_APP_NAME))) {
+                // Caminho do arquivo JSON na raiz do src
+                //FileInputStream serviceAccount = new FileInputStream("/serviceAccountKey.json");
+                InputStream serviceAccount = FirebaseConfig.class
+                        .getResourceAsStream("/serviceAccountKey.json");
 
-            if (serviceAccount == null) {
-                throw new RuntimeException("ERRO: Não foi possível encontrar o arquivo 'serviceAccountKey.json'. Verifique se ele está na pasta 'resources'.");
-            }
+                if (serviceAccount == null) {
+                    throw new RuntimeException("ERRO: Não foi possível encontrar o arquivo 'serviceAccountKey.json'. Verifique se ele está na pasta 'resources'.");
+                }
 
-            // URL do seu Realtime Database (pegar no console do Firebase)
-            String databaseUrl = "https://projeto-poo-43e7d-default-rtdb.firebaseio.com/"; // Troque pelo URL correto
+                // URL do seu Realtime Database (pegar no console do Firebase)
+                String databaseUrl = "https://projeto-poo-43e7d-default-rtdb.firebaseio.com/"; // Troque pelo URL correto
 
-            FirebaseOptions options = FirebaseOptions.builder()
-                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                    .setDatabaseUrl(databaseUrl)
-                    .build();
+                FirebaseOptions options = FirebaseOptions.builder()
+                        .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                        .setDatabaseUrl(databaseUrl)
+                        .build();
 
-            // Inicializa o app do Firebase, mas somente se ainda não tiver inicializado
-            if (FirebaseApp.getApps().isEmpty()) {
                 FirebaseApp.initializeApp(options);
             }
 
-            firebaseDatabase = FirebaseDatabase.getInstance();
+            banco = new BancoFirebase(FirebaseDatabase.getInstance());
             System.out.println("Conexão com o Firebase estabelecida com sucesso!");
 
         } catch (IOException e) {
@@ -54,10 +68,35 @@ public class FirebaseConfig {
         }
     }
 
-    public static DatabaseReference getDatabaseReference() {
-        if (firebaseDatabase == null) {
+    /**
+     * Define o banco de dados a ser usado pelos repositórios, no lugar do configurado por
+     * {@link #initialize()}. Deve ser chamado antes da criação do primeiro repositório, pois
+     * as instâncias compartilhadas (catálogo, buffer de vendas) guardam suas referências.
+     *
+     * @param novoBanco O banco a ser usado, por exemplo um {@link BancoMemoria}.
+     */
+    public static synchronized void usarBanco(IBancoDados novoBanco) {
+        banco = novoBanco;
+    }
+
+    /**
+     * Retorna o banco de dados em uso, inicializando-o na primeira chamada.
+     *
+     * @return O banco de dados.
+     */
+    public static synchronized IBancoDados getBanco() {
+        if (banco == null) {
             initialize();
         }
-        return firebaseDatabase.getReference();
+        return banco;
+    }
+
+    /**
+     * Retorna a referência para a raiz do banco de dados em uso.
+     *
+     * @return A referência da raiz.
+     */
+    public static IReferencia getReferencia() {
+        return getBanco().getReferencia();
     }
 }
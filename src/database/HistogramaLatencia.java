@@ -0,0 +1,322 @@
+package database;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.api.core.ApiFuture;
+import interfaces.IHistogramaMXBean;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências no estilo do HdrHistogram, com faixas log-lineares. Os valores
+ * abaixo de 128 ns têm uma faixa cada. Acima disso, cada potência de dois é dividida em 64
+ * faixas iguais, o que dá um erro relativo de no máximo 1,6% em qualquer escala, de
+ * nanossegundos a horas, com um vetor fixo de {@value #FAIXAS} contadores.
+ * <p>
+ * Registrar uma latência ({@link #registrar(long)} e {@link #registrarDesde(long, boolean)})
+ * calcula a faixa com operações de bits e incrementa um {@link AtomicLongArray}, sem bloqueio
+ * e sem criar objetos, para que a medição possa ficar sempre ligada. Já os atalhos
+ * {@code medir} encadeiam um callback no futuro da operação e por isso criam um lambda e, no
+ * caso do {@link CompletableFuture}, um estágio dependente a cada chamada; o custo é pequeno
+ * perto de uma ida ao banco, mas, nos caminhos mais frequentes que já têm um callback de
+ * conclusão, como a transação de estoque, o início é capturado antes e
+ * {@link #registrarDesde(long, boolean)} é chamado nesse callback.
+ * Os percentis são calculados apenas na leitura, percorrendo o vetor.
+ * As leituras feitas durante registros concorrentes são aproximadas, mas nunca bloqueiam
+ * quem registra.
+ *
+ * @see Metricas
+ */
+public class HistogramaLatencia implements IHistogramaMXBean {
+
+    /** Bits da parte linear: 2^7 = 128 faixas iniciais, 64 por potência de dois depois delas. */
+    private static final int BITS_SUBFAIXA = 7;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    private static final int METADE = SUBFAIXAS / 2;
+
+    /** Maior latência distinguível (cerca de 2,4 horas); valores maiores caem na última faixa. */
+    private static final long LIMITE_NANOS = (1L << 43) - 1;
+
+    /** Quantidade de faixas do histograma. */
+    public static final int FAIXAS = SUBFAIXAS + (43 - BITS_SUBFAIXA) * METADE;
+
+    private final String nome;
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder somaNanos = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final AtomicLong maximoNanos = new AtomicLong();
+
+    /**
+     * Cria um histograma vazio. Use {@link Metricas#latencia(String)} para que ele apareça nos
+     * relatórios e no JMX.
+     *
+     * @param nome O nome da métrica, como {@code "produtos.buscar"}.
+     */
+    public HistogramaLatencia(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Retorna o nome da métrica.
+     * @return O nome.
+     */
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Registra uma latência.
+     *
+     * @param nanos A duração, em nanossegundos.
+     */
+    public void registrar(long nanos) {
+        long valor = nanos < 0 ? 0 : Math.min(nanos, LIMITE_NANOS);
+        contagens.incrementAndGet(faixa(valor));
+        somaNanos.add(valor);
+        long maximo = maximoNanos.get();
+        while (valor > maximo && !maximoNanos.compareAndSet(maximo, valor)) {
+            maximo = maximoNanos.get();
+        }
+    }
+
+    /**
+     * Registra a duração de uma chamada iniciada em {@code inicioNanos}.
+     *
+     * @param inicioNanos O valor de {@link System#nanoTime()} no início da chamada.
+     * @param erro        {@code true} se a chamada terminou com erro.
+     */
+    public void registrarDesde(long inicioNanos, boolean erro) {
+        registrar(System.nanoTime() - inicioNanos);
+        if (erro) {
+            erros.increment();
+        }
+    }
+
+    /**
+     * Registra a duração de uma operação assíncrona quando ela terminar, com ou sem erro.
+     * Cria um lambda e um estágio dependente por chamada. Como o Java avalia os argumentos
+     * da esquerda para a direita, a forma
+     * {@code medir(System.nanoTime(), operacao())} mede também o trabalho síncrono de
+     * {@code operacao()}.
+     *
+     * @param inicioNanos O valor de {@link System#nanoTime()} no início da chamada.
+     * @param futuro      O resultado da operação.
+     * @param <T>         O tipo do resultado.
+     * @return O próprio {@code futuro}, inalterado.
+     */
+    public <T> CompletableFuture<T> medir(long inicioNanos, CompletableFuture<T> futuro) {
+        futuro.whenComplete((valor, erro) -> registrarDesde(inicioNanos, erro != null));
+        return futuro;
+    }
+
+    /**
+     * Registra a duração de uma escrita do SDK do Firebase quando o servidor a confirmar
+     * ou recusar. Cria um lambda e um ouvinte do futuro por chamada.
+     *
+     * @param inicioNanos O valor de {@link System#nanoTime()} no início da chamada.
+     * @param futuro      O resultado da escrita.
+     * @param <T>         O tipo do resultado.
+     * @return O próprio {@code futuro}, inalterado.
+     * @see #medir(long, CompletableFuture)
+     */
+    public <T> ApiFuture<T> medir(long inicioNanos, ApiFuture<T> futuro) {
+        futuro.addListener(() -> {
+            boolean erro = false;
+            try {
+                futuro.get();
+            } catch (ExecutionException | RuntimeException e) {
+                erro = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            registrarDesde(inicioNanos, erro);
+        }, Runnable::run);
+        return futuro;
+    }
+
+    /**
+     * Retorna uma leitura dos contadores e dos percentis neste instante.
+     * @return O {@link Resumo} do histograma.
+     */
+    public Resumo resumo() {
+        long[] copia = new long[FAIXAS];
+        long total = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+            total += copia[i];
+        }
+        long maximo = maximoNanos.get();
+        return new Resumo(nome, total, erros.sum(), total == 0 ? 0 : somaNanos.sum() / (double) total,
+                percentil(copia, total, 0.50, maximo), percentil(copia, total, 0.99, maximo),
+                percentil(copia, total, 0.999, maximo), maximo);
+    }
+
+    @Override
+    public long getContagem() {
+        return resumo().getContagem();
+    }
+
+    @Override
+    public long getErros() {
+        return erros.sum();
+    }
+
+    @Override
+    public double getMediaMs() {
+        return resumo().getMediaMs();
+    }
+
+    @Override
+    public double getP50Ms() {
+        return resumo().getP50Ms();
+    }
+
+    @Override
+    public double getP99Ms() {
+        return resumo().getP99Ms();
+    }
+
+    @Override
+    public double getP999Ms() {
+        return resumo().getP999Ms();
+    }
+
+    @Override
+    public double getMaxMs() {
+        return maximoNanos.get() / 1e6;
+    }
+
+    @Override
+    public void zerar() {
+        for (int i = 0; i < FAIXAS; i++) {
+            contagens.set(i, 0);
+        }
+        somaNanos.reset();
+        erros.reset();
+        maximoNanos.set(0);
+    }
+
+    /**
+     * Calcula a faixa de um valor: linear até {@link #SUBFAIXAS}, e depois {@link #METADE}
+     * faixas iguais por potência de dois.
+     */
+    static int faixa(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int deslocamento = expoente - (BITS_SUBFAIXA - 1);
+        return SUBFAIXAS + (expoente - BITS_SUBFAIXA) * METADE + (int) ((valor >>> deslocamento) - METADE);
+    }
+
+    /**
+     * Retorna o maior valor que cai na faixa, como o {@code highestEquivalentValue} do
+     * HdrHistogram.
+     */
+    static long limiteSuperior(int faixa) {
+        if (faixa < SUBFAIXAS) {
+            return faixa;
+        }
+        int k = faixa - SUBFAIXAS;
+        int expoente = k / METADE + BITS_SUBFAIXA;
+        long mantissa = k % METADE + METADE;
+        return ((mantissa + 1) << (expoente - (BITS_SUBFAIXA - 1))) - 1;
+    }
+
+    private static long percentil(long[] contagens, long total, double quantil, long maximo) {
+        if (total == 0) {
+            return 0;
+        }
+        long posicao = Math.max(1, (long) Math.ceil(quantil * total));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length; i++) {
+            acumulado += contagens[i];
+            if (acumulado >= posicao) {
+                return Math.min(limiteSuperior(i), maximo);
+            }
+        }
+        return maximo;
+    }
+
+    /**
+     * Leitura imutável de um histograma em um instante, com os tempos em nanossegundos e
+     * métodos de conveniência em milissegundos.
+     */
+    public static final class Resumo {
+        private final String nome;
+        private final long contagem;
+        private final long erros;
+        private final double mediaNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maximoNanos;
+
+        private Resumo(String nome, long contagem, long erros, double mediaNanos,
+                       long p50Nanos, long p99Nanos, long p999Nanos, long maximoNanos) {
+            this.nome = nome;
+            this.contagem = contagem;
+            this.erros = erros;
+            this.mediaNanos = mediaNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maximoNanos = maximoNanos;
+        }
+
+        /** @return O nome da métrica. */
+        public String getNome() {
+            return nome;
+        }
+
+        /** @return O número de chamadas registradas. */
+        public long getContagem() {
+            return contagem;
+        }
+
+        /** @return O número de chamadas que terminaram com erro. */
+        public long getErros() {
+            return erros;
+        }
+
+        /** @return A latência média, em milissegundos. */
+        public double getMediaMs() {
+            return mediaNanos / 1e6;
+        }
+
+        /** @return O percentil 50, em milissegundos. */
+        public double getP50Ms() {
+            return p50Nanos / 1e6;
+        }
+
+        /** @return O percentil 99, em milissegundos. */
+        public double getP99Ms() {
+            return p99Nanos / 1e6;
+        }
+
+        /** @return O percentil 99,9, em milissegundos. */
+        public double getP999Ms() {
+            return p999Nanos / 1e6;
+        }
+
+        /** @return A maior latência, em milissegundos. */
+        public double getMaxMs() {
+            return maximoNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-32s %10d %7d %10.3f %10.3f %10.3f %10.3f %10.3f",
+                    nome, contagem, erros, getMediaMs(), getP50Ms(), getP99Ms(), getP999Ms(), getMaxMs());
+        }
+    }
+}
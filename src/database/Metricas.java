@@ -0,0 +1,203 @@
+package database;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro das métricas de latência da aplicação. Cada chamada medida, como as operações dos
+ * repositórios, a verificação de senha e o registro de venda, tem um {@link HistogramaLatencia}
+ * obtido uma única vez por {@link #latencia(String)} e guardado em um campo estático de quem a
+ * mede. Assim, a medição em si não consulta o registro. O registro de cada latência não cria
+ * objetos, mas medir uma operação assíncrona com {@link HistogramaLatencia#medir} cria um
+ * callback por chamada.
+ * <p>
+ * As métricas ficam disponíveis de três formas:
+ * <ul>
+ *     <li>no JMX, uma MXBean por métrica em {@code pdv:type=Latencia}, a menos que
+ *     {@code pdv.metricas.jmx=false};</li>
+ *     <li>em um relatório periódico a cada {@code pdv.metricas.intervaloSegundos} segundos
+ *     (desligado por padrão), impresso no console e, se {@code pdv.metricas.csv} indicar um
+ *     arquivo, acrescentado a ele em CSV, com a vazão desde o relatório anterior;</li>
+ *     <li>na tela de diagnóstico dos gerentes e no menu do console, por {@link #resumos()}.</li>
+ * </ul>
+ *
+ * @see HistogramaLatencia
+ * @see controller.DiagnosticoViewController
+ */
+public final class Metricas {
+
+    /** Indica se cada métrica é registrada no servidor JMX da plataforma. */
+    public static final boolean JMX_PADRAO = Boolean.parseBoolean(System.getProperty("pdv.metricas.jmx", "true"));
+
+    /** Intervalo, em segundos, do relatório periódico; 0 desliga o relatório. */
+    public static final long INTERVALO_RELATORIO_PADRAO_S = Long.getLong("pdv.metricas.intervaloSegundos", 0);
+
+    /** Arquivo CSV ao qual o relatório periódico é acrescentado, ou {@code null}. */
+    public static final String ARQUIVO_CSV_PADRAO = System.getProperty("pdv.metricas.csv");
+
+    private static final String CABECALHO_CSV = "data_hora,metrica,contagem,erros,por_segundo,media_ms,p50_ms,p99_ms,p999_ms,max_ms";
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final Map<String, HistogramaLatencia> histogramas = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService agendador;
+
+    private Metricas() {
+    }
+
+    /**
+     * Retorna o histograma da métrica, criando-o e registrando-o no JMX na primeira chamada.
+     * Na primeira métrica criada, inicia também o relatório periódico, se configurado.
+     *
+     * @param nome O nome da métrica, no formato {@code "area.operacao"}.
+     * @return O {@link HistogramaLatencia} compartilhado da métrica.
+     */
+    public static HistogramaLatencia latencia(String nome) {
+        HistogramaLatencia existente = histogramas.get(nome);
+        if (existente != null) {
+            return existente;
+        }
+        HistogramaLatencia novo = new HistogramaLatencia(nome);
+        existente = histogramas.putIfAbsent(nome, novo);
+        if (existente != null) {
+            return existente;
+        }
+        if (JMX_PADRAO) {
+            registrarJmx(novo);
+        }
+        iniciarRelatorio();
+        return novo;
+    }
+
+    /**
+     * Retorna a leitura atual de todas as métricas, em ordem de nome.
+     * @return Os resumos das métricas.
+     */
+    public static List<HistogramaLatencia.Resumo> resumos() {
+        List<HistogramaLatencia.Resumo> resumos = new ArrayList<>(histogramas.size());
+        for (HistogramaLatencia histograma : histogramas.values()) {
+            resumos.add(histograma.resumo());
+        }
+        resumos.sort((a, b) -> a.getNome().compareTo(b.getNome()));
+        return resumos;
+    }
+
+    /**
+     * Descarta os registros de todas as métricas.
+     */
+    public static void zerar() {
+        for (HistogramaLatencia histograma : histogramas.values()) {
+            histograma.zerar();
+        }
+    }
+
+    /**
+     * Formata as métricas como uma tabela de texto, com os tempos em milissegundos.
+     * @return O relatório.
+     */
+    public static String relatorio() {
+        return relatorio(resumos());
+    }
+
+    private static String relatorio(List<HistogramaLatencia.Resumo> resumos) {
+        StringBuilder texto = new StringBuilder(String.format("%-32s %10s %7s %10s %10s %10s %10s %10s%n",
+                "Métrica", "Chamadas", "Erros", "Média", "p50", "p99", "p99,9", "Máx"));
+        for (HistogramaLatencia.Resumo resumo : resumos) {
+            texto.append(resumo).append(System.lineSeparator());
+        }
+        return texto.toString();
+    }
+
+    private static void registrarJmx(HistogramaLatencia histograma) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            servidor.registerMBean(histograma,
+                    new ObjectName("pdv:type=Latencia,name=" + ObjectName.quote(histograma.getNome())));
+        } catch (InstanceAlreadyExistsException e) {
+            // Outra instância da aplicação na mesma JVM já registrou a métrica.
+        } catch (JMException e) {
+            System.err.println("ERRO: Não foi possível registrar a métrica " + histograma.getNome() + " no JMX: " + e.getMessage());
+        }
+    }
+
+    private static synchronized void iniciarRelatorio() {
+        if (agendador != null || INTERVALO_RELATORIO_PADRAO_S <= 0) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "relatorio-metricas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, Long> anteriores = new HashMap<>();
+        long[] ultimoRelatorio = {System.nanoTime()};
+        agendador.scheduleAtFixedRate(() -> {
+            long agora = System.nanoTime();
+            double segundos = (agora - ultimoRelatorio[0]) / 1e9;
+            ultimoRelatorio[0] = agora;
+            List<HistogramaLatencia.Resumo> resumos = resumos();
+            System.out.println("LOG: Métricas de latência (ms):" + System.lineSeparator() + relatorio(resumos));
+            if (ARQUIVO_CSV_PADRAO != null) {
+                gravarCsv(Paths.get(ARQUIVO_CSV_PADRAO), resumos, anteriores, segundos);
+            }
+            for (HistogramaLatencia.Resumo resumo : resumos) {
+                anteriores.put(resumo.getNome(), resumo.getContagem());
+            }
+        }, INTERVALO_RELATORIO_PADRAO_S, INTERVALO_RELATORIO_PADRAO_S, TimeUnit.SECONDS);
+        System.out.println("LOG: Relatório de métricas a cada " + INTERVALO_RELATORIO_PADRAO_S + " s"
+                + (ARQUIVO_CSV_PADRAO != null ? ", gravado também em " + ARQUIVO_CSV_PADRAO : "") + ".");
+    }
+
+    /**
+     * Acrescenta uma linha por métrica ao arquivo CSV, escrevendo o cabeçalho se o arquivo
+     * ainda não existir. A vazão é calculada a partir das contagens do relatório anterior.
+     */
+    private static void gravarCsv(Path arquivo, List<HistogramaLatencia.Resumo> resumos,
+                                  Map<String, Long> anteriores, double segundos) {
+        boolean novo = !Files.exists(arquivo);
+        try (BufferedWriter saida = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (novo) {
+                saida.write(CABECALHO_CSV);
+                saida.newLine();
+            }
+            String dataHora = LocalDateTime.now().format(FORMATO_DATA);
+            for (HistogramaLatencia.Resumo r : resumos) {
+                long delta = r.getContagem() - anteriores.getOrDefault(r.getNome(), 0L);
+                saida.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                        dataHora, r.getNome(), r.getContagem(), r.getErros(), Math.max(0, delta) / segundos,
+                        r.getMediaMs(), r.getP50Ms(), r.getP99Ms(), r.getP999Ms(), r.getMaxMs()));
+                saida.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("ERRO: Não foi possível gravar as métricas em " + arquivo + ": " + e.getMessage());
+        }
+    }
+}
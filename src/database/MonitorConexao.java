@@ -0,0 +1,126 @@
+package database;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.ValueEventListener;
+import interfaces.IReferencia;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Acompanha o estado da conexão com o Firebase Realtime Database através do nó
+ * especial {@code .info/connected}, que o SDK atualiza sempre que a conexão com o
+ * servidor é estabelecida ou perdida (no {@link BancoMemoria}, a cada
+ * {@link BancoMemoria#setConectado(boolean)}).
+ *
+ * @see repository.ReprodutorDiario
+ */
+public class MonitorConexao {
+
+    private static MonitorConexao instancia;
+
+    private final List<Consumer<Boolean>> ouvintes = new CopyOnWriteArrayList<>();
+    private volatile boolean conectado = false;
+
+    /**
+     * Construtor privado; o monitor é compartilhado através de {@link #getInstancia()}.
+     */
+    private MonitorConexao() {
+        IReferencia info = FirebaseConfig.getBanco().getReferencia(".info/connected");
+        info.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Boolean valor = dataSnapshot.getValue(Boolean.class);
+                atualizar(valor != null && valor);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                System.err.println("ERRO: Monitoramento da conexão cancelado: " + databaseError.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Retorna o monitor compartilhado, registrando o ouvinte no Firebase na primeira chamada.
+     *
+     * @return A instância única de {@link MonitorConexao}.
+     */
+    public static synchronized MonitorConexao getInstancia() {
+        if (instancia == null) {
+            instancia = new MonitorConexao();
+        }
+        return instancia;
+    }
+
+    /**
+     * Indica se o SDK está conectado ao servidor neste momento.
+     *
+     * @return {@code true} se a conexão estiver ativa.
+     */
+    public boolean isConectado() {
+        return conectado;
+    }
+
+    /**
+     * Bloqueia a thread atual até que a conexão esteja ativa ou o tempo se esgote.
+     *
+     * @param tempo   O tempo máximo de espera.
+     * @param unidade A unidade do tempo de espera.
+     * @return {@code true} se a conexão estiver ativa ao retornar.
+     * @throws InterruptedException se a thread for interrompida durante a espera.
+     */
+    public synchronized boolean aguardarConexao(long tempo, TimeUnit unidade) throws InterruptedException {
+        long limite = System.nanoTime() + unidade.toNanos(tempo);
+        while (!conectado) {
+            long restante = limite - System.nanoTime();
+            if (restante <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, restante);
+        }
+        return true;
+    }
+
+    /**
+     * Registra um ouvinte chamado a cada mudança de estado da conexão.
+     *
+     * @param ouvinte O callback que recebe {@code true} ao conectar e {@code false} ao desconectar.
+     */
+    public void adicionarOuvinte(Consumer<Boolean> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Remove um ouvinte registrado anteriormente.
+     *
+     * @param ouvinte O callback a ser removido.
+     */
+    public void removerOuvinte(Consumer<Boolean> ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    private void atualizar(boolean novoEstado) {
+        synchronized (this) {
+            if (conectado == novoEstado) {
+                return;
+            }
+            conectado = novoEstado;
+            notifyAll();
+        }
+        System.out.println(novoEstado ? "LOG: Conexão com o Firebase estabelecida." : "LOG: Conexão com o Firebase perdida.");
+        for (Consumer<Boolean> ouvinte : ouvintes) {
+            ouvinte.accept(novoEstado);
+        }
+    }
+}
@@ -15,6 +15,7 @@ package excecoes;
  *
  * @see java.lang.Exception
  * @see model.Produto#reduzirEstoque
+ * @see repository.ProdutoRepository#alterarEstoque(String, int)
  * @see service.ProdutoService#reduzirEstoque(String, int)
  * @see service.VendaService#registrarVenda
  */
@@ -0,0 +1,38 @@
+package excecoes;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Exceção utilizada para sinalizar uma falha na comunicação com o banco de dados,
+ * como um erro de rede, uma leitura cancelada pelo Firebase ou um tempo limite esgotado.
+ * Diferente das demais exceções do pacote, ela não representa uma regra de negócio
+ * violada, e sim uma operação que não pôde ser concluída; por isso é não verificada.
+ *
+ * @see java.lang.RuntimeException
+ * @see service.Futuros
+ */
+public class PersistenciaException extends RuntimeException {
+    /**
+     * Construtor que cria uma instância da exceção com uma mensagem de detalhe.
+     *
+     * @param msg A mensagem de erro que descreve a operação que falhou.
+     */
+    public PersistenciaException(String msg) {
+        super(msg);
+    }
+
+    /**
+     * Construtor que cria uma instância da exceção com uma mensagem de detalhe e a causa original.
+     *
+     * @param msg   A mensagem de erro que descreve a operação que falhou.
+     * @param causa A exceção original lançada pelo banco de dados.
+     */
+    public PersistenciaException(String msg, Throwable causa) {
+        super(msg, causa);
+    }
+}
@@ -0,0 +1,79 @@
+package interfaces;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Conjunto de alterações de campos a ser aplicado em um único registro de uma entidade.
+ * Cada alteração associa um {@link Campo} ao seu novo valor; na persistência, o conjunto
+ * é enviado em uma única escrita parcial ({@code updateChildrenAsync}), que altera apenas
+ * os campos informados e preserva os demais, inclusive os alterados ao mesmo tempo por
+ * outro terminal.
+ * <p>
+ * Exemplo: {@code new Alteracoes<Produto>().definir(Produto.PRECO, 9.90)}.
+ *
+ * @param <T> A entidade à qual as alterações se aplicam.
+ * @see Campo
+ * @see ICrud#atualizarCampos(String, Alteracoes)
+ */
+public final class Alteracoes<T> {
+    private final Map<String, Object> valores = new LinkedHashMap<>();
+
+    /**
+     * Define o novo valor de um campo. Se o campo já tiver sido definido, o valor anterior
+     * é substituído. Um valor {@code null} remove o campo do registro.
+     *
+     * @param campo O campo a ser alterado.
+     * @param valor O novo valor do campo.
+     * @param <V>   O tipo do valor do campo.
+     * @return Esta mesma instância, para encadeamento.
+     */
+    public <V> Alteracoes<T> definir(Campo<T, V> campo, V valor) {
+        valores.put(campo.getCaminho(), valor);
+        return this;
+    }
+
+    /**
+     * Indica se nenhuma alteração foi definida.
+     * @return {@code true} se não há campos a serem gravados.
+     */
+    public boolean isVazia() {
+        return valores.isEmpty();
+    }
+
+    /**
+     * Retorna a quantidade de campos alterados.
+     * @return O número de alterações.
+     */
+    public int tamanho() {
+        return valores.size();
+    }
+
+    /**
+     * Retorna as alterações no formato esperado pela escrita parcial do Firebase,
+     * com os caminhos prefixados pela chave do registro.
+     *
+     * @param prefixo O caminho do registro (por exemplo, o ID do produto).
+     * @return Um mapa imutável de caminho completo para o novo valor.
+     */
+    public Map<String, Object> paraMapa(String prefixo) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entrada : valores.entrySet()) {
+            mapa.put(prefixo + "/" + entrada.getKey(), entrada.getValue());
+        }
+        return Collections.unmodifiableMap(mapa);
+    }
+
+    @Override
+    public String toString() {
+        return valores.keySet().toString();
+    }
+}
@@ -0,0 +1,67 @@
+package interfaces;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Identifica, de forma tipada, um campo persistido de uma entidade.
+ * O campo guarda o caminho relativo ao registro no banco (por exemplo {@code "preco"} ou
+ * {@code "permissoes/REALIZAR_VENDA"}) e, pelos tipos genéricos, amarra esse caminho à
+ * entidade {@code T} e ao tipo de valor {@code V} aceito. As constantes são declaradas
+ * nas próprias classes de modelo, como {@link model.Produto#PRECO}.
+ *
+ * @param <T> A entidade à qual o campo pertence.
+ * @param <V> O tipo do valor armazenado no campo.
+ * @see Alteracoes
+ * @see ICrud#atualizarCampos(String, Alteracoes)
+ */
+public final class Campo<T, V> {
+    private final String caminho;
+
+    private Campo(String caminho) {
+        this.caminho = caminho;
+    }
+
+    /**
+     * Cria um campo a partir do seu caminho relativo ao registro da entidade.
+     *
+     * @param caminho O caminho do campo, com segmentos separados por "/".
+     * @param <T>     A entidade à qual o campo pertence.
+     * @param <V>     O tipo do valor armazenado no campo.
+     * @return O {@link Campo} correspondente.
+     * @throws IllegalArgumentException se o caminho for vazio ou tiver segmentos vazios.
+     */
+    public static <T, V> Campo<T, V> de(String caminho) {
+        if (caminho == null || caminho.isEmpty() || caminho.startsWith("/") || caminho.endsWith("/") || caminho.contains("//")) {
+            throw new IllegalArgumentException("ERRO: Caminho de campo inválido: '" + caminho + "'.");
+        }
+        return new Campo<>(caminho);
+    }
+
+    /**
+     * Retorna o caminho do campo relativo ao registro da entidade.
+     * @return O caminho do campo.
+     */
+    public String getCaminho() {
+        return caminho;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Campo && caminho.equals(((Campo<?, ?>) o).caminho);
+    }
+
+    @Override
+    public int hashCode() {
+        return caminho.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return caminho;
+    }
+}
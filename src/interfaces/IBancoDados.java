@@ -0,0 +1,34 @@
+package interfaces;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Define o banco de dados sobre o qual os repositórios trabalham. A aplicação usa o
+ * Firebase Realtime Database ({@link database.BancoFirebase}); testes de carga e benchmarks
+ * podem usar o {@link database.BancoMemoria}, que reproduz a mesma semântica sem rede.
+ * O banco em uso é escolhido em {@link database.FirebaseConfig}.
+ *
+ * @see IReferencia
+ */
+public interface IBancoDados {
+
+    /**
+     * Retorna a referência para a raiz do banco.
+     * @return A referência da raiz.
+     */
+    IReferencia getReferencia();
+
+    /**
+     * Retorna a referência para um caminho absoluto do banco, inclusive os nós especiais
+     * como {@code .info/connected}.
+     *
+     * @param caminho O caminho, com os nomes separados por "/".
+     * @return A referência do nó.
+     */
+    IReferencia getReferencia(String caminho);
+}
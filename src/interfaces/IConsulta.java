@@ -0,0 +1,146 @@
+package interfaces;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.ValueEventListener;
+
+/**
+ * Define as consultas e os ouvintes de um nó do banco de dados, com a mesma semântica da
+ * classe {@link com.google.firebase.database.Query} do SDK do Firebase. Os métodos mantêm os
+ * nomes do SDK para que os repositórios funcionem sem alteração sobre qualquer implementação
+ * de {@link IBancoDados}: o Realtime Database real ou o banco em memória usado em testes de carga.
+ * <p>
+ * As consultas são imutáveis: cada método de ordenação, intervalo ou limite retorna uma nova
+ * consulta. Os ouvintes recebem os tipos do próprio SDK ({@link com.google.firebase.database.DataSnapshot}
+ * e {@link com.google.firebase.database.DatabaseError}) e são chamados sempre pela mesma thread.
+ *
+ * @see IReferencia
+ * @see IBancoDados
+ */
+public interface IConsulta {
+
+    /**
+     * Ordena os filhos pela chave.
+     * @return A nova consulta.
+     */
+    IConsulta orderByKey();
+
+    /**
+     * Ordena os filhos pelo valor de um filho de cada um deles; filhos sem o campo vêm primeiro.
+     *
+     * @param caminho O caminho do campo, relativo a cada filho.
+     * @return A nova consulta.
+     */
+    IConsulta orderByChild(String caminho);
+
+    /**
+     * Mantém apenas os filhos a partir da chave (ou do valor textual) informada, inclusive.
+     *
+     * @param valor O limite inferior.
+     * @return A nova consulta.
+     */
+    IConsulta startAt(String valor);
+
+    /**
+     * Mantém apenas os filhos a partir do valor numérico informado, inclusive.
+     *
+     * @param valor O limite inferior.
+     * @return A nova consulta.
+     */
+    IConsulta startAt(double valor);
+
+    /**
+     * Mantém apenas os filhos a partir do valor informado; entre os filhos com esse mesmo
+     * valor, apenas os de chave maior ou igual à informada.
+     *
+     * @param valor O limite inferior.
+     * @param chave A chave de desempate.
+     * @return A nova consulta.
+     */
+    IConsulta startAt(double valor, String chave);
+
+    /**
+     * Mantém apenas os filhos até a chave (ou o valor textual) informada, inclusive.
+     * Com {@code null}, mantém apenas os filhos sem o campo da ordenação.
+     *
+     * @param valor O limite superior.
+     * @return A nova consulta.
+     */
+    IConsulta endAt(String valor);
+
+    /**
+     * Mantém apenas os filhos até o valor numérico informado, inclusive.
+     *
+     * @param valor O limite superior.
+     * @return A nova consulta.
+     */
+    IConsulta endAt(double valor);
+
+    /**
+     * Mantém apenas os filhos cuja chave (ou valor textual) é igual à informada.
+     *
+     * @param valor O valor procurado.
+     * @return A nova consulta.
+     */
+    IConsulta equalTo(String valor);
+
+    /**
+     * Mantém apenas os primeiros filhos, na ordem da consulta.
+     *
+     * @param limite A quantidade máxima de filhos.
+     * @return A nova consulta.
+     */
+    IConsulta limitToFirst(int limite);
+
+    /**
+     * Mantém apenas os últimos filhos, na ordem da consulta.
+     *
+     * @param limite A quantidade máxima de filhos.
+     * @return A nova consulta.
+     */
+    IConsulta limitToLast(int limite);
+
+    /**
+     * Lê o resultado da consulta uma única vez.
+     *
+     * @param ouvinte O ouvinte que recebe o resultado ou o erro.
+     */
+    void addListenerForSingleValueEvent(ValueEventListener ouvinte);
+
+    /**
+     * Recebe o resultado da consulta agora e a cada alteração, até o ouvinte ser removido.
+     *
+     * @param ouvinte O ouvinte a ser registrado.
+     * @return O próprio ouvinte, para uso em {@link #removeEventListener(ValueEventListener)}.
+     */
+    ValueEventListener addValueEventListener(ValueEventListener ouvinte);
+
+    /**
+     * Recebe um evento para cada filho existente e, depois, para cada filho adicionado,
+     * alterado ou removido, até o ouvinte ser removido.
+     *
+     * @param ouvinte O ouvinte a ser registrado.
+     * @return O próprio ouvinte, para uso em {@link #removeEventListener(ChildEventListener)}.
+     */
+    ChildEventListener addChildEventListener(ChildEventListener ouvinte);
+
+    /**
+     * Remove um ouvinte de valor; uma leitura única ainda pendente também é cancelada.
+     *
+     * @param ouvinte O ouvinte a ser removido.
+     */
+    void removeEventListener(ValueEventListener ouvinte);
+
+    /**
+     * Remove um ouvinte de filhos.
+     *
+     * @param ouvinte O ouvinte a ser removido.
+     */
+    void removeEventListener(ChildEventListener ouvinte);
+}
@@ -20,6 +20,8 @@ import java.util.concurrent.CompletableFuture;
  *
  * @param <T> O tipo da entidade que será gerenciada pela implementação do CRUD.
  * @see repository.ProdutoRepository
+ * @see repository.UsuarioRepository
+ * @see Alteracoes
  */
 public interface ICrud<T> {
     /**
@@ -51,6 +53,18 @@ public interface ICrud<T> {
      */
     ApiFuture<Void>  atualizar(T obj) throws Exception;
 
+    /**
+     * Atualiza apenas os campos informados de um objeto já existente. (Operação Update parcial)
+     * Os campos que não fazem parte das alterações são preservados no banco, de modo que
+     * uma edição não sobrescreve alterações feitas ao mesmo tempo em outros campos.
+     *
+     * @param id         O identificador único (ID) do objeto a ser atualizado.
+     * @param alteracoes Os campos e seus novos valores.
+     * @return Um {@link ApiFuture} que é completado quando a operação de atualizar termina.
+     * @throws Exception se ocorrer um erro durante a comunicação com o banco de dados.
+     */
+    ApiFuture<Void> atualizarCampos(String id, Alteracoes<T> alteracoes) throws Exception;
+
     /**
      * Remove um objeto do banco de dados com base em seu identificador único. (Operação Delete)
      *
@@ -0,0 +1,67 @@
+package interfaces;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Visão JMX de um histograma de latência, registrada como
+ * {@code pdv:type=Latencia,name=<métrica>} e visível no JConsole ou no VisualVM.
+ * Os tempos são em milissegundos e acumulados desde o início da aplicação ou desde a
+ * última chamada a {@link #zerar()}.
+ *
+ * @see database.HistogramaLatencia
+ * @see database.Metricas
+ */
+public interface IHistogramaMXBean {
+
+    /**
+     * Retorna quantas chamadas foram registradas.
+     * @return O número de chamadas.
+     */
+    long getContagem();
+
+    /**
+     * Retorna quantas das chamadas registradas terminaram com erro.
+     * @return O número de erros.
+     */
+    long getErros();
+
+    /**
+     * Retorna a latência média.
+     * @return A média, em milissegundos.
+     */
+    double getMediaMs();
+
+    /**
+     * Retorna a mediana da latência.
+     * @return O percentil 50, em milissegundos.
+     */
+    double getP50Ms();
+
+    /**
+     * Retorna o percentil 99 da latência.
+     * @return O percentil 99, em milissegundos.
+     */
+    double getP99Ms();
+
+    /**
+     * Retorna o percentil 99,9 da latência.
+     * @return O percentil 99,9, em milissegundos.
+     */
+    double getP999Ms();
+
+    /**
+     * Retorna a maior latência registrada.
+     * @return O máximo, em milissegundos.
+     */
+    double getMaxMs();
+
+    /**
+     * Descarta os registros acumulados.
+     */
+    void zerar();
+}
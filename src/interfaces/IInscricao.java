@@ -0,0 +1,21 @@
+package interfaces;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Uma inscrição para receber alterações do banco de dados, como as de produtos ouvidas pelas
+ * telas de estoque. Quem se inscreve deve cancelar a inscrição quando não precisar mais das
+ * alterações, para que os ouvintes sejam removidos do Firebase.
+ */
+public interface IInscricao {
+
+    /**
+     * Cancela a inscrição. Chamar mais de uma vez não tem efeito.
+     */
+    void cancelar();
+}
@@ -0,0 +1,73 @@
+package interfaces;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.api.core.ApiFuture;
+import com.google.firebase.database.Transaction;
+
+import java.util.Map;
+
+/**
+ * Define a referência para um nó do banco de dados, com a mesma semântica da classe
+ * {@link com.google.firebase.database.DatabaseReference} do SDK do Firebase: além das
+ * consultas de {@link IConsulta}, permite navegar pelos filhos e gravar no nó.
+ * <p>
+ * As escritas são assíncronas e retornam um {@link ApiFuture} completado quando o servidor
+ * as confirma, ou com a exceção do SDK em caso de falha.
+ *
+ * @see IBancoDados
+ */
+public interface IReferencia extends IConsulta {
+
+    /**
+     * Retorna a referência para um nó abaixo deste.
+     *
+     * @param caminho O caminho relativo, com os nomes separados por "/".
+     * @return A referência do nó filho.
+     */
+    IReferencia child(String caminho);
+
+    /**
+     * Retorna o nome do nó.
+     * @return A última parte do caminho, ou {@code null} na raiz.
+     */
+    String getKey();
+
+    /**
+     * Substitui o conteúdo do nó. Objetos são convertidos pelas regras de mapeamento do SDK
+     * (getters e campos públicos); {@code null} remove o nó.
+     *
+     * @param valor O novo conteúdo.
+     * @return Um {@link ApiFuture} completado quando a escrita for confirmada.
+     */
+    ApiFuture<Void> setValueAsync(Object valor);
+
+    /**
+     * Grava vários caminhos abaixo deste nó em uma única escrita atômica. Cada chave do mapa é
+     * um caminho relativo; os demais filhos do nó não são alterados.
+     *
+     * @param atualizacoes Os caminhos e seus novos valores ({@code null} remove o caminho).
+     * @return Um {@link ApiFuture} completado quando a escrita for confirmada.
+     */
+    ApiFuture<Void> updateChildrenAsync(Map<String, Object> atualizacoes);
+
+    /**
+     * Remove o nó.
+     * @return Um {@link ApiFuture} completado quando a remoção for confirmada.
+     */
+    ApiFuture<Void> removeValueAsync();
+
+    /**
+     * Executa uma transação sobre o nó. O {@link Transaction.Handler#doTransaction} pode ser
+     * chamado mais de uma vez se o valor mudar durante a operação; o resultado final é entregue
+     * em {@link Transaction.Handler#onComplete}.
+     *
+     * @param handler O código da transação.
+     */
+    void runTransaction(Transaction.Handler handler);
+}
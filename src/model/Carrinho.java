@@ -0,0 +1,163 @@
+package model;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carrinho de compras do caixa: as linhas de uma venda ainda não finalizada, cada uma com
+ * o ID do produto, a quantidade e o desconto da linha. Adicionar de novo um produto que já
+ * está no carrinho soma a quantidade e o desconto à linha existente, de modo que cada
+ * produto aparece em uma única linha. As linhas mantêm a ordem em que foram adicionadas.
+ * <p>
+ * O carrinho não consulta o banco; preços e estoques são conferidos ao finalizar a venda,
+ * em {@link service.VendaService#finalizarCarrinhoAsync(Usuario, Carrinho, FormaPagamento)}.
+ *
+ * @see ItemVenda
+ */
+public class Carrinho {
+    private final Map<String, Linha> linhas = new LinkedHashMap<>();
+
+    /**
+     * Uma linha do carrinho.
+     */
+    public static final class Linha {
+        private final String produtoId;
+        private int quantidade;
+        private double desconto;
+
+        private Linha(String produtoId) {
+            this.produtoId = produtoId;
+        }
+
+        /**
+         * Retorna o ID do produto da linha.
+         * @return O ID do produto.
+         */
+        public String getProdutoId() {
+            return produtoId;
+        }
+
+        /**
+         * Retorna a quantidade da linha.
+         * @return O número de unidades.
+         */
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        /**
+         * Retorna o desconto da linha.
+         * @return O desconto em R$.
+         */
+        public double getDesconto() {
+            return desconto;
+        }
+    }
+
+    /**
+     * Adiciona unidades de um produto ao carrinho, sem desconto.
+     *
+     * @param produtoId  O ID do produto.
+     * @param quantidade O número de unidades a adicionar.
+     * @return Este mesmo carrinho, para encadeamento.
+     * @throws IllegalArgumentException se o ID for vazio ou a quantidade não for positiva.
+     */
+    public Carrinho adicionar(String produtoId, int quantidade) {
+        return adicionar(produtoId, quantidade, 0);
+    }
+
+    /**
+     * Adiciona unidades de um produto ao carrinho, com um desconto para essas unidades.
+     *
+     * @param produtoId  O ID do produto.
+     * @param quantidade O número de unidades a adicionar.
+     * @param desconto   O desconto em R$ somado ao desconto da linha.
+     * @return Este mesmo carrinho, para encadeamento.
+     * @throws IllegalArgumentException se o ID for vazio, a quantidade não for positiva ou o
+     * desconto for negativo.
+     */
+    public Carrinho adicionar(String produtoId, int quantidade, double desconto) {
+        if (produtoId == null || produtoId.isEmpty()) {
+            throw new IllegalArgumentException("ERRO: O ID do produto não pode ser vazio.");
+        }
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("ERRO: A quantidade deve ser maior que zero.");
+        }
+        if (desconto < 0) {
+            throw new IllegalArgumentException("ERRO: O valor do desconto é inválido.");
+        }
+        Linha linha = linhas.computeIfAbsent(produtoId, Linha::new);
+        linha.quantidade += quantidade;
+        linha.desconto += desconto;
+        return this;
+    }
+
+    /**
+     * Define o desconto total de uma linha, substituindo o anterior.
+     *
+     * @param produtoId O ID do produto da linha.
+     * @param desconto  O novo desconto em R$.
+     * @throws IllegalArgumentException se o produto não estiver no carrinho ou o desconto for negativo.
+     */
+    public void definirDesconto(String produtoId, double desconto) {
+        Linha linha = linhas.get(produtoId);
+        if (linha == null) {
+            throw new IllegalArgumentException("ERRO: O produto " + produtoId + " não está no carrinho.");
+        }
+        if (desconto < 0) {
+            throw new IllegalArgumentException("ERRO: O valor do desconto é inválido.");
+        }
+        linha.desconto = desconto;
+    }
+
+    /**
+     * Remove a linha de um produto.
+     *
+     * @param produtoId O ID do produto.
+     * @return {@code true} se o produto estava no carrinho.
+     */
+    public boolean remover(String produtoId) {
+        return linhas.remove(produtoId) != null;
+    }
+
+    /**
+     * Remove todas as linhas.
+     */
+    public void limpar() {
+        linhas.clear();
+    }
+
+    /**
+     * Retorna as linhas do carrinho na ordem em que foram adicionadas.
+     * @return Uma lista imutável com as linhas.
+     */
+    public List<Linha> getLinhas() {
+        return Collections.unmodifiableList(new ArrayList<>(linhas.values()));
+    }
+
+    /**
+     * Indica se o carrinho não tem nenhuma linha.
+     * @return {@code true} se o carrinho está vazio.
+     */
+    public boolean isVazio() {
+        return linhas.isEmpty();
+    }
+
+    /**
+     * Retorna o número de linhas (produtos distintos) do carrinho.
+     * @return O número de linhas.
+     */
+    public int tamanho() {
+        return linhas.size();
+    }
+}
@@ -0,0 +1,198 @@
+package model;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Registro de uma venda feita sem conexão cuja baixa de estoque não pôde ser aplicada
+ * no Firebase, seja porque o estoque do servidor ficaria negativo (outro terminal vendeu
+ * as mesmas unidades), seja porque o produto foi removido nesse meio tempo.
+ * A venda em si é gravada normalmente; o conflito fica no nó "conflitos_estoque"
+ * para conferência do gerente.
+ * <p>
+ * O mesmo nó recebe as baixas de uma venda online não concluída cujo estoque não pôde ser
+ * devolvido; nesse caso a venda não existe e {@code dataHoraVenda} fica vazio.
+ *
+ * @see repository.ReprodutorDiario
+ * @see service.VendaService
+ */
+public class ConflitoEstoque {
+    private String idVenda;
+    private String idProduto;
+    private int quantidadeVendida;
+    private int matriculaUsuario;
+    private String dataHoraVenda;
+    private String dataHoraConflito;
+    private String motivo;
+
+    /**
+     * Construtor completo do conflito.
+     *
+     * @param venda            A venda que não pôde ter o estoque baixado.
+     * @param dataHoraConflito A data e a hora em que o conflito foi detectado.
+     * @param motivo           A descrição do motivo do conflito.
+     */
+    public ConflitoEstoque(VendaDTO venda, String dataHoraConflito, String motivo) {
+        this(venda, venda.linhas().get(0), dataHoraConflito, motivo);
+    }
+
+    /**
+     * Construtor do conflito de uma linha de uma venda com vários produtos.
+     *
+     * @param venda            A venda a que a linha pertence.
+     * @param item             A linha que não pôde ter o estoque baixado.
+     * @param dataHoraConflito A data e a hora em que o conflito foi detectado.
+     * @param motivo           A descrição do motivo do conflito.
+     */
+    public ConflitoEstoque(VendaDTO venda, ItemVendaDTO item, String dataHoraConflito, String motivo) {
+        this.idVenda = venda.getId();
+        this.idProduto = item.getIdProduto();
+        this.quantidadeVendida = item.getQuantidade();
+        this.matriculaUsuario = venda.getMatriculaUsuario();
+        this.dataHoraVenda = venda.getDataHora();
+        this.dataHoraConflito = dataHoraConflito;
+        this.motivo = motivo;
+    }
+
+    /**
+     * Construtor do conflito de uma baixa de estoque que não pôde ser devolvida depois que a
+     * venda falhou.
+     *
+     * @param idVenda          O ID que a venda teria.
+     * @param idProduto        O produto cujo estoque ficou baixado.
+     * @param quantidade       As unidades que deveriam ter sido devolvidas.
+     * @param matriculaUsuario A matrícula do usuário que tentou a venda.
+     * @param dataHoraConflito A data e a hora em que o conflito foi detectado.
+     * @param motivo           A descrição do motivo do conflito.
+     */
+    public ConflitoEstoque(String idVenda, String idProduto, int quantidade, int matriculaUsuario,
+                           String dataHoraConflito, String motivo) {
+        this.idVenda = idVenda;
+        this.idProduto = idProduto;
+        this.quantidadeVendida = quantidade;
+        this.matriculaUsuario = matriculaUsuario;
+        this.dataHoraConflito = dataHoraConflito;
+        this.motivo = motivo;
+    }
+
+    /**
+     * Construtor sem argumentos, necessário para a desserialização de dados no Firebase.
+     */
+    public ConflitoEstoque() {}
+
+    /**
+     * Retorna o ID da venda em conflito.
+     * @return O ID da venda.
+     */
+    public String getIdVenda() {
+        return idVenda;
+    }
+
+    /**
+     * Define o ID da venda em conflito.
+     * @param idVenda O novo ID da venda.
+     */
+    public void setIdVenda(String idVenda) {
+        this.idVenda = idVenda;
+    }
+
+    /**
+     * Retorna o ID do produto vendido.
+     * @return O ID do produto.
+     */
+    public String getIdProduto() {
+        return idProduto;
+    }
+
+    /**
+     * Define o ID do produto vendido.
+     * @param idProduto O novo ID do produto.
+     */
+    public void setIdProduto(String idProduto) {
+        this.idProduto = idProduto;
+    }
+
+    /**
+     * Retorna a quantidade vendida que não pôde ser baixada.
+     * @return A quantidade vendida.
+     */
+    public int getQuantidadeVendida() {
+        return quantidadeVendida;
+    }
+
+    /**
+     * Define a quantidade vendida.
+     * @param quantidadeVendida A nova quantidade.
+     */
+    public void setQuantidadeVendida(int quantidadeVendida) {
+        this.quantidadeVendida = quantidadeVendida;
+    }
+
+    /**
+     * Retorna a matrícula do usuário que realizou a venda.
+     * @return A matrícula do usuário.
+     */
+    public int getMatriculaUsuario() {
+        return matriculaUsuario;
+    }
+
+    /**
+     * Define a matrícula do usuário que realizou a venda.
+     * @param matriculaUsuario A nova matrícula.
+     */
+    public void setMatriculaUsuario(int matriculaUsuario) {
+        this.matriculaUsuario = matriculaUsuario;
+    }
+
+    /**
+     * Retorna a data e a hora da venda no caixa.
+     * @return A data e a hora da venda.
+     */
+    public String getDataHoraVenda() {
+        return dataHoraVenda;
+    }
+
+    /**
+     * Define a data e a hora da venda no caixa.
+     * @param dataHoraVenda A nova data e hora.
+     */
+    public void setDataHoraVenda(String dataHoraVenda) {
+        this.dataHoraVenda = dataHoraVenda;
+    }
+
+    /**
+     * Retorna a data e a hora em que o conflito foi detectado.
+     * @return A data e a hora do conflito.
+     */
+    public String getDataHoraConflito() {
+        return dataHoraConflito;
+    }
+
+    /**
+     * Define a data e a hora em que o conflito foi detectado.
+     * @param dataHoraConflito A nova data e hora.
+     */
+    public void setDataHoraConflito(String dataHoraConflito) {
+        this.dataHoraConflito = dataHoraConflito;
+    }
+
+    /**
+     * Retorna a descrição do motivo do conflito.
+     * @return O motivo.
+     */
+    public String getMotivo() {
+        return motivo;
+    }
+
+    /**
+     * Define a descrição do motivo do conflito.
+     * @param motivo O novo motivo.
+     */
+    public void setMotivo(String motivo) {
+        this.motivo = motivo;
+    }
+}
@@ -7,8 +7,6 @@ package model;
  * Lorena da Silva Borges
  */
 
-import java.util.Map;
-
 /**
  * Representa um usuário concreto do tipo Gerente no sistema.
  * Esta classe, uma especialização de {@link Usuario}, é usada para modelar um
@@ -55,9 +53,6 @@ public class Gerente extends Usuario {
      * Metodo privado que sobrescreve as permissões padrão, concedendo acesso total.
      */
     private void darPermissoesDeGerente() {
-        Map<String, Boolean> permissoes = getPermissoes();
-        for (Permissao p : Permissao.values()) {
-            permissoes.put(p.name(), true);
-        }
+        setMascaraPermissoes(Permissao.TODAS);
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package model;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Representa uma linha de uma {@link Venda} com vários produtos: o produto, a quantidade
+ * vendida e o desconto aplicado somente a esta linha. O valor da linha é calculado na
+ * criação do objeto, com o preço do produto naquele momento.
+ *
+ * @see Venda
+ * @see ItemVendaDTO
+ * @see Carrinho
+ */
+public class ItemVenda {
+    private final Produto produto;
+    private final int quantidade;
+    private final double desconto;
+    private final double valorTotal;
+
+    /**
+     * Cria uma linha de venda.
+     *
+     * @param produto    O {@link Produto} vendido.
+     * @param quantidade O número de unidades vendidas.
+     * @param desconto   O desconto em R$ aplicado a esta linha.
+     * @throws IllegalArgumentException se a quantidade não for positiva ou se o desconto for
+     * negativo ou maior que o valor bruto da linha.
+     */
+    public ItemVenda(Produto produto, int quantidade, double desconto) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("ERRO: A quantidade do produto " + produto.getId() + " deve ser maior que zero.");
+        }
+        double valorBruto = produto.getPreco() * quantidade;
+        if (desconto < 0 || desconto > valorBruto) {
+            throw new IllegalArgumentException("ERRO: O valor do desconto do produto " + produto.getId() + " é inválido.");
+        }
+        this.produto = produto;
+        this.quantidade = quantidade;
+        this.desconto = desconto;
+        this.valorTotal = valorBruto - desconto;
+    }
+
+    /**
+     * Retorna o produto da linha.
+     * @return O produto vendido.
+     */
+    public Produto getProduto() {
+        return produto;
+    }
+
+    /**
+     * Retorna a quantidade vendida.
+     * @return O número de unidades.
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Retorna o desconto aplicado à linha.
+     * @return O desconto em R$.
+     */
+    public double getDesconto() {
+        return desconto;
+    }
+
+    /**
+     * Retorna o valor da linha, já com o desconto.
+     * @return O valor em R$.
+     */
+    public double getValorTotal() {
+        return valorTotal;
+    }
+}
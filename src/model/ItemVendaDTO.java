@@ -0,0 +1,139 @@
+package model;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Representa uma linha de venda na forma gravada no Firebase, dentro da lista
+ * {@code itens} de um {@link VendaDTO}. O produto é identificado pelo seu ID, e o preço
+ * unitário é guardado para que a venda continue fiel mesmo após mudanças de preço.
+ *
+ * @see ItemVenda
+ * @see VendaDTO#getItens()
+ */
+public class ItemVendaDTO {
+    private String idProduto;
+    private int quantidade;
+    private double precoUnitario;
+    private double desconto;
+    private double valorTotal;
+
+    /**
+     * Construtor de mapeamento que converte uma linha de venda em DTO.
+     *
+     * @param item A linha de venda a ser convertida.
+     */
+    public ItemVendaDTO(ItemVenda item) {
+        this.idProduto = item.getProduto().getId();
+        this.quantidade = item.getQuantidade();
+        this.precoUnitario = item.getProduto().getPreco();
+        this.desconto = item.getDesconto();
+        this.valorTotal = item.getValorTotal();
+    }
+
+    /**
+     * Construtor completo, usado na leitura do diário local de vendas.
+     *
+     * @param idProduto     O ID do produto.
+     * @param quantidade    O número de unidades vendidas.
+     * @param precoUnitario O preço unitário no momento da venda.
+     * @param desconto      O desconto aplicado à linha.
+     * @param valorTotal    O valor da linha, já com o desconto.
+     */
+    public ItemVendaDTO(String idProduto, int quantidade, double precoUnitario, double desconto, double valorTotal) {
+        this.idProduto = idProduto;
+        this.quantidade = quantidade;
+        this.precoUnitario = precoUnitario;
+        this.desconto = desconto;
+        this.valorTotal = valorTotal;
+    }
+
+    /**
+     * Construtor sem argumentos, necessário para a desserialização de dados no Firebase.
+     */
+    public ItemVendaDTO() {}
+
+    /**
+     * Retorna o ID do produto da linha.
+     * @return O ID do produto.
+     */
+    public String getIdProduto() {
+        return idProduto;
+    }
+
+    /**
+     * Define o ID do produto da linha.
+     * @param idProduto O novo ID do produto.
+     */
+    public void setIdProduto(String idProduto) {
+        this.idProduto = idProduto;
+    }
+
+    /**
+     * Retorna a quantidade vendida.
+     * @return O número de unidades.
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Define a quantidade vendida.
+     * @param quantidade O novo número de unidades.
+     */
+    public void setQuantidade(int quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    /**
+     * Retorna o preço unitário no momento da venda.
+     * @return O preço unitário em R$.
+     */
+    public double getPrecoUnitario() {
+        return precoUnitario;
+    }
+
+    /**
+     * Define o preço unitário no momento da venda.
+     * @param precoUnitario O novo preço unitário.
+     */
+    public void setPrecoUnitario(double precoUnitario) {
+        this.precoUnitario = precoUnitario;
+    }
+
+    /**
+     * Retorna o desconto aplicado à linha.
+     * @return O desconto em R$.
+     */
+    public double getDesconto() {
+        return desconto;
+    }
+
+    /**
+     * Define o desconto aplicado à linha.
+     * @param desconto O novo desconto.
+     */
+    public void setDesconto(double desconto) {
+        this.desconto = desconto;
+    }
+
+    /**
+     * Retorna o valor da linha, já com o desconto.
+     * @return O valor em R$.
+     */
+    public double getValorTotal() {
+        return valorTotal;
+    }
+
+    /**
+     * Define o valor da linha.
+     * @param valorTotal O novo valor.
+     */
+    public void setValorTotal(double valorTotal) {
+        this.valorTotal = valorTotal;
+    }
+}
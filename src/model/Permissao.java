@@ -7,32 +7,125 @@ package model;
  * Lorena da Silva Borges
  */
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Esta classe é a fonte para o sistema de autorização, fornecendo uma
  * forma segura de representar as capacidades de um usuário.
+ * <p>
+ * Cada permissão ocupa um bit fixo de uma máscara {@code long}, que é a forma como o
+ * {@link Usuario} guarda suas permissões e, no armazenamento compacto, a forma gravada
+ * no banco. Por isso o bit de uma permissão nunca deve ser alterado nem reaproveitado;
+ * novas permissões recebem o próximo bit livre.
  * @see Usuario#temPermissao(Permissao)
  */
 public enum Permissao {
     /** Permissão para registrar novas vendas no sistema. */
-    REALIZAR_VENDA("Realizar Vendas"),
+    REALIZAR_VENDA("Realizar Vendas", 0),
     /** Permissão para apenas visualizar a lista de produtos e seus estoques. */
-    VISUALIZAR_ESTOQUE("Visualizar Estoque"),
+    VISUALIZAR_ESTOQUE("Visualizar Estoque", 1),
     /** Permissão para alterar o estoque (adicionar/remover) de produtos existentes. */
-    GERENCIAR_ESTOQUE("Gerenciar Estoque (Adicionar/Remover)"),
+    GERENCIAR_ESTOQUE("Gerenciar Estoque (Adicionar/Remover)", 2),
     /** Permissão para cadastrar novos produtos no sistema. */
-    CADASTRAR_PRODUTO("Cadastrar Produtos"),
+    CADASTRAR_PRODUTO("Cadastrar Produtos", 3),
     /** Permissão para gerenciar outros usuários (cadastrar, ativar/inativar, alterar permissões). */
-    GERENCIAR_USUARIOS("Gerenciar Usuários (Cadastrar/Inativar)");
+    GERENCIAR_USUARIOS("Gerenciar Usuários (Cadastrar/Inativar)", 4);
+
+    private static final Permissao[] VALORES = values();
+
+    /** Máscara com todas as permissões, concedida aos gerentes. */
+    public static final long TODAS = mascaraDe(Arrays.asList(VALORES));
+
+    /** Máscara das permissões padrão de um novo usuário, equivalentes às de um Atendente. */
+    public static final long PADRAO = REALIZAR_VENDA.bit() | VISUALIZAR_ESTOQUE.bit();
 
     private final String descricao;
+    private final long bit;
 
     /**
-     * Construtor privado para associar uma descrição a cada constante do enum.
+     * Construtor privado para associar uma descrição e um bit a cada constante do enum.
      *
      * @param descricao A descrição amigável da permissão.
+     * @param posicao   A posição (0 a 63) do bit da permissão na máscara.
      */
-    Permissao(String descricao) {
+    Permissao(String descricao, int posicao) {
         this.descricao = descricao;
+        this.bit = 1L << posicao;
+    }
+
+    /**
+     * Retorna o bit que representa esta permissão em uma máscara.
+     * @return Um {@code long} com apenas o bit da permissão ligado.
+     */
+    public long bit() {
+        return bit;
+    }
+
+    /**
+     * Converte um conjunto de permissões em máscara.
+     *
+     * @param permissoes As permissões concedidas.
+     * @return A máscara com os bits das permissões ligados.
+     */
+    public static long mascaraDe(Collection<Permissao> permissoes) {
+        long mascara = 0L;
+        for (Permissao p : permissoes) {
+            mascara |= p.bit;
+        }
+        return mascara;
+    }
+
+    /**
+     * Converte uma máscara no conjunto das permissões correspondentes. Bits que não
+     * correspondem a nenhuma permissão conhecida são ignorados.
+     *
+     * @param mascara A máscara de permissões.
+     * @return Um novo {@link EnumSet} com as permissões concedidas.
+     */
+    public static EnumSet<Permissao> conjuntoDe(long mascara) {
+        EnumSet<Permissao> conjunto = EnumSet.noneOf(Permissao.class);
+        for (Permissao p : VALORES) {
+            if ((mascara & p.bit) != 0) {
+                conjunto.add(p);
+            }
+        }
+        return conjunto;
+    }
+
+    /**
+     * Converte o mapa de permissões no formato gravado no banco (nome da permissão para
+     * booleano) em máscara. Nomes desconhecidos e valores {@code null} são ignorados.
+     *
+     * @param mapa O mapa de permissões.
+     * @return A máscara com os bits das permissões marcadas como {@code true}.
+     */
+    public static long mascaraDe(Map<String, Boolean> mapa) {
+        long mascara = 0L;
+        for (Permissao p : VALORES) {
+            if (Boolean.TRUE.equals(mapa.get(p.name()))) {
+                mascara |= p.bit;
+            }
+        }
+        return mascara;
+    }
+
+    /**
+     * Converte uma máscara no mapa de permissões do formato gravado no banco, com uma
+     * entrada para cada permissão conhecida.
+     *
+     * @param mascara A máscara de permissões.
+     * @return Um novo mapa do nome da permissão para {@code true} ou {@code false}.
+     */
+    public static Map<String, Boolean> mapaDe(long mascara) {
+        Map<String, Boolean> mapa = new HashMap<>();
+        for (Permissao p : VALORES) {
+            mapa.put(p.name(), (mascara & p.bit) != 0);
+        }
+        return mapa;
     }
 
     /**
@@ -7,20 +7,32 @@ package model;
  * Lorena da Silva Borges
  */
 
+import com.google.firebase.database.IgnoreExtraProperties;
 import excecoes.*;
+import interfaces.Campo;
 
 /**
  * Representa um produto no inventário da loja.
  * Esta classe encapsula todos os dados pertinentes a um produto, como seu identificador,
  * nome, preço e quantidade em estoque. Além de armazenar o estado do produto, ela também
  * contém lógicas de negócio essenciais, como a validação para redução de estoque.
+ * <p>
+ * Outros filhos do nó do produto, como as marcas de baixas do diário de vendas, são
+ * ignorados na conversão.
  *
  * @see Venda
  * @see repository.ProdutoRepository
  * @see service.ProdutoService
  * @see service.VendaService
  */
+@IgnoreExtraProperties
 public class Produto {
+    /** Campos persistidos, usados nas atualizações parciais. */
+    public static final Campo<Produto, String> TIPO = Campo.de("tipo");
+    public static final Campo<Produto, String> NOME = Campo.de("nome");
+    public static final Campo<Produto, Double> PRECO = Campo.de("preco");
+    public static final Campo<Produto, Integer> QUANTIDADE = Campo.de("quantidade");
+
     private String id;
     private String tipo;
     private String nome;
@@ -49,6 +61,16 @@ public class Produto {
      */
     public Produto() {}
 
+    /**
+     * Construtor de cópia. Cria uma nova instância com os mesmos dados do produto informado,
+     * permitindo alterar o estado sem afetar o objeto original.
+     *
+     * @param outro O produto a ser copiado.
+     */
+    public Produto(Produto outro) {
+        this(outro.getId(), outro.getTipo(), outro.getNome(), outro.getPreco(), outro.getQuantidade());
+    }
+
     /**
      * Reduz a quantidade de itens do produto em estoque.
      * Este metodo contém uma regra de negócio que impede que o estoque se torne negativo.
@@ -0,0 +1,134 @@
+package model;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Contadores pré-agregados de um conjunto de vendas, gravados no nó "rollups".
+ * A receita é guardada em centavos para que as somas sucessivas não acumulem
+ * erros de arredondamento de ponto flutuante.
+ *
+ * @see repository.ConsolidacaoVendas
+ */
+public class TotaisVendas {
+    private long receitaCentavos;
+    private long unidades;
+    private long tickets;
+
+    /**
+     * Construtor sem argumentos, necessário para a desserialização de dados no Firebase.
+     */
+    public TotaisVendas() {}
+
+    /**
+     * Construtor completo dos contadores.
+     *
+     * @param receitaCentavos A receita total, em centavos.
+     * @param unidades        O número de unidades vendidas.
+     * @param tickets         O número de vendas.
+     */
+    public TotaisVendas(long receitaCentavos, long unidades, long tickets) {
+        this.receitaCentavos = receitaCentavos;
+        this.unidades = unidades;
+        this.tickets = tickets;
+    }
+
+    /**
+     * Soma uma venda aos contadores.
+     *
+     * @param venda A venda a ser somada.
+     */
+    public void somar(VendaDTO venda) {
+        receitaCentavos += Math.round(venda.getValorTotal() * 100);
+        unidades += venda.getQuantidade();
+        tickets++;
+    }
+
+    /**
+     * Soma uma linha de venda aos contadores, contando a venda a que ela pertence como
+     * uma venda do produto da linha.
+     *
+     * @param item A linha a ser somada.
+     */
+    public void somar(ItemVendaDTO item) {
+        receitaCentavos += Math.round(item.getValorTotal() * 100);
+        unidades += item.getQuantidade();
+        tickets++;
+    }
+
+    /**
+     * Soma outro conjunto de contadores a este.
+     *
+     * @param outros Os contadores a serem somados.
+     */
+    public void somar(TotaisVendas outros) {
+        receitaCentavos += outros.receitaCentavos;
+        unidades += outros.unidades;
+        tickets += outros.tickets;
+    }
+
+    /**
+     * Retorna a receita total em reais.
+     * @return A receita, calculada a partir dos centavos.
+     */
+    public double calcularReceita() {
+        return receitaCentavos / 100.0;
+    }
+
+    /**
+     * Retorna a receita total em centavos.
+     * @return A receita em centavos.
+     */
+    public long getReceitaCentavos() {
+        return receitaCentavos;
+    }
+
+    /**
+     * Define a receita total em centavos.
+     * @param receitaCentavos A nova receita em centavos.
+     */
+    public void setReceitaCentavos(long receitaCentavos) {
+        this.receitaCentavos = receitaCentavos;
+    }
+
+    /**
+     * Retorna o número de unidades vendidas.
+     * @return As unidades vendidas.
+     */
+    public long getUnidades() {
+        return unidades;
+    }
+
+    /**
+     * Define o número de unidades vendidas.
+     * @param unidades As novas unidades.
+     */
+    public void setUnidades(long unidades) {
+        this.unidades = unidades;
+    }
+
+    /**
+     * Retorna o número de vendas (tickets).
+     * @return O número de vendas.
+     */
+    public long getTickets() {
+        return tickets;
+    }
+
+    /**
+     * Define o número de vendas (tickets).
+     * @param tickets O novo número de vendas.
+     */
+    public void setTickets(long tickets) {
+        this.tickets = tickets;
+    }
+
+    @Override
+    public String toString() {
+        return tickets + " venda(s) | " + unidades + " unidade(s) | R$" + String.format("%.2f", calcularReceita());
+    }
+}
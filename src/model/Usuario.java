@@ -8,17 +8,27 @@ package model;
  */
 
 
+import com.google.firebase.database.Exclude;
+import interfaces.Campo;
 import interfaces.IAutenticacao;
 import excecoes.AutenticacaoException;
 
 import org.mindrot.jbcrypt.BCrypt;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.Map;
 
 
 /**
  * Classe base abstrata que define a estrutura e o comportamento comum para todos
  * os tipos de usuários no sistema.
+ * <p>
+ * As permissões são guardadas em memória como uma máscara de bits (veja {@link Permissao#bit()}),
+ * de modo que {@link #temPermissao(Permissao)} é um único teste de bit. No banco, por padrão, elas
+ * continuam no formato de mapa {@code permissoes/<NOME_DA_PERMISSAO>: true|false}, compatível com
+ * versões anteriores do sistema. Com a propriedade de sistema {@code pdv.permissoes.compacto=true},
+ * são gravadas apenas como o número {@code permissoesMascara}. Na leitura, os dois formatos são
+ * aceitos; se ambos estiverem presentes, a máscara prevalece.
  * Esta classe implementa a interface {@link IAutenticacao}, fornecendo uma lógica
  * de autenticação padrão que é herdada por todas as suas subclasses.
  *
@@ -28,12 +38,25 @@ import java.util.Map;
  * @see Permissao
  */
 public abstract class Usuario implements IAutenticacao {
+    /** Campos persistidos, usados nas atualizações parciais. */
+    public static final Campo<Usuario, String> NOME = Campo.de("nome");
+    public static final Campo<Usuario, String> SENHA = Campo.de("senha");
+    public static final Campo<Usuario, Boolean> ATIVO = Campo.de("ativo");
+    public static final Campo<Usuario, Map<String, Boolean>> PERMISSOES = Campo.de("permissoes");
+    public static final Campo<Usuario, Long> PERMISSOES_MASCARA = Campo.de("permissoesMascara");
+
+    private static final boolean ARMAZENAMENTO_COMPACTO = Boolean.getBoolean("pdv.permissoes.compacto");
+
+    /** Fator de custo do BCrypt usado nos novos hashes de senha (veja {@link service.CustoSenha}). */
+    private static volatile int custoSenha = 10;
+
     private int matricula;
     private String nome;
     private String usuario;
     private String senha;
     private String cargo;
-    private Map<String, Boolean> permissoes = new HashMap<>();
+    private long permissoes;
+    private boolean permissoesCompactas;
     private boolean ativo = true;
 
     /**
@@ -82,11 +105,7 @@ public abstract class Usuario implements IAutenticacao {
      * equivalente às permissões de um Atendente.
      */
     private void definirPermissoesPadrao() {
-        for (Permissao p : Permissao.values()) {
-            permissoes.put(p.name(), false);
-        }
-        permissoes.put(Permissao.REALIZAR_VENDA.name(), true);
-        permissoes.put(Permissao.VISUALIZAR_ESTOQUE.name(), true);
+        permissoes = Permissao.PADRAO;
     }
 
     /**
@@ -96,25 +115,113 @@ public abstract class Usuario implements IAutenticacao {
      * @return {@code true} se o usuário tiver a permissão, {@code false} caso contrário.
      */
     public boolean temPermissao(Permissao permissao) {
-        return this.permissoes.getOrDefault(permissao.name(), false);
+        return (permissoes & permissao.bit()) != 0;
+    }
+
+    /**
+     * Retorna as permissões concedidas ao usuário.
+     * @return Um novo {@link EnumSet} com as permissões; alterá-lo não afeta o usuário.
+     */
+    public EnumSet<Permissao> permissoesConcedidas() {
+        return Permissao.conjuntoDe(permissoes);
+    }
+
+    /**
+     * Substitui as permissões do usuário pelas informadas; as demais passam a ser negadas.
+     * @param concedidas As permissões concedidas.
+     */
+    public void definirPermissoes(Collection<Permissao> concedidas) {
+        this.permissoes = Permissao.mascaraDe(concedidas);
+    }
+
+    /**
+     * Retorna a máscara de bits das permissões do usuário.
+     * @return A máscara, com um bit ligado para cada permissão concedida.
+     */
+    @Exclude
+    public long getMascaraPermissoes() {
+        return permissoes;
+    }
+
+    /**
+     * Define as permissões do usuário a partir de uma máscara de bits.
+     * @param mascara A nova máscara de permissões.
+     */
+    @Exclude
+    public void setMascaraPermissoes(long mascara) {
+        this.permissoes = mascara;
+    }
+
+    /**
+     * Indica se as permissões deste usuário foram lidas do banco no formato compacto
+     * ({@code permissoesMascara}) em vez do mapa.
+     * @return {@code true} se o registro de origem tinha a máscara.
+     */
+    @Exclude
+    public boolean isPermissoesCompactas() {
+        return permissoesCompactas;
+    }
+
+    /**
+     * Indica se as permissões são gravadas no banco no formato compacto, conforme a
+     * propriedade de sistema {@code pdv.permissoes.compacto}.
+     * @return {@code true} se a máscara é gravada no lugar do mapa.
+     */
+    public static boolean isArmazenamentoCompacto() {
+        return ARMAZENAMENTO_COMPACTO;
+    }
+
+    /**
+     * Retorna o campo que guarda uma permissão específica dentro do mapa de permissões,
+     * permitindo alterar uma única permissão sem reenviar o mapa inteiro.
+     *
+     * @param permissao A permissão desejada.
+     * @return O {@link Campo} {@code permissoes/<NOME_DA_PERMISSAO>}.
+     */
+    public static Campo<Usuario, Boolean> permissao(Permissao permissao) {
+        return Campo.de("permissoes/" + permissao.name());
     }
 
     /**
-     * Retorna o mapa de permissões do usuário.
+     * Retorna o mapa de permissões do usuário no formato gravado no banco.
      * A chave do mapa é o nome da permissão (ex: "GERENCIAR_USUARIOS") e o valor é um booleano.
-     * @return O mapa de permissões.
+     * No armazenamento compacto retorna {@code null}, para que o mapa não seja gravado;
+     * para consultar permissões, use {@link #temPermissao(Permissao)}.
+     * @return Um novo mapa de permissões, ou {@code null} no armazenamento compacto.
      */
     public Map<String, Boolean> getPermissoes() {
-        return permissoes;
+        return ARMAZENAMENTO_COMPACTO ? null : Permissao.mapaDe(permissoes);
     }
 
     /**
-     * Define o mapa de permissões do usuário.
-     * Usado para carregar dados do Firebase ou para atualizar as permissões de um usuário.
-     * @param permissoes O novo mapa de permissões.
+     * Define as permissões do usuário a partir do mapa gravado no banco, convertendo-o
+     * para a máscara. Permissões ausentes do mapa são consideradas negadas. Se o registro
+     * também tiver a máscara compacta, ela prevalece e o mapa é ignorado.
+     * @param permissoes O mapa de permissões.
      */
     public void setPermissoes(Map<String, Boolean> permissoes) {
-        this.permissoes = permissoes;
+        if (permissoes != null && !permissoesCompactas) {
+            this.permissoes = Permissao.mascaraDe(permissoes);
+        }
+    }
+
+    /**
+     * Retorna a máscara de permissões no formato compacto gravado no banco.
+     * @return A máscara, ou {@code null} quando o armazenamento compacto está desligado.
+     */
+    public Long getPermissoesMascara() {
+        return ARMAZENAMENTO_COMPACTO ? permissoes : null;
+    }
+
+    /**
+     * Define as permissões a partir da máscara compacta gravada no banco.
+     * @param mascara A máscara de permissões, ou {@code null} se o registro não a tiver.
+     */
+    public void setPermissoesMascara(Long mascara) {
+        if (mascara != null) {
+            this.permissoes = mascara;
+            this.permissoesCompactas = true;
+        }
     }
 
     /**
@@ -183,11 +290,50 @@ public abstract class Usuario implements IAutenticacao {
 
     /**
      * Metodo de negócio para definir ou alterar uma senha.
-     * Recebe uma senha em texto plano e a armazena de forma criptografada.
+     * Recebe uma senha em texto plano e a armazena de forma criptografada,
+     * com o fator de custo atual ({@link #getCustoSenha()}).
      * @param senhaPlana A senha em texto plano a ser criptografada.
      */
     public void definirNovaSenha(String senhaPlana) {
-        this.senha = BCrypt.hashpw(senhaPlana, BCrypt.gensalt());
+        this.senha = BCrypt.hashpw(senhaPlana, BCrypt.gensalt(custoSenha));
+    }
+
+    /**
+     * Retorna o fator de custo com que o hash da senha armazenada foi gerado, lido do
+     * próprio hash (formato {@code $2a$<custo>$...}).
+     * @return O fator de custo, ou -1 se não houver senha ou o hash não for do BCrypt.
+     */
+    @Exclude
+    public int getCustoHashSenha() {
+        if (senha == null || senha.length() < 7 || senha.charAt(0) != '$' || senha.charAt(3) != '$' || senha.charAt(6) != '$') {
+            return -1;
+        }
+        char dezena = senha.charAt(4);
+        char unidade = senha.charAt(5);
+        if (!Character.isDigit(dezena) || !Character.isDigit(unidade)) {
+            return -1;
+        }
+        return (dezena - '0') * 10 + (unidade - '0');
+    }
+
+    /**
+     * Retorna o fator de custo do BCrypt usado nos novos hashes de senha.
+     * @return O fator de custo atual.
+     */
+    public static int getCustoSenha() {
+        return custoSenha;
+    }
+
+    /**
+     * Define o fator de custo do BCrypt usado nos novos hashes de senha.
+     * @param custo O novo fator de custo, entre 4 e 31.
+     * @throws IllegalArgumentException se o custo estiver fora do intervalo aceito pelo BCrypt.
+     */
+    public static void setCustoSenha(int custo) {
+        if (custo < 4 || custo > 31) {
+            throw new IllegalArgumentException("ERRO: Fator de custo do BCrypt inválido: " + custo + ".");
+        }
+        custoSenha = custo;
     }
 
     /**
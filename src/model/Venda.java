@@ -8,6 +8,9 @@ package model;
  */
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Representa uma transação de venda única no sistema.
@@ -15,7 +18,12 @@ import java.time.LocalDateTime;
  * pertinentes a uma venda no momento em que ela foi concluída.
  * O valor total da venda, já com os descontos aplicados, é calculado e armazenado
  * no momento da criação do objeto, garantindo a imutabilidade do registro financeiro.
+ * <p>
+ * Uma venda pode ser de um único produto ou, quando vem de um {@link Carrinho}, ter várias
+ * linhas ({@link ItemVenda}); nesse caso {@link #getProduto()} é {@code null} e a quantidade
+ * e o valor total são as somas das linhas.
  *
+ * @see ItemVenda
  * @see VendaDTO
  * @see service.VendaService
  * @see repository.VendaRepository
@@ -28,8 +36,10 @@ public class Venda {
     private Produto produto;
     private int quantidade;
     private String dataHora;
+    private long timestamp;
     private FormaPagamento formaPagamento;
     private double valorTotal;
+    private List<ItemVenda> itens;
 
     /**
      * Construtor completo para criar uma nova instância de Venda.
@@ -49,7 +59,9 @@ public class Venda {
         this.usuario = usuario;
         this.produto = produto;
         this.quantidade = quantidade;
-        this.dataHora = LocalDateTime.now().toString();
+        LocalDateTime agora = LocalDateTime.now();
+        this.dataHora = agora.toString();
+        this.timestamp = agora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
         this.formaPagamento = formaPagamento;
 
         // Calcula o preço final da venda
@@ -57,11 +69,46 @@ public class Venda {
         this.valorTotal = valorBruto - desconto;
     }
 
+    /**
+     * Construtor para uma venda com várias linhas, finalizada a partir de um carrinho.
+     * A quantidade e o valor total são as somas das linhas.
+     *
+     * @param id             O identificador único para esta venda.
+     * @param usuario        O objeto {@link Usuario} que realizou a venda.
+     * @param itens          As linhas da venda, já com os descontos de cada uma.
+     * @param formaPagamento A {@link FormaPagamento} utilizada na transação.
+     * @throws IllegalArgumentException se não houver nenhuma linha.
+     */
+    public Venda(String id, Usuario usuario, List<ItemVenda> itens, FormaPagamento formaPagamento) {
+        if (itens.isEmpty()) {
+            throw new IllegalArgumentException("ERRO: A venda deve ter pelo menos um item.");
+        }
+        this.id = id;
+        this.usuario = usuario;
+        this.itens = Collections.unmodifiableList(itens);
+        LocalDateTime agora = LocalDateTime.now();
+        this.dataHora = agora.toString();
+        this.timestamp = agora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        this.formaPagamento = formaPagamento;
+        for (ItemVenda item : itens) {
+            this.quantidade += item.getQuantidade();
+            this.valorTotal += item.getValorTotal();
+        }
+    }
+
     /**
      * Construtor sem argumentos, necessário para a desserialização de dados noFirebase.
      */
     public Venda() {}
 
+    /**
+     * Retorna as linhas de uma venda finalizada a partir de um carrinho.
+     * @return As linhas da venda, ou {@code null} se for uma venda de um único produto.
+     */
+    public List<ItemVenda> getItens() {
+        return itens;
+    }
+
     /**
      * Retorna o valor total final da venda, já com descontos aplicados.
      * @return O valor total pago.
@@ -173,4 +220,21 @@ public class Venda {
     public void setDataHora(String dataHora) {
         this.dataHora = dataHora;
     }
-}
\ No newline at end of file
+
+    /**
+     * Retorna o instante da venda em milissegundos desde a época Unix (UTC).
+     * É o campo usado nas consultas por período, pois ordena corretamente no Firebase.
+     * @return O timestamp da venda.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Define o instante da venda em milissegundos desde a época Unix (UTC).
+     * @param timestamp O novo timestamp.
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -7,12 +7,21 @@ package model;
  * Lorena da Silva Borges
  */
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Representa um Objeto de Transferência de Dados (DTO) para a entidade {@link Venda}.
  * Esta classe é projetada especificamente para a camada de persistência. Ela contém
  * uma representação  um objeto {@link Venda}, onde as
  * referências a objetos complexos como {@link Usuario} e {@link Produto} são substituídas
  * por seus respectivos identificadores únicos (matrícula e ID).
+ * <p>
+ * Uma venda de um único produto usa os campos {@code idProduto} e {@code quantidade}.
+ * Uma venda com várias linhas grava a lista {@code itens} ({@link ItemVendaDTO}), deixa
+ * {@code idProduto} vazio e usa {@code quantidade} e {@code valorTotal} como totais. Para
+ * percorrer as linhas de qualquer venda, use {@link #linhas()}.
  *
  * @see Venda
  * @see repository.VendaRepository
@@ -23,8 +32,10 @@ public class VendaDTO {
     private String idProduto;
     private int quantidade;
     private String dataHora;
+    private long timestamp;
     private String formaPagamento; // NOVO CAMPO (como String)
     private double valorTotal;
+    private List<ItemVendaDTO> itens;
 
     /**
      * Construtor de mapeamento que converte uma entidade {@link Venda} em um DTO.
@@ -36,9 +47,17 @@ public class VendaDTO {
     public VendaDTO(Venda venda) {
         this.id = venda.getId();
         this.matriculaUsuario = venda.getUsuario().getMatricula();
-        this.idProduto = venda.getProduto().getId();
+        if (venda.getItens() != null) {
+            this.itens = new ArrayList<>(venda.getItens().size());
+            for (ItemVenda item : venda.getItens()) {
+                this.itens.add(new ItemVendaDTO(item));
+            }
+        } else {
+            this.idProduto = venda.getProduto().getId();
+        }
         this.quantidade = venda.getQuantidade();
         this.dataHora = venda.getDataHora();
+        this.timestamp = venda.getTimestamp();
         this.formaPagamento = venda.getFormaPagamento().name();
         this.valorTotal = venda.getValorTotal();
     }
@@ -144,6 +163,23 @@ public class VendaDTO {
         this.dataHora = dataHora;
     }
 
+    /**
+     * Retorna o instante da venda em milissegundos desde a época Unix (UTC).
+     * É o filho indexado no nó "vendas" para as consultas por período.
+     * @return O timestamp da venda.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Define o instante da venda em milissegundos desde a época Unix (UTC).
+     * @param timestamp O novo timestamp.
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     /**
      * Retorna a forma de pagamento como uma String.
      * @return A forma de pagamento (ex: "PIX").
@@ -159,4 +195,34 @@ public class VendaDTO {
     public void setFormaPagamento(String formaPagamento) {
         this.formaPagamento = formaPagamento;
     }
-}
\ No newline at end of file
+
+    /**
+     * Retorna as linhas de uma venda com vários produtos.
+     * @return A lista de linhas, ou {@code null} em uma venda de um único produto.
+     */
+    public List<ItemVendaDTO> getItens() {
+        return itens;
+    }
+
+    /**
+     * Define as linhas de uma venda com vários produtos.
+     * @param itens A nova lista de linhas.
+     */
+    public void setItens(List<ItemVendaDTO> itens) {
+        this.itens = itens;
+    }
+
+    /**
+     * Retorna as linhas da venda em qualquer um dos dois formatos: a lista {@code itens} ou,
+     * em uma venda de um único produto, uma linha montada a partir de {@code idProduto},
+     * {@code quantidade} e {@code valorTotal}.
+     * @return As linhas da venda.
+     */
+    public List<ItemVendaDTO> linhas() {
+        if (itens != null) {
+            return itens;
+        }
+        double precoUnitario = quantidade == 0 ? 0 : valorTotal / quantidade;
+        return Collections.singletonList(new ItemVendaDTO(idProduto, quantidade, precoUnitario, 0, valorTotal));
+    }
+}
@@ -0,0 +1,134 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.TotaisVendas;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma agregação sobre o {@link ArmazemVendas}: uma linha por combinação
+ * das duas dimensões pedidas, com os totais de receita, unidades e vendas.
+ *
+ * @see ArmazemVendas#agregar(long, long, DimensaoVenda, DimensaoVenda)
+ */
+public class AgregacaoVendas {
+    private final DimensaoVenda dimensao1;
+    private final DimensaoVenda dimensao2;
+    private final List<Linha> linhas;
+    private final int linhasVarridas;
+    private final long duracaoNanos;
+
+    AgregacaoVendas(DimensaoVenda dimensao1, DimensaoVenda dimensao2, List<Linha> linhas, int linhasVarridas, long duracaoNanos) {
+        this.dimensao1 = dimensao1;
+        this.dimensao2 = dimensao2;
+        this.linhas = Collections.unmodifiableList(linhas);
+        this.linhasVarridas = linhasVarridas;
+        this.duracaoNanos = duracaoNanos;
+    }
+
+    /**
+     * Retorna as linhas do resultado, ordenadas pela primeira e depois pela segunda dimensão.
+     * @return Uma lista imutável de linhas.
+     */
+    public List<Linha> getLinhas() {
+        return linhas;
+    }
+
+    /**
+     * Retorna a primeira dimensão do agrupamento.
+     * @return A dimensão.
+     */
+    public DimensaoVenda getDimensao1() {
+        return dimensao1;
+    }
+
+    /**
+     * Retorna a segunda dimensão do agrupamento.
+     * @return A dimensão.
+     */
+    public DimensaoVenda getDimensao2() {
+        return dimensao2;
+    }
+
+    /**
+     * Retorna quantas vendas do armazém foram examinadas.
+     * @return O número de linhas varridas.
+     */
+    public int getLinhasVarridas() {
+        return linhasVarridas;
+    }
+
+    /**
+     * Retorna o tempo gasto na varredura e no agrupamento.
+     * @return A duração em nanossegundos.
+     */
+    public long getDuracaoNanos() {
+        return duracaoNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(dimensao1);
+        if (dimensao2 != DimensaoVenda.NENHUMA) {
+            sb.append(" x ").append(dimensao2);
+        }
+        for (Linha linha : linhas) {
+            sb.append("\n - ").append(linha);
+        }
+        sb.append("\n(").append(linhasVarridas).append(" venda(s) varridas em ")
+                .append(String.format("%.2f", duracaoNanos / 1_000_000.0)).append(" ms)");
+        return sb.toString();
+    }
+
+    /**
+     * Uma linha do resultado: as chaves das duas dimensões e os totais do grupo.
+     */
+    public static final class Linha {
+        private final String chave1;
+        private final String chave2;
+        private final TotaisVendas totais;
+
+        Linha(String chave1, String chave2, TotaisVendas totais) {
+            this.chave1 = chave1;
+            this.chave2 = chave2;
+            this.totais = totais;
+        }
+
+        /**
+         * Retorna o valor da primeira dimensão.
+         * @return A chave do grupo na primeira dimensão.
+         */
+        public String getChave1() {
+            return chave1;
+        }
+
+        /**
+         * Retorna o valor da segunda dimensão.
+         * @return A chave do grupo na segunda dimensão, ou {@code null} se ela for {@link DimensaoVenda#NENHUMA}.
+         */
+        public String getChave2() {
+            return chave2;
+        }
+
+        /**
+         * Retorna os totais do grupo.
+         * @return Os contadores do grupo.
+         */
+        public TotaisVendas getTotais() {
+            return totais;
+        }
+
+        @Override
+        public String toString() {
+            return chave1 + (chave2 == null ? "" : " | " + chave2) + ": " + totais;
+        }
+    }
+}
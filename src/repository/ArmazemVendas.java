@@ -0,0 +1,797 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.FormaPagamento;
+import model.Produto;
+import model.TotaisVendas;
+import model.ItemVendaDTO;
+import model.VendaDTO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Armazém local e colunar das vendas, usado nos relatórios analíticos. Cada atributo da
+ * venda é gravado como uma coluna de valores primitivos em um arquivo mapeado em memória:
+ * <ul>
+ *     <li>{@code timestamp.col}: o instante da venda ({@code long});</li>
+ *     <li>{@code produto.col}: o ID do produto no dicionário do armazém ({@code int});</li>
+ *     <li>{@code matricula.col}: a matrícula do usuário ({@code int});</li>
+ *     <li>{@code quantidade.col}: as unidades vendidas ({@code int});</li>
+ *     <li>{@code centavos.col}: o valor total em centavos ({@code long});</li>
+ *     <li>{@code pagamento.col}: o ordinal da {@link FormaPagamento} ({@code byte});</li>
+ *     <li>{@code id.col}: um hash de 64 bits do ID da venda, usado para descartar repetições.</li>
+ * </ul>
+ * Os IDs de produto e os tipos de produto são codificados em dicionário
+ * ({@code dicionario.dat}), de modo que cada linha ocupa 37 bytes fora do heap.
+ * <p>
+ * O armazém é alimentado de duas formas: pelos lotes confirmados do
+ * {@link BufferEscritaVendas} (as vendas deste caixa, assim que gravadas) e por
+ * {@link #sincronizar(VendaRepository)}, que lê de {@link VendaRepository#buscarDesde(String, int)} as
+ * vendas de todos os caixas desde a última sincronização. As agregações varrem as colunas
+ * em blocos distribuídos em um {@link ForkJoinPool}, sem criar um objeto por venda.
+ * <p>
+ * O armazém é uma cópia derivada do nó "vendas": os dados são descarregados em disco no
+ * fechamento, e em caso de perda basta apagar o diretório e sincronizar novamente.
+ *
+ * @see DimensaoVenda
+ * @see AgregacaoVendas
+ */
+public class ArmazemVendas implements AutoCloseable {
+
+    /** Diretório padrão dos arquivos do armazém. */
+    public static final String DIRETORIO_PADRAO = System.getProperty("pdv.armazem.dir", "armazem-vendas");
+    /**
+     * Margem, em milissegundos, relida a cada sincronização para capturar vendas que chegaram
+     * ao Firebase com atraso (por exemplo, vindas do diário de outro caixa).
+     */
+    public static final long JANELA_SINCRONIZACAO_MS = Long.getLong("pdv.armazem.janelaMs", 24L * 60 * 60 * 1000);
+
+    private static final int CAPACIDADE_INICIAL = 64 * 1024;
+    private static final int LINHAS_POR_BLOCO = 64 * 1024;
+    private static final int TAMANHO_PAGINA_SINCRONIZACAO = 1000;
+    private static final byte REGISTRO_TIPO = 'T';
+    private static final byte REGISTRO_PRODUTO = 'P';
+
+    private static ArmazemVendas padrao;
+
+    private final FileChannel[] canais = new FileChannel[7];
+    private final FileChannel canalMeta;
+    private final MappedByteBuffer meta;
+    private final DataOutputStream dicionario;
+    private final Function<String, String> tipoDoProduto;
+    private final ForkJoinPool pool;
+
+    private final Map<String, Integer> idsProduto = new HashMap<>();
+    private final List<String> produtos = new ArrayList<>();
+    private final Map<String, Integer> idsTipo = new HashMap<>();
+    private final List<String> tipos = new ArrayList<>();
+    private volatile int[] tipoPorProduto = new int[16];
+
+    private volatile Colunas colunas;
+    private volatile int linhas;
+    private long sincronizadoAte;
+    private Set<Long> idsEmSincronizacao;
+    private boolean fechado = false;
+
+    /**
+     * Abre (ou cria) o armazém no diretório informado.
+     *
+     * @param diretorio     O diretório dos arquivos do armazém.
+     * @param tipoDoProduto A função que informa o tipo de um produto pelo ID, ou {@code null}
+     *                      se ele não for conhecido no momento.
+     * @param pool          O pool usado nas agregações.
+     * @throws IOException se os arquivos não puderem ser lidos ou criados.
+     */
+    public ArmazemVendas(Path diretorio, Function<String, String> tipoDoProduto, ForkJoinPool pool) throws IOException {
+        this.tipoDoProduto = tipoDoProduto;
+        this.pool = pool;
+        Files.createDirectories(diretorio);
+
+        this.canalMeta = FileChannel.open(diretorio.resolve("meta"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.meta = canalMeta.map(FileChannel.MapMode.READ_WRITE, 0, 16);
+        int linhasGravadas = (int) meta.getLong(0);
+        sincronizadoAte = meta.getLong(8);
+
+        String[] nomes = {"timestamp", "produto", "matricula", "quantidade", "centavos", "pagamento", "id"};
+        for (int i = 0; i < nomes.length; i++) {
+            canais[i] = FileChannel.open(diretorio.resolve(nomes[i] + ".col"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        int capacidade = CAPACIDADE_INICIAL;
+        while (capacidade < linhasGravadas) {
+            capacidade *= 2;
+        }
+        this.colunas = new Colunas(canais, capacidade);
+
+        Path arquivoDicionario = diretorio.resolve("dicionario.dat");
+        carregarDicionario(arquivoDicionario);
+        this.dicionario = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(arquivoDicionario.toFile(), true)));
+        this.linhas = linhasGravadas;
+    }
+
+    /**
+     * Retorna o armazém compartilhado da aplicação, abrindo-o na primeira chamada. O tipo dos
+     * produtos vem da réplica do catálogo, e as vendas confirmadas pelo buffer padrão passam a
+     * ser adicionadas automaticamente.
+     *
+     * @return A instância padrão do armazém.
+     * @throws UncheckedIOException se o armazém não puder ser aberto.
+     */
+    public static synchronized ArmazemVendas getPadrao() {
+        if (padrao == null) {
+            CatalogoProdutos catalogo = CatalogoProdutos.getInstancia();
+            Function<String, String> tipo = id -> {
+                if (!catalogo.isCarregado()) {
+                    return null;
+                }
+                Produto p = catalogo.getSnapshot().buscar(id);
+                return p == null ? null : p.getTipo();
+            };
+            try {
+                padrao = new ArmazemVendas(Paths.get(DIRETORIO_PADRAO), tipo, ForkJoinPool.commonPool());
+            } catch (IOException e) {
+                throw new UncheckedIOException("ERRO: Não foi possível abrir o armazém de vendas.", e);
+            }
+            BufferEscritaVendas.getPadrao().adicionarOuvinte(padrao::aoConfirmarLote);
+            Runtime.getRuntime().addShutdownHook(new Thread(padrao::close, "encerramento-armazem-vendas"));
+        }
+        return padrao;
+    }
+
+    /**
+     * Retorna o número de linhas do armazém: uma por venda de um único produto e uma por
+     * produto nas vendas com vários itens.
+     * @return O número de linhas.
+     */
+    public int getLinhas() {
+        return linhas;
+    }
+
+    /**
+     * Adiciona uma venda ao armazém, com uma linha para cada produto da venda. As linhas de
+     * uma mesma venda compartilham o instante, o usuário, a forma de pagamento e o hash do ID.
+     *
+     * @param venda A venda a ser adicionada.
+     * @return {@code true} se a venda foi adicionada, ou {@code false} se ela já havia sido
+     * recebida durante a sincronização em andamento.
+     * @throws UncheckedIOException se a coluna não puder ser ampliada.
+     */
+    public synchronized boolean adicionar(VendaDTO venda) {
+        if (fechado) {
+            throw new IllegalStateException("ERRO: O armazém de vendas já foi fechado.");
+        }
+        long hash = hashId(venda.getId());
+        if (idsEmSincronizacao != null && !idsEmSincronizacao.add(hash)) {
+            return false;
+        }
+        for (ItemVendaDTO item : venda.linhas()) {
+            adicionarLinha(venda, item, hash);
+        }
+        gravarMeta();
+        return true;
+    }
+
+    private void adicionarLinha(VendaDTO venda, ItemVendaDTO item, long hash) {
+        int linha = linhas;
+        Colunas atual = colunas;
+        if (linha == atual.capacidade) {
+            try {
+                atual = new Colunas(canais, atual.capacidade * 2);
+            } catch (IOException e) {
+                throw new UncheckedIOException("ERRO: Falha ao ampliar as colunas do armazém.", e);
+            }
+            colunas = atual;
+        }
+        atual.timestamp.putLong(linha * 8, venda.getTimestamp());
+        atual.produto.putInt(linha * 4, idProduto(item.getIdProduto()));
+        atual.matricula.putInt(linha * 4, venda.getMatriculaUsuario());
+        atual.quantidade.putInt(linha * 4, item.getQuantidade());
+        atual.centavos.putLong(linha * 8, Math.round(item.getValorTotal() * 100));
+        atual.pagamento.put(linha, (byte) ordinalPagamento(venda.getFormaPagamento()));
+        atual.id.putLong(linha * 8, hash);
+        linhas = linha + 1;
+    }
+
+    /**
+     * Busca no Firebase as vendas de todos os caixas registradas desde a última sincronização
+     * (menos a {@link #JANELA_SINCRONIZACAO_MS margem de atraso}) e adiciona as que ainda não
+     * estão no armazém. A leitura é feita página a página em uma thread própria.
+     *
+     * @param vendaRepository O repositório de onde as vendas são lidas.
+     * @return Um {@link CompletableFuture} completado com o número de vendas adicionadas.
+     */
+    public CompletableFuture<Integer> sincronizar(VendaRepository vendaRepository) {
+        return CompletableFuture.supplyAsync(() -> {
+            long inicio;
+            synchronized (this) {
+                if (idsEmSincronizacao != null) {
+                    throw new IllegalStateException("ERRO: Já existe uma sincronização do armazém em andamento.");
+                }
+                inicio = Math.max(0, sincronizadoAte - JANELA_SINCRONIZACAO_MS);
+                idsEmSincronizacao = idsDesde(inicio);
+            }
+            int adicionadas = 0;
+            long maior = 0;
+            try {
+                String cursorInicial = String.valueOf(inicio);
+                Iterator<VendaDTO> vendas = Pagina.transmitir((String cursor) -> vendaRepository.buscarDesde(
+                        cursor == null ? cursorInicial : cursor, TAMANHO_PAGINA_SINCRONIZACAO)).iterator();
+                while (vendas.hasNext()) {
+                    VendaDTO venda = vendas.next();
+                    if (adicionar(venda)) {
+                        adicionadas++;
+                    }
+                    maior = Math.max(maior, venda.getTimestamp());
+                }
+            } finally {
+                synchronized (this) {
+                    idsEmSincronizacao = null;
+                    sincronizadoAte = Math.max(sincronizadoAte, maior);
+                    gravarMeta();
+                }
+            }
+            System.out.println("LOG: Armazém de vendas sincronizado: " + adicionadas + " venda(s) adicionada(s), " + linhas + " no total.");
+            return adicionadas;
+        }, tarefa -> {
+            Thread t = new Thread(tarefa, "sincronizacao-armazem-vendas");
+            t.setDaemon(true);
+            t.start();
+        });
+    }
+
+    /**
+     * Agrupa as vendas do período {@code [inicio, fim)} por até duas dimensões, somando
+     * receita, unidades e número de vendas de cada grupo. Uma venda com vários produtos conta
+     * uma vez em cada grupo em que aparece. As colunas são divididas em blocos
+     * de {@value #LINHAS_POR_BLOCO} linhas, agregados em paralelo e depois combinados.
+     *
+     * @param inicio    O início do período, inclusivo, em milissegundos desde a época Unix.
+     * @param fim       O fim do período, exclusivo, em milissegundos desde a época Unix.
+     * @param dimensao1 A primeira dimensão do agrupamento.
+     * @param dimensao2 A segunda dimensão, ou {@link DimensaoVenda#NENHUMA}.
+     * @return A {@link AgregacaoVendas} com uma linha por grupo.
+     */
+    public AgregacaoVendas agregar(long inicio, long fim, DimensaoVenda dimensao1, DimensaoVenda dimensao2) {
+        long comeco = System.nanoTime();
+        int total = linhas;
+        Colunas visao = colunas;
+        int[] tipos = tipoPorProduto;
+        TabelaAgregacao tabela = pool.invoke(new TarefaAgregacao(visao, tipos, 0, total, inicio, fim, dimensao1, dimensao2));
+        List<AgregacaoVendas.Linha> resultado = decodificar(tabela, dimensao1, dimensao2);
+        return new AgregacaoVendas(dimensao1, dimensao2, resultado, total, System.nanoTime() - comeco);
+    }
+
+    /**
+     * Descarrega as colunas em disco e fecha os arquivos do armazém.
+     */
+    @Override
+    public synchronized void close() {
+        if (fechado) {
+            return;
+        }
+        fechado = true;
+        colunas.forcar();
+        meta.force();
+        try {
+            dicionario.close();
+            canalMeta.close();
+            for (FileChannel canal : canais) {
+                canal.close();
+            }
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao fechar o armazém de vendas: " + e.getMessage());
+        }
+    }
+
+    private void aoConfirmarLote(BufferEscritaVendas.ResultadoLote resultado) {
+        if (!resultado.isSucesso()) {
+            return;
+        }
+        for (Object registro : resultado.getRegistros()) {
+            if (registro instanceof VendaDTO) {
+                try {
+                    adicionar((VendaDTO) registro);
+                } catch (RuntimeException e) {
+                    System.err.println("ERRO: Falha ao adicionar venda ao armazém: " + e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna os hashes de ID das vendas com timestamp a partir do instante informado.
+     */
+    private Set<Long> idsDesde(long inicio) {
+        Colunas visao = colunas;
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < linhas; i++) {
+            if (visao.timestamp.getLong(i * 8) >= inicio) {
+                ids.add(visao.id.getLong(i * 8));
+            }
+        }
+        return ids;
+    }
+
+    private void gravarMeta() {
+        meta.putLong(0, linhas);
+        meta.putLong(8, sincronizadoAte);
+    }
+
+    /**
+     * Retorna o ID de dicionário do produto, registrando-o (e a seu tipo) se necessário.
+     * Quando o tipo de um produto já registrado passa a ser conhecido, ou muda, o dicionário
+     * é atualizado e as vendas anteriores do produto passam a ser agrupadas pelo novo tipo.
+     */
+    private int idProduto(String produtoId) {
+        String tipo = tipoDoProduto.apply(produtoId);
+        Integer id = idsProduto.get(produtoId);
+        int idTipo = tipo == null ? -1 : idTipo(tipo);
+        if (id != null && (idTipo == -1 || tipoPorProduto[id] == idTipo)) {
+            return id;
+        }
+        if (id == null) {
+            id = produtos.size();
+            produtos.add(produtoId);
+            idsProduto.put(produtoId, id);
+        }
+        gravarRegistroProduto(produtoId, idTipo);
+        definirTipo(id, idTipo);
+        return id;
+    }
+
+    private int idTipo(String tipo) {
+        Integer id = idsTipo.get(tipo);
+        if (id != null) {
+            return id;
+        }
+        id = tipos.size();
+        tipos.add(tipo);
+        idsTipo.put(tipo, id);
+        try {
+            dicionario.writeByte(REGISTRO_TIPO);
+            dicionario.writeUTF(tipo);
+            dicionario.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("ERRO: Falha ao gravar o dicionário do armazém.", e);
+        }
+        return id;
+    }
+
+    private void gravarRegistroProduto(String produtoId, int idTipo) {
+        try {
+            dicionario.writeByte(REGISTRO_PRODUTO);
+            dicionario.writeUTF(produtoId);
+            dicionario.writeInt(idTipo);
+            dicionario.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("ERRO: Falha ao gravar o dicionário do armazém.", e);
+        }
+    }
+
+    private void definirTipo(int idProduto, int idTipo) {
+        int[] atual = tipoPorProduto;
+        if (idProduto >= atual.length) {
+            int antigo = atual.length;
+            atual = Arrays.copyOf(atual, Math.max(idProduto + 1, antigo * 2));
+            Arrays.fill(atual, antigo, atual.length, -1);
+        } else {
+            atual = atual.clone();
+        }
+        atual[idProduto] = idTipo;
+        tipoPorProduto = atual;
+    }
+
+    /**
+     * Lê o dicionário gravado. Um registro incompleto no fim do arquivo, deixado por uma
+     * escrita interrompida, é descartado: o arquivo é truncado no fim do último registro
+     * completo, para que os registros anexados depois dele continuem legíveis.
+     */
+    private void carregarDicionario(Path arquivo) throws IOException {
+        Arrays.fill(tipoPorProduto, -1);
+        if (!Files.exists(arquivo)) {
+            return;
+        }
+        EntradaContada contagem = new EntradaContada(new BufferedInputStream(new FileInputStream(arquivo.toFile())));
+        long completo = 0;
+        try (DataInputStream in = new DataInputStream(contagem)) {
+            while (true) {
+                byte registro = in.readByte();
+                if (registro == REGISTRO_TIPO) {
+                    String tipo = in.readUTF();
+                    idsTipo.put(tipo, tipos.size());
+                    tipos.add(tipo);
+                } else if (registro == REGISTRO_PRODUTO) {
+                    String produtoId = in.readUTF();
+                    int idTipo = in.readInt();
+                    Integer id = idsProduto.get(produtoId);
+                    if (id == null) {
+                        id = produtos.size();
+                        produtos.add(produtoId);
+                        idsProduto.put(produtoId, id);
+                    }
+                    definirTipo(id, idTipo);
+                } else {
+                    throw new IOException("ERRO: Registro desconhecido no dicionário do armazém: " + registro);
+                }
+                completo = contagem.posicao;
+            }
+        } catch (EOFException fim) {
+            // Fim do arquivo, ou registro incompleto de uma escrita interrompida.
+        }
+        if (completo < Files.size(arquivo)) {
+            System.err.println("ERRO: Registro incompleto no fim do dicionário do armazém; o arquivo será truncado em "
+                    + completo + " bytes.");
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+                canal.truncate(completo);
+            }
+        }
+    }
+
+    /**
+     * Conta os bytes consumidos do fluxo, para localizar o fim do último registro completo.
+     */
+    private static final class EntradaContada extends FilterInputStream {
+        private long posicao;
+
+        private EntradaContada(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                posicao++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int lidos = super.read(b, off, len);
+            if (lidos > 0) {
+                posicao += lidos;
+            }
+            return lidos;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long pulados = super.skip(n);
+            posicao += pulados;
+            return pulados;
+        }
+    }
+
+    private static int ordinalPagamento(String formaPagamento) {
+        try {
+            return FormaPagamento.valueOf(formaPagamento).ordinal();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits do ID da venda.
+     */
+    private static long hashId(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Converte os códigos numéricos dos grupos em rótulos e ordena as linhas do resultado.
+     */
+    private List<AgregacaoVendas.Linha> decodificar(TabelaAgregacao tabela, DimensaoVenda dimensao1, DimensaoVenda dimensao2) {
+        List<String> nomesProdutos;
+        List<String> nomesTipos;
+        synchronized (this) {
+            nomesProdutos = new ArrayList<>(produtos);
+            nomesTipos = new ArrayList<>(tipos);
+        }
+        List<long[]> grupos = new ArrayList<>(tabela.tamanho);
+        for (int i = 0; i < tabela.chaves.length; i++) {
+            if (tabela.ocupado[i]) {
+                grupos.add(new long[]{tabela.chaves[i], i});
+            }
+        }
+        Comparator<long[]> ordem = Comparator
+                .comparing((long[] g) -> chaveOrdenacao(dimensao1, (int) (g[0] >> 32), nomesProdutos, nomesTipos))
+                .thenComparing(g -> chaveOrdenacao(dimensao2, (int) g[0], nomesProdutos, nomesTipos));
+        grupos.sort(ordem);
+
+        List<AgregacaoVendas.Linha> resultado = new ArrayList<>(grupos.size());
+        for (long[] g : grupos) {
+            int i = (int) g[1];
+            String chave1 = rotulo(dimensao1, (int) (g[0] >> 32), nomesProdutos, nomesTipos);
+            String chave2 = dimensao2 == DimensaoVenda.NENHUMA ? null : rotulo(dimensao2, (int) g[0], nomesProdutos, nomesTipos);
+            resultado.add(new AgregacaoVendas.Linha(chave1, chave2,
+                    new TotaisVendas(tabela.centavos[i], tabela.unidades[i], tabela.tickets[i])));
+        }
+        return resultado;
+    }
+
+    private static String chaveOrdenacao(DimensaoVenda dimensao, int codigo, List<String> produtos, List<String> tipos) {
+        if (dimensao == DimensaoVenda.TIPO || dimensao == DimensaoVenda.PRODUTO) {
+            return rotulo(dimensao, codigo, produtos, tipos);
+        }
+        return String.format("%011d", (long) codigo - Integer.MIN_VALUE);
+    }
+
+    private static String rotulo(DimensaoVenda dimensao, int codigo, List<String> produtos, List<String> tipos) {
+        switch (dimensao) {
+            case TIPO: return codigo >= 0 && codigo < tipos.size() ? tipos.get(codigo) : "(sem tipo)";
+            case PRODUTO: return codigo >= 0 && codigo < produtos.size() ? produtos.get(codigo) : "(desconhecido)";
+            case USUARIO: return String.valueOf(codigo);
+            case FORMA_PAGAMENTO: return codigo >= 0 && codigo < FormaPagamento.values().length
+                    ? FormaPagamento.values()[codigo].name() : "(desconhecida)";
+            case DIA:
+            case SEMANA: return LocalDate.ofEpochDay(codigo).toString();
+            case MES: return YearMonth.of(Math.floorDiv(codigo, 12), Math.floorMod(codigo, 12) + 1).toString();
+            default: return "Total";
+        }
+    }
+
+    /**
+     * Os buffers mapeados das colunas, com a mesma capacidade em linhas. Uma nova instância
+     * é publicada quando as colunas precisam crescer; as anteriores continuam válidas para
+     * as varreduras em andamento.
+     */
+    private static final class Colunas {
+        private final int capacidade;
+        private final MappedByteBuffer timestamp;
+        private final MappedByteBuffer produto;
+        private final MappedByteBuffer matricula;
+        private final MappedByteBuffer quantidade;
+        private final MappedByteBuffer centavos;
+        private final MappedByteBuffer pagamento;
+        private final MappedByteBuffer id;
+
+        private Colunas(FileChannel[] canais, int capacidade) throws IOException {
+            if (capacidade > Integer.MAX_VALUE / 8) {
+                throw new IOException("ERRO: O armazém de vendas atingiu a capacidade máxima.");
+            }
+            this.capacidade = capacidade;
+            this.timestamp = mapear(canais[0], capacidade, 8);
+            this.produto = mapear(canais[1], capacidade, 4);
+            this.matricula = mapear(canais[2], capacidade, 4);
+            this.quantidade = mapear(canais[3], capacidade, 4);
+            this.centavos = mapear(canais[4], capacidade, 8);
+            this.pagamento = mapear(canais[5], capacidade, 1);
+            this.id = mapear(canais[6], capacidade, 8);
+        }
+
+        private static MappedByteBuffer mapear(FileChannel canal, int capacidade, int largura) throws IOException {
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacidade * largura);
+        }
+
+        private void forcar() {
+            for (MappedByteBuffer b : new MappedByteBuffer[]{timestamp, produto, matricula, quantidade, centavos, pagamento, id}) {
+                b.force();
+            }
+        }
+    }
+
+    /**
+     * Tabela hash de endereçamento aberto com chaves {@code long} e acumuladores primitivos,
+     * usada para agrupar sem criar objetos por venda.
+     */
+    private static final class TabelaAgregacao {
+        private long[] chaves = new long[64];
+        private boolean[] ocupado = new boolean[64];
+        private long[] centavos = new long[64];
+        private long[] unidades = new long[64];
+        private long[] tickets = new long[64];
+        private int tamanho = 0;
+
+        private void somar(long chave, long valorCentavos, long qtdUnidades, long qtdTickets) {
+            if (tamanho * 2 >= chaves.length) {
+                crescer();
+            }
+            int mascara = chaves.length - 1;
+            int i = (int) (misturar(chave) & mascara);
+            while (ocupado[i] && chaves[i] != chave) {
+                i = (i + 1) & mascara;
+            }
+            if (!ocupado[i]) {
+                ocupado[i] = true;
+                chaves[i] = chave;
+                tamanho++;
+            }
+            centavos[i] += valorCentavos;
+            unidades[i] += qtdUnidades;
+            tickets[i] += qtdTickets;
+        }
+
+        private void mesclar(TabelaAgregacao outra) {
+            for (int i = 0; i < outra.chaves.length; i++) {
+                if (outra.ocupado[i]) {
+                    somar(outra.chaves[i], outra.centavos[i], outra.unidades[i], outra.tickets[i]);
+                }
+            }
+        }
+
+        private void crescer() {
+            long[] chavesAntigas = chaves;
+            boolean[] ocupadoAntigo = ocupado;
+            long[] centavosAntigos = centavos;
+            long[] unidadesAntigas = unidades;
+            long[] ticketsAntigos = tickets;
+            int novo = chaves.length * 2;
+            chaves = new long[novo];
+            ocupado = new boolean[novo];
+            centavos = new long[novo];
+            unidades = new long[novo];
+            tickets = new long[novo];
+            tamanho = 0;
+            for (int i = 0; i < chavesAntigas.length; i++) {
+                if (ocupadoAntigo[i]) {
+                    somar(chavesAntigas[i], centavosAntigos[i], unidadesAntigas[i], ticketsAntigos[i]);
+                }
+            }
+        }
+
+        private static long misturar(long chave) {
+            long h = chave * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 32);
+        }
+    }
+
+    /**
+     * Agrega um intervalo de linhas, dividindo-o enquanto for maior que um bloco.
+     */
+    private static final class TarefaAgregacao extends RecursiveTask<TabelaAgregacao> {
+        private static final long serialVersionUID = 1L;
+
+        private final Colunas colunas;
+        private final int[] tipoPorProduto;
+        private final int de;
+        private final int ate;
+        private final long inicio;
+        private final long fim;
+        private final DimensaoVenda dimensao1;
+        private final DimensaoVenda dimensao2;
+
+        private final ZoneId fuso = ZoneId.systemDefault();
+        private long inicioDiaCache = Long.MAX_VALUE;
+        private long fimDiaCache = Long.MIN_VALUE;
+        private LocalDate diaCache;
+
+        private TarefaAgregacao(Colunas colunas, int[] tipoPorProduto, int de, int ate, long inicio, long fim,
+                                DimensaoVenda dimensao1, DimensaoVenda dimensao2) {
+            this.colunas = colunas;
+            this.tipoPorProduto = tipoPorProduto;
+            this.de = de;
+            this.ate = ate;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.dimensao1 = dimensao1;
+            this.dimensao2 = dimensao2;
+        }
+
+        @Override
+        protected TabelaAgregacao compute() {
+            if (ate - de > LINHAS_POR_BLOCO) {
+                int meio = (de + ate) >>> 1;
+                TarefaAgregacao esquerda = new TarefaAgregacao(colunas, tipoPorProduto, de, meio, inicio, fim, dimensao1, dimensao2);
+                TarefaAgregacao direita = new TarefaAgregacao(colunas, tipoPorProduto, meio, ate, inicio, fim, dimensao1, dimensao2);
+                esquerda.fork();
+                TabelaAgregacao resultado = direita.compute();
+                resultado.mesclar(esquerda.join());
+                return resultado;
+            }
+            TabelaAgregacao tabela = new TabelaAgregacao();
+            for (int linha = de; linha < ate; linha++) {
+                long ts = colunas.timestamp.getLong(linha * 8);
+                if (ts < inicio || ts >= fim) {
+                    continue;
+                }
+                long chave = chave(linha, ts);
+                tabela.somar(chave, colunas.centavos.getLong(linha * 8), colunas.quantidade.getInt(linha * 4),
+                        primeiraDaVendaNoGrupo(linha, chave, ts) ? 1 : 0);
+            }
+            return tabela;
+        }
+
+        private long chave(int linha, long ts) {
+            return ((long) codigo(dimensao1, linha, ts) << 32) | (codigo(dimensao2, linha, ts) & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Indica se a linha é a primeira da sua venda no grupo, para que cada venda conte um
+         * único ticket por grupo. As linhas de uma venda com vários produtos são gravadas em
+         * sequência e têm o mesmo hash de ID, então basta olhar as linhas anteriores com esse
+         * hash, mesmo que estejam no bloco vizinho.
+         */
+        private boolean primeiraDaVendaNoGrupo(int linha, long chave, long ts) {
+            long id = colunas.id.getLong(linha * 8);
+            for (int anterior = linha - 1; anterior >= 0 && colunas.id.getLong(anterior * 8) == id; anterior--) {
+                if (chave(anterior, ts) == chave) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int codigo(DimensaoVenda dimensao, int linha, long ts) {
+            switch (dimensao) {
+                case TIPO: {
+                    int produto = colunas.produto.getInt(linha * 4);
+                    return produto < tipoPorProduto.length ? tipoPorProduto[produto] : -1;
+                }
+                case PRODUTO: return colunas.produto.getInt(linha * 4);
+                case USUARIO: return colunas.matricula.getInt(linha * 4);
+                case FORMA_PAGAMENTO: return colunas.pagamento.get(linha);
+                case DIA: return (int) dia(ts).toEpochDay();
+                case SEMANA: {
+                    long epochDay = dia(ts).toEpochDay();
+                    // 1970-01-01 foi uma quinta-feira; recua até a segunda-feira da semana.
+                    return (int) (epochDay - Math.floorMod(epochDay + 3, 7));
+                }
+                case MES: {
+                    LocalDate d = dia(ts);
+                    return d.getYear() * 12 + d.getMonthValue() - 1;
+                }
+                default: return 0;
+            }
+        }
+
+        /**
+         * Converte o timestamp em data, reaproveitando a conversão anterior enquanto as vendas
+         * caírem no mesmo dia (o caso comum, pois as linhas estão quase em ordem de tempo).
+         */
+        private LocalDate dia(long ts) {
+            if (ts < inicioDiaCache || ts >= fimDiaCache) {
+                diaCache = Instant.ofEpochMilli(ts).atZone(fuso).toLocalDate();
+                inicioDiaCache = diaCache.atStartOfDay(fuso).toInstant().toEpochMilli();
+                fimDiaCache = diaCache.plusDays(1).atStartOfDay(fuso).toInstant().toEpochMilli();
+            }
+            return diaCache;
+        }
+    }
+}
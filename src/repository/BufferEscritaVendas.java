@@ -0,0 +1,354 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.api.core.ApiFuture;
+import database.FirebaseConfig;
+import interfaces.IReferencia;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Buffer de escrita tardia (write-behind) para o nó "vendas".
+ * As vendas recebidas são acumuladas por uma janela curta de tempo ({@code linger}) ou até
+ * atingir o tamanho máximo do lote, e então enviadas ao Firebase em uma única escrita
+ * multi-caminho com {@link IReferencia#updateChildrenAsync(Map)}, uma entrada
+ * {@code vendas/{id}} por venda. Assim, vários registros compartilham o mesmo quadro
+ * de rede e a mesma confirmação do servidor.
+ * <p>
+ * Cada venda recebe um {@link CompletableFuture} que é completado quando o lote em que
+ * ela foi enviada é confirmado (ou falha), e ouvintes podem ser registrados para
+ * acompanhar o resultado de cada lote.
+ *
+ * @see VendaRepository
+ */
+public class BufferEscritaVendas {
+
+    /** Tempo padrão de espera, em milissegundos, antes de enviar um lote incompleto. */
+    public static final long LINGER_PADRAO_MS = Long.getLong("pdv.vendas.lingerMs", 50L);
+    /** Quantidade padrão máxima de vendas por lote. */
+    public static final int TAMANHO_LOTE_PADRAO = Integer.getInteger("pdv.vendas.tamanhoLote", 50);
+
+    private static BufferEscritaVendas padrao;
+
+    private final IReferencia ref;
+    private final long lingerMillis;
+    private final int tamanhoMaximoLote;
+    private final ScheduledExecutorService agendador;
+    private final List<Consumer<ResultadoLote>> ouvintes = new CopyOnWriteArrayList<>();
+
+    private List<Pendente> pendentes = new ArrayList<>();
+    private final List<CompletableFuture<Void>> emVoo = new ArrayList<>();
+    private ScheduledFuture<?> envioAgendado;
+    private boolean fechado = false;
+
+    /**
+     * Cria um buffer para o nó informado.
+     *
+     * @param ref               A referência do nó onde as vendas serão gravadas.
+     * @param lingerMillis      Tempo máximo, em milissegundos, que uma venda aguarda no buffer.
+     * @param tamanhoMaximoLote Quantidade de vendas que dispara o envio imediato do lote.
+     */
+    public BufferEscritaVendas(IReferencia ref, long lingerMillis, int tamanhoMaximoLote) {
+        if (lingerMillis < 0 || tamanhoMaximoLote <= 0) {
+            throw new IllegalArgumentException("ERRO: Configuração inválida para o buffer de vendas.");
+        }
+        this.ref = ref;
+        this.lingerMillis = lingerMillis;
+        this.tamanhoMaximoLote = tamanhoMaximoLote;
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "buffer-escrita-vendas");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Retorna o buffer compartilhado do nó "vendas", criando-o na primeira chamada com
+     * a configuração padrão. Um gancho de encerramento da JVM garante que as vendas
+     * ainda no buffer sejam enviadas antes de a aplicação terminar.
+     *
+     * @return A instância padrão do buffer.
+     */
+    public static synchronized BufferEscritaVendas getPadrao() {
+        if (padrao == null) {
+            padrao = new BufferEscritaVendas(FirebaseConfig.getReferencia().child("vendas"),
+                    LINGER_PADRAO_MS, TAMANHO_LOTE_PADRAO);
+            Runtime.getRuntime().addShutdownHook(new Thread(BufferEscritaVendas::fecharPadrao, "encerramento-buffer-vendas"));
+        }
+        return padrao;
+    }
+
+    /**
+     * Fecha o buffer padrão, se ele tiver sido criado, enviando as vendas pendentes.
+     */
+    public static void fecharPadrao() {
+        BufferEscritaVendas buffer;
+        synchronized (BufferEscritaVendas.class) {
+            buffer = padrao;
+        }
+        if (buffer != null) {
+            buffer.fechar(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Adiciona um registro ao buffer.
+     *
+     * @param id    A chave do registro dentro do nó (o ID da venda).
+     * @param valor O objeto a ser gravado (normalmente um {@link model.VendaDTO}).
+     * @return Um {@link CompletableFuture} completado quando o lote que contém o registro
+     * for confirmado pelo servidor.
+     * @throws IllegalStateException se o buffer já tiver sido fechado.
+     */
+    public CompletableFuture<Void> adicionar(String id, Object valor) {
+        Pendente pendente = new Pendente(id, valor);
+        List<Pendente> lote = null;
+        synchronized (this) {
+            if (fechado) {
+                throw new IllegalStateException("ERRO: O buffer de vendas já foi encerrado.");
+            }
+            pendentes.add(pendente);
+            if (pendentes.size() >= tamanhoMaximoLote) {
+                lote = retirarPendentes();
+            } else if (envioAgendado == null) {
+                envioAgendado = agendador.schedule(this::descarregar, lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (lote != null) {
+            enviar(lote);
+        }
+        return pendente.future;
+    }
+
+    /**
+     * Envia imediatamente todos os registros pendentes, sem aguardar o fim da janela.
+     *
+     * @return Um {@link CompletableFuture} completado quando o lote enviado for confirmado.
+     */
+    public CompletableFuture<Void> descarregar() {
+        List<Pendente> lote;
+        synchronized (this) {
+            lote = retirarPendentes();
+        }
+        return enviar(lote);
+    }
+
+    /**
+     * Impede novas escritas, envia o que estiver pendente e aguarda a confirmação dos
+     * lotes em andamento até o tempo limite informado.
+     *
+     * @param tempo   O tempo máximo de espera.
+     * @param unidade A unidade do tempo de espera.
+     */
+    public void fechar(long tempo, TimeUnit unidade) {
+        List<CompletableFuture<Void>> aguardar;
+        synchronized (this) {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+        }
+        descarregar();
+        synchronized (this) {
+            aguardar = new ArrayList<>(emVoo);
+        }
+        try {
+            CompletableFuture.allOf(aguardar.toArray(new CompletableFuture<?>[0])).get(tempo, unidade);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("ERRO: Nem todas as vendas do buffer foram confirmadas no encerramento: " + e.getMessage());
+        } finally {
+            agendador.shutdownNow();
+        }
+    }
+
+    /**
+     * Registra um ouvinte chamado ao fim de cada lote, com sucesso ou falha.
+     *
+     * @param ouvinte O callback que recebe o {@link ResultadoLote}.
+     */
+    public void adicionarOuvinte(Consumer<ResultadoLote> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Remove um ouvinte registrado anteriormente.
+     *
+     * @param ouvinte O callback a ser removido.
+     */
+    public void removerOuvinte(Consumer<ResultadoLote> ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    /**
+     * Retira a lista de pendentes e cancela o envio agendado. Deve ser chamado com o
+     * monitor do buffer adquirido.
+     */
+    private List<Pendente> retirarPendentes() {
+        List<Pendente> lote = pendentes;
+        pendentes = new ArrayList<>();
+        if (envioAgendado != null) {
+            envioAgendado.cancel(false);
+            envioAgendado = null;
+        }
+        return lote;
+    }
+
+    /**
+     * Monta a escrita multi-caminho do lote e a envia ao Firebase.
+     */
+    private CompletableFuture<Void> enviar(List<Pendente> lote) {
+        if (lote.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<String, Object> atualizacoes = new HashMap<>();
+        for (Pendente p : lote) {
+            atualizacoes.put(p.id, p.valor);
+        }
+
+        CompletableFuture<Void> confirmacao = new CompletableFuture<>();
+        synchronized (this) {
+            emVoo.add(confirmacao);
+        }
+        long inicio = System.nanoTime();
+        ApiFuture<Void> escrita = ref.updateChildrenAsync(atualizacoes);
+        escrita.addListener(() -> {
+            Throwable erro = null;
+            try {
+                escrita.get();
+            } catch (ExecutionException e) {
+                erro = e.getCause();
+            } catch (InterruptedException e) {
+                erro = e;
+                Thread.currentThread().interrupt();
+            }
+            concluir(lote, erro, System.nanoTime() - inicio);
+            synchronized (this) {
+                emVoo.remove(confirmacao);
+            }
+            if (erro == null) {
+                confirmacao.complete(null);
+            } else {
+                confirmacao.completeExceptionally(erro);
+            }
+        }, Runnable::run);
+        return confirmacao;
+    }
+
+    /**
+     * Completa os futures das vendas do lote e notifica os ouvintes.
+     */
+    private void concluir(List<Pendente> lote, Throwable erro, long duracaoNanos) {
+        for (Pendente p : lote) {
+            if (erro == null) {
+                p.future.complete(null);
+            } else {
+                p.future.completeExceptionally(erro);
+            }
+        }
+        if (erro != null) {
+            System.err.println("ERRO: Falha ao gravar lote de " + lote.size() + " vendas no Firebase: " + erro.getMessage());
+        }
+        List<Object> registros = new ArrayList<>(lote.size());
+        for (Pendente p : lote) {
+            registros.add(p.valor);
+        }
+        ResultadoLote resultado = new ResultadoLote(registros, TimeUnit.NANOSECONDS.toMillis(duracaoNanos), erro);
+        for (Consumer<ResultadoLote> ouvinte : ouvintes) {
+            try {
+                ouvinte.accept(resultado);
+            } catch (RuntimeException e) {
+                System.err.println("ERRO: Ouvinte do buffer de vendas falhou: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Registro aguardando envio, junto com o future devolvido a quem o adicionou.
+     */
+    private static final class Pendente {
+        private final String id;
+        private final Object valor;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Pendente(String id, Object valor) {
+            this.id = id;
+            this.valor = valor;
+        }
+    }
+
+    /**
+     * Resultado do envio de um lote, entregue aos ouvintes do buffer.
+     */
+    public static final class ResultadoLote {
+        private final List<Object> registros;
+        private final long duracaoMillis;
+        private final Throwable erro;
+
+        private ResultadoLote(List<Object> registros, long duracaoMillis, Throwable erro) {
+            this.registros = Collections.unmodifiableList(registros);
+            this.duracaoMillis = duracaoMillis;
+            this.erro = erro;
+        }
+
+        /**
+         * Retorna a quantidade de vendas enviadas no lote.
+         * @return O tamanho do lote.
+         */
+        public int getQuantidade() {
+            return registros.size();
+        }
+
+        /**
+         * Retorna os registros enviados no lote, na ordem em que foram adicionados.
+         * @return Uma lista imutável com os objetos gravados.
+         */
+        public List<Object> getRegistros() {
+            return registros;
+        }
+
+        /**
+         * Retorna o tempo entre o envio do lote e a confirmação (ou falha) do servidor.
+         * @return A duração em milissegundos.
+         */
+        public long getDuracaoMillis() {
+            return duracaoMillis;
+        }
+
+        /**
+         * Retorna o erro ocorrido no envio.
+         * @return A causa da falha, ou {@code null} se o lote foi confirmado.
+         */
+        public Throwable getErro() {
+            return erro;
+        }
+
+        /**
+         * Indica se o lote foi confirmado pelo servidor.
+         * @return {@code true} se não houve erro.
+         */
+        public boolean isSucesso() {
+            return erro == null;
+        }
+    }
+}
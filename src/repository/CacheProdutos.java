@@ -0,0 +1,702 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.ValueEventListener;
+import database.FirebaseConfig;
+import interfaces.IReferencia;
+
+import model.Produto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache de leitura ("read-through") e de tamanho limitado para a busca de produtos por ID,
+ * usado quando o catálogo é grande demais para ser replicado inteiro em memória.
+ * <p>
+ * A política de substituição segue o W-TinyLFU. Toda entrada nova passa primeiro por uma
+ * janela LRU pequena (1% do peso). Ao sair da janela, ela só é admitida na área principal se
+ * tiver sido pedida mais vezes do que a entrada que seria despejada em seu lugar. A frequência
+ * de cada ID é estimada por um esboço count-min de contadores de 4 bits, que são divididos
+ * por dois periodicamente para que a popularidade antiga envelheça. A área principal é um
+ * LRU segmentado: quem é lido de novo na área probatória sobe para a protegida (80% da área
+ * principal). Assim, os poucos produtos que concentram a maior parte das leituras no caixa
+ * continuam em memória mesmo quando uma varredura da cauda longa passa pelo cache.
+ * <p>
+ * As leituras não bloqueiam: consultam um {@link ConcurrentHashMap} e anotam o acesso em um
+ * buffer circular, que é aplicado à política em lote por quem conseguir o bloqueio. Se o
+ * buffer estiver cheio, o acesso é descartado, o que só afeta a precisão das frequências.
+ * <p>
+ * Com uma referência do banco informada, cada entrada residente registra um ouvinte no seu
+ * produto; o valor novo substitui o guardado assim que muda no servidor, e a remoção do
+ * produto invalida a entrada. Sem ouvinte, a entrada que passou do prazo de renovação ainda é
+ * devolvida, mas dispara uma releitura em segundo plano.
+ *
+ * @see ProdutoRepository#buscar(String)
+ * @see service.ProdutoService
+ */
+public class CacheProdutos {
+
+    /** Peso máximo padrão do cache; com o peso padrão de 1 por produto, é o número de produtos. */
+    public static final long PESO_MAXIMO_PADRAO = Long.getLong("pdv.cacheProdutos.pesoMaximo", 10_000L);
+
+    /** Prazo padrão, em milissegundos, depois do qual uma entrada sem ouvinte é relida. */
+    public static final long RENOVACAO_PADRAO_MS = Long.getLong("pdv.cacheProdutos.renovacaoMs", 60_000L);
+
+    /** Indica se o cache padrão registra ouvintes no banco para as entradas residentes. */
+    public static final boolean OUVIR_PADRAO =
+            Boolean.parseBoolean(System.getProperty("pdv.cacheProdutos.ouvir", "true"));
+
+    private static final int TAMANHO_BUFFER_LEITURAS = 128;
+    private static final int MASCARA_BUFFER_LEITURAS = TAMANHO_BUFFER_LEITURAS - 1;
+    private static final int LIMIAR_DRENAGEM = 32;
+
+    private static final int JANELA = 0;
+    private static final int PROBATORIA = 1;
+    private static final int PROTEGIDA = 2;
+    private static final int REMOVIDO = 3;
+
+    private static CacheProdutos padrao;
+
+    private final IReferencia ref;
+    private final Function<String, CompletableFuture<Produto>> carregador;
+    private final ToIntFunction<Produto> pesador;
+    private final long pesoMaximo;
+    private final long pesoMaximoJanela;
+    private final long pesoMaximoProtegida;
+    private final long renovacaoNanos;
+
+    private final ConcurrentHashMap<String, No> entradas = new ConcurrentHashMap<>();
+    private final ReentrantLock trava = new ReentrantLock();
+    private final EsbocoFrequencia esboco = new EsbocoFrequencia();
+    private final Fila janela = new Fila();
+    private final Fila probatoria = new Fila();
+    private final Fila protegida = new Fila();
+    private long pesoJanela;
+    private long pesoProbatoria;
+    private long pesoProtegida;
+
+    private final AtomicReferenceArray<No> leituras = new AtomicReferenceArray<>(TAMANHO_BUFFER_LEITURAS);
+    private final AtomicLong leiturasAnotadas = new AtomicLong();
+    private volatile long leiturasAplicadas;
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    private final LongAdder invalidacoes = new LongAdder();
+    private final LongAdder renovacoes = new LongAdder();
+    private final LongAdder atualizacoesRecebidas = new LongAdder();
+    private final LongAdder falhasCarga = new LongAdder();
+
+    /**
+     * Construtor completo do cache.
+     *
+     * @param ref          O nó "produtos", usado para ouvir as entradas residentes, ou {@code null}
+     *                     para depender apenas da renovação por prazo.
+     * @param carregador   A leitura feita em caso de falta; deve completar com {@code null} para
+     *                     um ID inexistente, que não é guardado.
+     * @param pesoMaximo   O peso máximo somado das entradas.
+     * @param pesador      Calcula o peso de cada produto (pelo menos 1).
+     * @param renovacaoMs  O prazo de renovação das entradas sem ouvinte, ou 0 para nunca renovar.
+     * @throws IllegalArgumentException se o peso máximo for menor que 1 ou o prazo for negativo.
+     */
+    public CacheProdutos(IReferencia ref, Function<String, CompletableFuture<Produto>> carregador,
+                         long pesoMaximo, ToIntFunction<Produto> pesador, long renovacaoMs) {
+        if (pesoMaximo < 1) {
+            throw new IllegalArgumentException("ERRO: O peso máximo do cache deve ser maior que zero.");
+        }
+        if (renovacaoMs < 0) {
+            throw new IllegalArgumentException("ERRO: O prazo de renovação do cache não pode ser negativo.");
+        }
+        this.ref = ref;
+        this.carregador = carregador;
+        this.pesador = pesador;
+        this.pesoMaximo = pesoMaximo;
+        this.pesoMaximoJanela = Math.max(1, pesoMaximo / 100);
+        this.pesoMaximoProtegida = (pesoMaximo - pesoMaximoJanela) * 8 / 10;
+        this.renovacaoNanos = renovacaoMs * 1_000_000L;
+        esboco.garantirCapacidade((int) Math.min(pesoMaximo, 1024));
+    }
+
+    /**
+     * Retorna o cache compartilhado da aplicação, criado na primeira chamada com as
+     * configurações padrão e lendo de um {@link ProdutoRepository}.
+     *
+     * @return A instância padrão do cache.
+     */
+    public static synchronized CacheProdutos getPadrao() {
+        if (padrao == null) {
+            IReferencia produtos = OUVIR_PADRAO ? FirebaseConfig.getReferencia().child("produtos") : null;
+            padrao = new CacheProdutos(produtos, new ProdutoRepository()::buscar,
+                    PESO_MAXIMO_PADRAO, p -> 1, RENOVACAO_PADRAO_MS);
+        }
+        return padrao;
+    }
+
+    /**
+     * Busca um produto pelo ID, na memória ou, em caso de falta, pelo carregador. O produto
+     * devolvido é compartilhado com as próximas leituras e não deve ser alterado.
+     *
+     * @param id O ID do produto.
+     * @return Um {@link CompletableFuture} completado com o produto, ou com {@code null} se ele
+     * não existir. Um acerto devolve o future já completo.
+     */
+    public CompletableFuture<Produto> buscar(String id) {
+        No no = entradas.get(id);
+        if (no != null) {
+            acertos.increment();
+            Produto valor = no.valor;
+            anotarLeitura(no);
+            if (renovacaoNanos > 0 && no.ouvinte == null && System.nanoTime() - no.gravadoNanos > renovacaoNanos) {
+                renovar(no);
+            }
+            return CompletableFuture.completedFuture(valor);
+        }
+        faltas.increment();
+        return carregador.apply(id).whenComplete((produto, erro) -> {
+            if (erro != null) {
+                falhasCarga.increment();
+            } else if (produto != null) {
+                inserir(id, produto);
+            }
+        });
+    }
+
+    /**
+     * Remove a entrada do produto, se houver, para que a próxima leitura vá ao banco.
+     *
+     * @param id O ID do produto alterado.
+     */
+    public void invalidar(String id) {
+        No no = entradas.get(id);
+        if (no != null) {
+            remover(no);
+        }
+    }
+
+    /**
+     * Remove todas as entradas e os seus ouvintes. Os contadores são mantidos.
+     */
+    public void limpar() {
+        List<No> desligar = new ArrayList<>();
+        trava.lock();
+        try {
+            for (Fila fila : new Fila[]{janela, probatoria, protegida}) {
+                for (No no = fila.primeiro(); no != null; no = fila.primeiro()) {
+                    removerNo(no, desligar);
+                }
+            }
+        } finally {
+            trava.unlock();
+        }
+        desligar(desligar);
+    }
+
+    /**
+     * Retorna o número de entradas no cache.
+     * @return O tamanho.
+     */
+    public int tamanho() {
+        return entradas.size();
+    }
+
+    /**
+     * Retorna os contadores acumulados e a ocupação atual do cache.
+     * @return As {@link EstatisticasCache}.
+     */
+    public EstatisticasCache getEstatisticas() {
+        long peso;
+        trava.lock();
+        try {
+            peso = pesoJanela + pesoProbatoria + pesoProtegida;
+        } finally {
+            trava.unlock();
+        }
+        return new EstatisticasCache(acertos.sum(), faltas.sum(), despejos.sum(), invalidacoes.sum(),
+                renovacoes.sum(), atualizacoesRecebidas.sum(), falhasCarga.sum(), entradas.size(), peso);
+    }
+
+    /**
+     * Guarda um produto recém-lido na janela e despeja o que passar do peso máximo. Se outra
+     * leitura do mesmo ID chegou antes, apenas o valor é trocado.
+     */
+    private void inserir(String id, Produto produto) {
+        int peso = pesar(produto);
+        if (peso > pesoMaximo) {
+            return;
+        }
+        No novo = new No(id, produto, peso);
+        List<No> desligar = new ArrayList<>(2);
+        boolean residente;
+        trava.lock();
+        try {
+            aplicarLeituras();
+            esboco.incrementar(id);
+            No existente = entradas.get(id);
+            if (existente != null) {
+                substituirValor(existente, produto, peso, desligar);
+                residente = false;
+            } else {
+                entradas.put(id, novo);
+                esboco.garantirCapacidade(entradas.size());
+                novo.fila = JANELA;
+                janela.adicionar(novo);
+                pesoJanela += peso;
+                despejar(desligar);
+                residente = novo.fila != REMOVIDO;
+            }
+        } finally {
+            trava.unlock();
+        }
+        desligar(desligar);
+        if (residente) {
+            ouvir(novo);
+        }
+    }
+
+    /**
+     * Registra o ouvinte do produto no banco. O registro é feito fora do bloqueio; se a entrada
+     * for despejada nesse meio-tempo, o ouvinte é retirado logo em seguida.
+     */
+    private void ouvir(No no) {
+        if (ref == null) {
+            return;
+        }
+        IReferencia filho = ref.child(no.chave);
+        ValueEventListener ouvinte = new ValueEventListener() {
+            private boolean primeiraEntrega = true;
+
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                if (!dataSnapshot.exists()) {
+                    remover(no);
+                    return;
+                }
+                if (!primeiraEntrega) {
+                    atualizacoesRecebidas.increment();
+                }
+                primeiraEntrega = false;
+                substituir(no, dataSnapshot.getValue(Produto.class));
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                System.err.println("ERRO: Ouvinte do produto " + no.chave + " cancelado no cache: "
+                        + databaseError.getMessage());
+                remover(no);
+            }
+        };
+        filho.addValueEventListener(ouvinte);
+        boolean removido;
+        trava.lock();
+        try {
+            removido = no.fila == REMOVIDO;
+            if (!removido) {
+                no.ouvinte = ouvinte;
+            }
+        } finally {
+            trava.unlock();
+        }
+        if (removido) {
+            filho.removeEventListener(ouvinte);
+        }
+    }
+
+    /**
+     * Relê em segundo plano uma entrada vencida, no máximo uma vez por vez. Em caso de falha, o
+     * valor anterior é mantido e uma nova tentativa só acontece no próximo prazo.
+     */
+    private void renovar(No no) {
+        if (!no.renovando.compareAndSet(false, true)) {
+            return;
+        }
+        renovacoes.increment();
+        carregador.apply(no.chave).whenComplete((produto, erro) -> {
+            no.renovando.set(false);
+            if (erro != null) {
+                falhasCarga.increment();
+                no.gravadoNanos = System.nanoTime();
+            } else if (produto == null) {
+                remover(no);
+            } else {
+                substituir(no, produto);
+            }
+        });
+    }
+
+    private void substituir(No no, Produto produto) {
+        int peso = pesar(produto);
+        List<No> desligar = new ArrayList<>(1);
+        trava.lock();
+        try {
+            if (no.fila != REMOVIDO) {
+                substituirValor(no, produto, peso, desligar);
+            }
+        } finally {
+            trava.unlock();
+        }
+        desligar(desligar);
+    }
+
+    private void remover(No no) {
+        List<No> desligar = new ArrayList<>(1);
+        trava.lock();
+        try {
+            if (no.fila != REMOVIDO) {
+                removerNo(no, desligar);
+                invalidacoes.increment();
+            }
+        } finally {
+            trava.unlock();
+        }
+        desligar(desligar);
+    }
+
+    /**
+     * Troca o valor de uma entrada residente, ajustando o peso. Deve ser chamado com o bloqueio.
+     */
+    private void substituirValor(No no, Produto produto, int peso, List<No> desligar) {
+        if (peso > pesoMaximo) {
+            removerNo(no, desligar);
+            invalidacoes.increment();
+            return;
+        }
+        no.valor = produto;
+        no.gravadoNanos = System.nanoTime();
+        int diferenca = peso - no.peso;
+        no.peso = peso;
+        if (no.fila == JANELA) {
+            pesoJanela += diferenca;
+        } else if (no.fila == PROBATORIA) {
+            pesoProbatoria += diferenca;
+        } else {
+            pesoProtegida += diferenca;
+        }
+        if (diferenca > 0) {
+            despejar(desligar);
+        }
+    }
+
+    /**
+     * Anota a leitura no buffer circular sem bloquear. O buffer é aplicado à política quando
+     * acumula leituras suficientes e o bloqueio está livre; cheio, a leitura é descartada.
+     */
+    private void anotarLeitura(No no) {
+        long anotadas = leiturasAnotadas.get();
+        long pendentes = anotadas - leiturasAplicadas;
+        if (pendentes < TAMANHO_BUFFER_LEITURAS && leiturasAnotadas.compareAndSet(anotadas, anotadas + 1)) {
+            leituras.lazySet((int) (anotadas & MASCARA_BUFFER_LEITURAS), no);
+            pendentes++;
+        }
+        if (pendentes >= LIMIAR_DRENAGEM && trava.tryLock()) {
+            try {
+                aplicarLeituras();
+            } finally {
+                trava.unlock();
+            }
+        }
+    }
+
+    /**
+     * Aplica as leituras anotadas no buffer, em ordem. Para na primeira posição reservada cujo
+     * nó ainda não foi gravado. Deve ser chamado com o bloqueio.
+     */
+    private void aplicarLeituras() {
+        long aplicadas = leiturasAplicadas;
+        long anotadas = leiturasAnotadas.get();
+        while (aplicadas < anotadas) {
+            int posicao = (int) (aplicadas & MASCARA_BUFFER_LEITURAS);
+            No no = leituras.get(posicao);
+            if (no == null) {
+                break;
+            }
+            leituras.lazySet(posicao, null);
+            acessar(no);
+            aplicadas++;
+        }
+        leiturasAplicadas = aplicadas;
+    }
+
+    /**
+     * Registra um acerto na política: conta a frequência e reordena as filas. Uma entrada
+     * lida de novo na área probatória sobe para a protegida. Deve ser chamado com o bloqueio.
+     */
+    private void acessar(No no) {
+        esboco.incrementar(no.chave);
+        if (no.fila == JANELA) {
+            janela.moverParaFim(no);
+        } else if (no.fila == PROTEGIDA) {
+            protegida.moverParaFim(no);
+        } else if (no.fila == PROBATORIA) {
+            probatoria.remover(no);
+            pesoProbatoria -= no.peso;
+            no.fila = PROTEGIDA;
+            protegida.adicionar(no);
+            pesoProtegida += no.peso;
+            while (pesoProtegida > pesoMaximoProtegida) {
+                No rebaixado = protegida.primeiro();
+                protegida.remover(rebaixado);
+                pesoProtegida -= rebaixado.peso;
+                rebaixado.fila = PROBATORIA;
+                probatoria.adicionar(rebaixado);
+                pesoProbatoria += rebaixado.peso;
+            }
+        }
+    }
+
+    /**
+     * Move para a área probatória o que passou do peso da janela e, enquanto o total estiver
+     * acima do máximo, decide entre o candidato vindo da janela e a vítima (a entrada menos
+     * recente da área probatória): fica quem tiver a maior frequência estimada. Deve ser
+     * chamado com o bloqueio.
+     */
+    private void despejar(List<No> desligar) {
+        No candidato = null;
+        while (pesoJanela > pesoMaximoJanela) {
+            No no = janela.primeiro();
+            janela.remover(no);
+            pesoJanela -= no.peso;
+            no.fila = PROBATORIA;
+            probatoria.adicionar(no);
+            pesoProbatoria += no.peso;
+            if (candidato == null) {
+                candidato = no;
+            }
+        }
+
+        while (pesoJanela + pesoProbatoria + pesoProtegida > pesoMaximo) {
+            No vitima = probatoria.primeiro();
+            if (candidato == null || vitima == null || vitima == candidato) {
+                // Sem disputa possível: sai a entrada menos recente da área mais fria.
+                No alvo = vitima != null ? vitima : protegida.primeiro() != null ? protegida.primeiro() : janela.primeiro();
+                if (alvo == candidato) {
+                    candidato = probatoria.proximo(candidato);
+                }
+                removerNo(alvo, desligar);
+                despejos.increment();
+                continue;
+            }
+            No proximo = probatoria.proximo(candidato);
+            if (admitir(candidato.chave, vitima.chave)) {
+                removerNo(vitima, desligar);
+            } else {
+                removerNo(candidato, desligar);
+                candidato = proximo;
+            }
+            despejos.increment();
+        }
+    }
+
+    /**
+     * Decide se o candidato entra no lugar da vítima. Um candidato muito frequente ainda tem uma
+     * chance pequena de entrar no empate, o que impede que colisões forjadas no esboço prendam
+     * uma vítima para sempre.
+     */
+    private boolean admitir(String candidato, String vitima) {
+        int frequenciaCandidato = esboco.frequencia(candidato);
+        int frequenciaVitima = esboco.frequencia(vitima);
+        if (frequenciaCandidato > frequenciaVitima) {
+            return true;
+        }
+        if (frequenciaCandidato <= 5) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /**
+     * Retira a entrada da sua fila e do mapa. As entradas com ouvinte são acumuladas em
+     * {@code desligar}, para que o ouvinte seja removido depois de liberado o bloqueio.
+     */
+    private void removerNo(No no, List<No> desligar) {
+        if (no.fila == JANELA) {
+            janela.remover(no);
+            pesoJanela -= no.peso;
+        } else if (no.fila == PROBATORIA) {
+            probatoria.remover(no);
+            pesoProbatoria -= no.peso;
+        } else if (no.fila == PROTEGIDA) {
+            protegida.remover(no);
+            pesoProtegida -= no.peso;
+        }
+        no.fila = REMOVIDO;
+        entradas.remove(no.chave, no);
+        if (no.ouvinte != null) {
+            desligar.add(no);
+        }
+    }
+
+    private void desligar(List<No> nos) {
+        for (No no : nos) {
+            ref.child(no.chave).removeEventListener(no.ouvinte);
+        }
+    }
+
+    private int pesar(Produto produto) {
+        return Math.max(1, pesador.applyAsInt(produto));
+    }
+
+    /**
+     * Uma entrada do cache. A posição nas filas e o peso só mudam com o bloqueio.
+     */
+    private static final class No {
+        final String chave;
+        volatile Produto valor;
+        volatile long gravadoNanos;
+        volatile ValueEventListener ouvinte;
+        final AtomicBoolean renovando = new AtomicBoolean(false);
+        int peso;
+        int fila;
+        No anterior;
+        No proximo;
+
+        No(String chave, Produto valor, int peso) {
+            this.chave = chave;
+            this.valor = valor;
+            this.peso = peso;
+            this.gravadoNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Lista duplamente ligada e circular, com um nó sentinela, da entrada menos recente
+     * (início) para a mais recente (fim).
+     */
+    private static final class Fila {
+        private final No sentinela = new No(null, null, 0);
+
+        Fila() {
+            sentinela.anterior = sentinela;
+            sentinela.proximo = sentinela;
+        }
+
+        No primeiro() {
+            return sentinela.proximo == sentinela ? null : sentinela.proximo;
+        }
+
+        No proximo(No no) {
+            return no.proximo == sentinela ? null : no.proximo;
+        }
+
+        void adicionar(No no) {
+            no.anterior = sentinela.anterior;
+            no.proximo = sentinela;
+            sentinela.anterior.proximo = no;
+            sentinela.anterior = no;
+        }
+
+        void remover(No no) {
+            no.anterior.proximo = no.proximo;
+            no.proximo.anterior = no.anterior;
+            no.anterior = null;
+            no.proximo = null;
+        }
+
+        void moverParaFim(No no) {
+            remover(no);
+            adicionar(no);
+        }
+    }
+
+    /**
+     * Esboço count-min com quatro contadores de 4 bits por chave, dezesseis contadores por
+     * {@code long}. A frequência estimada é o menor dos quatro contadores. A cada
+     * {@code 10 × capacidade} incrementos, todos os contadores são divididos por dois.
+     * Só é usado com o bloqueio do cache.
+     */
+    private static final class EsbocoFrequencia {
+        private static final long[] SEMENTES = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long MASCARA_METADE = 0x7777777777777777L;
+        private static final long MASCARA_UM = 0x1111111111111111L;
+
+        private long[] tabela;
+        private int mascara;
+        private int tamanhoAmostra;
+        private int incrementos;
+
+        /**
+         * Aumenta a tabela para comportar a quantidade de chaves informada. O crescimento
+         * descarta as frequências acumuladas.
+         */
+        void garantirCapacidade(int chaves) {
+            int tamanho = Integer.highestOneBit(Math.max(8, Math.min(chaves, 1 << 29)) - 1) << 1;
+            if (tabela != null && tabela.length >= tamanho) {
+                return;
+            }
+            tabela = new long[tamanho];
+            mascara = tamanho - 1;
+            tamanhoAmostra = 10 * tamanho;
+            incrementos = 0;
+        }
+
+        int frequencia(String chave) {
+            int hash = espalhar(chave.hashCode());
+            int inicio = (hash & 3) << 2;
+            int menor = 15;
+            for (int i = 0; i < 4; i++) {
+                int deslocamento = (inicio + i) << 2;
+                int contador = (int) ((tabela[indice(hash, i)] >>> deslocamento) & 0xfL);
+                menor = Math.min(menor, contador);
+            }
+            return menor;
+        }
+
+        void incrementar(String chave) {
+            int hash = espalhar(chave.hashCode());
+            int inicio = (hash & 3) << 2;
+            boolean incrementou = false;
+            for (int i = 0; i < 4; i++) {
+                int indice = indice(hash, i);
+                int deslocamento = (inicio + i) << 2;
+                long mascaraContador = 0xfL << deslocamento;
+                if ((tabela[indice] & mascaraContador) != mascaraContador) {
+                    tabela[indice] += 1L << deslocamento;
+                    incrementou = true;
+                }
+            }
+            if (incrementou && ++incrementos >= tamanhoAmostra) {
+                envelhecer();
+            }
+        }
+
+        private void envelhecer() {
+            int impares = 0;
+            for (int i = 0; i < tabela.length; i++) {
+                impares += Long.bitCount(tabela[i] & MASCARA_UM);
+                tabela[i] = (tabela[i] >>> 1) & MASCARA_METADE;
+            }
+            incrementos = (incrementos - (impares >>> 2)) >>> 1;
+        }
+
+        private int indice(int hash, int i) {
+            long h = (hash + SEMENTES[i]) * SEMENTES[i];
+            h += h >>> 32;
+            return (int) h & mascara;
+        }
+
+        private static int espalhar(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
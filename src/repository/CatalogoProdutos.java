@@ -0,0 +1,490 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.ValueEventListener;
+import database.FirebaseConfig;
+import interfaces.IInscricao;
+import interfaces.IReferencia;
+
+import model.Produto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Réplica em memória do nó "produtos" do Firebase Realtime Database.
+ * O catálogo é baixado uma única vez e, a partir daí, mantido em sincronia pelos
+ * eventos {@code onChildAdded/Changed/Removed} de um {@link ChildEventListener}.
+ * As alterações são publicadas como um novo {@link Snapshot} imutável e versionado, de modo
+ * que as leituras da camada de serviço não precisam de ida à rede.
+ * <p>
+ * Os eventos do Firebase são entregues por uma única thread, que é a única a escrever
+ * no mapa de trabalho. A publicação é preguiçosa: cada evento apenas marca o catálogo como
+ * alterado, e o novo snapshot é montado na primeira leitura seguinte. Sem alterações
+ * pendentes, a leitura apenas consulta a referência volátil do snapshot atual, sem bloqueio.
+ * <p>
+ * Um snapshot não copia o catálogo inteiro: ele compartilha uma base imutável com os
+ * snapshots anteriores e guarda à parte apenas os produtos alterados desde que essa base foi
+ * montada. A base só é refeita quando as alterações acumuladas passam da raiz quadrada do
+ * tamanho do catálogo, o que limita tanto o custo de cada publicação quanto o custo
+ * amortizado da recompactação por alteração.
+ * <p>
+ * Se o Firebase cancelar a sincronização, a réplica deixa de ser considerada carregada, de
+ * modo que os serviços voltam a consultar o banco, e os ouvintes são registrados de novo
+ * com espera crescente entre as tentativas.
+ *
+ * @see Snapshot
+ * @see ProdutoRepository
+ * @see service.ProdutoService
+ */
+public class CatalogoProdutos {
+
+    /**
+     * Indica se o catálogo é replicado em memória. Lojas com catálogo grande demais podem
+     * desligar a réplica; as buscas por ID passam então pelo {@link CacheProdutos}.
+     */
+    public static final boolean REPLICAR_PADRAO =
+            Boolean.parseBoolean(System.getProperty("pdv.catalogo.replicar", "true"));
+
+    /**
+     * Espera, em milissegundos, antes da primeira tentativa de reconexão depois de um cancelamento.
+     */
+    public static final long RECONEXAO_INICIAL_MS = Long.getLong("pdv.catalogo.reconexaoInicialMillis", 1_000);
+
+    /**
+     * Espera máxima, em milissegundos, entre duas tentativas de reconexão.
+     */
+    public static final long RECONEXAO_MAXIMA_MS = Long.getLong("pdv.catalogo.reconexaoMaximaMillis", 60_000);
+
+    /**
+     * Quantidade de alterações que uma base sempre comporta antes de ser refeita, para que
+     * catálogos pequenos não sejam recompactados a cada publicação.
+     */
+    private static final int SOBREPOSICAO_MINIMA = 64;
+
+    private static CatalogoProdutos instancia;
+
+    /**
+     * Referência para o nó "produtos" no Firebase Realtime Database.
+     */
+    private final IReferencia ref;
+
+    /**
+     * Cópia mutável do catálogo, alterada somente pela thread de eventos do Firebase.
+     */
+    private final Map<String, Produto> trabalho = new HashMap<>();
+
+    /**
+     * Base imutável compartilhada pelos snapshots publicados desde a última recompactação.
+     */
+    private Map<String, Produto> base = Collections.emptyMap();
+
+    /**
+     * Produtos alterados desde que a {@link #base} foi montada; um valor {@code null}
+     * indica um produto removido.
+     */
+    private final Map<String, Produto> pendentes = new HashMap<>();
+
+    /**
+     * Índice de busca textual, mantido junto com o mapa de trabalho.
+     */
+    private final IndiceBuscaProdutos indice = new IndiceBuscaProdutos();
+
+    private volatile Snapshot atual = new Snapshot(0, Collections.emptyMap(), Collections.emptyMap(), 0);
+    private volatile boolean carregado = false;
+
+    /**
+     * Indica que a primeira carga já terminou. A partir daí, os eventos são repassados aos
+     * {@link #ouvintes} mesmo durante uma recarga, quando {@link #carregado} volta a ser falso.
+     */
+    private volatile boolean sincronizado = false;
+    private volatile boolean alterado = false;
+    private ChildEventListener ouvinteFilhos;
+    private ValueEventListener ouvinteCarga;
+
+    private ScheduledExecutorService agendador;
+    private ScheduledFuture<?> reconexao;
+    private long esperaReconexao = RECONEXAO_INICIAL_MS;
+
+    /**
+     * Ouvintes das alterações recebidas depois da carga inicial, como as telas de estoque.
+     */
+    private final List<BiConsumer<String, Produto>> ouvintes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Construtor privado; a réplica é compartilhada por toda a aplicação através de
+     * {@link #getInstancia()}.
+     */
+    private CatalogoProdutos() {
+        this.ref = FirebaseConfig.getReferencia().child("produtos");
+    }
+
+    /**
+     * Retorna a réplica compartilhada do catálogo, iniciando a sincronização na primeira chamada,
+     * a menos que a réplica esteja desligada por {@code pdv.catalogo.replicar=false}; nesse caso
+     * ela nunca fica carregada e os serviços consultam o banco.
+     *
+     * @return A instância única de {@link CatalogoProdutos}.
+     */
+    public static synchronized CatalogoProdutos getInstancia() {
+        if (instancia == null) {
+            instancia = new CatalogoProdutos();
+            if (REPLICAR_PADRAO) {
+                instancia.iniciar();
+            }
+        }
+        return instancia;
+    }
+
+    /**
+     * Registra os ouvintes no Firebase. Os eventos {@code onChildAdded} da carga inicial
+     * são acumulados sem publicação; o evento de valor único, que o Firebase entrega
+     * depois de todos eles, marca o fim da carga e publica o primeiro snapshot completo.
+     * Numa reconexão, esse mesmo evento descarta os produtos que deixaram de existir
+     * enquanto a réplica esteve desconectada.
+     */
+    public synchronized void iniciar() {
+        if (ouvinteFilhos != null) {
+            return;
+        }
+        reconexao = null;
+        ouvinteFilhos = ref.addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                aplicar(snapshot.getKey(), snapshot.getValue(Produto.class));
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                aplicar(snapshot.getKey(), snapshot.getValue(Produto.class));
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                aplicar(snapshot.getKey(), null);
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+                // A ordem dos filhos não é relevante para a réplica.
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                System.err.println("ERRO: Sincronização do catálogo cancelada: " + databaseError.getMessage());
+                reconectar(this);
+            }
+        });
+        ChildEventListener filhos = ouvinteFilhos;
+
+        ouvinteCarga = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                int tamanho;
+                synchronized (trabalho) {
+                    for (String id : new ArrayList<>(trabalho.keySet())) {
+                        if (!dataSnapshot.hasChild(id)) {
+                            aplicar(id, null);
+                        }
+                    }
+                    publicar();
+                    tamanho = trabalho.size();
+                }
+                carregado = true;
+                sincronizado = true;
+                synchronized (CatalogoProdutos.this) {
+                    esperaReconexao = RECONEXAO_INICIAL_MS;
+                }
+                System.out.println("LOG: Catálogo carregado em memória (" + tamanho + " produtos).");
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                System.err.println("ERRO: Falha ao carregar o catálogo: " + databaseError.getMessage());
+                reconectar(filhos);
+            }
+        };
+        ref.addListenerForSingleValueEvent(ouvinteCarga);
+    }
+
+    /**
+     * Trata o cancelamento da sincronização: remove os ouvintes atuais, marca a réplica como
+     * não carregada e agenda uma nova chamada a {@link #iniciar()}, dobrando a espera a cada
+     * tentativa até {@link #RECONEXAO_MAXIMA_MS}. O mapa de trabalho é mantido e reconciliado
+     * pela nova carga.
+     *
+     * @param cancelado O ouvinte de filhos da sincronização que foi cancelada; cancelamentos de
+     *                  uma sincronização já substituída ou parada são ignorados.
+     */
+    private synchronized void reconectar(ChildEventListener cancelado) {
+        if (cancelado == null || ouvinteFilhos != cancelado) {
+            return;
+        }
+        carregado = false;
+        removerOuvintes();
+        if (agendador == null) {
+            agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "reconexao-catalogo");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        long espera = esperaReconexao;
+        esperaReconexao = Math.min(RECONEXAO_MAXIMA_MS, espera * 2);
+        System.out.println("LOG: Nova tentativa de sincronizar o catálogo em " + espera + " ms.");
+        reconexao = agendador.schedule(this::iniciar, espera, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Remove os ouvintes do Firebase e descarta o conteúdo da réplica.
+     */
+    public synchronized void parar() {
+        if (reconexao != null) {
+            reconexao.cancel(false);
+            reconexao = null;
+        }
+        removerOuvintes();
+        esperaReconexao = RECONEXAO_INICIAL_MS;
+        carregado = false;
+    }
+
+    private void removerOuvintes() {
+        if (ouvinteFilhos != null) {
+            ref.removeEventListener(ouvinteFilhos);
+            ouvinteFilhos = null;
+        }
+        if (ouvinteCarga != null) {
+            ref.removeEventListener(ouvinteCarga);
+            ouvinteCarga = null;
+        }
+    }
+
+    /**
+     * Aplica uma alteração recebida do Firebase ao mapa de trabalho e ao índice de busca e,
+     * se a carga inicial já terminou, marca o catálogo para ser publicado na próxima leitura.
+     * Depois da primeira carga, a alteração é sempre repassada aos ouvintes, inclusive as
+     * recebidas durante a recarga que segue uma reconexão.
+     *
+     * @param id      A chave do produto alterado.
+     * @param produto O novo estado do produto, ou {@code null} se ele foi removido.
+     */
+    private void aplicar(String id, Produto produto) {
+        synchronized (trabalho) {
+            if (produto == null) {
+                trabalho.remove(id);
+            } else {
+                trabalho.put(id, produto);
+            }
+            pendentes.put(id, produto);
+            indice.atualizar(id, produto);
+            if (carregado) {
+                alterado = true;
+            }
+        }
+        if (sincronizado) {
+            for (BiConsumer<String, Produto> ouvinte : ouvintes) {
+                ouvinte.accept(id, produto);
+            }
+        }
+    }
+
+    /**
+     * Inscreve um ouvinte para as alterações de produtos que chegarem depois da carga inicial,
+     * aproveitando os eventos que a réplica já recebe, sem outra sincronização com o Firebase.
+     * Depois de uma reconexão, o ouvinte recebe de novo todos os produtos da recarga e as
+     * remoções feitas enquanto a réplica esteve desconectada.
+     * O ouvinte é chamado na thread de eventos do Firebase e deve retornar rapidamente; os
+     * produtos recebidos são compartilhados com a réplica e não devem ser alterados.
+     *
+     * @param ouvinte Recebe o ID e o novo estado do produto, ou {@code null} se ele foi removido.
+     * @return A inscrição, a ser cancelada quando o ouvinte não for mais necessário.
+     */
+    public IInscricao ouvir(BiConsumer<String, Produto> ouvinte) {
+        ouvintes.add(ouvinte);
+        return () -> ouvintes.remove(ouvinte);
+    }
+
+    /**
+     * Publica o snapshot seguinte. Enquanto as alterações acumuladas couberem no limite, só
+     * elas são copiadas e a base atual é reaproveitada; acima dele, o mapa de trabalho é
+     * copiado para uma nova base. Deve ser chamado com o bloqueio de {@link #trabalho}.
+     */
+    private void publicar() {
+        int limite = Math.max(SOBREPOSICAO_MINIMA, (int) Math.sqrt(trabalho.size()));
+        if (pendentes.size() > limite) {
+            base = new HashMap<>(trabalho);
+            pendentes.clear();
+        }
+        Map<String, Produto> sobreposicao = pendentes.isEmpty()
+                ? Collections.emptyMap() : new HashMap<>(pendentes);
+        atual = new Snapshot(atual.getVersao() + 1, base, sobreposicao, trabalho.size());
+        alterado = false;
+    }
+
+    /**
+     * Retorna o índice de busca textual do catálogo. Ao contrário do {@link Snapshot}, o
+     * índice reflete cada alteração assim que ela chega, sem esperar pela publicação.
+     *
+     * @return O {@link IndiceBuscaProdutos} mantido pela réplica.
+     */
+    public IndiceBuscaProdutos getIndice() {
+        return indice;
+    }
+
+    /**
+     * Indica se a carga inicial já foi concluída e a réplica está em sincronia com o banco.
+     *
+     * @return {@code true} se o snapshot atual representa o catálogo completo.
+     */
+    public boolean isCarregado() {
+        return carregado;
+    }
+
+    /**
+     * Retorna o snapshot atual, publicando antes as alterações pendentes, se houver. Sem
+     * alterações pendentes, a leitura não bloqueia.
+     *
+     * @return O {@link Snapshot} atual do catálogo.
+     */
+    public Snapshot getSnapshot() {
+        if (alterado) {
+            synchronized (trabalho) {
+                if (alterado) {
+                    publicar();
+                }
+            }
+        }
+        return atual;
+    }
+
+    /**
+     * Visão imutável e versionada do catálogo em um determinado instante, formada por uma
+     * base compartilhada com outros snapshots e pelas alterações feitas depois dela.
+     * Os objetos {@link Produto} são compartilhados entre as leituras e não devem ser
+     * alterados; quem precisar modificá-los deve trabalhar sobre uma cópia.
+     */
+    public static final class Snapshot {
+        private final long versao;
+        private final Map<String, Produto> base;
+        private final Map<String, Produto> sobreposicao;
+        private final int tamanho;
+        private volatile List<Produto> ordenados;
+
+        private Snapshot(long versao, Map<String, Produto> base, Map<String, Produto> sobreposicao, int tamanho) {
+            this.versao = versao;
+            this.base = base;
+            this.sobreposicao = sobreposicao;
+            this.tamanho = tamanho;
+        }
+
+        /**
+         * Retorna o número de versão deste snapshot, incrementado a cada alteração publicada.
+         * @return A versão do snapshot.
+         */
+        public long getVersao() {
+            return versao;
+        }
+
+        /**
+         * Busca um produto pelo seu ID.
+         * @param id O ID do produto.
+         * @return O {@link Produto} correspondente, ou {@code null} se não existir.
+         */
+        public Produto buscar(String id) {
+            if (sobreposicao.containsKey(id)) {
+                return sobreposicao.get(id);
+            }
+            return base.get(id);
+        }
+
+        /**
+         * Retorna todos os produtos do snapshot, ordenados pelo ID.
+         * A lista é calculada na primeira chamada e reaproveitada nas seguintes.
+         * @return Uma lista imutável de produtos.
+         */
+        public List<Produto> listar() {
+            List<Produto> lista = ordenados;
+            if (lista == null) {
+                List<String> chaves = new ArrayList<>(tamanho);
+                for (String chave : base.keySet()) {
+                    if (!sobreposicao.containsKey(chave)) {
+                        chaves.add(chave);
+                    }
+                }
+                for (Map.Entry<String, Produto> entrada : sobreposicao.entrySet()) {
+                    if (entrada.getValue() != null) {
+                        chaves.add(entrada.getKey());
+                    }
+                }
+                chaves.sort(Comparator.naturalOrder());
+                List<Produto> nova = new ArrayList<>(chaves.size());
+                for (String chave : chaves) {
+                    nova.add(buscar(chave));
+                }
+                lista = Collections.unmodifiableList(nova);
+                ordenados = lista;
+            }
+            return lista;
+        }
+
+        /**
+         * Retorna uma página de produtos, em ordem de ID, a partir do cursor informado.
+         * A página é uma visão da lista ordenada, sem cópia dos produtos.
+         *
+         * @param cursor  O ID do último produto da página anterior, ou {@code null} para a primeira.
+         * @param tamanho A quantidade máxima de produtos da página.
+         * @return A {@link Pagina} correspondente.
+         */
+        public Pagina<Produto> pagina(String cursor, int tamanho) {
+            if (tamanho <= 0) {
+                throw new IllegalArgumentException("ERRO: O tamanho da página deve ser maior que zero.");
+            }
+            List<Produto> lista = listar();
+            int inicio = 0;
+            if (cursor != null) {
+                // Busca binária pelo primeiro ID maior que o cursor.
+                int baixo = 0;
+                int alto = lista.size();
+                while (baixo < alto) {
+                    int meio = (baixo + alto) >>> 1;
+                    if (lista.get(meio).getId().compareTo(cursor) <= 0) {
+                        baixo = meio + 1;
+                    } else {
+                        alto = meio;
+                    }
+                }
+                inicio = baixo;
+            }
+            int fim = Math.min(lista.size(), inicio + tamanho);
+            String proximo = fim < lista.size() && fim > inicio ? lista.get(fim - 1).getId() : null;
+            return new Pagina<>(lista.subList(inicio, fim), proximo);
+        }
+
+        /**
+         * Retorna a quantidade de produtos no snapshot.
+         * @return O número de produtos.
+         */
+        public int tamanho() {
+            return tamanho;
+        }
+    }
+}
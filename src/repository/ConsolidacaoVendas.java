@@ -0,0 +1,249 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.api.core.ApiFuture;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+import database.FirebaseConfig;
+import interfaces.IReferencia;
+
+import model.TotaisVendas;
+import model.VendaDTO;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantém os contadores pré-agregados de vendas no nó "rollups", para que painéis e o
+ * fechamento do caixa leiam alguns nós pequenos em vez de percorrer todas as vendas.
+ * A estrutura de cada dia é:
+ * <pre>
+ * rollups/{aaaa-MM-dd}/total
+ * rollups/{aaaa-MM-dd}/produto/{idProduto}
+ * rollups/{aaaa-MM-dd}/formaPagamento/{FORMA}
+ * rollups/{aaaa-MM-dd}/usuario/{matricula}
+ * </pre>
+ * cada um com receita (em centavos), unidades e tickets ({@link TotaisVendas}).
+ * <p>
+ * A consolidação acompanha o {@link BufferEscritaVendas}: quando um lote de vendas é
+ * confirmado, as vendas são somadas por dia e cada dia tocado recebe uma única transação
+ * sobre {@code rollups/{dia}}, que atualiza todos os contadores do dia de uma vez.
+ * Uma falha nessa transação, ou o reenvio de uma venda já gravada, deixa os contadores
+ * divergentes das vendas; {@link #reconstruir(LocalDate)} e {@link #reconstruirTodos()}
+ * recalculam os contadores a partir do nó "vendas".
+ *
+ * @see ConsolidadoDia
+ * @see VendaRepository
+ */
+public class ConsolidacaoVendas {
+
+    private static ConsolidacaoVendas padrao;
+    private static final AtomicLong falhas = new AtomicLong();
+
+    private final IReferencia ref;
+    private final VendaRepository vendaRepository;
+
+    /**
+     * Cria a consolidação sobre o nó informado e passa a acompanhar os lotes do buffer.
+     *
+     * @param ref             A referência do nó "rollups".
+     * @param buffer          O buffer cujos lotes confirmados devem ser consolidados.
+     * @param vendaRepository O repositório usado na reconstrução dos contadores.
+     */
+    public ConsolidacaoVendas(IReferencia ref, BufferEscritaVendas buffer, VendaRepository vendaRepository) {
+        this.ref = ref;
+        this.vendaRepository = vendaRepository;
+        buffer.adicionarOuvinte(this::aoConfirmarLote);
+    }
+
+    /**
+     * Retorna a consolidação compartilhada, ligada ao buffer padrão de vendas.
+     *
+     * @return A instância padrão da consolidação.
+     */
+    public static synchronized ConsolidacaoVendas getPadrao() {
+        if (padrao == null) {
+            padrao = new ConsolidacaoVendas(FirebaseConfig.getReferencia().child("rollups"),
+                    BufferEscritaVendas.getPadrao(), new VendaRepository());
+        }
+        return padrao;
+    }
+
+    /**
+     * Retorna quantas transações de consolidação falharam desde o início da aplicação.
+     * Um valor diferente de zero indica que os contadores precisam ser reconstruídos.
+     *
+     * @return O número de falhas.
+     */
+    public static long getTotalFalhas() {
+        return falhas.get();
+    }
+
+    /**
+     * Busca os contadores consolidados de um dia.
+     *
+     * @param dia O dia desejado, no fuso horário do sistema.
+     * @return Um {@link CompletableFuture} completado com o {@link ConsolidadoDia}; um dia sem
+     * vendas resulta em contadores zerados.
+     */
+    public CompletableFuture<ConsolidadoDia> buscar(LocalDate dia) {
+        CompletableFuture<ConsolidadoDia> future = new CompletableFuture<>();
+        ref.child(dia.toString()).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                future.complete(ConsolidadoDia.de(dia, dataSnapshot));
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                future.completeExceptionally(databaseError.toException());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Recalcula os contadores de um dia a partir das vendas do dia e os grava no lugar dos
+     * atuais. Vendas registradas durante a reconstrução podem não ser contadas, por isso ela
+     * deve ser executada com o caixa parado (por exemplo, no fechamento).
+     *
+     * @param dia O dia a ser reconstruído.
+     * @return Um {@link CompletableFuture} completado com o consolidado gravado.
+     */
+    public CompletableFuture<ConsolidadoDia> reconstruir(LocalDate dia) {
+        ZoneId fuso = ZoneId.systemDefault();
+        long inicio = dia.atStartOfDay(fuso).toInstant().toEpochMilli();
+        long fim = dia.plusDays(1).atStartOfDay(fuso).toInstant().toEpochMilli();
+        return vendaRepository.buscarPorPeriodo(inicio, fim).thenCompose(vendas -> {
+            ConsolidadoDia consolidado = new ConsolidadoDia(dia);
+            for (VendaDTO venda : vendas) {
+                consolidado.somar(venda);
+            }
+            return gravar(ref.child(dia.toString()), consolidado.paraMapa()).thenApply(v -> {
+                System.out.println("LOG: Consolidado de " + dia + " reconstruído a partir de " + vendas.size() + " venda(s).");
+                return consolidado;
+            });
+        });
+    }
+
+    /**
+     * Recalcula os contadores de todos os dias a partir do nó "vendas", percorrido página a
+     * página pelo timestamp, e substitui o nó "rollups" inteiro. Vendas sem timestamp não são
+     * contadas; preencha-o antes com {@link VendaRepository#preencherTimestamps()}.
+     * A leitura é feita em uma thread própria, pois bloqueia a cada página.
+     *
+     * @return Um {@link CompletableFuture} completado com o número de dias gravados.
+     */
+    public CompletableFuture<Integer> reconstruirTodos() {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<LocalDate, ConsolidadoDia> dias = new TreeMap<>();
+            Pagina.transmitir(cursor -> vendaRepository.buscarDesde(cursor, 500)).forEach(venda ->
+                    dias.computeIfAbsent(diaDe(venda), ConsolidadoDia::new).somar(venda));
+            Map<String, Object> conteudo = new HashMap<>();
+            for (ConsolidadoDia consolidado : dias.values()) {
+                conteudo.put(consolidado.getDia().toString(), consolidado.paraMapa());
+            }
+            return conteudo;
+        }, tarefa -> {
+            Thread t = new Thread(tarefa, "reconstrucao-rollups");
+            t.setDaemon(true);
+            t.start();
+        }).thenCompose(conteudo -> gravar(ref, conteudo).thenApply(v -> {
+            System.out.println("LOG: Consolidados reconstruídos para " + conteudo.size() + " dia(s).");
+            return conteudo.size();
+        }));
+    }
+
+    /**
+     * Substitui o conteúdo de um nó e converte a confirmação do servidor em um {@link CompletableFuture}.
+     */
+    private static CompletableFuture<Void> gravar(IReferencia no, Object valor) {
+        CompletableFuture<Void> gravacao = new CompletableFuture<>();
+        ApiFuture<Void> escrita = no.setValueAsync(valor);
+        escrita.addListener(() -> {
+            try {
+                gravacao.complete(escrita.get());
+            } catch (Exception e) {
+                gravacao.completeExceptionally(e instanceof ExecutionException ? e.getCause() : e);
+            }
+        }, Runnable::run);
+        return gravacao;
+    }
+
+    /**
+     * Ouvinte do buffer: consolida as vendas de cada lote confirmado.
+     */
+    private void aoConfirmarLote(BufferEscritaVendas.ResultadoLote resultado) {
+        if (!resultado.isSucesso()) {
+            return;
+        }
+        Map<LocalDate, ConsolidadoDia> dias = new HashMap<>();
+        for (Object registro : resultado.getRegistros()) {
+            if (registro instanceof VendaDTO) {
+                VendaDTO venda = (VendaDTO) registro;
+                dias.computeIfAbsent(diaDe(venda), ConsolidadoDia::new).somar(venda);
+            }
+        }
+        for (ConsolidadoDia delta : dias.values()) {
+            somar(delta);
+        }
+    }
+
+    /**
+     * Soma os contadores do lote aos do dia em uma única transação sobre {@code rollups/{dia}}.
+     */
+    private void somar(ConsolidadoDia delta) {
+        ref.child(delta.getDia().toString()).runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData dadoAtual) {
+                somarNo(dadoAtual.child(ConsolidadoDia.TOTAL), delta.getTotal());
+                for (String grupo : new String[]{ConsolidadoDia.POR_PRODUTO, ConsolidadoDia.POR_FORMA_PAGAMENTO, ConsolidadoDia.POR_USUARIO}) {
+                    MutableData no = dadoAtual.child(grupo);
+                    for (Map.Entry<String, TotaisVendas> e : delta.grupo(grupo).entrySet()) {
+                        somarNo(no.child(e.getKey()), e.getValue());
+                    }
+                }
+                return Transaction.success(dadoAtual);
+            }
+
+            @Override
+            public void onComplete(DatabaseError databaseError, boolean confirmada, DataSnapshot dataSnapshot) {
+                if (databaseError != null || !confirmada) {
+                    falhas.incrementAndGet();
+                    System.err.println("ERRO: Falha ao consolidar " + delta.getTotal().getTickets() + " venda(s) de "
+                            + delta.getDia() + "; reconstrua o consolidado do dia"
+                            + (databaseError != null ? ": " + databaseError.getMessage() : "."));
+                }
+            }
+        });
+    }
+
+    private static void somarNo(MutableData no, TotaisVendas delta) {
+        TotaisVendas atual = no.getValue(TotaisVendas.class);
+        if (atual == null) {
+            atual = new TotaisVendas();
+        }
+        atual.somar(delta);
+        no.setValue(atual);
+    }
+
+    private static LocalDate diaDe(VendaDTO venda) {
+        return Instant.ofEpochMilli(venda.getTimestamp()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
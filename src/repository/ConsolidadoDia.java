@@ -0,0 +1,158 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.firebase.database.DataSnapshot;
+import model.TotaisVendas;
+import model.ItemVendaDTO;
+import model.VendaDTO;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Os contadores consolidados de vendas de um dia, lidos de {@code rollups/{dia}}:
+ * o total do dia e os totais por produto, por forma de pagamento e por matrícula do
+ * usuário que realizou a venda.
+ *
+ * @see ConsolidacaoVendas
+ */
+public class ConsolidadoDia {
+    static final String TOTAL = "total";
+    static final String POR_PRODUTO = "produto";
+    static final String POR_FORMA_PAGAMENTO = "formaPagamento";
+    static final String POR_USUARIO = "usuario";
+
+    private final LocalDate dia;
+    private final TotaisVendas total = new TotaisVendas();
+    private final Map<String, TotaisVendas> porProduto = new TreeMap<>();
+    private final Map<String, TotaisVendas> porFormaPagamento = new TreeMap<>();
+    private final Map<String, TotaisVendas> porUsuario = new TreeMap<>();
+
+    /**
+     * Cria um consolidado vazio.
+     *
+     * @param dia O dia a que os contadores se referem.
+     */
+    ConsolidadoDia(LocalDate dia) {
+        this.dia = dia;
+    }
+
+    /**
+     * Lê o consolidado gravado no nó do dia.
+     */
+    static ConsolidadoDia de(LocalDate dia, DataSnapshot snapshot) {
+        ConsolidadoDia consolidado = new ConsolidadoDia(dia);
+        TotaisVendas total = snapshot.child(TOTAL).getValue(TotaisVendas.class);
+        if (total != null) {
+            consolidado.total.somar(total);
+        }
+        ler(snapshot.child(POR_PRODUTO), consolidado.porProduto);
+        ler(snapshot.child(POR_FORMA_PAGAMENTO), consolidado.porFormaPagamento);
+        ler(snapshot.child(POR_USUARIO), consolidado.porUsuario);
+        return consolidado;
+    }
+
+    private static void ler(DataSnapshot grupo, Map<String, TotaisVendas> destino) {
+        for (DataSnapshot filho : grupo.getChildren()) {
+            TotaisVendas totais = filho.getValue(TotaisVendas.class);
+            if (totais != null) {
+                destino.put(filho.getKey(), totais);
+            }
+        }
+    }
+
+    /**
+     * Soma uma venda a todos os contadores do dia. Nos totais por produto, cada linha da
+     * venda é somada ao seu produto.
+     */
+    void somar(VendaDTO venda) {
+        total.somar(venda);
+        for (ItemVendaDTO item : venda.linhas()) {
+            porProduto.computeIfAbsent(item.getIdProduto(), k -> new TotaisVendas()).somar(item);
+        }
+        porFormaPagamento.computeIfAbsent(venda.getFormaPagamento(), k -> new TotaisVendas()).somar(venda);
+        porUsuario.computeIfAbsent(String.valueOf(venda.getMatriculaUsuario()), k -> new TotaisVendas()).somar(venda);
+    }
+
+    /**
+     * Retorna o conteúdo do consolidado na forma gravada em {@code rollups/{dia}}.
+     */
+    Map<String, Object> paraMapa() {
+        Map<String, Object> mapa = new TreeMap<>();
+        mapa.put(TOTAL, total);
+        mapa.put(POR_PRODUTO, porProduto);
+        mapa.put(POR_FORMA_PAGAMENTO, porFormaPagamento);
+        mapa.put(POR_USUARIO, porUsuario);
+        return mapa;
+    }
+
+    /**
+     * Retorna o dia do consolidado.
+     * @return O dia.
+     */
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    /**
+     * Retorna os totais do dia inteiro.
+     * @return Os contadores do dia.
+     */
+    public TotaisVendas getTotal() {
+        return total;
+    }
+
+    /**
+     * Retorna os totais por ID de produto.
+     * @return Um mapa imutável, ordenado pelo ID do produto.
+     */
+    public Map<String, TotaisVendas> getPorProduto() {
+        return Collections.unmodifiableMap(porProduto);
+    }
+
+    /**
+     * Retorna os totais por forma de pagamento (nome da constante de {@link model.FormaPagamento}).
+     * @return Um mapa imutável, ordenado pela forma de pagamento.
+     */
+    public Map<String, TotaisVendas> getPorFormaPagamento() {
+        return Collections.unmodifiableMap(porFormaPagamento);
+    }
+
+    /**
+     * Retorna os totais por matrícula do usuário que realizou as vendas.
+     * @return Um mapa imutável, ordenado pela matrícula.
+     */
+    public Map<String, TotaisVendas> getPorUsuario() {
+        return Collections.unmodifiableMap(porUsuario);
+    }
+
+    Map<String, TotaisVendas> grupo(String nome) {
+        switch (nome) {
+            case POR_PRODUTO: return porProduto;
+            case POR_FORMA_PAGAMENTO: return porFormaPagamento;
+            case POR_USUARIO: return porUsuario;
+            default: throw new IllegalArgumentException("ERRO: Grupo de consolidação desconhecido: " + nome);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Dia ").append(dia).append(": ").append(total);
+        for (String nome : new String[]{POR_FORMA_PAGAMENTO, POR_USUARIO, POR_PRODUTO}) {
+            sb.append("\n[").append(nome).append("]");
+            for (Map.Entry<String, TotaisVendas> e : grupo(nome).entrySet()) {
+                sb.append("\n - ").append(e.getKey()).append(": ").append(e.getValue());
+            }
+        }
+        return sb.toString();
+    }
+}
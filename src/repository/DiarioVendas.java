@@ -0,0 +1,610 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import excecoes.EstoqueInsuficienteException;
+import model.ItemVendaDTO;
+import model.VendaDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Diário local de vendas, somente de acréscimo (append-only), gravado em arquivos de
+ * segmento mapeados em memória. Cada venda registrada no caixa é primeiro gravada aqui,
+ * com {@link MappedByteBuffer#force(int, int)} sobre o trecho escrito, e só depois enviada
+ * ao Firebase pelo {@link ReprodutorDiario}. Assim, o registro da venda no caixa não
+ * depende da rede e sobrevive a uma queda da aplicação.
+ * <p>
+ * Formato de cada entrada: {@code [int tamanho][int crc32][long sequência][bytes da venda]}.
+ * Os bytes da venda começam pelo tipo: uma venda de um único produto ou uma venda com
+ * várias linhas, gravada como uma única entrada para que todas as baixas de estoque sejam
+ * validadas e registradas juntas.
+ * Um tamanho zero marca o fim dos dados do segmento. Ao abrir o diário, os segmentos são
+ * lidos em ordem e a leitura para na primeira entrada com CRC inválido (escrita interrompida).
+ * O arquivo {@code checkpoint} guarda a última sequência já aplicada no Firebase; as
+ * entradas posteriores voltam para a fila de pendentes, e segmentos totalmente aplicados
+ * são apagados.
+ * <p>
+ * O diário também mantém, por produto, a soma das variações de estoque ainda não aplicadas,
+ * usada para validar novas vendas contra o estoque conhecido pela réplica do catálogo.
+ *
+ * @see ReprodutorDiario
+ * @see service.VendaService
+ */
+public class DiarioVendas implements AutoCloseable {
+
+    /** Diretório padrão dos arquivos do diário. */
+    public static final String DIRETORIO_PADRAO = System.getProperty("pdv.diario.dir", "diario-vendas");
+    /** Tamanho padrão, em bytes, de cada arquivo de segmento. */
+    public static final int TAMANHO_SEGMENTO_PADRAO = Integer.getInteger("pdv.diario.tamanhoSegmento", 4 * 1024 * 1024);
+
+    private static final int CABECALHO_ENTRADA = 4 + 4 + 8;
+    private static final byte TIPO_VENDA = 1;
+    private static final byte TIPO_VENDA_ITENS = 2;
+    private static final String PREFIXO_SEGMENTO = "diario-";
+    private static final String SUFIXO_SEGMENTO = ".seg";
+
+    private static DiarioVendas padrao;
+    private static ReprodutorDiario reprodutorPadrao;
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final RandomAccessFile arquivoCheckpoint;
+    private final Deque<Segmento> segmentos = new ArrayDeque<>();
+    private final Deque<Entrada> pendentes = new ArrayDeque<>();
+    private final Map<String, Integer> deltasPendentes = new HashMap<>();
+
+    private Segmento atual;
+    private long proximaSequencia = 1;
+    private long confirmada;
+    private boolean fechado = false;
+
+    /**
+     * Abre (ou cria) o diário no diretório informado e recupera as entradas pendentes.
+     *
+     * @param diretorio       O diretório dos arquivos do diário.
+     * @param tamanhoSegmento O tamanho de cada arquivo de segmento, em bytes.
+     * @throws IOException se os arquivos não puderem ser lidos ou criados.
+     */
+    public DiarioVendas(Path diretorio, int tamanhoSegmento) throws IOException {
+        if (tamanhoSegmento < 1024) {
+            throw new IllegalArgumentException("ERRO: O segmento do diário deve ter pelo menos 1 KiB.");
+        }
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+        Files.createDirectories(diretorio);
+        this.arquivoCheckpoint = new RandomAccessFile(diretorio.resolve("checkpoint").toFile(), "rw");
+        this.confirmada = lerCheckpoint();
+        recuperar();
+    }
+
+    /**
+     * Retorna o diário compartilhado da aplicação, abrindo-o na primeira chamada e iniciando
+     * o {@link ReprodutorDiario} que envia as entradas ao Firebase.
+     *
+     * @return A instância padrão do diário.
+     * @throws UncheckedIOException se o diário não puder ser aberto.
+     */
+    public static synchronized DiarioVendas getPadrao() {
+        if (padrao == null) {
+            try {
+                padrao = new DiarioVendas(Paths.get(DIRETORIO_PADRAO), TAMANHO_SEGMENTO_PADRAO);
+            } catch (IOException e) {
+                throw new UncheckedIOException("ERRO: Não foi possível abrir o diário de vendas.", e);
+            }
+            reprodutorPadrao = new ReprodutorDiario(padrao, new ProdutoRepository(), new VendaRepository());
+            reprodutorPadrao.iniciar();
+            Runtime.getRuntime().addShutdownHook(new Thread(DiarioVendas::fecharPadrao, "encerramento-diario-vendas"));
+        }
+        return padrao;
+    }
+
+    /**
+     * Interrompe o reprodutor e fecha o diário padrão, se ele tiver sido aberto.
+     * As entradas ainda não enviadas permanecem no disco e serão enviadas na próxima execução.
+     */
+    public static void fecharPadrao() {
+        DiarioVendas diario;
+        ReprodutorDiario reprodutor;
+        synchronized (DiarioVendas.class) {
+            diario = padrao;
+            reprodutor = reprodutorPadrao;
+        }
+        if (reprodutor != null) {
+            reprodutor.parar();
+        }
+        if (diario != null) {
+            diario.close();
+        }
+    }
+
+    /**
+     * Registra uma venda no diário, validando antes o estoque disponível. A validação e a
+     * gravação são atômicas em relação a outras vendas do mesmo caixa.
+     *
+     * @param venda            Os dados da venda a serem enviados ao Firebase.
+     * @param delta            A variação de estoque causada pela venda (negativa).
+     * @param estoqueConhecido A quantidade do produto segundo a réplica do catálogo.
+     * @return A sequência atribuída à entrada.
+     * @throws EstoqueInsuficienteException se o estoque conhecido, descontadas as vendas
+     * ainda não aplicadas, não comportar a venda.
+     * @throws UncheckedIOException se a entrada não puder ser gravada no disco.
+     */
+    public synchronized long registrarVenda(VendaDTO venda, int delta, int estoqueConhecido) throws EstoqueInsuficienteException {
+        return registrar(venda, Collections.singletonMap(venda.getIdProduto(), delta),
+                Collections.singletonMap(venda.getIdProduto(), estoqueConhecido));
+    }
+
+    /**
+     * Registra uma venda com várias linhas ({@link VendaDTO#getItens()}) em uma única entrada,
+     * validando antes o estoque de todos os produtos. Se algum produto não tiver estoque, nada
+     * é gravado.
+     *
+     * @param venda              Os dados da venda, com a lista de itens.
+     * @param estoquesConhecidos A quantidade de cada produto segundo a réplica do catálogo.
+     * @return A sequência atribuída à entrada.
+     * @throws EstoqueInsuficienteException se o estoque conhecido de algum produto, descontadas
+     * as vendas ainda não aplicadas, não comportar a sua linha.
+     * @throws UncheckedIOException se a entrada não puder ser gravada no disco.
+     */
+    public synchronized long registrarVendaItens(VendaDTO venda, Map<String, Integer> estoquesConhecidos) throws EstoqueInsuficienteException {
+        return registrar(venda, deltasDe(venda), estoquesConhecidos);
+    }
+
+    private long registrar(VendaDTO venda, Map<String, Integer> deltas, Map<String, Integer> estoquesConhecidos) throws EstoqueInsuficienteException {
+        verificarAberto();
+        for (Map.Entry<String, Integer> delta : deltas.entrySet()) {
+            String produtoId = delta.getKey();
+            int disponivel = estoquesConhecidos.getOrDefault(produtoId, 0) + deltasPendentes.getOrDefault(produtoId, 0);
+            if (disponivel + delta.getValue() < 0) {
+                throw new EstoqueInsuficienteException("ERRO: Estoque insuficiente para o produto: "
+                        + produtoId + " (disponível: " + Math.max(disponivel, 0) + ")");
+            }
+        }
+
+        Entrada entrada = new Entrada(proximaSequencia, venda, deltas);
+        try {
+            gravar(entrada);
+        } catch (IOException e) {
+            throw new UncheckedIOException("ERRO: Falha ao gravar a venda no diário local.", e);
+        }
+        proximaSequencia++;
+        pendentes.addLast(entrada);
+        somarPendentes(entrada);
+        notifyAll();
+        return entrada.getSequencia();
+    }
+
+    /**
+     * Soma as variações de estoque de uma venda com várias linhas, por produto.
+     */
+    private static Map<String, Integer> deltasDe(VendaDTO venda) {
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        for (ItemVendaDTO item : venda.getItens()) {
+            deltas.merge(item.getIdProduto(), -item.getQuantidade(), Integer::sum);
+        }
+        return deltas;
+    }
+
+    private void somarPendentes(Entrada entrada) {
+        for (Map.Entry<String, Integer> delta : entrada.getDeltas().entrySet()) {
+            deltasPendentes.merge(delta.getKey(), delta.getValue(), Integer::sum);
+        }
+    }
+
+    /**
+     * Retorna a variação de estoque ainda não aplicada no Firebase para um produto.
+     *
+     * @param produtoId O ID do produto.
+     * @return A soma das variações pendentes (zero ou negativa).
+     */
+    public synchronized int getDeltaPendente(String produtoId) {
+        return deltasPendentes.getOrDefault(produtoId, 0);
+    }
+
+    /**
+     * Retorna a quantidade de entradas ainda não aplicadas no Firebase.
+     *
+     * @return O número de vendas pendentes.
+     */
+    public synchronized int getQuantidadePendente() {
+        return pendentes.size();
+    }
+
+    /**
+     * Retorna a entrada pendente mais antiga, aguardando até que exista uma ou o tempo se esgote.
+     * A entrada continua pendente até ser confirmada com {@link #confirmar(long)}.
+     *
+     * @param tempo   O tempo máximo de espera.
+     * @param unidade A unidade do tempo de espera.
+     * @return A entrada mais antiga, ou {@code null} se não houver nenhuma ao fim da espera.
+     * @throws InterruptedException se a thread for interrompida durante a espera.
+     */
+    public synchronized Entrada aguardarProxima(long tempo, TimeUnit unidade) throws InterruptedException {
+        long limite = System.nanoTime() + unidade.toNanos(tempo);
+        while (pendentes.isEmpty() && !fechado) {
+            long restante = limite - System.nanoTime();
+            if (restante <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, restante);
+        }
+        return pendentes.peekFirst();
+    }
+
+    /**
+     * Marca a entrada mais antiga como aplicada no Firebase, gravando o checkpoint em disco
+     * e apagando os segmentos que não têm mais entradas pendentes.
+     *
+     * @param sequencia A sequência da entrada aplicada; deve ser a mais antiga pendente.
+     * @throws IllegalStateException se a sequência não for a da entrada mais antiga.
+     */
+    public synchronized void confirmar(long sequencia) {
+        Entrada primeira = pendentes.peekFirst();
+        if (primeira == null || primeira.getSequencia() != sequencia) {
+            throw new IllegalStateException("ERRO: Confirmação fora de ordem no diário (sequência " + sequencia + ").");
+        }
+        pendentes.removeFirst();
+        for (Map.Entry<String, Integer> delta : primeira.getDeltas().entrySet()) {
+            deltasPendentes.computeIfPresent(delta.getKey(), (id, soma) -> {
+                int restante = soma - delta.getValue();
+                return restante == 0 ? null : restante;
+            });
+        }
+        confirmada = sequencia;
+        try {
+            gravarCheckpoint(sequencia);
+            descartarSegmentosAplicados();
+        } catch (IOException e) {
+            throw new UncheckedIOException("ERRO: Falha ao gravar o checkpoint do diário.", e);
+        }
+    }
+
+    /**
+     * Fecha os arquivos do diário. As entradas pendentes permanecem gravadas no disco.
+     */
+    @Override
+    public synchronized void close() {
+        if (fechado) {
+            return;
+        }
+        fechado = true;
+        notifyAll();
+        for (Segmento segmento : segmentos) {
+            segmento.fechar();
+        }
+        try {
+            arquivoCheckpoint.close();
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao fechar o checkpoint do diário: " + e.getMessage());
+        }
+    }
+
+    private void verificarAberto() {
+        if (fechado) {
+            throw new IllegalStateException("ERRO: O diário de vendas já foi fechado.");
+        }
+    }
+
+    /**
+     * Lê os segmentos existentes em ordem, reconstrói a fila de pendentes e posiciona a
+     * escrita logo após a última entrada válida. A próxima sequência nunca fica abaixo da
+     * confirmada no checkpoint: se os segmentos se perderam ou terminam corrompidos, uma
+     * sequência reaproveitada seria tomada por confirmada na recuperação seguinte, e a venda
+     * gravada com ela, descartada.
+     */
+    private void recuperar() throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diretorio, PREFIXO_SEGMENTO + "*" + SUFIXO_SEGMENTO)) {
+            for (Path arquivo : stream) {
+                arquivos.add(arquivo);
+            }
+        }
+        arquivos.sort(null);
+
+        for (Path arquivo : arquivos) {
+            Segmento segmento = Segmento.abrir(arquivo, Files.size(arquivo));
+            ByteBuffer dados = segmento.buffer;
+            while (dados.remaining() >= CABECALHO_ENTRADA) {
+                int inicio = dados.position();
+                int tamanho = dados.getInt();
+                if (tamanho <= 0 || tamanho > dados.remaining() - 12) {
+                    dados.position(inicio);
+                    break;
+                }
+                int crc = dados.getInt();
+                long sequencia = dados.getLong();
+                byte[] corpo = new byte[tamanho];
+                dados.get(corpo);
+                if (crc != calcularCrc(sequencia, corpo)) {
+                    System.err.println("ERRO: Entrada corrompida no diário (" + arquivo.getFileName() + ", posição " + inicio + "); descartando o restante do segmento.");
+                    dados.position(inicio);
+                    break;
+                }
+                Entrada entrada = decodificar(sequencia, corpo);
+                segmento.ultimaSequencia = sequencia;
+                proximaSequencia = Math.max(proximaSequencia, sequencia + 1);
+                if (sequencia > confirmada) {
+                    pendentes.addLast(entrada);
+                    somarPendentes(entrada);
+                }
+            }
+            segmentos.addLast(segmento);
+        }
+        proximaSequencia = Math.max(proximaSequencia, confirmada + 1);
+
+        atual = segmentos.peekLast();
+        if (atual != null) {
+            // Limpa o que tiver restado de uma escrita interrompida.
+            int posicao = atual.buffer.position();
+            for (int i = posicao; i < Math.min(posicao + CABECALHO_ENTRADA, atual.buffer.capacity()); i++) {
+                atual.buffer.put(i, (byte) 0);
+            }
+        }
+        descartarSegmentosAplicados();
+        if (!pendentes.isEmpty()) {
+            System.out.println("LOG: Diário de vendas recuperado com " + pendentes.size() + " venda(s) pendente(s) de envio.");
+        }
+    }
+
+    /**
+     * Grava a entrada no segmento atual, abrindo um novo segmento se ela não couber.
+     */
+    private void gravar(Entrada entrada) throws IOException {
+        byte[] corpo = codificar(entrada);
+        int total = CABECALHO_ENTRADA + corpo.length;
+        if (atual == null || atual.buffer.remaining() < total + 4) {
+            abrirNovoSegmento(Math.max(tamanhoSegmento, total + 4));
+        }
+        MappedByteBuffer buffer = atual.buffer;
+        int inicio = buffer.position();
+        buffer.putInt(corpo.length);
+        buffer.putInt(calcularCrc(entrada.getSequencia(), corpo));
+        buffer.putLong(entrada.getSequencia());
+        buffer.put(corpo);
+        buffer.force(inicio, total);
+        atual.ultimaSequencia = entrada.getSequencia();
+    }
+
+    private void abrirNovoSegmento(int tamanho) throws IOException {
+        if (atual != null) {
+            atual.buffer.force();
+        }
+        Path arquivo = diretorio.resolve(String.format("%s%020d%s", PREFIXO_SEGMENTO, proximaSequencia, SUFIXO_SEGMENTO));
+        atual = Segmento.abrir(arquivo, tamanho);
+        segmentos.addLast(atual);
+    }
+
+    /**
+     * Apaga os segmentos, exceto o atual, cujas entradas já foram todas aplicadas.
+     */
+    private void descartarSegmentosAplicados() throws IOException {
+        while (segmentos.size() > 1) {
+            Segmento primeiro = segmentos.peekFirst();
+            if (primeiro.ultimaSequencia > confirmada) {
+                return;
+            }
+            segmentos.removeFirst();
+            primeiro.fechar();
+            Files.deleteIfExists(primeiro.arquivo);
+        }
+    }
+
+    private long lerCheckpoint() throws IOException {
+        if (arquivoCheckpoint.length() < 16) {
+            return 0;
+        }
+        arquivoCheckpoint.seek(0);
+        long sequencia = arquivoCheckpoint.readLong();
+        long verificacao = arquivoCheckpoint.readLong();
+        if (verificacao != ~sequencia) {
+            System.err.println("ERRO: Checkpoint do diário inválido; todas as entradas serão reenviadas.");
+            return 0;
+        }
+        return sequencia;
+    }
+
+    private void gravarCheckpoint(long sequencia) throws IOException {
+        arquivoCheckpoint.seek(0);
+        arquivoCheckpoint.writeLong(sequencia);
+        arquivoCheckpoint.writeLong(~sequencia);
+        arquivoCheckpoint.getFD().sync();
+    }
+
+    private static int calcularCrc(long sequencia, byte[] corpo) {
+        CRC32 crc = new CRC32();
+        ByteBuffer seq = ByteBuffer.allocate(8).putLong(0, sequencia);
+        crc.update(seq);
+        crc.update(corpo);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] codificar(Entrada entrada) throws IOException {
+        VendaDTO venda = entrada.getVenda();
+        if (venda.getItens() != null) {
+            return codificarItens(venda);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TIPO_VENDA);
+            out.writeUTF(venda.getId());
+            out.writeInt(venda.getMatriculaUsuario());
+            out.writeUTF(venda.getIdProduto());
+            out.writeInt(venda.getQuantidade());
+            out.writeUTF(venda.getDataHora());
+            out.writeUTF(venda.getFormaPagamento());
+            out.writeDouble(venda.getValorTotal());
+            out.writeInt(entrada.getDeltas().get(venda.getIdProduto()));
+            out.writeLong(venda.getTimestamp());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] codificarItens(VendaDTO venda) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + 48 * venda.getItens().size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TIPO_VENDA_ITENS);
+            out.writeUTF(venda.getId());
+            out.writeInt(venda.getMatriculaUsuario());
+            out.writeUTF(venda.getDataHora());
+            out.writeLong(venda.getTimestamp());
+            out.writeUTF(venda.getFormaPagamento());
+            out.writeInt(venda.getQuantidade());
+            out.writeDouble(venda.getValorTotal());
+            out.writeInt(venda.getItens().size());
+            for (ItemVendaDTO item : venda.getItens()) {
+                out.writeUTF(item.getIdProduto());
+                out.writeInt(item.getQuantidade());
+                out.writeDouble(item.getPrecoUnitario());
+                out.writeDouble(item.getDesconto());
+                out.writeDouble(item.getValorTotal());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entrada decodificarItens(long sequencia, DataInputStream in) throws IOException {
+        VendaDTO venda = new VendaDTO();
+        venda.setId(in.readUTF());
+        venda.setMatriculaUsuario(in.readInt());
+        venda.setDataHora(in.readUTF());
+        venda.setTimestamp(in.readLong());
+        venda.setFormaPagamento(in.readUTF());
+        venda.setQuantidade(in.readInt());
+        venda.setValorTotal(in.readDouble());
+        int tamanho = in.readInt();
+        List<ItemVendaDTO> itens = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            itens.add(new ItemVendaDTO(in.readUTF(), in.readInt(), in.readDouble(), in.readDouble(), in.readDouble()));
+        }
+        venda.setItens(itens);
+        return new Entrada(sequencia, venda, deltasDe(venda));
+    }
+
+    private static Entrada decodificar(long sequencia, byte[] corpo) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(corpo))) {
+            byte tipo = in.readByte();
+            if (tipo == TIPO_VENDA_ITENS) {
+                return decodificarItens(sequencia, in);
+            }
+            if (tipo != TIPO_VENDA) {
+                throw new IOException("ERRO: Tipo de entrada desconhecido no diário: " + tipo);
+            }
+            VendaDTO venda = new VendaDTO();
+            venda.setId(in.readUTF());
+            venda.setMatriculaUsuario(in.readInt());
+            venda.setIdProduto(in.readUTF());
+            venda.setQuantidade(in.readInt());
+            venda.setDataHora(in.readUTF());
+            venda.setFormaPagamento(in.readUTF());
+            venda.setValorTotal(in.readDouble());
+            int delta = in.readInt();
+            if (in.available() >= 8) {
+                venda.setTimestamp(in.readLong());
+            } else {
+                venda.setTimestamp(VendaRepository.timestampDe(venda.getDataHora()));
+            }
+            return new Entrada(sequencia, venda, Collections.singletonMap(venda.getIdProduto(), delta));
+        }
+    }
+
+    /**
+     * Um arquivo de segmento mapeado em memória.
+     */
+    private static final class Segmento {
+        private final Path arquivo;
+        private final FileChannel canal;
+        private final MappedByteBuffer buffer;
+        private long ultimaSequencia = 0;
+
+        private Segmento(Path arquivo, FileChannel canal, MappedByteBuffer buffer) {
+            this.arquivo = arquivo;
+            this.canal = canal;
+            this.buffer = buffer;
+        }
+
+        private static Segmento abrir(Path arquivo, long tamanho) throws IOException {
+            FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+            return new Segmento(arquivo, canal, buffer);
+        }
+
+        private void fechar() {
+            try {
+                buffer.force();
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("ERRO: Falha ao fechar o segmento " + arquivo.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Uma venda gravada no diário e ainda não (ou já) aplicada no Firebase.
+     */
+    public static final class Entrada {
+        private final long sequencia;
+        private final VendaDTO venda;
+        private final Map<String, Integer> deltas;
+
+        private Entrada(long sequencia, VendaDTO venda, Map<String, Integer> deltas) {
+            this.sequencia = sequencia;
+            this.venda = venda;
+            this.deltas = Collections.unmodifiableMap(deltas);
+        }
+
+        /**
+         * Retorna a sequência da entrada no diário.
+         * @return A sequência, crescente e sem repetição.
+         */
+        public long getSequencia() {
+            return sequencia;
+        }
+
+        /**
+         * Retorna os dados da venda a serem gravados no nó "vendas".
+         * @return O {@link VendaDTO} da venda.
+         */
+        public VendaDTO getVenda() {
+            return venda;
+        }
+
+        /**
+         * Retorna as variações de estoque a serem aplicadas, por ID de produto: uma para a
+         * venda de um único produto, uma por produto na venda com várias linhas.
+         * @return Um mapa imutável do ID do produto para a variação (negativa para vendas).
+         */
+        public Map<String, Integer> getDeltas() {
+            return deltas;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * As dimensões pelas quais as vendas do {@link ArmazemVendas} podem ser agrupadas.
+ * Os períodos (dia, semana e mês) são calculados no fuso horário do sistema; a semana
+ * começa na segunda-feira.
+ *
+ * @see ArmazemVendas#agregar(long, long, DimensaoVenda, DimensaoVenda)
+ */
+public enum DimensaoVenda {
+    /** Sem agrupamento: todas as vendas caem no mesmo grupo. */
+    NENHUMA,
+    /** O tipo (categoria) do produto vendido. */
+    TIPO,
+    /** O ID do produto vendido. */
+    PRODUTO,
+    /** A matrícula do usuário que realizou a venda. */
+    USUARIO,
+    /** A forma de pagamento da venda. */
+    FORMA_PAGAMENTO,
+    /** O dia da venda. */
+    DIA,
+    /** A semana da venda, identificada pela data da segunda-feira. */
+    SEMANA,
+    /** O mês da venda. */
+    MES
+}
@@ -0,0 +1,141 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Fotografia dos contadores de um {@link CacheProdutos} em um determinado instante.
+ * Os contadores são acumulados desde a criação do cache.
+ *
+ * @see CacheProdutos#getEstatisticas()
+ */
+public class EstatisticasCache {
+    private final long acertos;
+    private final long faltas;
+    private final long despejos;
+    private final long invalidacoes;
+    private final long renovacoes;
+    private final long atualizacoesRecebidas;
+    private final long falhasCarga;
+    private final int tamanho;
+    private final long peso;
+
+    /**
+     * Construtor completo das estatísticas.
+     *
+     * @param acertos               Leituras atendidas pela memória.
+     * @param faltas                Leituras que precisaram ir ao banco.
+     * @param despejos              Entradas removidas para respeitar o peso máximo.
+     * @param invalidacoes          Entradas removidas por invalidação (local ou vinda do banco).
+     * @param renovacoes            Releituras feitas porque a entrada passou do prazo de renovação.
+     * @param atualizacoesRecebidas Novos valores entregues pelos ouvintes do banco.
+     * @param falhasCarga           Leituras ou renovações que falharam.
+     * @param tamanho               O número de entradas no momento.
+     * @param peso                  O peso somado das entradas no momento.
+     */
+    EstatisticasCache(long acertos, long faltas, long despejos, long invalidacoes, long renovacoes,
+                      long atualizacoesRecebidas, long falhasCarga, int tamanho, long peso) {
+        this.acertos = acertos;
+        this.faltas = faltas;
+        this.despejos = despejos;
+        this.invalidacoes = invalidacoes;
+        this.renovacoes = renovacoes;
+        this.atualizacoesRecebidas = atualizacoesRecebidas;
+        this.falhasCarga = falhasCarga;
+        this.tamanho = tamanho;
+        this.peso = peso;
+    }
+
+    /**
+     * Retorna o número de leituras atendidas pela memória.
+     * @return Os acertos.
+     */
+    public long getAcertos() {
+        return acertos;
+    }
+
+    /**
+     * Retorna o número de leituras que precisaram ir ao banco.
+     * @return As faltas.
+     */
+    public long getFaltas() {
+        return faltas;
+    }
+
+    /**
+     * Retorna o número de entradas removidas para respeitar o peso máximo.
+     * @return Os despejos.
+     */
+    public long getDespejos() {
+        return despejos;
+    }
+
+    /**
+     * Retorna o número de entradas removidas por invalidação.
+     * @return As invalidações.
+     */
+    public long getInvalidacoes() {
+        return invalidacoes;
+    }
+
+    /**
+     * Retorna o número de renovações por prazo disparadas.
+     * @return As renovações.
+     */
+    public long getRenovacoes() {
+        return renovacoes;
+    }
+
+    /**
+     * Retorna o número de valores novos entregues pelos ouvintes do banco.
+     * @return As atualizações recebidas.
+     */
+    public long getAtualizacoesRecebidas() {
+        return atualizacoesRecebidas;
+    }
+
+    /**
+     * Retorna o número de leituras ou renovações que falharam.
+     * @return As falhas de carga.
+     */
+    public long getFalhasCarga() {
+        return falhasCarga;
+    }
+
+    /**
+     * Retorna o número de entradas no cache.
+     * @return O tamanho.
+     */
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Retorna o peso somado das entradas no cache.
+     * @return O peso.
+     */
+    public long getPeso() {
+        return peso;
+    }
+
+    /**
+     * Retorna a fração das leituras atendidas pela memória.
+     * @return Um valor entre 0 e 1, ou 0 se ainda não houve leituras.
+     */
+    public double getTaxaAcerto() {
+        long total = acertos + faltas;
+        return total == 0 ? 0 : (double) acertos / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("acertos=%d faltas=%d (%.1f%%) despejos=%d invalidacoes=%d renovacoes=%d "
+                        + "atualizacoes=%d falhas=%d tamanho=%d peso=%d",
+                acertos, faltas, getTaxaAcerto() * 100, despejos, invalidacoes, renovacoes,
+                atualizacoesRecebidas, falhasCarga, tamanho, peso);
+    }
+}
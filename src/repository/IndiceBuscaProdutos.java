@@ -0,0 +1,770 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.Produto;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória para a busca de produtos por nome, ID e tipo, tolerante a erros de
+ * digitação e próprio para a busca enquanto o usuário digita.
+ * <p>
+ * Os textos são normalizados (minúsculas, sem acentos) e divididos em termos. Cada termo
+ * distinto é guardado uma única vez, com a lista dos produtos em que aparece, e fica
+ * acessível por dois caminhos:
+ * <ul>
+ *     <li>uma árvore de prefixos (trie), que encontra o termo exato e todos os termos que
+ *     começam com o texto digitado;</li>
+ *     <li>um índice de trigramas dos termos, que seleciona os candidatos a uma correspondência
+ *     aproximada; os candidatos são confirmados pela distância de edição (com transposições)
+ *     entre o texto digitado e o início do termo.</li>
+ * </ul>
+ * Todas as palavras da consulta precisam ser encontradas. Cada palavra pontua pela melhor
+ * forma de correspondência (exata, prefixo ou aproximada), e os empates são desfeitos pelo
+ * nome mais curto. A consulta igual ao ID de um produto o coloca em primeiro lugar.
+ * Depois da palavra mais seletiva, as demais são conferidas só nos candidatos que restaram,
+ * e os resultados dos prefixos de uma ou duas letras ficam guardados na árvore.
+ * <p>
+ * O índice é atualizado produto a produto por {@link #atualizar(String, Produto)}; uma
+ * alteração que não muda o nome, o ID nem o tipo (como uma baixa de estoque) apenas troca
+ * a referência do produto. As consultas usam o bloqueio de leitura e rodam em paralelo;
+ * as atualizações usam o de escrita. Os termos que deixam de ser usados continuam na
+ * árvore, sem produtos, o que não altera os resultados.
+ *
+ * @see CatalogoProdutos#getIndice()
+ * @see service.ProdutoService#pesquisarProdutosAsync(String, int)
+ */
+public class IndiceBuscaProdutos {
+
+    /** Quantidade padrão de resultados de uma consulta. */
+    public static final int LIMITE_PADRAO = 20;
+
+    private static final int PONTOS_EXATO = 4;
+    private static final int PONTOS_PREFIXO = 2;
+    private static final int PONTOS_APROXIMADO = 1;
+    private static final int PONTOS_ID = 1_000;
+    /** Tamanho mínimo de uma palavra da consulta para a busca aproximada. */
+    private static final int MINIMO_APROXIMADO = 3;
+    /** Até esse número de candidatos, as palavras seguintes são conferidas candidato a candidato. */
+    private static final int CANDIDATOS_CONFERIDOS = 512;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final No raiz = new No();
+    private final List<Termo> termos = new ArrayList<>();
+    private final Map<String, ListaInt> trigramas = new HashMap<>();
+    private final Map<String, Integer> docPorId = new HashMap<>();
+
+    private Produto[] produtos = new Produto[1024];
+    private Termo[][] termosDoc = new Termo[1024][];
+    private int[] comprimentoNome = new int[1024];
+    private final ListaInt livres = new ListaInt();
+    private int proximoDoc = 0;
+
+    private final ThreadLocal<Rascunho> rascunhos = ThreadLocal.withInitial(Rascunho::new);
+
+    /**
+     * Um nó da árvore de prefixos, com os filhos ordenados pelo caractere. Guarda o total de
+     * ocorrências dos termos da subárvore e, para prefixos curtos, os melhores resultados
+     * já calculados, descartados a cada alteração na subárvore.
+     */
+    private static final class No {
+        char[] chaves = new char[0];
+        No[] filhos = new No[0];
+        Termo termo;
+        int total;
+        volatile Melhores melhores;
+
+        No filho(char c) {
+            int i = Arrays.binarySearch(chaves, c);
+            return i >= 0 ? filhos[i] : null;
+        }
+
+        No filhoOuNovo(char c) {
+            int i = Arrays.binarySearch(chaves, c);
+            if (i >= 0) {
+                return filhos[i];
+            }
+            int pos = -i - 1;
+            char[] novasChaves = new char[chaves.length + 1];
+            No[] novosFilhos = new No[filhos.length + 1];
+            System.arraycopy(chaves, 0, novasChaves, 0, pos);
+            System.arraycopy(filhos, 0, novosFilhos, 0, pos);
+            System.arraycopy(chaves, pos, novasChaves, pos + 1, chaves.length - pos);
+            System.arraycopy(filhos, pos, novosFilhos, pos + 1, filhos.length - pos);
+            No novo = new No();
+            novasChaves[pos] = c;
+            novosFilhos[pos] = novo;
+            chaves = novasChaves;
+            filhos = novosFilhos;
+            return novo;
+        }
+    }
+
+    /** Um termo distinto e os documentos (produtos) em que aparece. */
+    private static final class Termo {
+        final int id;
+        final String texto;
+        final ListaInt docs = new ListaInt();
+
+        Termo(int id, String texto) {
+            this.id = id;
+            this.texto = texto;
+        }
+    }
+
+    /** Os melhores documentos de um prefixo, calculados para até {@code limite} resultados. */
+    private static final class Melhores {
+        final int[] docs;
+        final int limite;
+
+        Melhores(int[] docs, int limite) {
+            this.docs = docs;
+            this.limite = limite;
+        }
+    }
+
+    /** Lista de inteiros sem conversão para objetos. */
+    private static final class ListaInt {
+        int[] valores = new int[4];
+        int tamanho;
+
+        void adicionar(int valor) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = valor;
+        }
+
+        void remover(int valor) {
+            for (int i = 0; i < tamanho; i++) {
+                if (valores[i] == valor) {
+                    valores[i] = valores[--tamanho];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Vetores de trabalho de uma consulta, reaproveitados pela thread. As marcas de época
+     * dispensam limpar os vetores entre uma consulta e outra.
+     */
+    private static final class Rascunho {
+        int epoca = 0;
+        int[] marcaConsulta = new int[0];
+        int[] marcaPalavra = new int[0];
+        int[] pontos = new int[0];
+        int[] acertos = new int[0];
+        int[] vistos = new int[0];
+        int totalVistos;
+        int vivos;
+        int[] marcaTermo = new int[0];
+        int[] contagemTermo = new int[0];
+        int[] termosVistos = new int[0];
+        int[] linhaAnterior = new int[0];
+        int[] linhaAtual = new int[0];
+        int[] linhaNova = new int[0];
+        int[] heap = new int[0];
+
+        void preparar(int docs, int termos, int limite, int epocas) {
+            if (pontos.length < docs) {
+                int capacidade = Math.max(docs, pontos.length * 2);
+                marcaConsulta = new int[capacidade];
+                marcaPalavra = new int[capacidade];
+                pontos = new int[capacidade];
+                acertos = new int[capacidade];
+                vistos = new int[capacidade];
+                epoca = 0;
+            }
+            if (marcaTermo.length < termos) {
+                int capacidade = Math.max(termos, marcaTermo.length * 2);
+                marcaTermo = new int[capacidade];
+                contagemTermo = new int[capacidade];
+                termosVistos = new int[capacidade];
+                epoca = 0;
+            }
+            if (heap.length < limite + 1) {
+                heap = new int[limite + 1];
+            }
+            if (epoca == 0 || epoca > Integer.MAX_VALUE - epocas) {
+                Arrays.fill(marcaConsulta, 0);
+                Arrays.fill(marcaPalavra, 0);
+                Arrays.fill(marcaTermo, 0);
+                epoca = 1;
+            }
+            totalVistos = 0;
+        }
+
+        int novaEpoca() {
+            return ++epoca;
+        }
+
+        void linhas(int tamanho) {
+            if (linhaAtual.length < tamanho) {
+                linhaAnterior = new int[tamanho];
+                linhaAtual = new int[tamanho];
+                linhaNova = new int[tamanho];
+            }
+        }
+    }
+
+    /**
+     * Inclui, altera ou remove um produto do índice.
+     *
+     * @param id      O ID do produto.
+     * @param produto O novo estado do produto, ou {@code null} se ele foi removido.
+     */
+    public void atualizar(String id, Produto produto) {
+        Set<String> textos = produto == null ? null : termosDe(id, produto);
+        trava.writeLock().lock();
+        try {
+            Integer existente = docPorId.get(id);
+            if (produto == null) {
+                if (existente != null) {
+                    desindexar(existente);
+                    produtos[existente] = null;
+                    docPorId.remove(id);
+                    livres.adicionar(existente);
+                }
+                return;
+            }
+            Termo[] novos = new Termo[textos.size()];
+            int i = 0;
+            for (String texto : textos) {
+                novos[i++] = termo(texto);
+            }
+            int doc;
+            if (existente != null) {
+                doc = existente;
+                if (Arrays.equals(termosDoc[doc], novos)) {
+                    if (!nomeDe(produtos[doc]).equals(nomeDe(produto))) {
+                        for (Termo termo : novos) {
+                            contar(termo, 0);
+                        }
+                    }
+                    produtos[doc] = produto;
+                    comprimentoNome[doc] = nomeDe(produto).length();
+                    return;
+                }
+                desindexar(doc);
+            } else {
+                doc = alocarDoc();
+                docPorId.put(id, doc);
+            }
+            produtos[doc] = produto;
+            comprimentoNome[doc] = nomeDe(produto).length();
+            termosDoc[doc] = novos;
+            for (Termo termo : novos) {
+                termo.docs.adicionar(doc);
+                contar(termo, 1);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove todos os produtos do índice.
+     */
+    public void limpar() {
+        trava.writeLock().lock();
+        try {
+            for (Integer doc : docPorId.values()) {
+                desindexar(doc);
+                produtos[doc] = null;
+            }
+            docPorId.clear();
+            livres.tamanho = 0;
+            proximoDoc = 0;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna a quantidade de produtos indexados.
+     * @return O número de produtos.
+     */
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return docPorId.size();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca os produtos que correspondem ao texto, do mais ao menos relevante.
+     * A última palavra pode estar incompleta, como durante a digitação.
+     *
+     * @param consulta O texto digitado.
+     * @param limite   A quantidade máxima de resultados.
+     * @return Os produtos encontrados; os objetos são compartilhados com a réplica do
+     * catálogo e não devem ser alterados. Lista vazia se a consulta não tiver palavras.
+     */
+    public List<Produto> buscar(String consulta, int limite) {
+        if (consulta == null || limite <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> distintas = new LinkedHashSet<>(dividir(normalizar(consulta)));
+        if (distintas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // As palavras mais longas são as mais seletivas e definem os candidatos.
+        String[] palavras = distintas.toArray(new String[0]);
+        Arrays.sort(palavras, (a, b) -> b.length() - a.length());
+        String idExato = consulta.trim();
+
+        trava.readLock().lock();
+        try {
+            Rascunho r = rascunhos.get();
+            r.preparar(proximoDoc, termos.size(), limite, 2 * palavras.length + 1);
+            boolean idConhecido = docPorId.containsKey(idExato);
+
+            // Prefixos curtos (as primeiras teclas) alcançam boa parte do catálogo; seus
+            // melhores resultados ficam guardados no nó até a subárvore mudar.
+            No curto = null;
+            if (palavras.length == 1 && palavras[0].length() < MINIMO_APROXIMADO && !idConhecido) {
+                curto = localizar(palavras[0]);
+                if (curto == null) {
+                    return Collections.emptyList();
+                }
+                Melhores guardados = curto.melhores;
+                if (guardados != null && (guardados.docs.length >= limite || guardados.docs.length < guardados.limite)) {
+                    return produtosDe(guardados.docs, Math.min(limite, guardados.docs.length));
+                }
+            }
+
+            int epocaConsulta = r.novaEpoca();
+            for (int i = 0; i < palavras.length; i++) {
+                int epocaPalavra = r.novaEpoca();
+                String palavra = palavras[i];
+                boolean aproximar = palavra.length() >= MINIMO_APROXIMADO;
+                No no = localizar(palavra);
+                int ocorrencias = no == null ? 0 : no.total;
+                if (i > 0 && (r.vivos <= CANDIDATOS_CONFERIDOS || r.vivos * 8L < ocorrencias)) {
+                    conferirCandidatos(r, palavra, i, aproximar);
+                } else {
+                    r.vivos = 0;
+                    if (no != null) {
+                        if (no.termo != null) {
+                            pontuar(r, no.termo, PONTOS_EXATO, i, epocaConsulta, epocaPalavra);
+                        }
+                        for (int j = 0; j < no.filhos.length; j++) {
+                            pontuarSubarvore(r, no.filhos[j], i, epocaConsulta, epocaPalavra);
+                        }
+                    }
+                    // Numa consulta de uma palavra, os aproximados ficariam abaixo de todos os
+                    // resultados exatos e por prefixo; se estes já enchem a lista, são dispensados.
+                    boolean bastam = palavras.length == 1 && r.vivos >= limite;
+                    if (aproximar && !bastam) {
+                        pontuarAproximados(r, palavra, i, epocaConsulta, epocaPalavra);
+                    }
+                }
+                if (r.vivos == 0) {
+                    break;
+                }
+            }
+
+            if (idConhecido) {
+                int doc = docPorId.get(idExato);
+                if (r.marcaConsulta[doc] != epocaConsulta) {
+                    r.marcaConsulta[doc] = epocaConsulta;
+                    r.pontos[doc] = 0;
+                    r.vistos[r.totalVistos++] = doc;
+                }
+                r.acertos[doc] = palavras.length;
+                r.pontos[doc] += PONTOS_ID;
+            }
+            if (curto != null) {
+                int guardar = Math.max(limite, LIMITE_PADRAO);
+                int[] docs = melhores(r, palavras.length, guardar);
+                curto.melhores = new Melhores(docs, guardar);
+                return produtosDe(docs, Math.min(limite, docs.length));
+            }
+            int[] docs = melhores(r, palavras.length, limite);
+            return produtosDe(docs, docs.length);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private List<Produto> produtosDe(int[] docs, int quantidade) {
+        Produto[] resultado = new Produto[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            resultado[i] = produtos[docs[i]];
+        }
+        return Arrays.asList(resultado);
+    }
+
+    /**
+     * Pontua uma palavra conferindo os termos de cada candidato que restou das palavras
+     * anteriores, em vez de percorrer as listas de ocorrências. Compensa quando restam
+     * poucos candidatos e a palavra é comum (como o prefixo de todos os IDs).
+     */
+    private void conferirCandidatos(Rascunho r, String palavra, int indice, boolean aproximar) {
+        int edicoes = edicoesPermitidas(palavra);
+        int vivos = 0;
+        for (int k = 0; k < r.totalVistos; k++) {
+            int doc = r.vistos[k];
+            if (r.acertos[doc] != indice) {
+                continue;
+            }
+            int melhor = 0;
+            for (Termo termo : termosDoc[doc]) {
+                if (termo.texto.equals(palavra)) {
+                    melhor = PONTOS_EXATO;
+                    break;
+                }
+                if (termo.texto.startsWith(palavra)) {
+                    melhor = PONTOS_PREFIXO;
+                } else if (aproximar && melhor == 0 && distanciaPrefixo(r, palavra, termo.texto, edicoes) <= edicoes) {
+                    melhor = PONTOS_APROXIMADO;
+                }
+            }
+            if (melhor > 0) {
+                r.pontos[doc] += melhor;
+                r.acertos[doc]++;
+                vivos++;
+            }
+        }
+        r.vivos = vivos;
+    }
+
+    private static int edicoesPermitidas(String palavra) {
+        return palavra.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Seleciona os {@code limite} melhores documentos com um heap de mínimo (o pior dos
+     * selecionados fica na raiz) e os devolve do melhor para o pior.
+     */
+    private int[] melhores(Rascunho r, int palavras, int limite) {
+        int[] heap = r.heap;
+        int tamanho = 0;
+        for (int i = 0; i < r.totalVistos; i++) {
+            int doc = r.vistos[i];
+            if (r.acertos[doc] != palavras) {
+                continue;
+            }
+            if (tamanho < limite) {
+                heap[tamanho] = doc;
+                subir(r, heap, tamanho++);
+            } else if (antes(r, doc, heap[0])) {
+                heap[0] = doc;
+                descer(r, heap, 0, tamanho);
+            }
+        }
+        int[] resultado = new int[tamanho];
+        for (int i = tamanho - 1; i >= 0; i--) {
+            resultado[i] = heap[0];
+            heap[0] = heap[i];
+            descer(r, heap, 0, i);
+        }
+        return resultado;
+    }
+
+    /** Indica se o documento {@code a} deve aparecer antes de {@code b} nos resultados. */
+    private boolean antes(Rascunho r, int a, int b) {
+        if (r.pontos[a] != r.pontos[b]) {
+            return r.pontos[a] > r.pontos[b];
+        }
+        if (comprimentoNome[a] != comprimentoNome[b]) {
+            return comprimentoNome[a] < comprimentoNome[b];
+        }
+        return nomeDe(produtos[a]).compareTo(nomeDe(produtos[b])) < 0;
+    }
+
+    private static String nomeDe(Produto produto) {
+        return produto.getNome() == null ? "" : produto.getNome();
+    }
+
+    private void subir(Rascunho r, int[] heap, int i) {
+        while (i > 0) {
+            int pai = (i - 1) / 2;
+            if (!antes(r, heap[pai], heap[i])) {
+                return;
+            }
+            int t = heap[pai];
+            heap[pai] = heap[i];
+            heap[i] = t;
+            i = pai;
+        }
+    }
+
+    private void descer(Rascunho r, int[] heap, int i, int tamanho) {
+        while (true) {
+            int pior = i;
+            int esquerdo = 2 * i + 1;
+            int direito = esquerdo + 1;
+            if (esquerdo < tamanho && antes(r, heap[pior], heap[esquerdo])) {
+                pior = esquerdo;
+            }
+            if (direito < tamanho && antes(r, heap[pior], heap[direito])) {
+                pior = direito;
+            }
+            if (pior == i) {
+                return;
+            }
+            int t = heap[pior];
+            heap[pior] = heap[i];
+            heap[i] = t;
+            i = pior;
+        }
+    }
+
+    /**
+     * Soma os pontos de um termo aos seus documentos. Um documento pontua uma única vez por
+     * palavra, pela primeira correspondência (os termos são visitados da melhor forma de
+     * correspondência para a pior), e só continua candidato se já tiver todas as palavras
+     * anteriores.
+     */
+    private static void pontuar(Rascunho r, Termo termo, int pontos, int palavra, int epocaConsulta, int epocaPalavra) {
+        int[] docs = termo.docs.valores;
+        for (int k = 0, n = termo.docs.tamanho; k < n; k++) {
+            int doc = docs[k];
+            if (r.marcaPalavra[doc] == epocaPalavra) {
+                continue;
+            }
+            r.marcaPalavra[doc] = epocaPalavra;
+            if (palavra == 0) {
+                r.marcaConsulta[doc] = epocaConsulta;
+                r.pontos[doc] = pontos;
+                r.acertos[doc] = 1;
+                r.vistos[r.totalVistos++] = doc;
+                r.vivos++;
+            } else if (r.marcaConsulta[doc] == epocaConsulta && r.acertos[doc] == palavra) {
+                r.pontos[doc] += pontos;
+                r.acertos[doc]++;
+                r.vivos++;
+            }
+        }
+    }
+
+    private void pontuarSubarvore(Rascunho r, No no, int palavra, int epocaConsulta, int epocaPalavra) {
+        if (no.termo != null) {
+            pontuar(r, no.termo, PONTOS_PREFIXO, palavra, epocaConsulta, epocaPalavra);
+        }
+        for (int j = 0; j < no.filhos.length; j++) {
+            pontuarSubarvore(r, no.filhos[j], palavra, epocaConsulta, epocaPalavra);
+        }
+    }
+
+    /**
+     * Pontua os termos parecidos com a palavra. Pelo lema dos q-gramas, cada edição destrói
+     * no máximo três trigramas, então um termo a {@code k} edições compartilha pelo menos
+     * {@code trigramas - 3k} trigramas com a palavra; os que passam nesse filtro são
+     * confirmados pela distância de edição. Os trigramas presentes em muitos termos não
+     * entram na contagem, e o mínimo exigido diminui na mesma medida.
+     */
+    private void pontuarAproximados(Rascunho r, String palavra, int indice, int epocaConsulta, int epocaPalavra) {
+        int edicoes = edicoesPermitidas(palavra);
+        String marcada = "$" + palavra;
+        int totalTrigramas = marcada.length() - 2;
+        int limiteFrequente = Math.max(1_000, termos.size() / 8);
+        int usados = 0;
+        int epocaTermo = r.novaEpoca();
+        int candidatos = 0;
+        for (int i = 0; i < totalTrigramas; i++) {
+            ListaInt lista = trigramas.get(marcada.substring(i, i + 3));
+            if (lista == null) {
+                usados++;
+                continue;
+            }
+            if (lista.tamanho > limiteFrequente) {
+                // Trigramas muito comuns quase não filtram; ficam de fora da contagem.
+                continue;
+            }
+            usados++;
+            for (int k = 0; k < lista.tamanho; k++) {
+                int termo = lista.valores[k];
+                if (r.marcaTermo[termo] != epocaTermo) {
+                    r.marcaTermo[termo] = epocaTermo;
+                    r.contagemTermo[termo] = 0;
+                    r.termosVistos[candidatos++] = termo;
+                }
+                r.contagemTermo[termo]++;
+            }
+        }
+        int minimo = Math.max(1, usados - 3 * edicoes);
+        for (int i = 0; i < candidatos; i++) {
+            Termo termo = termos.get(r.termosVistos[i]);
+            if (r.contagemTermo[termo.id] >= minimo && termo.docs.tamanho > 0
+                    && distanciaPrefixo(r, palavra, termo.texto, edicoes) <= edicoes) {
+                pontuar(r, termo, PONTOS_APROXIMADO, indice, epocaConsulta, epocaPalavra);
+            }
+        }
+    }
+
+    /**
+     * Calcula a menor distância de edição (Damerau restrita: inserção, remoção, troca e
+     * transposição de vizinhos) entre a palavra e algum prefixo do termo, interrompendo o
+     * cálculo assim que ela passa do máximo.
+     *
+     * @return A distância, ou {@code maximo + 1} se for maior que o máximo.
+     */
+    private static int distanciaPrefixo(Rascunho r, String palavra, String termo, int maximo) {
+        int m = palavra.length();
+        int n = Math.min(termo.length(), m + maximo);
+        if (n < m - maximo) {
+            return maximo + 1;
+        }
+        r.linhas(n + 1);
+        int[] anterior = r.linhaAnterior;
+        int[] atual = r.linhaAtual;
+        int[] nova = r.linhaNova;
+        for (int j = 0; j <= n; j++) {
+            atual[j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            nova[0] = i;
+            int menor = nova[0];
+            char a = palavra.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                char b = termo.charAt(j - 1);
+                int custo = a == b ? 0 : 1;
+                int valor = Math.min(Math.min(atual[j] + 1, nova[j - 1] + 1), atual[j - 1] + custo);
+                if (i > 1 && j > 1 && a == termo.charAt(j - 2) && palavra.charAt(i - 2) == b) {
+                    valor = Math.min(valor, anterior[j - 2] + 1);
+                }
+                nova[j] = valor;
+                menor = Math.min(menor, valor);
+            }
+            if (menor > maximo) {
+                return maximo + 1;
+            }
+            int[] t = anterior;
+            anterior = atual;
+            atual = nova;
+            nova = t;
+        }
+        int melhor = maximo + 1;
+        for (int j = Math.max(0, m - maximo); j <= n; j++) {
+            melhor = Math.min(melhor, atual[j]);
+        }
+        return melhor;
+    }
+
+    private No localizar(String palavra) {
+        No no = raiz;
+        for (int i = 0; i < palavra.length() && no != null; i++) {
+            no = no.filho(palavra.charAt(i));
+        }
+        return no;
+    }
+
+    /** Retorna o termo com o texto informado, criando-o (na árvore e nos trigramas) se preciso. */
+    private Termo termo(String texto) {
+        No no = raiz;
+        for (int i = 0; i < texto.length(); i++) {
+            no = no.filhoOuNovo(texto.charAt(i));
+        }
+        if (no.termo == null) {
+            Termo termo = new Termo(termos.size(), texto);
+            termos.add(termo);
+            no.termo = termo;
+            String marcado = "$" + texto + "$";
+            Set<String> vistos = new LinkedHashSet<>();
+            for (int i = 0; i + 3 <= marcado.length(); i++) {
+                vistos.add(marcado.substring(i, i + 3));
+            }
+            for (String trigrama : vistos) {
+                trigramas.computeIfAbsent(trigrama, t -> new ListaInt()).adicionar(termo.id);
+            }
+        }
+        return no.termo;
+    }
+
+    private void desindexar(int doc) {
+        Termo[] antigos = termosDoc[doc];
+        if (antigos != null) {
+            for (Termo termo : antigos) {
+                termo.docs.remover(doc);
+                contar(termo, -1);
+            }
+            termosDoc[doc] = null;
+        }
+    }
+
+    /**
+     * Ajusta o total de ocorrências dos nós no caminho do termo e descarta os resultados
+     * guardados nesses nós.
+     */
+    private void contar(Termo termo, int delta) {
+        No no = raiz;
+        for (int i = 0; i < termo.texto.length(); i++) {
+            no = no.filho(termo.texto.charAt(i));
+            no.total += delta;
+            no.melhores = null;
+        }
+    }
+
+    private int alocarDoc() {
+        if (livres.tamanho > 0) {
+            return livres.valores[--livres.tamanho];
+        }
+        if (proximoDoc == produtos.length) {
+            produtos = Arrays.copyOf(produtos, produtos.length * 2);
+            termosDoc = Arrays.copyOf(termosDoc, termosDoc.length * 2);
+            comprimentoNome = Arrays.copyOf(comprimentoNome, comprimentoNome.length * 2);
+        }
+        return proximoDoc++;
+    }
+
+    /**
+     * Extrai os termos indexados de um produto: as palavras do nome, do tipo e do ID.
+     */
+    private static Set<String> termosDe(String id, Produto produto) {
+        Set<String> termos = new LinkedHashSet<>();
+        termos.addAll(dividir(normalizar(produto.getNome())));
+        termos.addAll(dividir(normalizar(produto.getTipo())));
+        termos.addAll(dividir(normalizar(id)));
+        return termos;
+    }
+
+    /**
+     * Converte o texto para minúsculas e remove os acentos.
+     *
+     * @param texto O texto original, ou {@code null}.
+     * @return O texto normalizado, ou uma string vazia.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> dividir(String texto) {
+        List<String> palavras = new ArrayList<>();
+        int inicio = -1;
+        for (int i = 0; i <= texto.length(); i++) {
+            boolean letra = i < texto.length() && Character.isLetterOrDigit(texto.charAt(i));
+            if (letra && inicio < 0) {
+                inicio = i;
+            } else if (!letra && inicio >= 0) {
+                palavras.add(texto.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return palavras;
+    }
+}
@@ -0,0 +1,185 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.ValueEventListener;
+import interfaces.IConsulta;
+import interfaces.IReferencia;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Uma página de registros lida de um nó do Firebase em ordem de chave.
+ * Além dos itens, a página carrega o cursor (a chave do último registro lido) a ser
+ * informado na busca da página seguinte, ou {@code null} quando não há mais registros.
+ * <p>
+ * A consulta usa {@code orderByKey().startAt(cursor).limitToFirst(n)}. O SDK Admin do
+ * Firebase não oferece {@code startAfter}, por isso o registro do cursor é pedido junto
+ * e descartado, e um registro a mais é lido para saber se existe uma próxima página.
+ *
+ * @param <T> O tipo dos registros da página.
+ * @see ProdutoRepository#buscarPagina(String, int)
+ * @see UsuarioRepository#buscarPagina(String, int)
+ */
+public final class Pagina<T> {
+    private final List<T> itens;
+    private final String proximoCursor;
+
+    /**
+     * Cria uma página.
+     *
+     * @param itens         Os registros da página, na ordem das chaves.
+     * @param proximoCursor A chave a partir da qual a próxima página deve ser buscada,
+     *                      ou {@code null} se esta for a última.
+     */
+    public Pagina(List<T> itens, String proximoCursor) {
+        this.itens = Collections.unmodifiableList(itens);
+        this.proximoCursor = proximoCursor;
+    }
+
+    /**
+     * Retorna os registros da página.
+     * @return Uma lista imutável de registros.
+     */
+    public List<T> getItens() {
+        return itens;
+    }
+
+    /**
+     * Retorna o cursor da próxima página.
+     * @return A chave do último registro lido, ou {@code null} se esta for a última página.
+     */
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+
+    /**
+     * Indica se há registros depois desta página.
+     * @return {@code true} se uma nova busca com {@link #getProximoCursor()} retornará registros.
+     */
+    public boolean temProxima() {
+        return proximoCursor != null;
+    }
+
+    /**
+     * Retorna uma página com apenas os itens que atendem ao filtro, mantendo o cursor.
+     * A página filtrada pode ficar menor que as demais, ou até vazia, sem que isso
+     * indique o fim dos registros.
+     *
+     * @param filtro O critério de seleção dos itens.
+     * @return A nova página.
+     */
+    public Pagina<T> filtrar(Predicate<? super T> filtro) {
+        List<T> filtrados = new ArrayList<>(itens.size());
+        for (T item : itens) {
+            if (filtro.test(item)) {
+                filtrados.add(item);
+            }
+        }
+        return new Pagina<>(filtrados, proximoCursor);
+    }
+
+    /**
+     * Busca uma página de registros de um nó, em ordem de chave.
+     *
+     * @param ref       O nó a ser lido.
+     * @param cursor    A chave do último registro da página anterior, ou {@code null} para a primeira.
+     * @param tamanho   A quantidade máxima de registros da página.
+     * @param conversor A função que converte cada registro na entidade correspondente.
+     * @param <T>       O tipo da entidade.
+     * @return Um {@link CompletableFuture} completado com a {@link Pagina} lida.
+     */
+    static <T> CompletableFuture<Pagina<T>> buscar(IReferencia ref, String cursor, int tamanho,
+                                                   Function<DataSnapshot, T> conversor) {
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException("ERRO: O tamanho da página deve ser maior que zero.");
+        }
+        IConsulta query = cursor == null
+                ? ref.orderByKey().limitToFirst(tamanho + 1)
+                : ref.orderByKey().startAt(cursor).limitToFirst(tamanho + 2);
+
+        CompletableFuture<Pagina<T>> future = new CompletableFuture<>();
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                List<T> itens = new ArrayList<>(tamanho);
+                String ultimaChave = null;
+                boolean temMais = false;
+                for (DataSnapshot filho : dataSnapshot.getChildren()) {
+                    if (filho.getKey().equals(cursor)) {
+                        continue;
+                    }
+                    if (itens.size() == tamanho) {
+                        temMais = true;
+                        break;
+                    }
+                    itens.add(conversor.apply(filho));
+                    ultimaChave = filho.getKey();
+                }
+                future.complete(new Pagina<>(itens, temMais ? ultimaChave : null));
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                future.completeExceptionally(databaseError.toException());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Percorre todos os registros página por página, na forma de um {@link Stream} preguiçoso:
+     * cada página só é buscada quando o consumidor chega ao fim da anterior, de modo que
+     * apenas uma página fica em memória por vez. A busca de cada página bloqueia a thread
+     * consumidora, portanto o stream não deve ser consumido na thread da interface.
+     *
+     * @param buscador A função que busca a página a partir de um cursor ({@code null} na primeira).
+     * @param <T>      O tipo dos registros.
+     * @return Um {@link Stream} sequencial com todos os registros.
+     */
+    public static <T> Stream<T> transmitir(Function<String, CompletableFuture<Pagina<T>>> buscador) {
+        Iterator<T> iterador = new Iterator<>() {
+            private Iterator<T> atual = Collections.emptyIterator();
+            private String cursor = null;
+            private boolean fim = false;
+
+            @Override
+            public boolean hasNext() {
+                while (!atual.hasNext() && !fim) {
+                    Pagina<T> pagina = buscador.apply(cursor).join();
+                    atual = pagina.getItens().iterator();
+                    cursor = pagina.getProximoCursor();
+                    fim = !pagina.temProxima();
+                }
+                return atual.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return atual.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterador, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -7,19 +7,36 @@ package repository;
  * Lorena da Silva Borges
  */
 
-import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
 import com.google.firebase.database.ValueEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.api.core.ApiFuture;
 import database.FirebaseConfig;
+import database.HistogramaLatencia;
+import database.Metricas;
 
+import excecoes.EstoqueInsuficienteException;
+import excecoes.ProdutoNaoEncontradoException;
 import model.Produto;
+import interfaces.Alteracoes;
 import interfaces.ICrud;
+import interfaces.IInscricao;
+import interfaces.IReferencia;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * Implementação concreta do padrão Repository para a entidade {@link Produto}.
@@ -37,7 +54,31 @@ public class ProdutoRepository implements ICrud<Produto> {
     /**
      * Referência para o nó "produtos" no Firebase Realtime Database.
      */
-    private DatabaseReference ref;
+    private IReferencia ref;
+
+    /** Nó, dentro de cada produto, das marcas de baixas já aplicadas pelo diário de vendas. */
+    private static final String NO_BAIXAS_APLICADAS = "baixasAplicadas";
+
+    /**
+     * Contadores globais das transações de estoque, compartilhados entre todas as instâncias.
+     */
+    private static final AtomicLong transacoesEstoque = new AtomicLong();
+    private static final AtomicLong retentativasEstoque = new AtomicLong();
+
+    /**
+     * Leituras de produto por ID em andamento, compartilhadas entre todas as instâncias.
+     */
+    private static final VooUnico<String, DataSnapshot> leiturasEmVoo = new VooUnico<>();
+
+    /**
+     * Latências das operações, de cada chamada até a resposta do servidor ({@link Metricas}).
+     */
+    private static final HistogramaLatencia LATENCIA_SALVAR = Metricas.latencia("produtos.salvar");
+    private static final HistogramaLatencia LATENCIA_BUSCAR = Metricas.latencia("produtos.buscar");
+    private static final HistogramaLatencia LATENCIA_ATUALIZAR = Metricas.latencia("produtos.atualizar");
+    private static final HistogramaLatencia LATENCIA_ATUALIZAR_CAMPOS = Metricas.latencia("produtos.atualizarCampos");
+    private static final HistogramaLatencia LATENCIA_DELETAR = Metricas.latencia("produtos.deletar");
+    private static final HistogramaLatencia LATENCIA_ALTERAR_ESTOQUE = Metricas.latencia("produtos.alterarEstoque");
 
     /**
      * Construtor que inicializa o repositório.
@@ -46,7 +87,7 @@ public class ProdutoRepository implements ICrud<Produto> {
      * os dados de produtos serão armazenados.
      */
     public ProdutoRepository() {
-        this.ref = FirebaseConfig.getDatabaseReference().child("produtos");
+        this.ref = FirebaseConfig.getReferencia().child("produtos");
     }
 
     /**
@@ -55,7 +96,22 @@ public class ProdutoRepository implements ICrud<Produto> {
      */
     @Override
     public ApiFuture<Void> salvar(Produto produto) {
-        return ref.child(produto.getId()).setValueAsync(produto);
+        return LATENCIA_SALVAR.medir(System.nanoTime(), ref.child(produto.getId()).setValueAsync(produto));
+    }
+
+    /**
+     * Salva vários produtos em uma única escrita multi-caminho, uma entrada {@code produtos/{id}}
+     * por produto. A escrita é atômica: ou todos os produtos do lote são gravados, ou nenhum.
+     *
+     * @param produtos Os produtos a serem gravados; IDs existentes são sobrescritos.
+     * @return Um {@link ApiFuture} completado quando o servidor confirmar o lote.
+     */
+    public ApiFuture<Void> salvarLote(Collection<Produto> produtos) {
+        Map<String, Object> atualizacoes = new HashMap<>(produtos.size() * 2);
+        for (Produto produto : produtos) {
+            atualizacoes.put(produto.getId(), produto);
+        }
+        return ref.updateChildrenAsync(atualizacoes);
     }
 
     /**
@@ -64,7 +120,17 @@ public class ProdutoRepository implements ICrud<Produto> {
      */
     @Override
     public ApiFuture<Void> atualizar(Produto produto) {
-        return ref.child(produto.getId()).setValueAsync(produto);
+        return LATENCIA_ATUALIZAR.medir(System.nanoTime(), ref.child(produto.getId()).setValueAsync(produto));
+    }
+
+    /**
+     * Atualiza somente os campos informados do produto, em uma única escrita parcial
+     * sobre o nó "produtos". A quantidade em estoque, alterada por transações, não é
+     * afetada por uma edição de preço ou de nome.
+     */
+    @Override
+    public ApiFuture<Void> atualizarCampos(String id, Alteracoes<Produto> alteracoes) {
+        return LATENCIA_ATUALIZAR_CAMPOS.medir(System.nanoTime(), ref.updateChildrenAsync(alteracoes.paraMapa(id)));
     }
 
     /**
@@ -72,7 +138,7 @@ public class ProdutoRepository implements ICrud<Produto> {
      */
     @Override
     public ApiFuture<Void> deletar(String id) {
-        return ref.child(id).removeValueAsync();
+        return LATENCIA_DELETAR.medir(System.nanoTime(), ref.child(id).removeValueAsync());
     }
 
     /**
@@ -80,10 +146,21 @@ public class ProdutoRepository implements ICrud<Produto> {
      * O {@link CompletableFuture} retornado é completado com o objeto {@link Produto}
      * em caso de sucesso, com {@code null} se não for encontrado, ou com uma exceção
      * em caso de erro.
+     * <p>
+     * Buscas simultâneas pelo mesmo ID compartilham uma única leitura no banco
+     * ({@link VooUnico}); cada chamador recebe o seu próprio objeto {@link Produto}.
      */
     @Override
     public CompletableFuture<Produto> buscar(String id) {
-        CompletableFuture<Produto> future = new CompletableFuture<>();
+        return LATENCIA_BUSCAR.medir(System.nanoTime(), leiturasEmVoo.executar(id, this::ler)
+                .thenApply(snapshot -> snapshot.exists() ? snapshot.getValue(Produto.class) : null));
+    }
+
+    /**
+     * Lê o nó do produto no banco, sem conversão.
+     */
+    private CompletableFuture<DataSnapshot> ler(String id) {
+        CompletableFuture<DataSnapshot> future = new CompletableFuture<>();
 
         ref.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
             /**
@@ -91,12 +168,7 @@ public class ProdutoRepository implements ICrud<Produto> {
              */
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
-                if (dataSnapshot.exists()) {
-                    Produto produto = dataSnapshot.getValue(Produto.class);
-                    future.complete(produto);
-                } else {
-                    future.complete(null);
-                }
+                future.complete(dataSnapshot);
             }
 
             /**
@@ -136,4 +208,249 @@ public class ProdutoRepository implements ICrud<Produto> {
         });
         return future;
     }
-}
\ No newline at end of file
+
+    /**
+     * Ouve as alterações do nó "produtos" por um {@link ChildEventListener}. Os eventos
+     * {@code onChildAdded} que o Firebase entrega para os produtos já existentes são
+     * descartados sem conversão; o evento de valor único registrado em seguida, que chega
+     * depois de todos eles, marca o início das alterações repassadas ao ouvinte.
+     * <p>
+     * Usado quando a réplica do catálogo está desligada; com ela ligada, as alterações vêm de
+     * {@link CatalogoProdutos#ouvir(BiConsumer)}.
+     *
+     * @param ouvinte Recebe, na thread de eventos do Firebase, o ID e o novo estado do
+     *                produto, ou {@code null} se ele foi removido.
+     * @return A inscrição, que remove os ouvintes do Firebase ao ser cancelada.
+     */
+    public IInscricao ouvirAlteracoes(BiConsumer<String, Produto> ouvinte) {
+        AtomicBoolean sincronizado = new AtomicBoolean(false);
+        ChildEventListener ouvinteFilhos = ref.addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                if (sincronizado.get()) {
+                    ouvinte.accept(snapshot.getKey(), snapshot.getValue(Produto.class));
+                }
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                ouvinte.accept(snapshot.getKey(), snapshot.getValue(Produto.class));
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                ouvinte.accept(snapshot.getKey(), null);
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+                // A ordem dos filhos não é relevante para quem ouve.
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                System.err.println("ERRO: Alterações de produtos canceladas: " + databaseError.getMessage());
+            }
+        });
+        ValueEventListener ouvinteCarga = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                sincronizado.set(true);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                System.err.println("ERRO: Falha ao sincronizar os produtos: " + databaseError.getMessage());
+            }
+        };
+        ref.addListenerForSingleValueEvent(ouvinteCarga);
+        AtomicBoolean cancelada = new AtomicBoolean(false);
+        return () -> {
+            if (cancelada.compareAndSet(false, true)) {
+                ref.removeEventListener(ouvinteFilhos);
+                ref.removeEventListener(ouvinteCarga);
+            }
+        };
+    }
+
+    /**
+     * Busca uma página de produtos em ordem de ID, sem carregar o nó inteiro.
+     *
+     * @param cursor  O ID do último produto da página anterior, ou {@code null} para a primeira página.
+     * @param tamanho A quantidade máxima de produtos da página.
+     * @return Um CompletableFuture que será completado com a {@link Pagina} de produtos.
+     */
+    public CompletableFuture<Pagina<Produto>> buscarPagina(String cursor, int tamanho) {
+        return Pagina.buscar(ref, cursor, tamanho, snapshot -> snapshot.getValue(Produto.class));
+    }
+
+    /**
+     * Percorre todos os produtos página por página, mantendo apenas uma página em memória.
+     *
+     * @param tamanhoPagina A quantidade de produtos buscada a cada ida ao banco.
+     * @return Um {@link Stream} preguiçoso de produtos em ordem de ID.
+     * @see Pagina#transmitir(java.util.function.Function)
+     */
+    public Stream<Produto> transmitirTodos(int tamanhoPagina) {
+        return Pagina.transmitir(cursor -> buscarPagina(cursor, tamanhoPagina));
+    }
+
+    /**
+     * Altera de forma atômica a quantidade em estoque de um produto, somando {@code delta}
+     * ao valor atual diretamente no servidor por meio de {@link IReferencia#runTransaction}.
+     * A transação atua apenas sobre o filho "quantidade", de modo que alterações concorrentes
+     * de outros terminais nunca são sobrescritas; se o valor mudar durante a operação, o
+     * Firebase executa a transação novamente com o valor atualizado.
+     * <p>
+     * O {@link CompletableFuture} retornado falha com {@link EstoqueInsuficienteException} se
+     * o resultado ficasse negativo, ou com {@link ProdutoNaoEncontradoException} se o produto
+     * não existir.
+     *
+     * @param id    O ID do produto.
+     * @param delta A quantidade a ser somada (positiva) ou subtraída (negativa) do estoque.
+     * @return Um {@link CompletableFuture} completado com o {@link ResultadoEstoque} confirmado.
+     */
+    public CompletableFuture<ResultadoEstoque> alterarEstoque(String id, int delta) {
+        return alterarEstoque(id, delta, null);
+    }
+
+    /**
+     * Aplica, no máximo uma vez, a baixa de estoque de uma venda. Funciona como
+     * {@link #alterarEstoque(String, int)}, mas a transação atua sobre o produto inteiro e
+     * grava, junto com a nova quantidade, a marca {@code baixasAplicadas/<idVenda>}. Se a
+     * marca já existir, a baixa não é repetida e o resultado traz o estoque atual. Assim,
+     * uma venda reenviada depois de uma queda não desconta o estoque duas vezes.
+     * <p>
+     * As marcas devem ser removidas por {@link #removerMarcasBaixa(String, Collection)} quando
+     * a venda não puder mais ser reenviada.
+     *
+     * @param id      O ID do produto.
+     * @param delta   A quantidade a ser somada ao estoque.
+     * @param idVenda O ID da venda que originou a baixa.
+     * @return O mesmo que {@link #alterarEstoque(String, int)}.
+     */
+    public CompletableFuture<ResultadoEstoque> aplicarBaixaUnica(String id, int delta, String idVenda) {
+        return alterarEstoque(id, delta, idVenda);
+    }
+
+    /**
+     * Remove as marcas de baixa de uma venda, gravadas por
+     * {@link #aplicarBaixaUnica(String, int, String)}, em uma única atualização.
+     *
+     * @param idVenda    O ID da venda.
+     * @param produtoIds Os produtos da venda.
+     * @return Um {@link ApiFuture} que indica a conclusão da remoção.
+     */
+    public ApiFuture<Void> removerMarcasBaixa(String idVenda, Collection<String> produtoIds) {
+        Map<String, Object> remocoes = new HashMap<>();
+        for (String produtoId : produtoIds) {
+            remocoes.put(produtoId + "/" + NO_BAIXAS_APLICADAS + "/" + idVenda, null);
+        }
+        return ref.updateChildrenAsync(remocoes);
+    }
+
+    /**
+     * Executa a transação de estoque. Sem {@code marca}, a transação atua só sobre a
+     * quantidade; com ela, atua sobre o produto e grava a marca da baixa. A latência é
+     * registrada no próprio {@code onComplete}, sem outro callback por chamada.
+     */
+    private CompletableFuture<ResultadoEstoque> alterarEstoque(String id, int delta, String marca) {
+        long inicio = System.nanoTime();
+        CompletableFuture<ResultadoEstoque> future = new CompletableFuture<>();
+        AtomicInteger tentativas = new AtomicInteger();
+        AtomicBoolean insuficiente = new AtomicBoolean(false);
+        AtomicBoolean jaAplicada = new AtomicBoolean(false);
+        IReferencia alvo = marca == null ? ref.child(id).child("quantidade") : ref.child(id);
+
+        alvo.runTransaction(new Transaction.Handler() {
+            /**
+             * Calcula o novo estoque a partir do valor atual. Pode ser chamado várias vezes.
+             */
+            @Override
+            public Transaction.Result doTransaction(MutableData dadoAtual) {
+                insuficiente.set(false);
+                jaAplicada.set(false);
+                MutableData campo = marca == null ? dadoAtual : dadoAtual.child("quantidade");
+                Long quantidade = campo.getValue(Long.class);
+                if (quantidade == null) {
+                    // Valor ainda não conhecido localmente: o servidor devolve o valor real e a transação
+                    // é refeita. Essa passada não conta como tentativa, pois não houve disputa.
+                    return Transaction.success(dadoAtual);
+                }
+                tentativas.incrementAndGet();
+                if (marca != null && dadoAtual.child(NO_BAIXAS_APLICADAS).child(marca).getValue() != null) {
+                    jaAplicada.set(true);
+                    return Transaction.abort();
+                }
+                long novaQuantidade = quantidade + delta;
+                if (novaQuantidade < 0) {
+                    insuficiente.set(true);
+                    return Transaction.abort();
+                }
+                campo.setValue(novaQuantidade);
+                if (marca != null) {
+                    dadoAtual.child(NO_BAIXAS_APLICADAS).child(marca).setValue(true);
+                }
+                return Transaction.success(dadoAtual);
+            }
+
+            /**
+             * Callback executado quando a transação é confirmada, abortada ou falha.
+             */
+            @Override
+            public void onComplete(DatabaseError databaseError, boolean confirmada, DataSnapshot dataSnapshot) {
+                transacoesEstoque.incrementAndGet();
+                retentativasEstoque.addAndGet(Math.max(0, tentativas.get() - 1));
+
+                if (databaseError != null) {
+                    LATENCIA_ALTERAR_ESTOQUE.registrarDesde(inicio, true);
+                    future.completeExceptionally(databaseError.toException());
+                    return;
+                }
+                DataSnapshot campo = dataSnapshot == null || marca == null ? dataSnapshot : dataSnapshot.child("quantidade");
+                Long quantidade = campo == null ? null : campo.getValue(Long.class);
+                LATENCIA_ALTERAR_ESTOQUE.registrarDesde(inicio, (!confirmada && insuficiente.get()) || quantidade == null);
+                if (!confirmada && insuficiente.get()) {
+                    future.completeExceptionally(new EstoqueInsuficienteException(
+                            "ERRO: Estoque insuficiente para o produto: " + id + " (disponível: " + quantidade + ")"));
+                } else if (quantidade == null) {
+                    future.completeExceptionally(new ProdutoNaoEncontradoException(
+                            "LOG: Produto com ID " + id + " não encontrado."));
+                } else {
+                    if (!confirmada && jaAplicada.get()) {
+                        System.out.println("LOG: Baixa da venda " + marca + " no produto " + id + " já aplicada; ignorada.");
+                    }
+                    future.complete(new ResultadoEstoque(id, quantidade.intValue(), tentativas.get()));
+                }
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Retorna o total de transações de estoque concluídas desde o início da aplicação.
+     * @return O número de transações.
+     */
+    public static long getTotalTransacoesEstoque() {
+        return transacoesEstoque.get();
+    }
+
+    /**
+     * Retorna o total de reexecuções de transações de estoque causadas por disputa
+     * com outros terminais desde o início da aplicação.
+     * @return O número de reexecuções.
+     */
+    public static long getTotalRetentativasEstoque() {
+        return retentativasEstoque.get();
+    }
+
+    /**
+     * Retorna quantas buscas por ID aproveitaram uma leitura do mesmo produto que já estava
+     * em andamento, desde o início da aplicação.
+     * @return O número de buscas compartilhadas.
+     */
+    public static long getTotalBuscasCompartilhadas() {
+        return leiturasEmVoo.getCompartilhadas();
+    }
+}
@@ -0,0 +1,139 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado da verificação de consistência entre o nó "usuarios" e o índice
+ * {@code usuarios_por_login}. Cada inconsistência é descrita em uma linha de texto.
+ *
+ * @see UsuarioRepository#verificarIndiceLogin()
+ */
+public class RelatorioIndiceLogin {
+    private final int totalUsuarios;
+    private final int totalEntradas;
+    private final List<String> ausentes = new ArrayList<>();
+    private final List<String> divergentes = new ArrayList<>();
+    private final List<String> orfas = new ArrayList<>();
+    private final List<String> duplicados = new ArrayList<>();
+    private final List<String> semLogin = new ArrayList<>();
+
+    /**
+     * Cria um relatório vazio.
+     *
+     * @param totalUsuarios O número de usuários lidos do nó "usuarios".
+     * @param totalEntradas O número de entradas lidas do índice.
+     */
+    RelatorioIndiceLogin(int totalUsuarios, int totalEntradas) {
+        this.totalUsuarios = totalUsuarios;
+        this.totalEntradas = totalEntradas;
+    }
+
+    void adicionarAusente(String usuario, int matricula) {
+        ausentes.add("'" + usuario + "' (matrícula " + matricula + ") não está no índice.");
+    }
+
+    void adicionarDivergente(String usuario, int matricula, long matriculaIndice) {
+        divergentes.add("'" + usuario + "' aponta para a matrícula " + matriculaIndice + ", mas pertence à " + matricula + ".");
+    }
+
+    void adicionarOrfa(String chave, Long matricula) {
+        orfas.add("Entrada '" + chave + "' -> " + matricula + " não corresponde a nenhum usuário.");
+    }
+
+    void adicionarDuplicado(String usuario, int primeiraMatricula, int segundaMatricula) {
+        duplicados.add("'" + usuario + "' é usado pelas matrículas " + primeiraMatricula + " e " + segundaMatricula + ".");
+    }
+
+    void adicionarSemLogin(int matricula) {
+        semLogin.add("Matrícula " + matricula + " não tem login e não pode entrar no índice.");
+    }
+
+    /**
+     * Indica se o índice está totalmente consistente com o nó "usuarios".
+     * @return {@code true} se nenhuma inconsistência foi encontrada.
+     */
+    public boolean isConsistente() {
+        return ausentes.isEmpty() && divergentes.isEmpty() && orfas.isEmpty() && duplicados.isEmpty()
+                && semLogin.isEmpty();
+    }
+
+    /**
+     * Retorna o número de usuários verificados.
+     * @return O total de usuários.
+     */
+    public int getTotalUsuarios() {
+        return totalUsuarios;
+    }
+
+    /**
+     * Retorna o número de entradas encontradas no índice.
+     * @return O total de entradas.
+     */
+    public int getTotalEntradas() {
+        return totalEntradas;
+    }
+
+    /**
+     * Retorna os usuários que não têm entrada no índice.
+     * @return Uma lista imutável de descrições.
+     */
+    public List<String> getAusentes() {
+        return Collections.unmodifiableList(ausentes);
+    }
+
+    /**
+     * Retorna as entradas que apontam para a matrícula errada.
+     * @return Uma lista imutável de descrições.
+     */
+    public List<String> getDivergentes() {
+        return Collections.unmodifiableList(divergentes);
+    }
+
+    /**
+     * Retorna as entradas do índice sem usuário correspondente.
+     * @return Uma lista imutável de descrições.
+     */
+    public List<String> getOrfas() {
+        return Collections.unmodifiableList(orfas);
+    }
+
+    /**
+     * Retorna os logins usados por mais de uma matrícula.
+     * @return Uma lista imutável de descrições.
+     */
+    public List<String> getDuplicados() {
+        return Collections.unmodifiableList(duplicados);
+    }
+
+    /**
+     * Retorna os usuários gravados sem login.
+     * @return Uma lista imutável de descrições.
+     */
+    public List<String> getSemLogin() {
+        return Collections.unmodifiableList(semLogin);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Usuários: ").append(totalUsuarios).append(" | Entradas no índice: ").append(totalEntradas);
+        if (isConsistente()) {
+            sb.append("\nÍndice de login consistente.");
+        }
+        for (List<String> lista : List.of(ausentes, divergentes, orfas, duplicados, semLogin)) {
+            for (String linha : lista) {
+                sb.append("\n - ").append(linha);
+            }
+        }
+        return sb.toString();
+    }
+}
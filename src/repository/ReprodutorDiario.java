@@ -0,0 +1,190 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.api.core.ApiFuture;
+import database.MonitorConexao;
+
+import excecoes.EstoqueInsuficienteException;
+import excecoes.ProdutoNaoEncontradoException;
+import model.ConflitoEstoque;
+import model.ItemVendaDTO;
+import model.VendaDTO;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread em segundo plano que envia ao Firebase, em ordem, as vendas gravadas no
+ * {@link DiarioVendas}. Enquanto o {@link MonitorConexao} indicar que não há conexão,
+ * o reprodutor apenas aguarda; quando a conexão volta, cada entrada é aplicada em duas
+ * etapas:
+ * <ol>
+ *     <li>A baixa de estoque, pela transação de
+ *     {@link ProdutoRepository#aplicarBaixaUnica(String, int, String)}, uma por produto da
+ *     venda. Se o estoque do servidor ficaria negativo, ou o produto não existe mais, a linha
+ *     é registrada em "conflitos_estoque" em vez de interromper a fila.</li>
+ *     <li>A gravação da venda no nó "vendas", pelo {@link VendaRepository}, enviada sem
+ *     aguardar a janela do buffer.</li>
+ * </ol>
+ * Só depois das duas etapas a entrada é confirmada no diário. Cada etapa aguarda a resposta
+ * do servidor sem tempo limite e só é repetida após uma falha explícita. Cada baixa grava,
+ * na mesma transação, uma marca com o ID da venda no produto; por isso, se a aplicação for
+ * encerrada entre a baixa de estoque e a confirmação, a entrada reenviada na próxima
+ * execução não desconta o estoque de novo. A gravação da venda, por usar o ID como chave,
+ * também não se duplica. As marcas são removidas depois que a entrada é confirmada.
+ *
+ * @see DiarioVendas
+ */
+public class ReprodutorDiario {
+
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+
+    private final DiarioVendas diario;
+    private final ProdutoRepository produtoRepository;
+    private final VendaRepository vendaRepository;
+
+    private volatile boolean ativo = false;
+    private Thread thread;
+
+    /**
+     * Cria o reprodutor para o diário informado.
+     *
+     * @param diario            O diário de onde as vendas serão lidas.
+     * @param produtoRepository O repositório usado para a baixa de estoque.
+     * @param vendaRepository   O repositório usado para gravar as vendas.
+     */
+    public ReprodutorDiario(DiarioVendas diario, ProdutoRepository produtoRepository, VendaRepository vendaRepository) {
+        this.diario = diario;
+        this.produtoRepository = produtoRepository;
+        this.vendaRepository = vendaRepository;
+    }
+
+    /**
+     * Inicia a thread do reprodutor, caso ainda não esteja em execução.
+     */
+    public synchronized void iniciar() {
+        if (ativo) {
+            return;
+        }
+        ativo = true;
+        thread = new Thread(this::executar, "reprodutor-diario-vendas");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Interrompe o reprodutor e aguarda brevemente o fim da entrada em andamento.
+     */
+    public void parar() {
+        Thread atual;
+        synchronized (this) {
+            ativo = false;
+            atual = thread;
+            thread = null;
+        }
+        if (atual == null) {
+            return;
+        }
+        atual.interrupt();
+        try {
+            atual.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void executar() {
+        MonitorConexao monitor = MonitorConexao.getInstancia();
+        long espera = 500;
+        while (ativo) {
+            try {
+                if (!monitor.aguardarConexao(1, TimeUnit.SECONDS)) {
+                    continue;
+                }
+                DiarioVendas.Entrada entrada = diario.aguardarProxima(1, TimeUnit.SECONDS);
+                if (entrada == null) {
+                    continue;
+                }
+                aplicar(entrada);
+                diario.confirmar(entrada.getSequencia());
+                removerMarcas(entrada);
+                espera = 500;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | RuntimeException e) {
+                Throwable causa = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                System.err.println("ERRO: Falha ao enviar venda do diário; nova tentativa em " + espera + " ms: " + causa.getMessage());
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+            }
+        }
+    }
+
+    /**
+     * Aplica uma entrada no Firebase: baixa de estoque (ou registro de conflito) e
+     * gravação da venda.
+     */
+    private void aplicar(DiarioVendas.Entrada entrada) throws InterruptedException, ExecutionException {
+        VendaDTO venda = entrada.getVenda();
+        for (Map.Entry<String, Integer> delta : entrada.getDeltas().entrySet()) {
+            String produtoId = delta.getKey();
+            try {
+                produtoRepository.aplicarBaixaUnica(produtoId, delta.getValue(), venda.getId()).get();
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                if (!(causa instanceof EstoqueInsuficienteException) && !(causa instanceof ProdutoNaoEncontradoException)) {
+                    throw e;
+                }
+                registrarConflito(venda, produtoId, causa.getMessage());
+            }
+        }
+        vendaRepository.salvarSemEspera(venda).get();
+        System.out.println("LOG: Venda " + venda.getId() + " do diário enviada ao Firebase.");
+    }
+
+    /**
+     * Remove as marcas de baixa de uma entrada já confirmada, que não será mais reenviada.
+     * Uma falha apenas deixa as marcas no produto, sem efeito sobre o estoque.
+     */
+    private void removerMarcas(DiarioVendas.Entrada entrada) {
+        String idVenda = entrada.getVenda().getId();
+        ApiFuture<Void> remocao = produtoRepository.removerMarcasBaixa(idVenda, entrada.getDeltas().keySet());
+        remocao.addListener(() -> {
+            try {
+                remocao.get();
+            } catch (Exception e) {
+                System.err.println("ERRO: Falha ao remover as marcas de baixa da venda " + idVenda + ": " + e.getMessage());
+            }
+        }, Runnable::run);
+    }
+
+    /**
+     * Registra em "conflitos_estoque", por {@link VendaRepository#registrarConflito}, a linha
+     * cuja baixa de estoque foi recusada. A chave é a mesma dos conflitos registrados pela
+     * {@link service.VendaService}, de modo que a mesma baixa nunca gera dois registros.
+     */
+    private void registrarConflito(VendaDTO venda, String produtoId, String motivo) throws InterruptedException, ExecutionException {
+        ItemVendaDTO item = venda.linhas().stream()
+                .filter(linha -> produtoId.equals(linha.getIdProduto()))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        ConflitoEstoque conflito = new ConflitoEstoque(venda, item, LocalDateTime.now().toString(), motivo);
+        vendaRepository.registrarConflito(conflito).get();
+        System.err.println("ERRO: Conflito de estoque na venda " + venda.getId() + " (produto "
+                + produtoId + "): " + motivo);
+    }
+}
@@ -0,0 +1,302 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import excecoes.EstoqueInsuficienteException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Registro local das unidades de estoque reservadas por vendas em andamento neste terminal.
+ * Uma reserva é feita quando o caixa informa o produto e a quantidade, e segura as unidades
+ * até a venda ser confirmada, cancelada ou abandonada, de modo que a baixa final não falhe
+ * depois de o cliente já ter pago.
+ * <p>
+ * Cada produto tem um contador próprio, atualizado por compare-and-set; reservas de produtos
+ * diferentes nunca disputam o mesmo bloqueio. As expirações são agendadas em uma
+ * {@link RodaTemporizacao}: uma reserva não confirmada nem renovada dentro do prazo
+ * (propriedade {@code pdv.reservas.ttlSeg}, padrão 900) é liberada automaticamente.
+ * <p>
+ * Na confirmação ({@link #converter(Collection, Supplier)}), as reservas ficam retidas
+ * enquanto a baixa de estoque é feita e só então saem do contador; durante esse intervalo as
+ * unidades são contadas duas vezes, o que pode recusar uma reserva concorrente, mas nunca
+ * vender além do estoque. O registro é local: vendas de outros terminais não o enxergam.
+ *
+ * @see Reserva
+ * @see service.VendaService#reservarAsync(String, int)
+ */
+public class ReservasEstoque {
+
+    /** Prazo padrão de uma reserva, em segundos. */
+    public static final long TTL_PADRAO_SEG = Long.getLong("pdv.reservas.ttlSeg", 900L);
+    /** Duração padrão de um tick da roda de expiração, em milissegundos. */
+    public static final long TICK_PADRAO_MS = Long.getLong("pdv.reservas.tickMs", 1_000L);
+
+    private static final int ATIVA = 0;
+    private static final int CONVERTENDO = 1;
+    private static final int CONVERTIDA = 2;
+    private static final int LIBERADA = 3;
+
+    private static ReservasEstoque padrao;
+
+    private final ConcurrentHashMap<String, AtomicInteger> reservado = new ConcurrentHashMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicInteger ativas = new AtomicInteger();
+    private final long ttlMs;
+    private final long tickMs;
+    private final RodaTemporizacao<Reserva> roda;
+
+    /**
+     * Uma reserva de unidades de um produto. O estado evolui apenas para a frente (ativa,
+     * em conversão, convertida ou liberada), exceto quando uma conversão falha e a reserva
+     * volta a ficar ativa.
+     */
+    public static final class Reserva {
+        private final long id;
+        private final String produtoId;
+        private final int quantidade;
+        private volatile long expiraEm;
+        private final AtomicInteger estado = new AtomicInteger(ATIVA);
+
+        private Reserva(long id, String produtoId, int quantidade, long expiraEm) {
+            this.id = id;
+            this.produtoId = produtoId;
+            this.quantidade = quantidade;
+            this.expiraEm = expiraEm;
+        }
+
+        /**
+         * Retorna o número da reserva, único neste terminal.
+         * @return O ID da reserva.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Retorna o ID do produto reservado.
+         * @return O ID do produto.
+         */
+        public String getProdutoId() {
+            return produtoId;
+        }
+
+        /**
+         * Retorna a quantidade reservada.
+         * @return O número de unidades.
+         */
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        /**
+         * Retorna o instante em que a reserva expira, se não for renovada.
+         * @return O instante, em milissegundos desde a época.
+         */
+        public long getExpiraEm() {
+            return expiraEm;
+        }
+
+        /**
+         * Indica se a reserva ainda segura as unidades e pode ser usada em uma venda.
+         * @return {@code true} se a reserva está ativa.
+         */
+        public boolean isAtiva() {
+            return estado.get() == ATIVA;
+        }
+
+        @Override
+        public String toString() {
+            return "Reserva{id=" + id + ", produto=" + produtoId + ", quantidade=" + quantidade + "}";
+        }
+    }
+
+    /**
+     * Cria um registro de reservas.
+     *
+     * @param ttlMs  O prazo de cada reserva, em milissegundos.
+     * @param tickMs A precisão da expiração, em milissegundos.
+     */
+    public ReservasEstoque(long ttlMs, long tickMs) {
+        this.ttlMs = ttlMs;
+        this.tickMs = tickMs;
+        int slots = (int) Math.min(4096, Math.max(64, 2 * ttlMs / tickMs));
+        this.roda = new RodaTemporizacao<>("reservas-estoque", tickMs, TimeUnit.MILLISECONDS, slots, this::aoVencer);
+    }
+
+    /**
+     * Retorna o registro de reservas compartilhado da aplicação.
+     *
+     * @return A instância padrão de {@link ReservasEstoque}.
+     */
+    public static synchronized ReservasEstoque getPadrao() {
+        if (padrao == null) {
+            padrao = new ReservasEstoque(TimeUnit.SECONDS.toMillis(TTL_PADRAO_SEG), TICK_PADRAO_MS);
+        }
+        return padrao;
+    }
+
+    /**
+     * Reserva unidades de um produto, se houver estoque livre.
+     *
+     * @param produtoId  O ID do produto.
+     * @param quantidade O número de unidades.
+     * @param disponivel O estoque conhecido do produto, já descontadas as vendas confirmadas
+     *                   localmente e ainda não enviadas.
+     * @return A {@link Reserva} criada.
+     * @throws EstoqueInsuficienteException se o estoque livre (disponível menos o já
+     * reservado) não comportar a quantidade.
+     * @throws IllegalArgumentException se a quantidade não for positiva.
+     */
+    public Reserva reservar(String produtoId, int quantidade, int disponivel) throws EstoqueInsuficienteException {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("ERRO: A quantidade reservada deve ser maior que zero.");
+        }
+        AtomicInteger contador = reservado.computeIfAbsent(produtoId, id -> new AtomicInteger());
+        while (true) {
+            int atual = contador.get();
+            int livre = disponivel - atual;
+            if (livre < quantidade) {
+                throw new EstoqueInsuficienteException("ERRO: Estoque insuficiente para o produto: "
+                        + produtoId + " (disponível para venda: " + Math.max(livre, 0) + ")");
+            }
+            if (contador.compareAndSet(atual, atual + quantidade)) {
+                break;
+            }
+        }
+        Reserva reserva = new Reserva(sequencia.incrementAndGet(), produtoId, quantidade, System.currentTimeMillis() + ttlMs);
+        ativas.incrementAndGet();
+        roda.agendar(reserva, ttlMs, TimeUnit.MILLISECONDS);
+        return reserva;
+    }
+
+    /**
+     * Libera uma reserva ativa, devolvendo as unidades ao estoque livre. Liberar uma reserva
+     * já convertida, liberada ou em conversão não tem efeito.
+     *
+     * @param reserva A reserva a ser liberada.
+     * @return {@code true} se a reserva estava ativa e foi liberada.
+     */
+    public boolean liberar(Reserva reserva) {
+        if (!reserva.estado.compareAndSet(ATIVA, LIBERADA)) {
+            return false;
+        }
+        devolver(reserva);
+        return true;
+    }
+
+    /**
+     * Estende o prazo de uma reserva ativa, contado a partir de agora.
+     *
+     * @param reserva A reserva a ser renovada.
+     * @return {@code true} se a reserva estava ativa.
+     */
+    public boolean renovar(Reserva reserva) {
+        if (!reserva.isAtiva()) {
+            return false;
+        }
+        reserva.expiraEm = System.currentTimeMillis() + ttlMs;
+        return true;
+    }
+
+    /**
+     * Converte reservas em baixas de estoque. As reservas são retidas (não expiram nem podem
+     * ser liberadas) enquanto a baixa é executada; se ela for confirmada, saem do contador,
+     * e se falhar, voltam a ficar ativas.
+     *
+     * @param reservas As reservas usadas pela venda.
+     * @param baixa    A operação que faz a baixa de estoque e grava a venda.
+     * @param <T>      O tipo do resultado da baixa.
+     * @return O future da baixa, completado depois de as reservas terem sido atualizadas, ou
+     * falho com {@link EstoqueInsuficienteException} se alguma reserva já não estiver ativa.
+     */
+    public <T> CompletableFuture<T> converter(Collection<Reserva> reservas, Supplier<CompletableFuture<T>> baixa) {
+        List<Reserva> retidas = new ArrayList<>(reservas.size());
+        for (Reserva reserva : reservas) {
+            if (!reserva.estado.compareAndSet(ATIVA, CONVERTENDO)) {
+                for (Reserva retida : retidas) {
+                    retida.estado.set(ATIVA);
+                }
+                return CompletableFuture.failedFuture(new EstoqueInsuficienteException(
+                        "ERRO: A reserva do produto " + reserva.getProdutoId() + " expirou ou já foi usada."));
+            }
+            retidas.add(reserva);
+        }
+        CompletableFuture<T> resultado;
+        try {
+            resultado = baixa.get();
+        } catch (RuntimeException e) {
+            resultado = CompletableFuture.failedFuture(e);
+        }
+        return resultado.whenComplete((valor, erro) -> {
+            for (Reserva reserva : retidas) {
+                if (erro == null) {
+                    reserva.estado.set(CONVERTIDA);
+                    devolver(reserva);
+                } else {
+                    reserva.estado.set(ATIVA);
+                }
+            }
+        });
+    }
+
+    /**
+     * Retorna as unidades de um produto reservadas e ainda não convertidas.
+     *
+     * @param produtoId O ID do produto.
+     * @return A quantidade reservada.
+     */
+    public int getReservado(String produtoId) {
+        AtomicInteger contador = reservado.get(produtoId);
+        return contador == null ? 0 : contador.get();
+    }
+
+    /**
+     * Retorna o número de reservas ativas ou em conversão.
+     * @return O número de reservas abertas.
+     */
+    public int getTotalAbertas() {
+        return ativas.get();
+    }
+
+    private void devolver(Reserva reserva) {
+        reservado.get(reserva.getProdutoId()).addAndGet(-reserva.getQuantidade());
+        ativas.decrementAndGet();
+    }
+
+    /**
+     * Chamado pela roda no fim do prazo agendado. Uma reserva renovada é agendada de novo
+     * para o restante do prazo; uma reserva em conversão é conferida no próximo tick.
+     */
+    private void aoVencer(Reserva reserva) {
+        switch (reserva.estado.get()) {
+            case ATIVA:
+                long restante = reserva.expiraEm - System.currentTimeMillis();
+                if (restante > 0) {
+                    roda.agendar(reserva, restante, TimeUnit.MILLISECONDS);
+                } else if (liberar(reserva)) {
+                    System.out.println("LOG: Reserva de " + reserva.getQuantidade() + " unidade(s) do produto "
+                            + reserva.getProdutoId() + " expirou.");
+                }
+                break;
+            case CONVERTENDO:
+                roda.agendar(reserva, tickMs, TimeUnit.MILLISECONDS);
+                break;
+            default:
+                break;
+        }
+    }
+}
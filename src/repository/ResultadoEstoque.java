@@ -0,0 +1,61 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+/**
+ * Resultado de uma alteração atômica de estoque confirmada pelo Firebase.
+ * Além da quantidade final gravada no servidor, informa quantas vezes a transação
+ * precisou ser executada, o que indica a disputa pelo mesmo produto entre terminais.
+ *
+ * @see ProdutoRepository#alterarEstoque(String, int)
+ */
+public class ResultadoEstoque {
+    private final String produtoId;
+    private final int quantidadeFinal;
+    private final int tentativas;
+
+    /**
+     * Construtor completo do resultado.
+     *
+     * @param produtoId       O ID do produto alterado.
+     * @param quantidadeFinal A quantidade em estoque após a confirmação da transação.
+     * @param tentativas      O número de execuções da transação até a confirmação.
+     */
+    public ResultadoEstoque(String produtoId, int quantidadeFinal, int tentativas) {
+        this.produtoId = produtoId;
+        this.quantidadeFinal = quantidadeFinal;
+        this.tentativas = tentativas;
+    }
+
+    /**
+     * Retorna o ID do produto alterado.
+     * @return O ID do produto.
+     */
+    public String getProdutoId() {
+        return produtoId;
+    }
+
+    /**
+     * Retorna a quantidade em estoque confirmada pelo servidor.
+     * @return A quantidade final.
+     */
+    public int getQuantidadeFinal() {
+        return quantidadeFinal;
+    }
+
+    /**
+     * Retorna quantas vezes a transação foi executada sobre um estoque conhecido. A passada
+     * inicial sem valor em cache, que o Firebase faz antes de ler o servidor, não é contada;
+     * valores maiores que 1 indicam que outro terminal alterou o mesmo estoque durante a
+     * operação.
+     * @return O número de tentativas.
+     */
+    public int getTentativas() {
+        return tentativas;
+    }
+}
@@ -0,0 +1,208 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Agendador de expirações baseado em uma roda de temporização ("hashed timing wheel").
+ * O tempo é dividido em ticks de duração fixa, e cada agendamento é colocado no slot
+ * correspondente ao tick em que vence, com o número de voltas completas que ainda faltam.
+ * Agendar custa O(1) e não depende do número de itens pendentes, o que permite manter
+ * milhares de prazos abertos sem uma fila de prioridade nem um bloqueio global.
+ * <p>
+ * Os agendamentos entram por uma fila sem bloqueio e só a thread da roda mexe nos slots.
+ * A precisão é de um tick: um item vence entre {@code atraso} e {@code atraso + tick}.
+ * A thread é criada no primeiro agendamento e é um daemon.
+ *
+ * @param <T> O tipo dos itens agendados.
+ * @see ReservasEstoque
+ */
+public class RodaTemporizacao<T> {
+
+    private final String nome;
+    private final long tickNanos;
+    private final List<Queue<Agendamento<T>>> slots;
+    private final int mascara;
+    private final Consumer<T> aoExpirar;
+    private final ConcurrentLinkedQueue<Agendamento<T>> novos = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean ativa = false;
+    private Thread thread;
+    private long inicioNanos;
+    private long tickAtual = 0;
+
+    /**
+     * Um item agendado na roda. Cancelar apenas marca o agendamento; a thread da roda o
+     * descarta quando passar pelo seu slot.
+     *
+     * @param <T> O tipo do item.
+     */
+    public static final class Agendamento<T> {
+        private final T item;
+        private final long prazoNanos;
+        private long voltas;
+        private volatile boolean cancelado = false;
+
+        private Agendamento(T item, long prazoNanos) {
+            this.item = item;
+            this.prazoNanos = prazoNanos;
+        }
+
+        /**
+         * Retorna o item agendado.
+         * @return O item.
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Cancela o agendamento; o item não será mais entregue ao expirar.
+         */
+        public void cancelar() {
+            cancelado = true;
+        }
+
+        /**
+         * Indica se o agendamento foi cancelado.
+         * @return {@code true} se cancelado.
+         */
+        public boolean isCancelado() {
+            return cancelado;
+        }
+    }
+
+    /**
+     * Cria a roda, sem iniciar a thread.
+     *
+     * @param nome          O nome da thread da roda.
+     * @param tick          A duração de um tick.
+     * @param unidade       A unidade de {@code tick}.
+     * @param numeroSlots   O número de slots, arredondado para a próxima potência de dois.
+     * @param aoExpirar     A ação executada, na thread da roda, para cada item vencido.
+     * @throws IllegalArgumentException se o tick ou o número de slots não forem positivos.
+     */
+    public RodaTemporizacao(String nome, long tick, TimeUnit unidade, int numeroSlots, Consumer<T> aoExpirar) {
+        if (tick <= 0 || numeroSlots <= 0) {
+            throw new IllegalArgumentException("ERRO: O tick e o número de slots devem ser maiores que zero.");
+        }
+        int tamanho = Integer.highestOneBit(numeroSlots);
+        if (tamanho < numeroSlots) {
+            tamanho <<= 1;
+        }
+        this.nome = nome;
+        this.tickNanos = unidade.toNanos(tick);
+        this.slots = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        this.mascara = tamanho - 1;
+        this.aoExpirar = aoExpirar;
+    }
+
+    /**
+     * Agenda um item para vencer após o atraso informado.
+     *
+     * @param item    O item a ser entregue a {@code aoExpirar}.
+     * @param atraso  O atraso até o vencimento.
+     * @param unidade A unidade de {@code atraso}.
+     * @return O {@link Agendamento}, que pode ser cancelado.
+     */
+    public Agendamento<T> agendar(T item, long atraso, TimeUnit unidade) {
+        iniciar();
+        Agendamento<T> agendamento = new Agendamento<>(item, System.nanoTime() + Math.max(0, unidade.toNanos(atraso)));
+        novos.add(agendamento);
+        return agendamento;
+    }
+
+    private synchronized void iniciar() {
+        if (ativa) {
+            return;
+        }
+        ativa = true;
+        inicioNanos = System.nanoTime();
+        thread = new Thread(this::executar, nome);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Interrompe a thread da roda. Os itens ainda pendentes não são entregues.
+     */
+    public void parar() {
+        Thread atual;
+        synchronized (this) {
+            ativa = false;
+            atual = thread;
+            thread = null;
+        }
+        if (atual != null) {
+            atual.interrupt();
+        }
+    }
+
+    private void executar() {
+        while (ativa) {
+            long proximoTick = inicioNanos + (tickAtual + 1) * tickNanos;
+            long espera = proximoTick - System.nanoTime();
+            if (espera > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            tickAtual++;
+            transferirNovos();
+            processarSlot(slots.get((int) (tickAtual & mascara)));
+        }
+    }
+
+    /**
+     * Coloca os agendamentos recém-chegados nos seus slots. Um prazo já vencido vai para o
+     * slot do tick atual e é entregue nesta mesma passagem.
+     */
+    private void transferirNovos() {
+        Agendamento<T> agendamento;
+        while ((agendamento = novos.poll()) != null) {
+            if (agendamento.cancelado) {
+                continue;
+            }
+            long tickPrazo = Math.max(tickAtual, (agendamento.prazoNanos - inicioNanos + tickNanos - 1) / tickNanos);
+            agendamento.voltas = (tickPrazo - tickAtual) / slots.size();
+            slots.get((int) (tickPrazo & mascara)).add(agendamento);
+        }
+    }
+
+    private void processarSlot(Queue<Agendamento<T>> slot) {
+        Iterator<Agendamento<T>> iterador = slot.iterator();
+        while (iterador.hasNext()) {
+            Agendamento<T> agendamento = iterador.next();
+            if (agendamento.cancelado) {
+                iterador.remove();
+            } else if (agendamento.voltas > 0) {
+                agendamento.voltas--;
+            } else {
+                iterador.remove();
+                try {
+                    aoExpirar.accept(agendamento.item);
+                } catch (RuntimeException e) {
+                    System.err.println("ERRO: Falha ao processar item vencido em " + nome + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
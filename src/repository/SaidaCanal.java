@@ -0,0 +1,192 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Saída de texto em UTF-8 para um arquivo, gravada por um {@link FileChannel} através de um
+ * único buffer direto reaproveitado, opcionalmente comprimida em gzip. O texto é codificado
+ * direto no buffer, sem arrays intermediários, e a compressão lê e escreve buffers diretos,
+ * de modo que gravar gigabytes não gera lixo proporcional ao volume.
+ * <p>
+ * O conteúdo é gravado em um arquivo temporário ao lado do destino e só substitui o destino
+ * em {@link #close()}; se a gravação for abandonada com {@link #descartar()}, o destino não
+ * é alterado.
+ *
+ * @see service.ExportadorVendas
+ */
+public class SaidaCanal implements AutoCloseable {
+
+    /** Tamanho padrão do buffer de gravação, em bytes. */
+    public static final int TAMANHO_BUFFER_PADRAO = 256 * 1024;
+
+    private static final byte[] SEM_ENTRADA = new byte[0];
+    private static final byte[] CABECALHO_GZIP = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final Path destino;
+    private final Path temporario;
+    private final FileChannel canal;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder codificador = StandardCharsets.UTF_8.newEncoder();
+    private final Deflater deflater;
+    private final ByteBuffer comprimido;
+    private final CRC32 crc;
+    private long bytesTexto = 0;
+    private long bytesGravados = 0;
+    private boolean fechada = false;
+
+    /**
+     * Abre a saída.
+     *
+     * @param destino       O arquivo final.
+     * @param gzip          Se o conteúdo deve ser comprimido em gzip.
+     * @param tamanhoBuffer O tamanho do buffer direto, em bytes.
+     * @throws IOException se o arquivo temporário não puder ser criado.
+     */
+    public SaidaCanal(Path destino, boolean gzip, int tamanhoBuffer) throws IOException {
+        this.destino = destino;
+        this.temporario = destino.resolveSibling(destino.getFileName() + ".parcial");
+        this.canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(tamanhoBuffer);
+        if (gzip) {
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            this.comprimido = ByteBuffer.allocateDirect(tamanhoBuffer);
+            this.crc = new CRC32();
+            gravar(ByteBuffer.wrap(CABECALHO_GZIP));
+        } else {
+            this.deflater = null;
+            this.comprimido = null;
+            this.crc = null;
+        }
+    }
+
+    /**
+     * Acrescenta um trecho de texto à saída.
+     *
+     * @param texto O texto, que não deve terminar no meio de um par substituto.
+     * @throws IOException se a gravação falhar.
+     */
+    public void escrever(CharSequence texto) throws IOException {
+        CharBuffer entrada = CharBuffer.wrap(texto);
+        while (true) {
+            CoderResult resultado = codificador.encode(entrada, buffer, false);
+            if (resultado.isUnderflow()) {
+                return;
+            }
+            if (resultado.isOverflow()) {
+                descarregar();
+            } else {
+                resultado.throwException();
+            }
+        }
+    }
+
+    /**
+     * Retorna o número de bytes já gravados no arquivo (comprimidos, se for o caso).
+     * @return Os bytes gravados até o último descarregamento do buffer.
+     */
+    public long getBytesGravados() {
+        return bytesGravados;
+    }
+
+    private void descarregar() throws IOException {
+        buffer.flip();
+        if (deflater == null) {
+            gravar(buffer);
+        } else {
+            bytesTexto += buffer.remaining();
+            crc.update(buffer.duplicate());
+            deflater.setInput(buffer);
+            while (!deflater.needsInput()) {
+                deflater.deflate(comprimido);
+                gravarComprimido();
+            }
+            // O Deflater guarda a referência ao buffer; sem isso, depois do clear() ele
+            // voltaria a ler o conteúdo antigo em finish().
+            deflater.setInput(SEM_ENTRADA);
+        }
+        buffer.clear();
+    }
+
+    private void gravarComprimido() throws IOException {
+        comprimido.flip();
+        gravar(comprimido);
+        comprimido.clear();
+    }
+
+    private void gravar(ByteBuffer dados) throws IOException {
+        while (dados.hasRemaining()) {
+            bytesGravados += canal.write(dados);
+        }
+    }
+
+    /**
+     * Descarrega o buffer, completa o gzip e move o arquivo temporário para o destino.
+     *
+     * @throws IOException se a gravação ou a troca de arquivos falhar; nesse caso o
+     * temporário é removido.
+     */
+    @Override
+    public void close() throws IOException {
+        if (fechada) {
+            return;
+        }
+        fechada = true;
+        try {
+            descarregar();
+            if (deflater != null) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflater.deflate(comprimido);
+                    gravarComprimido();
+                }
+                ByteBuffer rodape = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                rodape.putInt((int) crc.getValue()).putInt((int) bytesTexto).flip();
+                gravar(rodape);
+            }
+            canal.force(false);
+            canal.close();
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            descartar();
+            throw e;
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Abandona a gravação, removendo o arquivo temporário sem alterar o destino.
+     */
+    public void descartar() {
+        fechada = true;
+        try {
+            canal.close();
+            Files.deleteIfExists(temporario);
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao remover o arquivo temporário " + temporario + ": " + e.getMessage());
+        }
+    }
+}
@@ -7,47 +7,116 @@ package repository;
  * Lorena da Silva Borges
  */
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
 import com.google.firebase.database.*;
 import database.FirebaseConfig;
+import database.HistogramaLatencia;
+import database.Metricas;
+import interfaces.Alteracoes;
+import interfaces.IConsulta;
+import interfaces.ICrud;
+import interfaces.IReferencia;
 
 import model.Atendente;
 import model.Gerente;
 import model.Usuario;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Implementação do padrão Repository para a entidade {@link Usuario} e suas subclasses.
  * Esta classe gerencia o acesso aos dados dos usuários no Firebase Realtime Database.
  * Ao buscar um usuário,esta classe determina se ele é um {@link Gerente} ou um {@link Atendente} com base
  * no campo "cargo" armazenado no banco, instanciando o tipo de objeto correto.
+ * <p>
+ * Além do nó "usuarios", o repositório mantém o índice secundário
+ * {@code usuarios_por_login/{usuario} -> matricula}, gravado junto com cada usuário em uma
+ * única atualização multi-caminho. O login passa a ser uma leitura direta de chave no
+ * índice seguida de {@link #buscarPorMatricula(int)}, sem consulta sobre todo o nó.
+ * Só durante a migração de bases antigas ({@link #MIGRACAO_INDICE_LOGIN}) um login ausente
+ * do índice é procurado no nó "usuarios".
  *
+ * @see ICrud
  * @see Usuario
  * @see Gerente
  * @see Atendente
  * @see service.UsuarioService
  */
-public class UsuarioRepository {
+public class UsuarioRepository implements ICrud<Usuario> {
+
+    /**
+     * Nome do nó que guarda o índice de login.
+     */
+    private static final String NO_INDICE_LOGIN = "usuarios_por_login";
+
+    /**
+     * Indica que a base ainda está sendo migrada para o índice de login. Enquanto ligado, um
+     * login sem entrada no índice é procurado por uma consulta sobre o nó "usuarios", e a
+     * entrada encontrada é gravada no índice. Desligado, o índice é a única fonte do login e
+     * uma tentativa com um login inexistente não custa uma varredura do nó.
+     */
+    public static final boolean MIGRACAO_INDICE_LOGIN =
+            Boolean.parseBoolean(System.getProperty("pdv.usuarios.migracaoIndiceLogin", "false"));
+
+    /**
+     * Referência para a raiz do banco, usada nas escritas multi-caminho.
+     */
+    private final IReferencia raiz;
 
     /**
      * Referência para o nó "usuarios" no Firebase Realtime Database.
      */
-    private final DatabaseReference ref;
+    private final IReferencia ref;
+
+    /**
+     * Referência para o nó "usuarios_por_login" no Firebase Realtime Database.
+     */
+    private final IReferencia indiceLogin;
+
+    /**
+     * Leituras de usuário por matrícula em andamento, compartilhadas entre todas as instâncias.
+     */
+    private static final VooUnico<Integer, DataSnapshot> leiturasEmVoo = new VooUnico<>();
+
+    /**
+     * Latências das operações e consultas, de cada chamada até a resposta do servidor
+     * ({@link Metricas}). Uma consulta que usa outra, como a busca por login, que lê o
+     * usuário pela matrícula, registra as duas.
+     */
+    private static final HistogramaLatencia LATENCIA_SALVAR = Metricas.latencia("usuarios.salvar");
+    private static final HistogramaLatencia LATENCIA_BUSCAR = Metricas.latencia("usuarios.buscar");
+    private static final HistogramaLatencia LATENCIA_ATUALIZAR = Metricas.latencia("usuarios.atualizar");
+    private static final HistogramaLatencia LATENCIA_ATUALIZAR_CAMPOS = Metricas.latencia("usuarios.atualizarCampos");
+    private static final HistogramaLatencia LATENCIA_DELETAR = Metricas.latencia("usuarios.deletar");
+    private static final HistogramaLatencia LATENCIA_BUSCAR_POR_USUARIO = Metricas.latencia("usuarios.buscarPorUsuario");
+    private static final HistogramaLatencia LATENCIA_BUSCAR_POR_MATRICULA = Metricas.latencia("usuarios.buscarPorMatricula");
+    private static final HistogramaLatencia LATENCIA_BUSCAR_TODOS = Metricas.latencia("usuarios.buscarTodos");
+    private static final HistogramaLatencia LATENCIA_BUSCAR_PAGINA = Metricas.latencia("usuarios.buscarPagina");
 
     /**
-     * Construtor que inicializa a referência do banco de dados para o nó "usuarios".
+     * Construtor que inicializa a referência do banco de dados para o nó "usuarios"
+     * e para o índice de login.
      */
     public UsuarioRepository() {
-        this.ref = FirebaseConfig.getDatabaseReference().child("usuarios");
+        this.raiz = FirebaseConfig.getReferencia();
+        this.ref = raiz.child("usuarios");
+        this.indiceLogin = raiz.child(NO_INDICE_LOGIN);
     }
 
     /**
      * Busca um usuário de forma assíncrona pelo seu nome de usuário (login).
-     * Este metodo executa uma query no Firebase para encontrar um registro onde o campo
-     * "usuario" corresponda ao parâmetro fornecido. Após encontrar os dados, ele
-     * inspeciona o campo "cargo" para instanciar a subclasse correta de {@link Usuario}.
+     * O metodo lê a entrada do índice {@code usuarios_por_login} e, a partir da matrícula
+     * encontrada, lê o registro do usuário diretamente pela chave. Durante a migração
+     * ({@link #MIGRACAO_INDICE_LOGIN}), se o índice ainda não tiver a entrada ou ela estiver
+     * desatualizada, recorre à consulta pelo campo "usuario" e grava a entrada correta, para
+     * que o próximo login já use o índice; fora dela, o usuário não é encontrado.
      *
      * @param nomeUsuario O nome de usuário (login) a ser procurado.
      * @return Um {@link CompletableFuture} que será completado com a instância de
@@ -55,23 +124,72 @@ public class UsuarioRepository {
      * se nenhum usuário for encontrado.
      */
     public CompletableFuture<Usuario> buscarPorUsuario(String nomeUsuario) {
+        return LATENCIA_BUSCAR_POR_USUARIO.medir(System.nanoTime(), buscarMatriculaNoIndice(nomeUsuario).thenCompose(matricula -> {
+            if (matricula == null) {
+                return MIGRACAO_INDICE_LOGIN
+                        ? buscarPorUsuarioSemIndice(nomeUsuario)
+                        : CompletableFuture.completedFuture(null);
+            }
+            return buscarPorMatricula(matricula).thenCompose(usuario -> {
+                if (usuario != null && nomeUsuario.equals(usuario.getUsuario())) {
+                    return CompletableFuture.completedFuture(usuario);
+                }
+                if (!MIGRACAO_INDICE_LOGIN) {
+                    System.err.println("ERRO: A entrada do índice de login '" + nomeUsuario
+                            + "' aponta para outro usuário; verifique o índice.");
+                    return CompletableFuture.completedFuture(null);
+                }
+                // Entrada desatualizada: confirma pela consulta e corrige o índice.
+                return buscarPorUsuarioSemIndice(nomeUsuario);
+            });
+        }));
+    }
+
+    /**
+     * Lê a matrícula associada a um login no índice {@code usuarios_por_login}.
+     *
+     * @param nomeUsuario O nome de usuário (login).
+     * @return Um {@link CompletableFuture} com a matrícula, ou {@code null} se não houver entrada.
+     */
+    private CompletableFuture<Integer> buscarMatriculaNoIndice(String nomeUsuario) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        indiceLogin.child(chaveLogin(nomeUsuario)).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Long matricula = dataSnapshot.exists() ? dataSnapshot.getValue(Long.class) : null;
+                future.complete(matricula == null ? null : matricula.intValue());
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                future.completeExceptionally(databaseError.toException());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Busca um usuário executando uma query no Firebase para encontrar um registro onde o
+     * campo "usuario" corresponda ao parâmetro fornecido. Usado apenas durante a migração,
+     * quando o índice de login não tem a entrada; se o usuário for encontrado, a entrada é
+     * gravada no índice.
+     *
+     * @param nomeUsuario O nome de usuário (login) a ser procurado.
+     * @return Um {@link CompletableFuture} com o usuário encontrado, ou {@code null}.
+     */
+    private CompletableFuture<Usuario> buscarPorUsuarioSemIndice(String nomeUsuario) {
         CompletableFuture<Usuario> future = new CompletableFuture<>();
 
-        Query query = ref.orderByChild("usuario").equalTo(nomeUsuario);
+        IConsulta query = ref.orderByChild("usuario").equalTo(nomeUsuario);
 
         query.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
                 if (dataSnapshot.exists()) {
                     DataSnapshot userSnapshot = dataSnapshot.getChildren().iterator().next();
-                    String cargo = userSnapshot.child("cargo").getValue(String.class);
-
-                    Usuario usuario = null;
-                    if ("GERENTE".equals(cargo)) {
-                        usuario = userSnapshot.getValue(Gerente.class);
-                    } else {
-                        usuario = userSnapshot.getValue(Atendente.class);
-                    }
+                    Usuario usuario = converter(userSnapshot);
+                    indiceLogin.child(chaveLogin(nomeUsuario)).setValueAsync(usuario.getMatricula());
+                    System.out.println("LOG: Índice de login corrigido para o usuário '" + nomeUsuario + "'.");
                     future.complete(usuario);
                 } else {
                     future.complete(null);
@@ -88,25 +206,26 @@ public class UsuarioRepository {
     }
 
     /**
-     * Busca um usuário diretamente pela sua chave (matrícula).
+     * Busca um usuário diretamente pela sua chave (matrícula). Buscas simultâneas pela mesma
+     * matrícula compartilham uma única leitura no banco ({@link VooUnico}); cada chamador
+     * recebe a sua própria instância de {@link Usuario}.
      * @param matricula A matrícula a ser buscada.
      * @return Um CompletableFuture que será completado com o Usuário, ou null se não existir.
      */
     public CompletableFuture<Usuario> buscarPorMatricula(int matricula) {
-        CompletableFuture<Usuario> future = new CompletableFuture<>();
+        return LATENCIA_BUSCAR_POR_MATRICULA.medir(System.nanoTime(), leiturasEmVoo.executar(matricula, this::ler)
+                .thenApply(snapshot -> snapshot.exists() ? converter(snapshot) : null));
+    }
+
+    /**
+     * Lê o nó do usuário no banco, sem conversão.
+     */
+    private CompletableFuture<DataSnapshot> ler(int matricula) {
+        CompletableFuture<DataSnapshot> future = new CompletableFuture<>();
         ref.child(String.valueOf(matricula)).addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
-                if (dataSnapshot.exists()) {
-                    // Reutiliza a mesma lógica de descobrir o cargo para criar o objeto correto
-                    String cargo = dataSnapshot.child("cargo").getValue(String.class);
-                    Usuario usuario = "GERENTE".equals(cargo)
-                            ? dataSnapshot.getValue(Gerente.class)
-                            : dataSnapshot.getValue(Atendente.class);
-                    future.complete(usuario);
-                } else {
-                    future.complete(null);
-                }
+                future.complete(dataSnapshot);
             }
 
             @Override
@@ -117,11 +236,24 @@ public class UsuarioRepository {
         return future;
     }
 
+    /**
+     * Busca um usuário pela sua chave no nó "usuarios", que é a matrícula em texto.
+     *
+     * @param id A matrícula do usuário.
+     * @return Um CompletableFuture que será completado com o Usuário, ou null se não existir.
+     * @throws NumberFormatException se o ID não for uma matrícula numérica.
+     */
+    @Override
+    public CompletableFuture<Usuario> buscar(String id) {
+        return LATENCIA_BUSCAR.medir(System.nanoTime(), buscarPorMatricula(Integer.parseInt(id)));
+    }
+
     /**
      * Busca todos os usuários (Gerentes e Atendentes) no banco de dados.
      * @return Um CompletableFuture que será completado com uma Lista de Usuários.
      */
     public CompletableFuture<List<Usuario>> buscarTodos() {
+        long inicio = System.nanoTime();
         CompletableFuture<List<Usuario>> future = new CompletableFuture<>();
         ref.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
@@ -129,11 +261,7 @@ public class UsuarioRepository {
                 List<Usuario> usuarios = new ArrayList<>();
                 if (dataSnapshot.exists()) {
                     for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                        String cargo = snapshot.child("cargo").getValue(String.class);
-                        Usuario usuario = "GERENTE".equals(cargo)
-                                ? snapshot.getValue(Gerente.class)
-                                : snapshot.getValue(Atendente.class);
-                        usuarios.add(usuario);
+                        usuarios.add(converter(snapshot));
                     }
                 }
                 future.complete(usuarios);
@@ -144,17 +272,244 @@ public class UsuarioRepository {
                 future.completeExceptionally(databaseError.toException());
             }
         });
-        return future;
+        return LATENCIA_BUSCAR_TODOS.medir(inicio, future);
+    }
+
+    /**
+     * Busca uma página de usuários em ordem de matrícula, sem carregar o nó inteiro.
+     *
+     * @param cursor  A matrícula (chave) do último usuário da página anterior, ou {@code null}
+     *                para a primeira página.
+     * @param tamanho A quantidade máxima de usuários da página.
+     * @return Um CompletableFuture que será completado com a {@link Pagina} de usuários.
+     */
+    public CompletableFuture<Pagina<Usuario>> buscarPagina(String cursor, int tamanho) {
+        return LATENCIA_BUSCAR_PAGINA.medir(System.nanoTime(), Pagina.buscar(ref, cursor, tamanho, UsuarioRepository::converter));
+    }
+
+    /**
+     * Percorre todos os usuários página por página, mantendo apenas uma página em memória.
+     *
+     * @param tamanhoPagina A quantidade de usuários buscada a cada ida ao banco.
+     * @return Um {@link Stream} preguiçoso de usuários em ordem de matrícula.
+     * @see Pagina#transmitir(java.util.function.Function)
+     */
+    public Stream<Usuario> transmitirTodos(int tamanhoPagina) {
+        return Pagina.transmitir(cursor -> buscarPagina(cursor, tamanhoPagina));
     }
 
     /**
      * Salva ou atualiza os dados de um {@link Usuario} no Firebase.
      * A matrícula do usuário é usada como a chave única para o registro no banco de dados.
      * Se um usuário com a mesma matrícula já existir, seus dados serão sobrescritos.
+     * O registro e a entrada do índice de login são gravados juntos em uma única
+     * atualização multi-caminho, de modo que nunca fiquem inconsistentes entre si. O registro
+     * atual é lido antes: se o login mudou, a entrada do login antigo é removida na mesma
+     * atualização.
      *
      * @param usuario O objeto {@link Usuario} (ou uma de suas subclasses) a ser salvo.
+     * @return Um {@link ApiFuture} que é completado quando a gravação termina.
+     */
+    @Override
+    public ApiFuture<Void> salvar(Usuario usuario) {
+        long inicio = System.nanoTime();
+        SettableApiFuture<Void> future = SettableApiFuture.create();
+        buscarPorMatricula(usuario.getMatricula()).whenComplete((anterior, erro) -> {
+            if (erro != null) {
+                future.setException(erro);
+                return;
+            }
+            Map<String, Object> atualizacoes = new HashMap<>();
+            atualizacoes.put("usuarios/" + usuario.getMatricula(), usuario);
+            if (usuario.getUsuario() != null) {
+                atualizacoes.put(NO_INDICE_LOGIN + "/" + chaveLogin(usuario.getUsuario()), usuario.getMatricula());
+            }
+            if (anterior != null && anterior.getUsuario() != null && !anterior.getUsuario().equals(usuario.getUsuario())) {
+                atualizacoes.put(NO_INDICE_LOGIN + "/" + chaveLogin(anterior.getUsuario()), null);
+            }
+            ApiFuture<Void> escrita = raiz.updateChildrenAsync(atualizacoes);
+            escrita.addListener(() -> {
+                try {
+                    future.set(escrita.get());
+                } catch (Exception e) {
+                    future.setException(e instanceof ExecutionException ? e.getCause() : e);
+                }
+            }, Runnable::run);
+        });
+        return LATENCIA_SALVAR.medir(inicio, future);
+    }
+
+    /**
+     * Regrava o usuário completo, junto com sua entrada no índice de login.
+     * Para alterar apenas alguns campos, prefira {@link #atualizarCampos(String, Alteracoes)}.
+     */
+    @Override
+    public ApiFuture<Void> atualizar(Usuario usuario) {
+        return LATENCIA_ATUALIZAR.medir(System.nanoTime(), salvar(usuario));
+    }
+
+    /**
+     * Atualiza somente os campos informados do usuário, em uma única escrita parcial
+     * sobre o nó "usuarios". O login não faz parte dos campos alteráveis, por isso o
+     * índice de login não precisa ser tocado.
+     */
+    @Override
+    public ApiFuture<Void> atualizarCampos(String id, Alteracoes<Usuario> alteracoes) {
+        return LATENCIA_ATUALIZAR_CAMPOS.medir(System.nanoTime(), ref.updateChildrenAsync(alteracoes.paraMapa(id)));
+    }
+
+    /**
+     * Remove o usuário e sua entrada no índice de login em uma única escrita multi-caminho.
+     * O registro é lido antes para descobrir o login; se ele não existir, nada é alterado.
+     */
+    @Override
+    public ApiFuture<Void> deletar(String id) {
+        long inicio = System.nanoTime();
+        SettableApiFuture<Void> future = SettableApiFuture.create();
+        buscar(id).whenComplete((usuario, erro) -> {
+            if (erro != null) {
+                future.setException(erro);
+                return;
+            }
+            if (usuario == null) {
+                future.set(null);
+                return;
+            }
+            Map<String, Object> remocoes = new HashMap<>();
+            remocoes.put("usuarios/" + id, null);
+            if (usuario.getUsuario() != null) {
+                remocoes.put(NO_INDICE_LOGIN + "/" + chaveLogin(usuario.getUsuario()), null);
+            }
+            ApiFuture<Void> escrita = raiz.updateChildrenAsync(remocoes);
+            escrita.addListener(() -> {
+                try {
+                    future.set(escrita.get());
+                } catch (Exception e) {
+                    future.setException(e instanceof ExecutionException ? e.getCause() : e);
+                }
+            }, Runnable::run);
+        });
+        return LATENCIA_DELETAR.medir(inicio, future);
+    }
+
+    /**
+     * Reconstrói todo o índice de login a partir do nó "usuarios". O nó
+     * {@code usuarios_por_login} é substituído por completo, o que também remove entradas
+     * órfãs. Em caso de logins duplicados, prevalece a primeira matrícula encontrada.
+     *
+     * @return Um {@link CompletableFuture} completado com o número de entradas gravadas.
+     */
+    public CompletableFuture<Integer> reconstruirIndiceLogin() {
+        return buscarTodos().thenCompose(usuarios -> {
+            Map<String, Object> indice = new HashMap<>();
+            for (Usuario usuario : usuarios) {
+                if (usuario.getUsuario() == null || usuario.getUsuario().isEmpty()) {
+                    continue;
+                }
+                Object anterior = indice.putIfAbsent(chaveLogin(usuario.getUsuario()), usuario.getMatricula());
+                if (anterior != null) {
+                    System.err.println("ERRO: Login '" + usuario.getUsuario() + "' duplicado nas matrículas "
+                            + anterior + " e " + usuario.getMatricula() + ".");
+                }
+            }
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            ApiFuture<Void> escrita = indiceLogin.setValueAsync(indice);
+            escrita.addListener(() -> {
+                try {
+                    escrita.get();
+                    future.complete(indice.size());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }, Runnable::run);
+            return future;
+        });
+    }
+
+    /**
+     * Compara o índice de login com o nó "usuarios" e aponta as inconsistências
+     * encontradas, sem alterar nenhum dado.
+     *
+     * @return Um {@link CompletableFuture} completado com o {@link RelatorioIndiceLogin}.
+     */
+    public CompletableFuture<RelatorioIndiceLogin> verificarIndiceLogin() {
+        CompletableFuture<Map<String, Long>> indiceFuture = new CompletableFuture<>();
+        indiceLogin.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Map<String, Long> indice = new HashMap<>();
+                for (DataSnapshot entrada : dataSnapshot.getChildren()) {
+                    indice.put(entrada.getKey(), entrada.getValue(Long.class));
+                }
+                indiceFuture.complete(indice);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                indiceFuture.completeExceptionally(databaseError.toException());
+            }
+        });
+
+        return buscarTodos().thenCombine(indiceFuture, (usuarios, indice) -> {
+            RelatorioIndiceLogin relatorio = new RelatorioIndiceLogin(usuarios.size(), indice.size());
+            Map<String, Long> restantes = new HashMap<>(indice);
+            Map<String, Integer> vistos = new HashMap<>();
+            for (Usuario usuario : usuarios) {
+                if (usuario.getUsuario() == null || usuario.getUsuario().isEmpty()) {
+                    relatorio.adicionarSemLogin(usuario.getMatricula());
+                    continue;
+                }
+                String chave = chaveLogin(usuario.getUsuario());
+                Integer outraMatricula = vistos.putIfAbsent(chave, usuario.getMatricula());
+                if (outraMatricula != null) {
+                    relatorio.adicionarDuplicado(usuario.getUsuario(), outraMatricula, usuario.getMatricula());
+                    continue;
+                }
+                Long matriculaIndice = restantes.remove(chave);
+                if (matriculaIndice == null) {
+                    relatorio.adicionarAusente(usuario.getUsuario(), usuario.getMatricula());
+                } else if (matriculaIndice != usuario.getMatricula()) {
+                    relatorio.adicionarDivergente(usuario.getUsuario(), usuario.getMatricula(), matriculaIndice);
+                }
+            }
+            for (Map.Entry<String, Long> orfa : restantes.entrySet()) {
+                relatorio.adicionarOrfa(orfa.getKey(), orfa.getValue());
+            }
+            return relatorio;
+        });
+    }
+
+    /**
+     * Converte um login em uma chave válida do Firebase. Os caracteres que o Firebase não
+     * aceita em chaves ({@code . $ # [ ] /}), o próprio {@code %} e caracteres de controle
+     * são substituídos pelo seu código hexadecimal no formato {@code %XX}.
+     *
+     * @param usuario O nome de usuário (login).
+     * @return A chave correspondente no índice.
+     */
+    static String chaveLogin(String usuario) {
+        StringBuilder chave = new StringBuilder(usuario.length());
+        for (int i = 0; i < usuario.length(); i++) {
+            char c = usuario.charAt(i);
+            if (c == '.' || c == '$' || c == '#' || c == '[' || c == ']' || c == '/' || c == '%' || c < 0x20 || c == 0x7F) {
+                chave.append('%').append(String.format("%02X", (int) c));
+            } else {
+                chave.append(c);
+            }
+        }
+        return chave.toString();
+    }
+
+    /**
+     * Inspeciona o campo "cargo" de um registro para instanciar a subclasse correta de {@link Usuario}.
+     *
+     * @param snapshot O registro do usuário.
+     * @return Um {@link Gerente} ou um {@link Atendente}.
      */
-    public void salvar(Usuario usuario) {
-        ref.child(String.valueOf(usuario.getMatricula())).setValueAsync(usuario);
+    private static Usuario converter(DataSnapshot snapshot) {
+        String cargo = snapshot.child("cargo").getValue(String.class);
+        return "GERENTE".equals(cargo)
+                ? snapshot.getValue(Gerente.class)
+                : snapshot.getValue(Atendente.class);
     }
-}
\ No newline at end of file
+}
@@ -7,17 +7,42 @@ package repository;
  * Lorena da Silva Borges
  */
 
-import com.google.firebase.database.DatabaseReference;
+import com.google.api.core.ApiFuture;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.ValueEventListener;
 import database.FirebaseConfig;
+import database.HistogramaLatencia;
+import database.Metricas;
+import interfaces.IConsulta;
+import interfaces.IReferencia;
 
+import model.ConflitoEstoque;
 import model.Venda;
 import model.VendaDTO;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 /**
  * Implementação do padrão Repository para a entidade {@link Venda}.
  * Sua principal função é receber um objeto de domínio
  * {@link Venda}, convertê-lo para seu respectivo Objeto de Transferência de Dados
  * ({@link VendaDTO}), e então salvá-lo no banco.
+ * As escritas passam por um {@link BufferEscritaVendas}, que agrupa as vendas de uma
+ * janela curta em uma única atualização multi-caminho.
+ * <p>
+ * As leituras são consultas por período sobre o filho {@code timestamp} (milissegundos
+ * desde a época Unix), que deve estar indexado nas regras do banco
+ * ({@code "vendas": {".indexOn": ["timestamp"]}}); assim o servidor devolve apenas as
+ * vendas do intervalo pedido, em vez do nó inteiro.
  *
  * @see Venda
  * @see VendaDTO
@@ -27,24 +52,293 @@ public class VendaRepository {
     /**
      * Referência para o nó "vendas" no Firebase Realtime Database.
      */
-    private DatabaseReference ref;
+    private IReferencia ref;
 
     /**
-     * Construtor que inicializa a referência do banco de dados para o nó "vendas".
+     * Buffer responsável por agrupar as escritas de vendas em lotes.
+     */
+    private final BufferEscritaVendas buffer;
+
+    /**
+     * Tempo entre a entrega de uma venda ao buffer e a confirmação do lote pelo servidor,
+     * incluindo a espera pela janela do lote ({@link Metricas}).
+     */
+    private static final HistogramaLatencia LATENCIA_SALVAR = Metricas.latencia("vendas.salvar");
+
+    /**
+     * Construtor que inicializa a referência do banco de dados para o nó "vendas"
+     * e utiliza o buffer de escrita compartilhado da aplicação.
      */
     public VendaRepository() {
-        this.ref = FirebaseConfig.getDatabaseReference().child("vendas");
+        this(BufferEscritaVendas.getPadrao());
+    }
+
+    /**
+     * Construtor que permite informar um buffer de escrita com configuração própria
+     * de janela e tamanho de lote.
+     *
+     * @param buffer O {@link BufferEscritaVendas} a ser utilizado nas gravações.
+     */
+    public VendaRepository(BufferEscritaVendas buffer) {
+        this.ref = FirebaseConfig.getReferencia().child("vendas");
+        this.buffer = buffer;
     }
+
     /**
-     * Converte uma entidade {@link Venda} em um {@link VendaDTO} e a salva de forma
-     * assíncrona no Firebase.
+     * Converte uma entidade {@link Venda} em um {@link VendaDTO} e a entrega ao buffer
+     * de escrita, que a enviará ao Firebase junto com as demais vendas do mesmo lote.
      * O ID do objeto {@code Venda} é usado como a chave única para o registro no banco.
      * A operação de escrita não bloqueia a execução do programa.
      *
      * @param venda O objeto de domínio {@link Venda} completo que representa a transação a ser salva.
+     * @return Um {@link CompletableFuture} completado quando o lote que contém a venda for
+     * confirmado pelo servidor.
      */
-    public void salvar(Venda venda) {
+    public CompletableFuture<Void> salvar(Venda venda) {
         VendaDTO dto = new VendaDTO(venda);
-        ref.child(venda.getId()).setValueAsync(dto);
+        return salvar(dto);
+    }
+
+    /**
+     * Entrega ao buffer de escrita uma venda já convertida em {@link VendaDTO}, como as
+     * lidas do {@link DiarioVendas} pelo {@link ReprodutorDiario}. Gravar o mesmo DTO mais
+     * de uma vez apenas sobrescreve o registro, pois a chave é o ID da venda.
+     *
+     * @param dto Os dados da venda a serem salvos.
+     * @return Um {@link CompletableFuture} completado quando o lote que contém a venda for
+     * confirmado pelo servidor.
+     */
+    public CompletableFuture<Void> salvar(VendaDTO dto) {
+        return LATENCIA_SALVAR.medir(System.nanoTime(), buffer.adicionar(dto.getId(), dto));
+    }
+
+    /**
+     * Como {@link #salvar(VendaDTO)}, mas envia o lote imediatamente, sem aguardar a janela
+     * do buffer. Usado pelo {@link ReprodutorDiario}, que envia uma venda por vez e aguarda
+     * cada confirmação; com a janela, esvaziar um diário atrasado custaria a janela inteira
+     * por venda.
+     *
+     * @param dto Os dados da venda a serem salvos.
+     * @return O mesmo que {@link #salvar(VendaDTO)}.
+     */
+    public CompletableFuture<Void> salvarSemEspera(VendaDTO dto) {
+        CompletableFuture<Void> gravacao = salvar(dto);
+        buffer.descarregar();
+        return gravacao;
+    }
+
+    /**
+     * Registra em "conflitos_estoque" uma baixa de estoque que precisa ser conferida pelo
+     * gerente. A chave é sempre {@code <idVenda>_<idProduto>}, também em vendas de um só
+     * produto; o {@link ReprodutorDiario} registra os seus conflitos por este mesmo metodo.
+     *
+     * @param conflito O conflito a ser registrado.
+     * @return Um {@link ApiFuture} que indica a conclusão da gravação.
+     */
+    public ApiFuture<Void> registrarConflito(ConflitoEstoque conflito) {
+        return FirebaseConfig.getReferencia().child("conflitos_estoque")
+                .child(conflito.getIdVenda() + "_" + conflito.getIdProduto()).setValueAsync(conflito);
+    }
+
+    /**
+     * Busca as vendas com {@code timestamp} no intervalo {@code [inicio, fim)}.
+     *
+     * @param inicio O início do período, inclusivo, em milissegundos desde a época Unix.
+     * @param fim    O fim do período, exclusivo, em milissegundos desde a época Unix.
+     * @return Um {@link CompletableFuture} completado com as vendas em ordem cronológica.
+     */
+    public CompletableFuture<List<VendaDTO>> buscarPorPeriodo(long inicio, long fim) {
+        if (fim <= inicio) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return consultar(ref.orderByChild("timestamp").startAt(inicio).endAt(fim - 1));
+    }
+
+    /**
+     * Busca as vendas mais recentes.
+     *
+     * @param quantidade O número máximo de vendas a serem retornadas.
+     * @return Um {@link CompletableFuture} completado com as vendas em ordem cronológica,
+     * terminando pela mais recente, ou com {@link IllegalArgumentException} se a quantidade
+     * não for positiva.
+     */
+    public CompletableFuture<List<VendaDTO>> buscarUltimas(int quantidade) {
+        if (quantidade <= 0) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("ERRO: A quantidade de vendas deve ser maior que zero."));
+        }
+        return consultar(ref.orderByChild("timestamp").limitToLast(quantidade));
+    }
+
+    /**
+     * Busca, em ordem cronológica, as vendas registradas depois da posição indicada pelo
+     * cursor. Serve tanto para paginar um período longo quanto para acompanhar as vendas
+     * novas: basta guardar {@link #cursorDe(VendaDTO)} da última venda recebida.
+     * <p>
+     * O cursor tem a forma {@code "timestamp"} ou {@code "timestamp:id"}. Como o Firebase
+     * ordena vendas de mesmo timestamp pela chave, o par identifica uma posição única; a
+     * venda do próprio cursor não é retornada.
+     *
+     * @param cursor  A posição a partir da qual buscar, ou {@code null} para começar da primeira venda.
+     * @param tamanho A quantidade máxima de vendas da página.
+     * @return Um {@link CompletableFuture} completado com a {@link Pagina} lida; o cursor da
+     * página é {@code null} quando não há mais vendas no momento da busca. O future falha com
+     * {@link IllegalArgumentException} se o cursor for inválido ou o tamanho não for positivo.
+     */
+    public CompletableFuture<Pagina<VendaDTO>> buscarDesde(String cursor, int tamanho) {
+        if (tamanho <= 0) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("ERRO: O tamanho da página deve ser maior que zero."));
+        }
+        IConsulta query = ref.orderByChild("timestamp");
+        String chaveCursor = null;
+        if (cursor == null) {
+            query = query.startAt(0).limitToFirst(tamanho + 1);
+        } else {
+            int separador = cursor.indexOf(':');
+            long timestamp;
+            try {
+                timestamp = Long.parseLong(separador < 0 ? cursor : cursor.substring(0, separador));
+            } catch (NumberFormatException e) {
+                return CompletableFuture.failedFuture(
+                        new IllegalArgumentException("ERRO: Cursor de vendas inválido: " + cursor));
+            }
+            if (separador < 0) {
+                query = query.startAt(timestamp).limitToFirst(tamanho + 1);
+            } else {
+                chaveCursor = cursor.substring(separador + 1);
+                query = query.startAt(timestamp, chaveCursor).limitToFirst(tamanho + 2);
+            }
+        }
+
+        String ignorar = chaveCursor;
+        CompletableFuture<Pagina<VendaDTO>> future = new CompletableFuture<>();
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                List<VendaDTO> vendas = new ArrayList<>(tamanho);
+                boolean temMais = false;
+                for (DataSnapshot filho : dataSnapshot.getChildren()) {
+                    if (filho.getKey().equals(ignorar)) {
+                        continue;
+                    }
+                    if (vendas.size() == tamanho) {
+                        temMais = true;
+                        break;
+                    }
+                    vendas.add(filho.getValue(VendaDTO.class));
+                }
+                String proximo = temMais ? cursorDe(vendas.get(vendas.size() - 1)) : null;
+                future.complete(new Pagina<>(vendas, proximo));
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                future.completeExceptionally(databaseError.toException());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Busca uma página de vendas em ordem de chave (ID da venda), sem consultar o índice de
+     * {@code timestamp}. Alcança também as vendas antigas que ainda não têm o campo.
+     *
+     * @param cursor  O ID da última venda da página anterior, ou {@code null} para a primeira página.
+     * @param tamanho A quantidade máxima de vendas da página.
+     * @return Um {@link CompletableFuture} completado com a {@link Pagina} de vendas.
+     */
+    public CompletableFuture<Pagina<VendaDTO>> buscarPagina(String cursor, int tamanho) {
+        return Pagina.buscar(ref, cursor, tamanho, snapshot -> snapshot.getValue(VendaDTO.class));
+    }
+
+    /**
+     * Retorna o cursor que aponta para a posição logo após a venda informada.
+     *
+     * @param venda A última venda já recebida.
+     * @return O cursor a ser usado em {@link #buscarDesde(String, int)}.
+     */
+    public static String cursorDe(VendaDTO venda) {
+        return venda.getTimestamp() + ":" + venda.getId();
+    }
+
+    /**
+     * Preenche o campo {@code timestamp} das vendas gravadas antes de ele existir,
+     * calculando-o a partir de {@code dataHora}. Apenas as vendas sem o campo são lidas,
+     * e a gravação é feita em uma única atualização multi-caminho.
+     *
+     * @return Um {@link CompletableFuture} completado com o número de vendas atualizadas.
+     */
+    public CompletableFuture<Integer> preencherTimestamps() {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        ref.orderByChild("timestamp").endAt((String) null).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Map<String, Object> atualizacoes = new HashMap<>();
+                for (DataSnapshot filho : dataSnapshot.getChildren()) {
+                    if (filho.hasChild("timestamp")) {
+                        continue;
+                    }
+                    String dataHora = filho.child("dataHora").getValue(String.class);
+                    try {
+                        atualizacoes.put(filho.getKey() + "/timestamp", timestampDe(dataHora));
+                    } catch (DateTimeParseException | NullPointerException e) {
+                        System.err.println("ERRO: Venda " + filho.getKey() + " com data inválida: " + dataHora);
+                    }
+                }
+                if (atualizacoes.isEmpty()) {
+                    future.complete(0);
+                    return;
+                }
+                ApiFuture<Void> escrita = ref.updateChildrenAsync(atualizacoes);
+                escrita.addListener(() -> {
+                    try {
+                        escrita.get();
+                        System.out.println("LOG: Timestamp preenchido em " + atualizacoes.size() + " venda(s).");
+                        future.complete(atualizacoes.size());
+                    } catch (Exception e) {
+                        future.completeExceptionally(e instanceof ExecutionException ? e.getCause() : e);
+                    }
+                }, Runnable::run);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                future.completeExceptionally(databaseError.toException());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Converte o {@code dataHora} de uma venda ({@link LocalDateTime#toString()} no fuso do
+     * caixa) em milissegundos desde a época Unix.
+     *
+     * @param dataHora A data e a hora gravadas na venda.
+     * @return O timestamp correspondente no fuso horário do sistema.
+     * @throws DateTimeParseException se o texto não estiver no formato esperado.
+     */
+    static long timestampDe(String dataHora) {
+        return LocalDateTime.parse(dataHora).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private CompletableFuture<List<VendaDTO>> consultar(IConsulta query) {
+        CompletableFuture<List<VendaDTO>> future = new CompletableFuture<>();
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                List<VendaDTO> vendas = new ArrayList<>((int) dataSnapshot.getChildrenCount());
+                for (DataSnapshot filho : dataSnapshot.getChildren()) {
+                    vendas.add(filho.getValue(VendaDTO.class));
+                }
+                future.complete(vendas);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                future.completeExceptionally(databaseError.toException());
+            }
+        });
+        return future;
     }
 }
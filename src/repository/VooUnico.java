@@ -0,0 +1,85 @@
+package repository;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Agrupa chamadas idênticas e simultâneas em uma única operação ("single-flight"). Enquanto a
+ * leitura de uma chave está em andamento, quem pedir a mesma chave recebe o mesmo resultado em
+ * vez de abrir outra ida ao banco. Assim que a operação termina, a chave sai da tabela e o
+ * pedido seguinte faz uma leitura nova; nada é guardado depois disso.
+ * <p>
+ * Cada chamador recebe uma cópia do future compartilhado, de modo que completá-lo ou
+ * cancelá-lo não afeta os demais. O valor em si é o mesmo para todos; por isso os
+ * repositórios compartilham o {@code DataSnapshot} lido, que é imutável, e cada chamador
+ * converte o seu próprio objeto de domínio.
+ *
+ * @param <K> O tipo da chave (normalmente o ID lido).
+ * @param <V> O tipo do resultado da operação.
+ * @see ProdutoRepository#buscar(String)
+ * @see UsuarioRepository#buscarPorMatricula(int)
+ */
+public class VooUnico<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> emVoo = new ConcurrentHashMap<>();
+    private final LongAdder executadas = new LongAdder();
+    private final LongAdder compartilhadas = new LongAdder();
+
+    /**
+     * Executa a operação para a chave, ou se junta à que já estiver em andamento.
+     *
+     * @param chave    A chave da operação.
+     * @param operacao A operação, chamada apenas se não houver outra em voo para a chave.
+     * @return Um {@link CompletableFuture} completado com o resultado compartilhado.
+     */
+    public CompletableFuture<V> executar(K chave, Function<? super K, CompletableFuture<V>> operacao) {
+        CompletableFuture<V> novo = new CompletableFuture<>();
+        CompletableFuture<V> existente = emVoo.putIfAbsent(chave, novo);
+        if (existente != null) {
+            compartilhadas.increment();
+            return existente.copy();
+        }
+        executadas.increment();
+        try {
+            operacao.apply(chave).whenComplete((valor, erro) -> {
+                // Sai da tabela antes de completar, para que quem reagir ao resultado e pedir
+                // a mesma chave de novo faça uma leitura nova.
+                emVoo.remove(chave, novo);
+                if (erro != null) {
+                    novo.completeExceptionally(erro);
+                } else {
+                    novo.complete(valor);
+                }
+            });
+        } catch (RuntimeException e) {
+            emVoo.remove(chave, novo);
+            novo.completeExceptionally(e);
+        }
+        return novo.copy();
+    }
+
+    /**
+     * Retorna quantas operações foram de fato executadas.
+     * @return O número de execuções.
+     */
+    public long getExecutadas() {
+        return executadas.sum();
+    }
+
+    /**
+     * Retorna quantas chamadas aproveitaram uma operação já em andamento.
+     * @return O número de chamadas compartilhadas.
+     */
+    public long getCompartilhadas() {
+        return compartilhadas.sum();
+    }
+}
@@ -0,0 +1,113 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Leituras já feitas durante uma única operação, como uma venda ou uma entrada de estoque.
+ * Quem inicia a operação cria o contexto e o repassa às chamadas de serviço. A primeira
+ * busca de uma entidade vai ao banco, e as seguintes reaproveitam o mesmo resultado.
+ * Quando a própria operação altera a entidade, como na baixa de estoque, o serviço grava no
+ * contexto o valor confirmado pelo servidor. Assim, a releitura no fim da operação também
+ * não precisa de rede.
+ * <p>
+ * O contexto não tem prazo nem limite, e o que ele guarda é a visão da operação. Por isso
+ * deve ser descartado quando ela termina, e não guardado entre operações. Uma leitura que
+ * falha não fica guardada, e pode ser tentada de novo no mesmo contexto.
+ *
+ * @see ProdutoService#buscarProdutoAsync(String, ContextoLeitura)
+ * @see VendaService#registrarVendaAsync(model.Usuario, repository.ReservasEstoque.Reserva, model.FormaPagamento, double, ContextoLeitura)
+ */
+public class ContextoLeitura {
+
+    private final Map<String, CompletableFuture<?>> lidos = new ConcurrentHashMap<>();
+    private final AtomicInteger leituras = new AtomicInteger();
+    private final AtomicInteger reaproveitadas = new AtomicInteger();
+
+    /**
+     * Retorna a leitura já feita da entidade neste contexto ou, se não houver, inicia a leitura
+     * e a guarda.
+     *
+     * @param tipo    A classe da entidade, que separa IDs iguais de tipos diferentes.
+     * @param id      O ID da entidade.
+     * @param leitura A leitura a ser feita se a entidade ainda não foi lida.
+     * @param <T>     O tipo da entidade.
+     * @return O {@link CompletableFuture} compartilhado da leitura.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> obter(Class<T> tipo, String id, Supplier<CompletableFuture<T>> leitura) {
+        String chave = chave(tipo, id);
+        CompletableFuture<?> existente = lidos.get(chave);
+        if (existente != null) {
+            reaproveitadas.incrementAndGet();
+            return (CompletableFuture<T>) existente;
+        }
+        CompletableFuture<T> nova = new CompletableFuture<>();
+        existente = lidos.putIfAbsent(chave, nova);
+        if (existente != null) {
+            reaproveitadas.incrementAndGet();
+            return (CompletableFuture<T>) existente;
+        }
+        leituras.incrementAndGet();
+        leitura.get().whenComplete((valor, erro) -> {
+            if (erro != null) {
+                lidos.remove(chave, nova);
+                nova.completeExceptionally(erro);
+            } else {
+                nova.complete(valor);
+            }
+        });
+        return nova;
+    }
+
+    /**
+     * Substitui a entidade guardada pelo resultado de {@code alteracao}, se ela já foi lida com
+     * sucesso neste contexto. Usado para refletir uma alteração confirmada pelo servidor.
+     *
+     * @param tipo      A classe da entidade.
+     * @param id        O ID da entidade.
+     * @param alteracao Recebe a entidade guardada e devolve a nova; não deve alterar a recebida.
+     * @param <T>       O tipo da entidade.
+     */
+    @SuppressWarnings("unchecked")
+    <T> void atualizar(Class<T> tipo, String id, UnaryOperator<T> alteracao) {
+        lidos.computeIfPresent(chave(tipo, id), (chave, lido) -> {
+            if (!lido.isDone() || lido.isCompletedExceptionally()) {
+                return lido;
+            }
+            T atual = ((CompletableFuture<T>) lido).join();
+            return atual == null ? lido : CompletableFuture.completedFuture(alteracao.apply(atual));
+        });
+    }
+
+    /**
+     * Retorna quantas leituras foram de fato iniciadas neste contexto.
+     * @return O número de leituras.
+     */
+    public int getLeituras() {
+        return leituras.get();
+    }
+
+    /**
+     * Retorna quantas buscas foram atendidas por uma leitura já feita neste contexto.
+     * @return O número de buscas reaproveitadas.
+     */
+    public int getReaproveitadas() {
+        return reaproveitadas.get();
+    }
+
+    private static String chave(Class<?> tipo, String id) {
+        return tipo.getName() + '/' + id;
+    }
+}
@@ -0,0 +1,97 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.Usuario;
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * Calibra o fator de custo do BCrypt para o hardware em que o sistema está rodando.
+ * <p>
+ * Cada unidade a mais no fator de custo dobra o tempo de verificação de uma senha. Em vez de
+ * fixar o custo, o sistema mede quanto tempo um hash leva nesta máquina e escolhe o custo
+ * cuja verificação fica mais próxima de um tempo alvo, nunca abaixo de {@link #CUSTO_MINIMO}.
+ * O resultado é aplicado em {@link Usuario#setCustoSenha(int)}; as senhas gravadas com custo
+ * menor são regravadas no próximo login (veja {@link UsuarioService#autenticarAsync}), e as
+ * gravadas com custo maior, por um terminal mais rápido, são mantidas.
+ * <p>
+ * Propriedades de sistema:
+ * <ul>
+ *     <li>{@code pdv.senha.custo}: usa este custo, sem calibrar;</li>
+ *     <li>{@code pdv.senha.alvoMs}: tempo alvo da verificação (padrão {@value #ALVO_PADRAO_MS} ms).</li>
+ * </ul>
+ */
+public final class CustoSenha {
+    /** Menor custo aceito, mesmo em máquinas lentas. */
+    public static final int CUSTO_MINIMO = 10;
+    /** Maior custo escolhido pela calibração, para limitar o tempo de login. */
+    public static final int CUSTO_MAXIMO = 16;
+    /** Tempo alvo padrão de uma verificação de senha, em milissegundos. */
+    public static final long ALVO_PADRAO_MS = 100;
+
+    /** Custo usado nas medições; baixo o bastante para a calibração levar poucos milissegundos. */
+    private static final int CUSTO_MEDICAO = 6;
+    private static final int MEDICOES = 3;
+
+    private static boolean configurado = false;
+
+    private CustoSenha() {
+    }
+
+    /**
+     * Configura o custo dos novos hashes de senha na primeira chamada, a partir das
+     * propriedades de sistema ou da calibração; as chamadas seguintes apenas retornam o custo.
+     *
+     * @return O fator de custo em uso.
+     */
+    public static synchronized int configurar() {
+        if (!configurado) {
+            String fixo = System.getProperty("pdv.senha.custo");
+            int custo;
+            if (fixo != null) {
+                custo = Integer.parseInt(fixo.trim());
+                System.out.println("LOG: Custo do BCrypt definido por propriedade: " + custo + ".");
+            } else {
+                long alvoMs = Long.getLong("pdv.senha.alvoMs", ALVO_PADRAO_MS);
+                custo = calibrar(alvoMs);
+                System.out.println("LOG: Custo do BCrypt calibrado para " + custo + " (alvo de " + alvoMs + " ms por verificação).");
+            }
+            Usuario.setCustoSenha(custo);
+            configurado = true;
+        }
+        return Usuario.getCustoSenha();
+    }
+
+    /**
+     * Mede o tempo de um hash nesta máquina e estima o custo cuja verificação fica mais
+     * próxima do tempo alvo. A medição usa um custo baixo e extrapola, pois o tempo dobra a
+     * cada unidade de custo; a menor de algumas medições descarta pausas do coletor de lixo.
+     *
+     * @param alvoMs O tempo alvo de uma verificação, em milissegundos.
+     * @return O custo estimado, entre {@link #CUSTO_MINIMO} e {@link #CUSTO_MAXIMO}.
+     */
+    public static int calibrar(long alvoMs) {
+        String sal = BCrypt.gensalt(CUSTO_MEDICAO);
+        long menorNanos = Long.MAX_VALUE;
+        for (int i = 0; i < MEDICOES; i++) {
+            long inicio = System.nanoTime();
+            BCrypt.hashpw("calibracao", sal);
+            menorNanos = Math.min(menorNanos, System.nanoTime() - inicio);
+        }
+
+        double alvoNanos = alvoMs * 1_000_000.0;
+        double estimado = menorNanos * Math.pow(2, CUSTO_MINIMO - CUSTO_MEDICAO);
+        int custo = CUSTO_MINIMO;
+        // Sobe enquanto o próximo custo ficar mais perto do alvo (em escala logarítmica).
+        while (custo < CUSTO_MAXIMO && Math.abs(Math.log(estimado * 2 / alvoNanos)) < Math.abs(Math.log(estimado / alvoNanos))) {
+            estimado *= 2;
+            custo++;
+        }
+        return custo;
+    }
+}
@@ -0,0 +1,356 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import excecoes.ProdutoNaoEncontradoException;
+import model.ItemVendaDTO;
+import model.Usuario;
+import model.VendaDTO;
+import repository.Pagina;
+import repository.SaidaCanal;
+import repository.UsuarioRepository;
+import repository.VendaRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Exporta o histórico de vendas para um arquivo CSV ou JSON Lines, com uma linha por
+ * produto vendido, opcionalmente comprimido em gzip.
+ * <p>
+ * As vendas são lidas em páginas de {@code pdv.exportacao.tamanhoPagina} registros (padrão
+ * 1000), por período (índice de {@code timestamp}) ou pela chave (todo o histórico). A
+ * página seguinte é pedida antes de a atual ser gravada, de modo que no máximo duas páginas
+ * ficam em memória e a leitura do banco se sobrepõe à escrita do arquivo. As linhas são
+ * montadas em um único {@link StringBuilder} e gravadas por uma {@link SaidaCanal}; a
+ * memória usada não depende do tamanho do período exportado.
+ * <p>
+ * O nome do produto e o nome do caixa vêm de caches da própria exportação: a cada página,
+ * apenas os IDs e matrículas ainda não vistos são buscados, todos em paralelo. Produtos e
+ * usuários já removidos saem com o nome vazio. Os caches tornam a instância de uso único:
+ * cada exportação deve usar um exportador novo.
+ *
+ * @see VendaService#exportarVendasAsync(Path, java.time.LocalDateTime, java.time.LocalDateTime, Formato, boolean)
+ * @see ResumoExportacao
+ */
+public class ExportadorVendas {
+
+    /** Quantidade padrão de vendas lidas a cada ida ao banco. */
+    public static final int TAMANHO_PAGINA_PADRAO = Integer.getInteger("pdv.exportacao.tamanhoPagina", 1000);
+
+    /**
+     * O formato do arquivo exportado.
+     */
+    public enum Formato {
+        /** Valores separados por vírgula, com cabeçalho. */
+        CSV,
+        /** Um objeto JSON por linha. */
+        JSONL
+    }
+
+    private static final String CABECALHO_CSV = "id_venda,data_hora,matricula,caixa,forma_pagamento,"
+            + "id_produto,produto,quantidade,preco_unitario,desconto,valor_linha,valor_venda\n";
+
+    private final VendaRepository vendaRepository;
+    private final ProdutoService produtoService;
+    private final UsuarioRepository usuarioRepository;
+    private final int tamanhoPagina;
+
+    private final Map<String, String> nomesProduto = new HashMap<>();
+    private final Map<Integer, String> nomesCaixa = new HashMap<>();
+    private final StringBuilder linha = new StringBuilder(256);
+
+    /**
+     * Cria um exportador com o tamanho de página padrão.
+     *
+     * @param vendaRepository   O repositório de onde as vendas são lidas.
+     * @param produtoService    O serviço usado para buscar o nome dos produtos.
+     * @param usuarioRepository O repositório usado para buscar o nome dos caixas.
+     */
+    public ExportadorVendas(VendaRepository vendaRepository, ProdutoService produtoService, UsuarioRepository usuarioRepository) {
+        this(vendaRepository, produtoService, usuarioRepository, TAMANHO_PAGINA_PADRAO);
+    }
+
+    /**
+     * Cria um exportador com um tamanho de página próprio.
+     *
+     * @param vendaRepository   O repositório de onde as vendas são lidas.
+     * @param produtoService    O serviço usado para buscar o nome dos produtos.
+     * @param usuarioRepository O repositório usado para buscar o nome dos caixas.
+     * @param tamanhoPagina     A quantidade de vendas lidas a cada ida ao banco.
+     * @throws IllegalArgumentException se o tamanho da página não for positivo.
+     */
+    public ExportadorVendas(VendaRepository vendaRepository, ProdutoService produtoService,
+                            UsuarioRepository usuarioRepository, int tamanhoPagina) {
+        if (tamanhoPagina <= 0) {
+            throw new IllegalArgumentException("ERRO: O tamanho da página deve ser maior que zero.");
+        }
+        this.vendaRepository = vendaRepository;
+        this.produtoService = produtoService;
+        this.usuarioRepository = usuarioRepository;
+        this.tamanhoPagina = tamanhoPagina;
+    }
+
+    /**
+     * Exporta as vendas com {@code timestamp} no intervalo {@code [inicio, fim)}, em ordem
+     * cronológica. Bloqueia a thread chamadora até o arquivo estar completo.
+     *
+     * @param destino O arquivo a ser gerado; só é substituído se a exportação terminar.
+     * @param inicio  O início do período, inclusivo, em milissegundos desde a época Unix.
+     * @param fim     O fim do período, exclusivo, em milissegundos desde a época Unix.
+     * @param formato O formato do arquivo.
+     * @param gzip    Se o arquivo deve ser comprimido em gzip.
+     * @return O {@link ResumoExportacao}.
+     * @throws UncheckedIOException se o arquivo não puder ser gravado.
+     */
+    public ResumoExportacao exportarPeriodo(Path destino, long inicio, long fim, Formato formato, boolean gzip) {
+        return exportar(destino, formato, gzip, cursor -> vendaRepository.buscarDesde(cursor, tamanhoPagina),
+                String.valueOf(inicio), fim);
+    }
+
+    /**
+     * Exporta todas as vendas, em ordem de chave, inclusive as que ainda não têm
+     * {@code timestamp}. Bloqueia a thread chamadora até o arquivo estar completo.
+     *
+     * @param destino O arquivo a ser gerado; só é substituído se a exportação terminar.
+     * @param formato O formato do arquivo.
+     * @param gzip    Se o arquivo deve ser comprimido em gzip.
+     * @return O {@link ResumoExportacao}.
+     * @throws UncheckedIOException se o arquivo não puder ser gravado.
+     */
+    public ResumoExportacao exportarTodas(Path destino, Formato formato, boolean gzip) {
+        return exportar(destino, formato, gzip, cursor -> vendaRepository.buscarPagina(cursor, tamanhoPagina),
+                null, Long.MAX_VALUE);
+    }
+
+    private ResumoExportacao exportar(Path destino, Formato formato, boolean gzip,
+                                      Function<String, CompletableFuture<Pagina<VendaDTO>>> buscar,
+                                      String cursorInicial, long fim) {
+        long inicioMs = System.currentTimeMillis();
+        long vendas = 0;
+        long linhas = 0;
+        SaidaCanal saida;
+        try {
+            saida = new SaidaCanal(destino, gzip, SaidaCanal.TAMANHO_BUFFER_PADRAO);
+        } catch (IOException e) {
+            throw new UncheckedIOException("ERRO: Não foi possível criar o arquivo " + destino + ".", e);
+        }
+        try {
+            if (formato == Formato.CSV) {
+                saida.escrever(CABECALHO_CSV);
+            }
+            CompletableFuture<Pagina<VendaDTO>> pendente = buscar.apply(cursorInicial);
+            while (pendente != null) {
+                Pagina<VendaDTO> pagina = Futuros.aguardar(pendente, RuntimeException.class);
+                List<VendaDTO> itens = pagina.getItens();
+                boolean passouDoFim = !itens.isEmpty() && itens.get(itens.size() - 1).getTimestamp() >= fim;
+                pendente = pagina.temProxima() && !passouDoFim ? buscar.apply(pagina.getProximoCursor()) : null;
+
+                resolverNomes(itens);
+                for (VendaDTO venda : itens) {
+                    if (venda.getTimestamp() >= fim) {
+                        break;
+                    }
+                    for (ItemVendaDTO item : venda.linhas()) {
+                        if (formato == Formato.CSV) {
+                            montarCsv(venda, item);
+                        } else {
+                            montarJson(venda, item);
+                        }
+                        saida.escrever(linha);
+                        linhas++;
+                    }
+                    vendas++;
+                }
+            }
+            saida.close();
+        } catch (IOException e) {
+            saida.descartar();
+            throw new UncheckedIOException("ERRO: Falha ao gravar o arquivo " + destino + ".", e);
+        } catch (RuntimeException e) {
+            saida.descartar();
+            throw e;
+        }
+        ResumoExportacao resumo = new ResumoExportacao(destino, vendas, linhas, saida.getBytesGravados(),
+                System.currentTimeMillis() - inicioMs);
+        System.out.println("LOG: Exportação de vendas concluída: " + resumo);
+        return resumo;
+    }
+
+    /**
+     * Busca, em paralelo, o nome dos produtos e dos caixas da página que ainda não estão
+     * nos caches, e aguarda todas as respostas.
+     */
+    private void resolverNomes(List<VendaDTO> vendas) {
+        Set<String> produtos = new LinkedHashSet<>();
+        Set<Integer> caixas = new LinkedHashSet<>();
+        for (VendaDTO venda : vendas) {
+            if (!nomesCaixa.containsKey(venda.getMatriculaUsuario())) {
+                caixas.add(venda.getMatriculaUsuario());
+            }
+            for (ItemVendaDTO item : venda.linhas()) {
+                if (item.getIdProduto() != null && !nomesProduto.containsKey(item.getIdProduto())) {
+                    produtos.add(item.getIdProduto());
+                }
+            }
+        }
+        if (produtos.isEmpty() && caixas.isEmpty()) {
+            return;
+        }
+
+        List<String> idsProduto = new ArrayList<>(produtos);
+        List<CompletableFuture<String>> buscasProduto = new ArrayList<>(idsProduto.size());
+        for (String id : idsProduto) {
+            buscasProduto.add(produtoService.buscarProdutoAsync(id).handle((produto, erro) -> {
+                if (erro == null) {
+                    return produto.getNome();
+                }
+                if (Futuros.causa(erro) instanceof ProdutoNaoEncontradoException) {
+                    return "";
+                }
+                throw new CompletionException(Futuros.causa(erro));
+            }));
+        }
+        List<Integer> matriculas = new ArrayList<>(caixas);
+        List<CompletableFuture<String>> buscasCaixa = new ArrayList<>(matriculas.size());
+        for (Integer matricula : matriculas) {
+            buscasCaixa.add(Futuros.traduzir(usuarioRepository.buscarPorMatricula(matricula), "ERRO: Erro ao buscar o caixa da venda.")
+                    .thenApply(usuario -> usuario == null ? "" : nomeDe(usuario)));
+        }
+
+        List<CompletableFuture<String>> todas = new ArrayList<>(buscasProduto);
+        todas.addAll(buscasCaixa);
+        Futuros.aguardar(CompletableFuture.allOf(todas.toArray(new CompletableFuture<?>[0])), RuntimeException.class);
+        for (int i = 0; i < idsProduto.size(); i++) {
+            nomesProduto.put(idsProduto.get(i), buscasProduto.get(i).join());
+        }
+        for (int i = 0; i < matriculas.size(); i++) {
+            nomesCaixa.put(matriculas.get(i), buscasCaixa.get(i).join());
+        }
+    }
+
+    private static String nomeDe(Usuario usuario) {
+        return usuario.getNome() == null ? "" : usuario.getNome();
+    }
+
+    private void montarCsv(VendaDTO venda, ItemVendaDTO item) {
+        linha.setLength(0);
+        campoCsv(venda.getId()).append(',');
+        campoCsv(venda.getDataHora()).append(',');
+        linha.append(venda.getMatriculaUsuario()).append(',');
+        campoCsv(nomesCaixa.get(venda.getMatriculaUsuario())).append(',');
+        campoCsv(venda.getFormaPagamento()).append(',');
+        campoCsv(item.getIdProduto()).append(',');
+        campoCsv(nomesProduto.get(item.getIdProduto())).append(',');
+        linha.append(item.getQuantidade()).append(',');
+        decimal(item.getPrecoUnitario()).append(',');
+        decimal(item.getDesconto()).append(',');
+        decimal(item.getValorTotal()).append(',');
+        decimal(venda.getValorTotal()).append('\n');
+    }
+
+    private void montarJson(VendaDTO venda, ItemVendaDTO item) {
+        linha.setLength(0);
+        linha.append("{\"idVenda\":");
+        textoJson(venda.getId()).append(",\"dataHora\":");
+        textoJson(venda.getDataHora()).append(",\"matricula\":").append(venda.getMatriculaUsuario()).append(",\"caixa\":");
+        textoJson(nomesCaixa.get(venda.getMatriculaUsuario())).append(",\"formaPagamento\":");
+        textoJson(venda.getFormaPagamento()).append(",\"idProduto\":");
+        textoJson(item.getIdProduto()).append(",\"produto\":");
+        textoJson(nomesProduto.get(item.getIdProduto())).append(",\"quantidade\":").append(item.getQuantidade())
+                .append(",\"precoUnitario\":");
+        decimal(item.getPrecoUnitario()).append(",\"desconto\":");
+        decimal(item.getDesconto()).append(",\"valorLinha\":");
+        decimal(item.getValorTotal()).append(",\"valorVenda\":");
+        decimal(venda.getValorTotal()).append("}\n");
+    }
+
+    /**
+     * Acrescenta um valor em reais com duas casas decimais, sem passar por {@code String.format}.
+     */
+    private StringBuilder decimal(double valor) {
+        long centavos = Math.round(valor * 100);
+        if (centavos < 0) {
+            linha.append('-');
+            centavos = -centavos;
+        }
+        long resto = centavos % 100;
+        linha.append(centavos / 100).append('.');
+        if (resto < 10) {
+            linha.append('0');
+        }
+        return linha.append(resto);
+    }
+
+    private StringBuilder campoCsv(String valor) {
+        if (valor == null) {
+            return linha;
+        }
+        boolean aspas = false;
+        for (int i = 0; i < valor.length() && !aspas; i++) {
+            char c = valor.charAt(i);
+            aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!aspas) {
+            return linha.append(valor);
+        }
+        linha.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                linha.append('"');
+            }
+            linha.append(c);
+        }
+        return linha.append('"');
+    }
+
+    private StringBuilder textoJson(String valor) {
+        if (valor == null) {
+            return linha.append("null");
+        }
+        linha.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    linha.append("\\\"");
+                    break;
+                case '\\':
+                    linha.append("\\\\");
+                    break;
+                case '\n':
+                    linha.append("\\n");
+                    break;
+                case '\r':
+                    linha.append("\\r");
+                    break;
+                case '\t':
+                    linha.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        linha.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xf, 16));
+                    } else {
+                        linha.append(c);
+                    }
+            }
+        }
+        return linha.append('"');
+    }
+}
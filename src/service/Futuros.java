@@ -0,0 +1,175 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import com.google.api.core.ApiFuture;
+
+import excecoes.AcessoNegadoException;
+import excecoes.AutenticacaoException;
+import excecoes.EstoqueInsuficienteException;
+import excecoes.PersistenciaException;
+import excecoes.ProdutoNaoEncontradoException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Utilitários para compor e aguardar os {@link CompletableFuture} da camada de serviço.
+ * <p>
+ * Os métodos assíncronos dos serviços completam seus futures com as exceções de negócio
+ * do pacote {@code excecoes} (por exemplo {@link ProdutoNaoEncontradoException}) ou com
+ * {@link PersistenciaException} quando a falha vem do banco de dados. Os métodos
+ * bloqueantes, usados pelo menu de console, apenas aguardam esses futures com
+ * {@link #aguardar(CompletableFuture, Class)}, que relança a exceção original.
+ *
+ * @see ProdutoService
+ * @see UsuarioService
+ * @see VendaService
+ */
+public final class Futuros {
+
+    /** Tempo máximo, em milissegundos, que uma chamada bloqueante aguarda o banco de dados. */
+    public static final long TEMPO_LIMITE_MS = Long.getLong("pdv.servicos.tempoLimiteMs", 15_000L);
+
+    private Futuros() {
+    }
+
+    /**
+     * Remove os invólucros {@link CompletionException} e {@link ExecutionException}
+     * adicionados pela composição de futures, retornando a exceção original.
+     *
+     * @param erro A exceção recebida em um estágio do future.
+     * @return A causa original da falha.
+     */
+    public static Throwable causa(Throwable erro) {
+        Throwable atual = erro;
+        while ((atual instanceof CompletionException || atual instanceof ExecutionException) && atual.getCause() != null) {
+            atual = atual.getCause();
+        }
+        return atual;
+    }
+
+    /**
+     * Converte um {@link ApiFuture} do Firebase em um {@link CompletableFuture}.
+     *
+     * @param future O future retornado pelo SDK do Firebase.
+     * @param <T>    O tipo do resultado.
+     * @return Um {@link CompletableFuture} completado com o mesmo resultado ou a mesma falha.
+     */
+    public static <T> CompletableFuture<T> de(ApiFuture<T> future) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        future.addListener(() -> {
+            try {
+                resultado.complete(future.get());
+            } catch (ExecutionException e) {
+                resultado.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                resultado.completeExceptionally(e);
+            }
+        }, Runnable::run);
+        return resultado;
+    }
+
+    /**
+     * Garante que falhas técnicas de um future cheguem ao chamador como
+     * {@link PersistenciaException}, preservando as exceções de negócio.
+     *
+     * @param future   O future a ser observado.
+     * @param mensagem A mensagem usada caso a falha precise ser convertida.
+     * @param <T>      O tipo do resultado.
+     * @return Um future com o mesmo resultado e a falha já traduzida.
+     */
+    public static <T> CompletableFuture<T> traduzir(CompletableFuture<T> future, String mensagem) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        future.whenComplete((valor, erro) -> {
+            if (erro == null) {
+                resultado.complete(valor);
+                return;
+            }
+            Throwable causa = causa(erro);
+            resultado.completeExceptionally(isFalhaDeNegocio(causa) ? causa : new PersistenciaException(mensagem, causa));
+        });
+        return resultado;
+    }
+
+    /**
+     * Aguarda um future da camada de serviço, relançando a exceção de negócio esperada.
+     *
+     * @param future O future a ser aguardado.
+     * @param tipo   A exceção verificada que o chamador trata.
+     * @param <T>    O tipo do resultado.
+     * @param <E>    O tipo da exceção verificada.
+     * @return O resultado do future.
+     * @throws E se o future falhar com essa exceção.
+     * @throws PersistenciaException se o banco não responder dentro de {@link #TEMPO_LIMITE_MS}
+     * ou falhar por um motivo técnico.
+     */
+    public static <T, E extends Exception> T aguardar(CompletableFuture<T> future, Class<E> tipo) throws E {
+        return aguardar(future, tipo, tipo);
+    }
+
+    /**
+     * Aguarda um future da camada de serviço, relançando uma das duas exceções de negócio esperadas.
+     *
+     * @param future O future a ser aguardado.
+     * @param tipo1  A primeira exceção verificada que o chamador trata.
+     * @param tipo2  A segunda exceção verificada que o chamador trata.
+     * @param <T>    O tipo do resultado.
+     * @param <E1>   O tipo da primeira exceção.
+     * @param <E2>   O tipo da segunda exceção.
+     * @return O resultado do future.
+     * @throws E1 se o future falhar com a primeira exceção.
+     * @throws E2 se o future falhar com a segunda exceção.
+     * @throws PersistenciaException se o banco não responder dentro de {@link #TEMPO_LIMITE_MS}
+     * ou falhar por um motivo técnico.
+     */
+    public static <T, E1 extends Exception, E2 extends Exception> T aguardar(CompletableFuture<T> future,
+                                                                             Class<E1> tipo1, Class<E2> tipo2) throws E1, E2 {
+        try {
+            return future.get(TEMPO_LIMITE_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenciaException("ERRO: Operação interrompida enquanto aguardava o banco de dados.", e);
+        } catch (TimeoutException e) {
+            throw new PersistenciaException("ERRO: O banco de dados não respondeu em " + TEMPO_LIMITE_MS + " ms.", e);
+        } catch (ExecutionException e) {
+            Throwable causa = causa(e);
+            if (tipo1.isInstance(causa)) {
+                throw tipo1.cast(causa);
+            }
+            if (tipo2.isInstance(causa)) {
+                throw tipo2.cast(causa);
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw new PersistenciaException("ERRO: Falha inesperada na operação.", causa);
+        }
+    }
+
+    /**
+     * Indica se a exceção representa uma regra de negócio (e deve chegar intacta à interface)
+     * em vez de uma falha técnica do banco.
+     */
+    private static boolean isFalhaDeNegocio(Throwable causa) {
+        return causa instanceof ProdutoNaoEncontradoException
+                || causa instanceof EstoqueInsuficienteException
+                || causa instanceof AcessoNegadoException
+                || causa instanceof AutenticacaoException
+                || causa instanceof PersistenciaException
+                || causa instanceof IllegalArgumentException
+                || causa instanceof IllegalStateException;
+    }
+}
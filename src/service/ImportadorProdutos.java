@@ -0,0 +1,419 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.Produto;
+import repository.CatalogoProdutos;
+import repository.ProdutoRepository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Importa produtos em massa a partir de um arquivo CSV, como o catálogo de um fornecedor.
+ * <p>
+ * O arquivo é lido em lotes de {@code pdv.importacao.tamanhoLote} linhas (padrão 500), de
+ * modo que a memória usada não depende do tamanho do arquivo. As linhas de cada lote são
+ * validadas em paralelo; em seguida, os IDs são conferidos contra o conjunto de IDs já
+ * cadastrados, carregado uma única vez no início (da réplica do catálogo, se estiver
+ * carregada, ou página por página do banco). Os produtos válidos do lote são gravados em
+ * uma única escrita multi-caminho, e no máximo {@code pdv.importacao.emVoo} lotes (padrão 4)
+ * aguardam a confirmação do servidor ao mesmo tempo; quando o limite é atingido, a leitura
+ * do arquivo espera.
+ * <p>
+ * O cabeçalho deve conter as colunas {@code id}, {@code tipo}, {@code nome}, {@code preco} e
+ * {@code quantidade}, em qualquer ordem, separadas por vírgula ou ponto e vírgula. Cada
+ * registro ocupa uma linha; campos com o separador podem vir entre aspas. As linhas
+ * recusadas são gravadas, com o número da linha e o motivo, em um arquivo de rejeitadas.
+ *
+ * @see ProdutoService#importarCsvAsync(Path, Consumer)
+ * @see ProgressoImportacao
+ */
+public class ImportadorProdutos {
+
+    /** Quantidade padrão de linhas por lote de leitura e de escrita. */
+    public static final int TAMANHO_LOTE_PADRAO = Integer.getInteger("pdv.importacao.tamanhoLote", 500);
+    /** Quantidade padrão de lotes aguardando a confirmação do servidor ao mesmo tempo. */
+    public static final int LOTES_EM_VOO_PADRAO = Integer.getInteger("pdv.importacao.emVoo", 4);
+
+    private static final String[] COLUNAS = {"id", "tipo", "nome", "preco", "quantidade"};
+    private static final String CARACTERES_PROIBIDOS = ".#$[]/";
+
+    private final ProdutoRepository repository;
+    private final CatalogoProdutos catalogo;
+    private final int tamanhoLote;
+    private final int lotesEmVoo;
+
+    /**
+     * Cria um importador com os limites padrão.
+     *
+     * @param repository O repositório usado para ler os IDs e gravar os lotes.
+     * @param catalogo   A réplica do catálogo, usada para os IDs quando estiver carregada.
+     */
+    public ImportadorProdutos(ProdutoRepository repository, CatalogoProdutos catalogo) {
+        this(repository, catalogo, TAMANHO_LOTE_PADRAO, LOTES_EM_VOO_PADRAO);
+    }
+
+    /**
+     * Cria um importador com limites próprios.
+     *
+     * @param repository  O repositório usado para ler os IDs e gravar os lotes.
+     * @param catalogo    A réplica do catálogo, usada para os IDs quando estiver carregada.
+     * @param tamanhoLote A quantidade de linhas por lote.
+     * @param lotesEmVoo  A quantidade máxima de lotes aguardando confirmação.
+     * @throws IllegalArgumentException se algum limite não for positivo.
+     */
+    public ImportadorProdutos(ProdutoRepository repository, CatalogoProdutos catalogo, int tamanhoLote, int lotesEmVoo) {
+        if (tamanhoLote <= 0 || lotesEmVoo <= 0) {
+            throw new IllegalArgumentException("ERRO: Configuração inválida para a importação de produtos.");
+        }
+        this.repository = repository;
+        this.catalogo = catalogo;
+        this.tamanhoLote = tamanhoLote;
+        this.lotesEmVoo = lotesEmVoo;
+    }
+
+    /**
+     * Importa o arquivo, bloqueando a thread chamadora até que todos os lotes tenham sido
+     * confirmados ou recusados.
+     *
+     * @param arquivo           O arquivo CSV, em UTF-8.
+     * @param arquivoRejeitadas O arquivo onde as linhas recusadas serão gravadas; só é criado
+     *                          se alguma linha for recusada.
+     * @param ouvinte           Recebe o andamento após cada lote; pode ser chamado por threads
+     *                          diferentes, mas nunca ao mesmo tempo. Pode ser {@code null}.
+     * @return O {@link ProgressoImportacao} final.
+     * @throws IllegalArgumentException se o cabeçalho não tiver as colunas esperadas.
+     * @throws UncheckedIOException     se o arquivo não puder ser lido ou as rejeitadas gravadas.
+     * @throws InterruptedException     se a thread for interrompida enquanto aguarda os lotes.
+     */
+    public ProgressoImportacao importar(Path arquivo, Path arquivoRejeitadas, Consumer<ProgressoImportacao> ouvinte)
+            throws InterruptedException {
+        Execucao execucao = new Execucao(arquivoRejeitadas, ouvinte);
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String cabecalho = leitor.readLine();
+            if (cabecalho == null) {
+                throw new IllegalArgumentException("ERRO: O arquivo de importação está vazio.");
+            }
+            char separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+            int[] posicoes = mapearColunas(dividir(removerBom(cabecalho), separador));
+            Set<String> ids = carregarIds();
+            System.out.println("LOG: Importação de produtos iniciada; " + ids.size() + " IDs já cadastrados.");
+
+            long numeroLinha = 1;
+            List<Linha> lote = new ArrayList<>(tamanhoLote);
+            String texto;
+            while ((texto = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (texto.isBlank()) {
+                    continue;
+                }
+                lote.add(new Linha(numeroLinha, texto));
+                if (lote.size() == tamanhoLote) {
+                    processarLote(lote, separador, posicoes, ids, execucao);
+                    lote = new ArrayList<>(tamanhoLote);
+                }
+            }
+            if (!lote.isEmpty()) {
+                processarLote(lote, separador, posicoes, ids, execucao);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("ERRO: Falha ao ler o arquivo de importação.", e);
+        } finally {
+            execucao.emVoo.acquire(lotesEmVoo);
+            execucao.fecharRejeitadas();
+        }
+        ProgressoImportacao resultado = execucao.notificar(true);
+        System.out.println("LOG: Importação de produtos concluída: " + resultado);
+        return resultado;
+    }
+
+    /**
+     * Carrega os IDs já cadastrados em um conjunto concorrente, que também recebe os IDs
+     * importados para detectar repetições dentro do próprio arquivo.
+     */
+    private Set<String> carregarIds() {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        if (catalogo != null && catalogo.isCarregado()) {
+            for (Produto produto : catalogo.getSnapshot().listar()) {
+                ids.add(produto.getId());
+            }
+            return ids;
+        }
+        try (Stream<Produto> produtos = repository.transmitirTodos(1_000)) {
+            produtos.forEach(produto -> ids.add(produto.getId()));
+        }
+        return ids;
+    }
+
+    /**
+     * Valida o lote em paralelo, confere os IDs na ordem do arquivo e entrega os produtos
+     * válidos para gravação, aguardando se já houver {@link #lotesEmVoo} lotes pendentes.
+     */
+    private void processarLote(List<Linha> lote, char separador, int[] posicoes, Set<String> ids, Execucao execucao)
+            throws InterruptedException {
+        List<Validacao> validacoes = lote.parallelStream()
+                .map(linha -> validar(linha, separador, posicoes))
+                .collect(Collectors.toList());
+        execucao.lidas.addAndGet(lote.size());
+
+        List<Produto> produtos = new ArrayList<>(lote.size());
+        Map<String, Linha> origem = new HashMap<>(lote.size() * 2);
+        for (Validacao validacao : validacoes) {
+            if (validacao.motivo != null) {
+                execucao.rejeitar(validacao.linha, validacao.motivo);
+            } else if (!ids.add(validacao.produto.getId())) {
+                execucao.rejeitar(validacao.linha, "ID já cadastrado ou repetido no arquivo");
+            } else {
+                produtos.add(validacao.produto);
+                origem.put(validacao.produto.getId(), validacao.linha);
+            }
+        }
+        if (produtos.isEmpty()) {
+            execucao.notificar(false);
+            return;
+        }
+
+        execucao.emVoo.acquire();
+        Futuros.de(repository.salvarLote(produtos)).whenComplete((ok, erro) -> {
+            try {
+                if (erro == null) {
+                    execucao.importadas.addAndGet(produtos.size());
+                } else {
+                    String motivo = "Falha ao gravar: " + Futuros.causa(erro).getMessage();
+                    System.err.println("ERRO: Lote de " + produtos.size() + " produtos recusado pelo banco: " + motivo);
+                    for (Produto produto : produtos) {
+                        ids.remove(produto.getId());
+                        execucao.rejeitar(origem.get(produto.getId()), motivo);
+                    }
+                }
+                execucao.notificar(false);
+            } finally {
+                execucao.emVoo.release();
+            }
+        });
+    }
+
+    private static Validacao validar(Linha linha, char separador, int[] posicoes) {
+        List<String> campos;
+        try {
+            campos = dividir(linha.texto, separador);
+        } catch (IllegalArgumentException e) {
+            return new Validacao(linha, null, e.getMessage());
+        }
+        String[] valores = new String[COLUNAS.length];
+        for (int i = 0; i < COLUNAS.length; i++) {
+            if (posicoes[i] >= campos.size()) {
+                return new Validacao(linha, null, "Coluna '" + COLUNAS[i] + "' ausente");
+            }
+            valores[i] = campos.get(posicoes[i]).trim();
+        }
+        String id = valores[0];
+        if (id.isEmpty()) {
+            return new Validacao(linha, null, "ID vazio");
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (CARACTERES_PROIBIDOS.indexOf(id.charAt(i)) >= 0 || Character.isISOControl(id.charAt(i))) {
+                return new Validacao(linha, null, "ID contém caracteres não permitidos (" + CARACTERES_PROIBIDOS + ")");
+            }
+        }
+        if (valores[1].isEmpty() || valores[2].isEmpty()) {
+            return new Validacao(linha, null, "Tipo e nome são obrigatórios");
+        }
+        double preco;
+        int quantidade;
+        try {
+            String textoPreco = valores[3].indexOf('.') < 0 ? valores[3].replace(',', '.') : valores[3];
+            preco = Double.parseDouble(textoPreco);
+        } catch (NumberFormatException e) {
+            return new Validacao(linha, null, "Preço inválido: " + valores[3]);
+        }
+        if (!Double.isFinite(preco) || preco < 0) {
+            return new Validacao(linha, null, "Preço inválido: " + valores[3]);
+        }
+        try {
+            quantidade = Integer.parseInt(valores[4]);
+        } catch (NumberFormatException e) {
+            return new Validacao(linha, null, "Quantidade inválida: " + valores[4]);
+        }
+        if (quantidade < 0) {
+            return new Validacao(linha, null, "Quantidade inválida: " + valores[4]);
+        }
+        return new Validacao(linha, new Produto(id, valores[1], valores[2], preco, quantidade), null);
+    }
+
+    private static int[] mapearColunas(List<String> cabecalho) {
+        int[] posicoes = new int[COLUNAS.length];
+        for (int i = 0; i < COLUNAS.length; i++) {
+            posicoes[i] = -1;
+            for (int j = 0; j < cabecalho.size(); j++) {
+                if (cabecalho.get(j).trim().toLowerCase(Locale.ROOT).equals(COLUNAS[i])) {
+                    posicoes[i] = j;
+                    break;
+                }
+            }
+            if (posicoes[i] < 0) {
+                throw new IllegalArgumentException("ERRO: O cabeçalho do arquivo não tem a coluna '" + COLUNAS[i] + "'.");
+            }
+        }
+        return posicoes;
+    }
+
+    /**
+     * Divide uma linha em campos, respeitando campos entre aspas e aspas duplicadas ({@code ""}).
+     *
+     * @throws IllegalArgumentException se as aspas não forem fechadas.
+     */
+    static List<String> dividir(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"') {
+                    if (i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else {
+                        entreAspas = false;
+                    }
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        if (entreAspas) {
+            throw new IllegalArgumentException("Aspas não fechadas");
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    private static String removerBom(String texto) {
+        return !texto.isEmpty() && texto.charAt(0) == '\uFEFF' ? texto.substring(1) : texto;
+    }
+
+    private static String citar(String valor, char separador) {
+        if (valor.indexOf(separador) < 0 && valor.indexOf('"') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Uma linha de dados do arquivo e o seu número, contando o cabeçalho como linha 1.
+     */
+    private static final class Linha {
+        private final long numero;
+        private final String texto;
+
+        private Linha(long numero, String texto) {
+            this.numero = numero;
+            this.texto = texto;
+        }
+    }
+
+    /**
+     * O resultado da validação de uma linha: o produto, ou o motivo da recusa.
+     */
+    private static final class Validacao {
+        private final Linha linha;
+        private final Produto produto;
+        private final String motivo;
+
+        private Validacao(Linha linha, Produto produto, String motivo) {
+            this.linha = linha;
+            this.produto = produto;
+            this.motivo = motivo;
+        }
+    }
+
+    /**
+     * Estado de uma importação em andamento, compartilhado entre a thread de leitura e as
+     * threads que recebem as confirmações dos lotes.
+     */
+    private final class Execucao {
+        private final Path arquivoRejeitadas;
+        private final Consumer<ProgressoImportacao> ouvinte;
+        private final long inicio = System.currentTimeMillis();
+        private final AtomicLong lidas = new AtomicLong();
+        private final AtomicLong importadas = new AtomicLong();
+        private final AtomicLong rejeitadas = new AtomicLong();
+        private final Semaphore emVoo = new Semaphore(lotesEmVoo);
+        private BufferedWriter escritorRejeitadas;
+
+        private Execucao(Path arquivoRejeitadas, Consumer<ProgressoImportacao> ouvinte) {
+            this.arquivoRejeitadas = arquivoRejeitadas;
+            this.ouvinte = ouvinte;
+        }
+
+        private synchronized void rejeitar(Linha linha, String motivo) {
+            rejeitadas.incrementAndGet();
+            try {
+                if (escritorRejeitadas == null) {
+                    escritorRejeitadas = Files.newBufferedWriter(arquivoRejeitadas, StandardCharsets.UTF_8);
+                    escritorRejeitadas.write("linha,motivo,conteudo");
+                    escritorRejeitadas.newLine();
+                }
+                escritorRejeitadas.write(linha.numero + "," + citar(motivo, ',') + "," + citar(linha.texto, ','));
+                escritorRejeitadas.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException("ERRO: Falha ao gravar o arquivo de linhas rejeitadas.", e);
+            }
+        }
+
+        private synchronized void fecharRejeitadas() {
+            if (escritorRejeitadas == null) {
+                return;
+            }
+            try {
+                escritorRejeitadas.close();
+            } catch (IOException e) {
+                System.err.println("ERRO: Falha ao fechar o arquivo de linhas rejeitadas: " + e.getMessage());
+            }
+        }
+
+        private synchronized ProgressoImportacao notificar(boolean concluida) {
+            ProgressoImportacao progresso = new ProgressoImportacao(lidas.get(), importadas.get(), rejeitadas.get(),
+                    System.currentTimeMillis() - inicio, concluida, escritorRejeitadas == null ? null : arquivoRejeitadas);
+            if (ouvinte != null) {
+                try {
+                    ouvinte.accept(progresso);
+                } catch (RuntimeException e) {
+                    System.err.println("ERRO: Falha no ouvinte da importação: " + e.getMessage());
+                }
+            }
+            return progresso;
+        }
+    }
+}
@@ -9,9 +9,21 @@ package service;
 
 import model.Produto;
 import excecoes.*;
+import interfaces.Alteracoes;
+import interfaces.IInscricao;
+import repository.CacheProdutos;
+import repository.CatalogoProdutos;
+import repository.EstatisticasCache;
+import repository.IndiceBuscaProdutos;
+import repository.Pagina;
 import repository.ProdutoRepository;
+import repository.ResultadoEstoque;
 
-import java.util.concurrent.ExecutionException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.List;
 
 /**
@@ -19,13 +31,65 @@ import java.util.List;
  * das operações relacionadas à entidade {@link Produto}.
  * Ela define as funcionalidades  disponíveis para a manipulação de produtos, garantindo
  * a execução correta das regras de negócio e o tratamento adequado de exceções.
+ * <p>
+ * Cada operação tem uma versão assíncrona (sufixo {@code Async}), que retorna um
+ * {@link CompletableFuture} completado com o resultado ou com a exceção de negócio
+ * correspondente, e uma versão bloqueante, que apenas aguarda a assíncrona através de
+ * {@link Futuros#aguardar(CompletableFuture, Class)} e é usada pelo menu de console.
  *
  * @see Produto
  * @see ProdutoRepository
  * @see VendaService
+ * @see Futuros
  */
 public class ProdutoService {
     private ProdutoRepository repository = new ProdutoRepository();
+    private final CatalogoProdutos catalogo = CatalogoProdutos.getInstancia();
+    private final CacheProdutos cache = CacheProdutos.getPadrao();
+
+    /**
+     * Indica se a réplica em memória do catálogo já terminou a carga inicial, caso em que
+     * as consultas de produto são respondidas sem acesso à rede.
+     *
+     * @return {@code true} se a réplica estiver carregada.
+     */
+    public boolean isCatalogoCarregado() {
+        return catalogo.isCarregado();
+    }
+
+    /**
+     * Retorna os contadores do cache de produtos por ID, usado quando a réplica do catálogo
+     * não está carregada.
+     *
+     * @return As {@link EstatisticasCache} do cache padrão.
+     */
+    public EstatisticasCache getEstatisticasCache() {
+        return cache.getEstatisticas();
+    }
+
+    /**
+     * Cadastra um novo produto no sistema de forma assíncrona.
+     * Verifica se o ID está livre e delega a operação de persistência para o repositório.
+     *
+     * @param p O objeto {@link Produto} a ser cadastrado.
+     * @return Um {@link CompletableFuture} completado quando o produto for gravado, ou com
+     * {@link IllegalArgumentException} se um produto com o mesmo ID já estiver cadastrado.
+     */
+    public CompletableFuture<Void> cadastrarProdutoAsync(Produto p) {
+        return buscarProdutoAsync(p.getId()).handle((existente, erro) -> {
+            if (erro == null) {
+                throw new IllegalArgumentException("ERRO: O ID '" + p.getId() + "' já está cadastrado.");
+            }
+            Throwable causa = Futuros.causa(erro);
+            if (!(causa instanceof ProdutoNaoEncontradoException)) {
+                throw new CompletionException(causa);
+            }
+            return null;
+        }).thenCompose(livre -> {
+            System.out.println("LOG: ID '" + p.getId() + "' está disponível. Cadastrando novo produto.");
+            return Futuros.traduzir(Futuros.de(repository.salvar(p)), "ERRO: Falha ao cadastrar o produto no banco de dados.");
+        });
+    }
 
     /**
      * Cadastra um novo produto no sistema.
@@ -35,77 +99,238 @@ public class ProdutoService {
      * @throws IllegalArgumentException se um produto com o mesmo ID já estiver cadastrado.
      */
     public void cadastrarProduto(Produto p) {
-        try {
-            Produto produtoExistente = buscarProduto(p.getId());
+        Futuros.aguardar(cadastrarProdutoAsync(p), RuntimeException.class);
+    }
 
-            if (produtoExistente != null) {
-                throw new IllegalArgumentException("ERRO: O ID '" + p.getId() + "' já está cadastrado.");
+    /**
+     * Busca um produto pelo seu identificador único de forma assíncrona.
+     * Quando a réplica do catálogo já está carregada, a consulta é feita em memória
+     * sobre o snapshot atual e o future já é retornado completo, com uma cópia do produto.
+     * Caso contrário (réplica desligada ou ainda carregando), a busca passa pelo
+     * {@link CacheProdutos}, que só vai ao repositório em caso de falta.
+     *
+     * @param id O ID do produto a ser buscado.
+     * @return Um {@link CompletableFuture} completado com o {@link Produto} encontrado, ou com
+     * {@link ProdutoNaoEncontradoException} se nenhum produto tiver o ID fornecido.
+     */
+    public CompletableFuture<Produto> buscarProdutoAsync(String id) {
+        if (catalogo.isCarregado()) {
+            Produto p = catalogo.getSnapshot().buscar(id);
+            if (p == null) {
+                return CompletableFuture.failedFuture(naoEncontrado(id));
             }
-
-        } catch (ProdutoNaoEncontradoException e) {
-            System.out.println("LOG: ID '" + p.getId() + "' está disponível. Cadastrando novo produto.");
-            repository.salvar(p);
+            return CompletableFuture.completedFuture(new Produto(p));
         }
+        CompletableFuture<Produto> busca = cache.buscar(id).thenApply(p -> {
+            if (p == null) {
+                throw new CompletionException(naoEncontrado(id));
+            }
+            return new Produto(p);
+        });
+        return Futuros.traduzir(busca, "ERRO: Erro ao buscar produto no banco de dados.");
     }
 
     /**
      * Busca um produto pelo seu identificador único.
-     * Este metodo aguarda a conclusão da busca assíncrona do repositório e trata
-     * o resultado.
+     * Aguarda a conclusão de {@link #buscarProdutoAsync(String)} e trata o resultado.
      *
      * @param id O ID do produto a ser buscado.
      * @return O objeto {@link Produto} encontrado.
      * @throws ProdutoNaoEncontradoException se nenhum produto for encontrado com o ID fornecido.
-     * @throws RuntimeException se ocorrer um erro de baixo nível (ex: falha de comunicação)
+     * @throws PersistenciaException se ocorrer um erro de baixo nível (ex: falha de comunicação)
      * durante a busca no banco de dados.
      */
     public Produto buscarProduto(String id) throws ProdutoNaoEncontradoException {
-        try {
-            Produto p = repository.buscar(id).get();
-            if (p == null) {
-                throw new ProdutoNaoEncontradoException("LOG: Produto com ID " + id + " não encontrado.");
-            }
-            return p;
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("ERRO: Erro ao buscar produto no banco de dados.", e);
+        return Futuros.aguardar(buscarProdutoAsync(id), ProdutoNaoEncontradoException.class);
+    }
+
+    /**
+     * Busca um produto pelo ID dentro de uma operação. A primeira busca do produto no contexto
+     * segue {@link #buscarProdutoAsync(String)}, e as seguintes reaproveitam o mesmo resultado,
+     * já atualizado pelas baixas e entradas de estoque feitas com o mesmo contexto.
+     *
+     * @param id       O ID do produto a ser buscado.
+     * @param contexto As leituras da operação em andamento, ou {@code null} para buscar sem contexto.
+     * @return Um {@link CompletableFuture} completado com uma cópia do {@link Produto}, ou com
+     * {@link ProdutoNaoEncontradoException}.
+     */
+    public CompletableFuture<Produto> buscarProdutoAsync(String id, ContextoLeitura contexto) {
+        if (contexto == null) {
+            return buscarProdutoAsync(id);
+        }
+        return contexto.obter(Produto.class, id, () -> buscarProdutoAsync(id)).thenApply(Produto::new);
+    }
+
+    /**
+     * Busca um produto pelo ID dentro de uma operação.
+     *
+     * @param id       O ID do produto a ser buscado.
+     * @param contexto As leituras da operação em andamento, ou {@code null}.
+     * @return O objeto {@link Produto} encontrado.
+     * @throws ProdutoNaoEncontradoException se nenhum produto for encontrado com o ID fornecido.
+     * @see #buscarProdutoAsync(String, ContextoLeitura)
+     */
+    public Produto buscarProduto(String id, ContextoLeitura contexto) throws ProdutoNaoEncontradoException {
+        return Futuros.aguardar(buscarProdutoAsync(id, contexto), ProdutoNaoEncontradoException.class);
+    }
+
+    /**
+     * Retorna, de forma assíncrona, todos os produtos do banco de dados.
+     * Com a réplica do catálogo carregada, a lista vem do snapshot em memória, é imutável
+     * e seus itens são compartilhados, portanto devem ser tratados apenas como leitura.
+     * @return Um {@link CompletableFuture} completado com a lista de produtos.
+     */
+    public CompletableFuture<List<Produto>> buscarTodosProdutosAsync() {
+        if (catalogo.isCarregado()) {
+            return CompletableFuture.completedFuture(catalogo.getSnapshot().listar());
         }
+        return Futuros.traduzir(repository.buscarTodos(), "ERRO: Erro ao buscar todos os produtos.");
     }
 
     /**
      * Retorna uma lista com todos os produtos do banco de dados.
      * @return Uma Lista de Produtos.
+     * @see #buscarTodosProdutosAsync()
      */
     public List<Produto> buscarTodosProdutos() {
-        try {
-            return repository.buscarTodos().get();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("ERRO: Erro ao buscar todos os produtos.", e);
+        return Futuros.aguardar(buscarTodosProdutosAsync(), RuntimeException.class);
+    }
+
+    /**
+     * Inscreve um ouvinte para as alterações de produtos feitas por qualquer terminal. Com a
+     * réplica do catálogo ligada, as alterações vêm dos eventos que ela já recebe; caso
+     * contrário, de um ouvinte próprio no nó "produtos", cuja sincronização inicial equivale
+     * a uma leitura do catálogo.
+     *
+     * @param ouvinte Recebe, na thread de eventos do Firebase, o ID e o novo estado do
+     *                produto, ou {@code null} se ele foi removido. Deve retornar rapidamente.
+     * @return A inscrição, a ser cancelada quando o ouvinte não for mais necessário.
+     */
+    public IInscricao ouvirAlteracoes(BiConsumer<String, Produto> ouvinte) {
+        if (CatalogoProdutos.REPLICAR_PADRAO) {
+            return catalogo.ouvir(ouvinte);
         }
+        return repository.ouvirAlteracoes(ouvinte);
+    }
+
+    /**
+     * Busca, de forma assíncrona, uma página de produtos em ordem de ID.
+     * Com a réplica do catálogo carregada, a página é uma visão do snapshot em memória;
+     * caso contrário, apenas os registros da página são lidos do banco.
+     *
+     * @param cursor  O cursor devolvido pela página anterior, ou {@code null} para a primeira.
+     * @param tamanho A quantidade máxima de produtos da página.
+     * @return Um {@link CompletableFuture} completado com a {@link Pagina} de produtos.
+     */
+    public CompletableFuture<Pagina<Produto>> buscarPaginaProdutosAsync(String cursor, int tamanho) {
+        if (catalogo.isCarregado()) {
+            return CompletableFuture.completedFuture(catalogo.getSnapshot().pagina(cursor, tamanho));
+        }
+        return Futuros.traduzir(repository.buscarPagina(cursor, tamanho), "ERRO: Erro ao buscar a página de produtos.");
+    }
+
+    /**
+     * Pesquisa, de forma assíncrona, os produtos pelo nome, ID ou tipo, tolerando acentos,
+     * palavras incompletas e pequenos erros de digitação.
+     * Com a réplica do catálogo carregada, a consulta é respondida pelo índice em memória,
+     * sem acesso à rede; caso contrário, o catálogo é lido do banco e indexado só para ela.
+     *
+     * @param texto  O texto digitado.
+     * @param limite A quantidade máxima de resultados.
+     * @return Um {@link CompletableFuture} completado com os produtos, do mais ao menos
+     * relevante; os itens podem ser compartilhados e devem ser tratados apenas como leitura.
+     * @see IndiceBuscaProdutos
+     */
+    public CompletableFuture<List<Produto>> pesquisarProdutosAsync(String texto, int limite) {
+        if (catalogo.isCarregado()) {
+            return CompletableFuture.completedFuture(catalogo.getIndice().buscar(texto, limite));
+        }
+        CompletableFuture<List<Produto>> pesquisa = repository.buscarTodos().thenApply(todos -> {
+            IndiceBuscaProdutos indice = new IndiceBuscaProdutos();
+            for (Produto p : todos) {
+                indice.atualizar(p.getId(), p);
+            }
+            return indice.buscar(texto, limite);
+        });
+        return Futuros.traduzir(pesquisa, "ERRO: Erro ao pesquisar produtos.");
+    }
+
+    /**
+     * Reduz o estoque de um produto específico de forma assíncrona.
+     * A redução é feita de forma atômica no servidor por meio de uma transação sobre a
+     * quantidade do produto, evitando que vendas simultâneas em terminais diferentes
+     * sobrescrevam umas às outras.
+     *
+     * @param id  O ID do produto cujo estoque será reduzido.
+     * @param qtd A quantidade a ser subtraída do estoque.
+     * @return Um {@link CompletableFuture} completado com o {@link ResultadoEstoque}, ou com
+     * {@link ProdutoNaoEncontradoException}, {@link EstoqueInsuficienteException} ou
+     * {@link IllegalArgumentException} (quantidade menor ou igual a zero).
+     */
+    public CompletableFuture<ResultadoEstoque> reduzirEstoqueAsync(String id, int qtd) {
+        return reduzirEstoqueAsync(id, qtd, null);
+    }
+
+    /**
+     * Reduz o estoque de um produto dentro de uma operação. Se o produto já foi lido no
+     * contexto, a quantidade guardada passa a ser a confirmada pela transação.
+     *
+     * @param id       O ID do produto cujo estoque será reduzido.
+     * @param qtd      A quantidade a ser subtraída do estoque.
+     * @param contexto As leituras da operação em andamento, ou {@code null}.
+     * @return O mesmo que {@link #reduzirEstoqueAsync(String, int)}.
+     */
+    public CompletableFuture<ResultadoEstoque> reduzirEstoqueAsync(String id, int qtd, ContextoLeitura contexto) {
+        if (qtd <= 0) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("LOG: A quantidade a ser removida deve ser maior que zero."));
+        }
+        return alterarEstoqueAsync(id, -qtd, contexto);
     }
 
     /**
      * Reduz o estoque de um produto específico.
-     * Orquestra a operação: primeiro busca o produto, depois delega a lógica de
-     * redução para o próprio objeto Produto e, por fim, persiste a alteração.
      *
      * @param id  O ID do produto cujo estoque será reduzido.
      * @param qtd A quantidade a ser subtraída do estoque.
      * @throws ProdutoNaoEncontradoException  se o produto não for encontrado.
      * @throws EstoqueInsuficienteException se a quantidade a ser reduzida for maior
-     * que o estoque atual, lançada pelo método {@link Produto#reduzirEstoque(int)}.
+     * que o estoque atual no momento da transação.
+     * @throws IllegalArgumentException se a quantidade for menor ou igual a zero.
+     * @see #reduzirEstoqueAsync(String, int)
      */
     public void reduzirEstoque(String id, int qtd) throws ProdutoNaoEncontradoException, EstoqueInsuficienteException {
-        Produto p = buscarProduto(id);
-        p.reduzirEstoque(qtd);
+        Futuros.aguardar(reduzirEstoqueAsync(id, qtd), ProdutoNaoEncontradoException.class, EstoqueInsuficienteException.class);
+    }
 
-        try {
-            repository.atualizar(p).get();
-            System.out.println("LOG: Estoque atualizado no Firebase.");
+    /**
+     * Adiciona, de forma assíncrona, uma quantidade ao estoque de um produto existente.
+     *
+     * @param produtoId O ID do produto a ser atualizado.
+     * @param quantidadeAdicional A quantidade a ser somada ao estoque atual.
+     * @return Um {@link CompletableFuture} completado com o {@link ResultadoEstoque}, ou com
+     * {@link ProdutoNaoEncontradoException} ou {@link IllegalArgumentException}.
+     */
+    public CompletableFuture<ResultadoEstoque> adicionarEstoqueAsync(String produtoId, int quantidadeAdicional) {
+        return adicionarEstoqueAsync(produtoId, quantidadeAdicional, null);
+    }
 
-        } catch (InterruptedException | ExecutionException e) {
-            System.err.println("ERRO: Falha ao aguardar a atualização do estoque no Firebase.");
-            throw new RuntimeException(e);
+    /**
+     * Adiciona uma quantidade ao estoque de um produto dentro de uma operação. Se o produto já
+     * foi lido no contexto, a quantidade guardada passa a ser a confirmada pela transação.
+     *
+     * @param produtoId           O ID do produto a ser atualizado.
+     * @param quantidadeAdicional A quantidade a ser somada ao estoque atual.
+     * @param contexto            As leituras da operação em andamento, ou {@code null}.
+     * @return O mesmo que {@link #adicionarEstoqueAsync(String, int)}.
+     */
+    public CompletableFuture<ResultadoEstoque> adicionarEstoqueAsync(String produtoId, int quantidadeAdicional,
+                                                                     ContextoLeitura contexto) {
+        if (quantidadeAdicional <= 0) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("LOG: A quantidade a ser adicionada deve ser maior que zero."));
         }
+        return alterarEstoqueAsync(produtoId, quantidadeAdicional, contexto);
     }
 
     /**
@@ -115,24 +340,81 @@ public class ProdutoService {
      * @param quantidadeAdicional A quantidade a ser somada ao estoque atual.
      * @throws ProdutoNaoEncontradoException se o produto não for encontrado.
      * @throws IllegalArgumentException se a quantidade a ser adicionada for menor ou igual a zero.
+     * @see #adicionarEstoqueAsync(String, int)
      */
     public void adicionarEstoque(String produtoId, int quantidadeAdicional) throws ProdutoNaoEncontradoException {
-        if (quantidadeAdicional <= 0) {
-            throw new IllegalArgumentException("LOG: A quantidade a ser adicionada deve ser maior que zero.");
-        }
-
-        Produto produto = buscarProduto(produtoId);
+        adicionarEstoque(produtoId, quantidadeAdicional, null);
+    }
 
-        int novoEstoque = produto.getQuantidade() + quantidadeAdicional;
-        produto.setQuantidade(novoEstoque);
+    /**
+     * Adiciona uma quantidade ao estoque de um produto dentro de uma operação.
+     *
+     * @param produtoId           O ID do produto a ser atualizado.
+     * @param quantidadeAdicional A quantidade a ser somada ao estoque atual.
+     * @param contexto            As leituras da operação em andamento, ou {@code null}.
+     * @throws ProdutoNaoEncontradoException se o produto não for encontrado.
+     * @throws IllegalArgumentException se a quantidade a ser adicionada for menor ou igual a zero.
+     * @see #adicionarEstoqueAsync(String, int, ContextoLeitura)
+     */
+    public void adicionarEstoque(String produtoId, int quantidadeAdicional, ContextoLeitura contexto)
+            throws ProdutoNaoEncontradoException {
+        Futuros.aguardar(adicionarEstoqueAsync(produtoId, quantidadeAdicional, contexto), ProdutoNaoEncontradoException.class);
+    }
 
+    /**
+     * Executa a transação de estoque no repositório, registrando no log o resultado
+     * confirmado pelo servidor. As exceções de negócio sinalizadas pela transação
+     * chegam intactas ao future retornado.
+     *
+     * @param produtoId O ID do produto.
+     * @param delta     A variação a ser aplicada ao estoque.
+     * @param contexto  O contexto cujo produto recebe a quantidade confirmada, ou {@code null}.
+     * @return Um {@link CompletableFuture} com o {@link ResultadoEstoque} confirmado pelo servidor.
+     */
+    private CompletableFuture<ResultadoEstoque> alterarEstoqueAsync(String produtoId, int delta, ContextoLeitura contexto) {
+        CompletableFuture<ResultadoEstoque> transacao = repository.alterarEstoque(produtoId, delta).thenApply(resultado -> {
+            if (resultado.getTentativas() > 1) {
+                System.out.println("LOG: Estoque do produto '" + produtoId + "' disputado por outro terminal; confirmado após "
+                        + resultado.getTentativas() + " tentativas.");
+            }
+            System.out.println("LOG: Estoque do produto '" + produtoId + "' atualizado no Firebase para "
+                    + resultado.getQuantidadeFinal() + ".");
+            if (contexto != null) {
+                contexto.atualizar(Produto.class, produtoId, lido -> {
+                    Produto atualizado = new Produto(lido);
+                    atualizado.setQuantidade(resultado.getQuantidadeFinal());
+                    return atualizado;
+                });
+            }
+            return resultado;
+        });
+        return Futuros.traduzir(transacao, "ERRO: Falha ao atualizar o estoque no banco de dados.");
+    }
 
-        try {
-            repository.atualizar(produto).get();
-            System.out.println("--> LOG: Estoque do produto '" + produto.getNome() + "' atualizado no Firebase.");
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("ERRO: Falha ao atualizar o produto no banco de dados.", e);
+    /**
+     * Atualiza, de forma assíncrona, o preço de um produto específico.
+     * Apenas o campo de preço é enviado ao banco, de modo que uma alteração de estoque
+     * feita ao mesmo tempo por outro terminal não é sobrescrita.
+     * @param produtoId O ID do produto a ser atualizado.
+     * @param novoPreco O novo preço do produto.
+     * @return Um {@link CompletableFuture} completado quando o preço for gravado, ou com
+     * {@link ProdutoNaoEncontradoException} ou {@link IllegalArgumentException} (preço negativo).
+     */
+    public CompletableFuture<Void> atualizarPrecoProdutoAsync(String produtoId, double novoPreco) {
+        if (novoPreco < 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("O preço não pode ser negativo."));
         }
+
+        return buscarProdutoAsync(produtoId).thenCompose(produto -> {
+            if (produto.getPreco() == novoPreco) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> escrita = Futuros.de(
+                    repository.atualizarCampos(produtoId, new Alteracoes<Produto>().definir(Produto.PRECO, novoPreco)));
+            return Futuros.traduzir(escrita, "Falha ao atualizar o preço do produto no banco de dados.")
+                    .thenRun(() -> cache.invalidar(produtoId))
+                    .thenRun(() -> System.out.println("LOG: Preço do produto '" + produto.getNome() + "' atualizado no Firebase."));
+        });
     }
 
     /**
@@ -141,21 +423,62 @@ public class ProdutoService {
      * @param novoPreco O novo preço do produto.
      * @throws ProdutoNaoEncontradoException se o produto não for encontrado.
      * @throws IllegalArgumentException se o novo preço for negativo.
+     * @see #atualizarPrecoProdutoAsync(String, double)
      */
     public void atualizarPrecoProduto(String produtoId, double novoPreco) throws ProdutoNaoEncontradoException {
-        if (novoPreco < 0) {
-            throw new IllegalArgumentException("O preço não pode ser negativo.");
-        }
+        Futuros.aguardar(atualizarPrecoProdutoAsync(produtoId, novoPreco), ProdutoNaoEncontradoException.class);
+    }
 
-        Produto produto = buscarProduto(produtoId);
-        produto.setPreco(novoPreco);
+    /**
+     * Importa, de forma assíncrona, os produtos de um arquivo CSV em lotes, sem carregar o
+     * arquivo inteiro em memória. As linhas inválidas ou com ID já cadastrado são gravadas,
+     * com o motivo, em um arquivo ao lado do original com o sufixo {@code .rejeitadas.csv}.
+     *
+     * @param arquivo O arquivo CSV, com as colunas id, tipo, nome, preco e quantidade.
+     * @param ouvinte Recebe o andamento após cada lote, ou {@code null}.
+     * @return Um {@link CompletableFuture} completado com o {@link ProgressoImportacao} final, ou
+     * com {@link IllegalArgumentException} (cabeçalho inválido) ou {@link PersistenciaException}.
+     * @see ImportadorProdutos
+     */
+    public CompletableFuture<ProgressoImportacao> importarCsvAsync(Path arquivo, Consumer<ProgressoImportacao> ouvinte) {
+        Path rejeitadas = arquivo.resolveSibling(arquivo.getFileName() + ".rejeitadas.csv");
+        ImportadorProdutos importador = new ImportadorProdutos(repository, catalogo);
+        return Futuros.traduzir(CompletableFuture.supplyAsync(() -> {
+            try {
+                return importador.importar(arquivo, rejeitadas, ouvinte);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PersistenciaException("ERRO: Importação de produtos interrompida.", e);
+            }
+        }), "ERRO: Falha ao importar os produtos.");
+    }
 
+    /**
+     * Importa os produtos de um arquivo CSV. Como a importação pode levar minutos, aguarda
+     * sem o tempo limite de {@link Futuros#TEMPO_LIMITE_MS}.
+     *
+     * @param arquivo O arquivo CSV.
+     * @param ouvinte Recebe o andamento após cada lote, ou {@code null}.
+     * @return O {@link ProgressoImportacao} final.
+     * @throws IllegalArgumentException se o cabeçalho não tiver as colunas esperadas.
+     * @see #importarCsvAsync(Path, Consumer)
+     */
+    public ProgressoImportacao importarCsv(Path arquivo, Consumer<ProgressoImportacao> ouvinte) {
         try {
-            repository.atualizar(produto).get();
-            System.out.println("LOG: Preço do produto '" + produto.getNome() + "' atualizado no Firebase.");
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Falha ao atualizar o preço do produto no banco de dados.", e);
+            return importarCsvAsync(arquivo, ouvinte).join();
+        } catch (CompletionException e) {
+            Throwable causa = Futuros.causa(e);
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new PersistenciaException("ERRO: Falha ao importar os produtos.", causa);
         }
     }
-}
 
+    /**
+     * Cria a exceção padrão para um produto inexistente.
+     */
+    private static ProdutoNaoEncontradoException naoEncontrado(String id) {
+        return new ProdutoNaoEncontradoException("LOG: Produto com ID " + id + " não encontrado.");
+    }
+}
@@ -0,0 +1,98 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.nio.file.Path;
+
+/**
+ * Retrato imutável do andamento de uma importação de produtos. É entregue aos ouvintes a
+ * cada lote processado e, ao final, como resultado da importação.
+ *
+ * @see ImportadorProdutos
+ */
+public class ProgressoImportacao {
+    private final long lidas;
+    private final long importadas;
+    private final long rejeitadas;
+    private final long duracaoMs;
+    private final boolean concluida;
+    private final Path arquivoRejeitadas;
+
+    /**
+     * Cria o retrato do andamento.
+     *
+     * @param lidas             As linhas de dados lidas até agora.
+     * @param importadas        Os produtos gravados com confirmação do servidor.
+     * @param rejeitadas        As linhas recusadas na validação ou na gravação.
+     * @param duracaoMs         O tempo decorrido desde o início, em milissegundos.
+     * @param concluida         Se o arquivo inteiro já foi processado.
+     * @param arquivoRejeitadas O arquivo com as linhas recusadas, ou {@code null} se não houve nenhuma.
+     */
+    ProgressoImportacao(long lidas, long importadas, long rejeitadas, long duracaoMs, boolean concluida, Path arquivoRejeitadas) {
+        this.lidas = lidas;
+        this.importadas = importadas;
+        this.rejeitadas = rejeitadas;
+        this.duracaoMs = duracaoMs;
+        this.concluida = concluida;
+        this.arquivoRejeitadas = arquivoRejeitadas;
+    }
+
+    /**
+     * Retorna o número de linhas de dados lidas do arquivo.
+     * @return As linhas lidas, sem contar o cabeçalho.
+     */
+    public long getLidas() {
+        return lidas;
+    }
+
+    /**
+     * Retorna o número de produtos gravados.
+     * @return Os produtos confirmados pelo servidor.
+     */
+    public long getImportadas() {
+        return importadas;
+    }
+
+    /**
+     * Retorna o número de linhas recusadas.
+     * @return As linhas inválidas, repetidas ou cuja gravação falhou.
+     */
+    public long getRejeitadas() {
+        return rejeitadas;
+    }
+
+    /**
+     * Retorna o tempo decorrido desde o início da importação.
+     * @return A duração, em milissegundos.
+     */
+    public long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    /**
+     * Indica se a importação terminou.
+     * @return {@code true} se todas as linhas foram processadas e todas as escritas confirmadas.
+     */
+    public boolean isConcluida() {
+        return concluida;
+    }
+
+    /**
+     * Retorna o arquivo com as linhas recusadas e o motivo de cada uma.
+     * @return O caminho do arquivo, ou {@code null} se nenhuma linha foi recusada.
+     */
+    public Path getArquivoRejeitadas() {
+        return arquivoRejeitadas;
+    }
+
+    @Override
+    public String toString() {
+        return "ProgressoImportacao{lidas=" + lidas + ", importadas=" + importadas + ", rejeitadas=" + rejeitadas
+                + ", duracaoMs=" + duracaoMs + ", concluida=" + concluida + "}";
+    }
+}
@@ -0,0 +1,86 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import java.nio.file.Path;
+
+/**
+ * Resultado imutável de uma exportação de vendas.
+ *
+ * @see ExportadorVendas
+ */
+public class ResumoExportacao {
+    private final Path arquivo;
+    private final long vendas;
+    private final long linhas;
+    private final long bytes;
+    private final long duracaoMs;
+
+    /**
+     * Cria o resumo da exportação.
+     *
+     * @param arquivo   O arquivo gerado.
+     * @param vendas    As vendas exportadas.
+     * @param linhas    As linhas de produto exportadas (uma venda de carrinho gera várias).
+     * @param bytes     O tamanho do arquivo, em bytes.
+     * @param duracaoMs O tempo total da exportação, em milissegundos.
+     */
+    ResumoExportacao(Path arquivo, long vendas, long linhas, long bytes, long duracaoMs) {
+        this.arquivo = arquivo;
+        this.vendas = vendas;
+        this.linhas = linhas;
+        this.bytes = bytes;
+        this.duracaoMs = duracaoMs;
+    }
+
+    /**
+     * Retorna o arquivo gerado.
+     * @return O caminho do arquivo.
+     */
+    public Path getArquivo() {
+        return arquivo;
+    }
+
+    /**
+     * Retorna o número de vendas exportadas.
+     * @return As vendas gravadas no arquivo.
+     */
+    public long getVendas() {
+        return vendas;
+    }
+
+    /**
+     * Retorna o número de linhas de produto exportadas.
+     * @return As linhas gravadas, sem contar o cabeçalho.
+     */
+    public long getLinhas() {
+        return linhas;
+    }
+
+    /**
+     * Retorna o tamanho do arquivo gerado.
+     * @return O tamanho, em bytes (comprimido, se for o caso).
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Retorna o tempo total da exportação.
+     * @return A duração, em milissegundos.
+     */
+    public long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumoExportacao{arquivo=" + arquivo + ", vendas=" + vendas + ", linhas=" + linhas
+                + ", bytes=" + bytes + ", duracaoMs=" + duracaoMs + "}";
+    }
+}
@@ -0,0 +1,96 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import model.Usuario;
+
+/**
+ * Sessão de um usuário autenticado, emitida por {@link SessaoService} após o login.
+ * <p>
+ * O token identifica a sessão no registro local e carrega a assinatura que impede a sua
+ * falsificação. A sessão guarda também um verificador da senha (um HMAC com a chave da
+ * sessão, mantido apenas em memória), que permite desbloquear o terminal sem o BCrypt.
+ *
+ * @see SessaoService
+ */
+public class Sessao {
+    private final String token;
+    private final Usuario usuario;
+    private final long emitidaEm;
+    private final long expiraEm;
+    private final byte[] verificadorSenha;
+
+    /**
+     * Cria uma sessão. Usado apenas por {@link SessaoService}.
+     *
+     * @param token            O token assinado da sessão.
+     * @param usuario          O usuário autenticado.
+     * @param emitidaEm        O instante da emissão, em milissegundos.
+     * @param expiraEm         O instante da expiração, em milissegundos.
+     * @param verificadorSenha O HMAC da senha, para o desbloqueio do terminal.
+     */
+    Sessao(String token, Usuario usuario, long emitidaEm, long expiraEm, byte[] verificadorSenha) {
+        this.token = token;
+        this.usuario = usuario;
+        this.emitidaEm = emitidaEm;
+        this.expiraEm = expiraEm;
+        this.verificadorSenha = verificadorSenha;
+    }
+
+    /**
+     * Retorna o token da sessão, a ser apresentado em cada ação.
+     * @return O token assinado.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Retorna o usuário da sessão. Suas permissões são atualizadas pela revalidação quando
+     * mudam no banco.
+     * @return O usuário autenticado.
+     */
+    public Usuario getUsuario() {
+        return usuario;
+    }
+
+    /**
+     * Retorna o instante em que a sessão foi emitida.
+     * @return O instante, em milissegundos desde a época.
+     */
+    public long getEmitidaEm() {
+        return emitidaEm;
+    }
+
+    /**
+     * Retorna o instante em que a sessão expira.
+     * @return O instante, em milissegundos desde a época.
+     */
+    public long getExpiraEm() {
+        return expiraEm;
+    }
+
+    /**
+     * Indica se a sessão já expirou.
+     *
+     * @param agora O instante atual, em milissegundos.
+     * @return {@code true} se a sessão não é mais válida.
+     */
+    public boolean isExpirada(long agora) {
+        return agora >= expiraEm;
+    }
+
+    byte[] getVerificadorSenha() {
+        return verificadorSenha;
+    }
+
+    @Override
+    public String toString() {
+        return "Sessao{matricula=" + usuario.getMatricula() + ", expiraEm=" + expiraEm + "}";
+    }
+}
@@ -0,0 +1,405 @@
+package service;
+
+/**
+ * Autoras:
+ * Andreísy Neves Ferreira
+ * Isabella Paranhos Meireles
+ * Lorena da Silva Borges
+ */
+
+import excecoes.AutenticacaoException;
+import model.Usuario;
+import repository.UsuarioRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emite e valida as sessões dos usuários, para que a senha seja verificada com o BCrypt uma
+ * única vez por turno, no login, e não a cada ação ou desbloqueio do terminal.
+ * <p>
+ * Após o login ({@link #entrarAsync}), o usuário recebe um token assinado com HMAC-SHA256 e com
+ * prazo de validade. As sessões ficam em um registro local indexado pelo token. A cada ação,
+ * {@link #validarAsync} confere a assinatura, o prazo e o registro, e revalida o usuário contra
+ * o banco: se ele foi inativado ou removido, suas sessões são encerradas; se suas permissões
+ * mudaram, as da sessão são atualizadas. Essa revalidação usa o registro do usuário lido no
+ * máximo uma vez a cada intervalo de verificação, compartilhado entre as sessões da mesma
+ * matrícula, e não consulta o banco a cada ação.
+ * <p>
+ * Propriedades de sistema:
+ * <ul>
+ *     <li>{@code pdv.sessao.duracaoMin}: duração da sessão (padrão {@value #DURACAO_PADRAO_MIN} min);</li>
+ *     <li>{@code pdv.sessao.verificacaoSeg}: intervalo da revalidação do usuário
+ *     (padrão {@value #VERIFICACAO_PADRAO_SEG} s);</li>
+ *     <li>{@code pdv.sessao.chave}: chave HMAC em Base64, para que outros processos validem as
+ *     assinaturas; se ausente, é sorteada a cada execução.</li>
+ * </ul>
+ *
+ * @see Sessao
+ * @see CustoSenha
+ */
+public class SessaoService {
+    /** Duração padrão de uma sessão, equivalente a um turno. */
+    public static final long DURACAO_PADRAO_MIN = 720;
+    /** Intervalo padrão entre duas leituras do registro do usuário na revalidação. */
+    public static final long VERIFICACAO_PADRAO_SEG = 30;
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final Base64.Encoder CODIFICADOR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODIFICADOR = Base64.getUrlDecoder();
+
+    private static SessaoService instancia;
+
+    private final UsuarioService usuarioService;
+    private final UsuarioRepository repository;
+    private final SecretKeySpec chave;
+    private final ThreadLocal<Mac> macs;
+    private final SecureRandom aleatorio = new SecureRandom();
+    private final long duracaoMs;
+    private final long verificacaoMs;
+    private final Map<String, Sessao> sessoes = new ConcurrentHashMap<>();
+    private final Map<Integer, Verificacao> verificacoes = new ConcurrentHashMap<>();
+
+    /**
+     * Registro do usuário lido do banco para a revalidação, com o instante da leitura.
+     */
+    private static final class Verificacao {
+        final long lidaEm;
+        final CompletableFuture<Usuario> registro;
+
+        Verificacao(long lidaEm, CompletableFuture<Usuario> registro) {
+            this.lidaEm = lidaEm;
+            this.registro = registro;
+        }
+    }
+
+    /**
+     * Cria o serviço de sessões com a configuração das propriedades de sistema.
+     */
+    public SessaoService() {
+        this(new UsuarioService(), new UsuarioRepository(), chaveConfigurada(),
+                TimeUnit.MINUTES.toMillis(Long.getLong("pdv.sessao.duracaoMin", DURACAO_PADRAO_MIN)),
+                TimeUnit.SECONDS.toMillis(Long.getLong("pdv.sessao.verificacaoSeg", VERIFICACAO_PADRAO_SEG)));
+    }
+
+    /**
+     * Cria o serviço de sessões com uma configuração explícita.
+     *
+     * @param usuarioService O serviço que faz a autenticação por senha.
+     * @param repository     O repositório de onde o usuário é relido na revalidação.
+     * @param chave          A chave HMAC das assinaturas.
+     * @param duracaoMs      A duração de cada sessão, em milissegundos.
+     * @param verificacaoMs  O intervalo entre leituras do registro do usuário, em milissegundos.
+     */
+    public SessaoService(UsuarioService usuarioService, UsuarioRepository repository, byte[] chave, long duracaoMs, long verificacaoMs) {
+        this.usuarioService = usuarioService;
+        this.repository = repository;
+        this.chave = new SecretKeySpec(chave.clone(), ALGORITMO);
+        this.macs = ThreadLocal.withInitial(this::novoMac);
+        this.duracaoMs = duracaoMs;
+        this.verificacaoMs = verificacaoMs;
+    }
+
+    /**
+     * Retorna o serviço de sessões compartilhado pela aplicação.
+     * @return A instância única de {@link SessaoService}.
+     */
+    public static synchronized SessaoService getInstancia() {
+        if (instancia == null) {
+            instancia = new SessaoService();
+        }
+        return instancia;
+    }
+
+    /**
+     * Autentica o usuário pela senha e, se ela estiver correta, emite uma nova sessão.
+     *
+     * @param login O nome de usuário.
+     * @param senha A senha em texto plano.
+     * @return Um {@link CompletableFuture} completado com a {@link Sessao}, ou com
+     * {@link AutenticacaoException} se as credenciais forem inválidas.
+     */
+    public CompletableFuture<Sessao> entrarAsync(String login, String senha) {
+        return usuarioService.autenticarAsync(login, senha).thenApply(usuario -> emitir(usuario, senha));
+    }
+
+    /**
+     * Autentica o usuário pela senha e, se ela estiver correta, emite uma nova sessão.
+     *
+     * @param login O nome de usuário.
+     * @param senha A senha em texto plano.
+     * @return A {@link Sessao} emitida.
+     * @throws AutenticacaoException se as credenciais forem inválidas.
+     * @see #entrarAsync(String, String)
+     */
+    public Sessao entrar(String login, String senha) throws AutenticacaoException {
+        return Futuros.aguardar(entrarAsync(login, senha), AutenticacaoException.class);
+    }
+
+    /**
+     * Emite uma sessão para um usuário cuja senha acabou de ser verificada e a inclui no registro.
+     *
+     * @param usuario O usuário autenticado.
+     * @param senha   A senha verificada, usada apenas para o verificador de desbloqueio.
+     * @return A nova {@link Sessao}.
+     */
+    public Sessao emitir(Usuario usuario, String senha) {
+        removerExpiradas();
+        long agora = System.currentTimeMillis();
+        long expiraEm = agora + duracaoMs;
+        byte[] nonce = new byte[16];
+        aleatorio.nextBytes(nonce);
+
+        String carga = usuario.getMatricula() + "." + expiraEm + "." + CODIFICADOR.encodeToString(nonce);
+        String token = carga + "." + CODIFICADOR.encodeToString(assinar(carga));
+        Sessao sessao = new Sessao(token, usuario, agora, expiraEm, verificadorSenha(usuario.getMatricula(), senha));
+        sessoes.put(token, sessao);
+        verificacoes.put(usuario.getMatricula(), new Verificacao(agora, CompletableFuture.completedFuture(usuario)));
+        System.out.println("LOG: Sessão iniciada para a matrícula " + usuario.getMatricula() + ".");
+        return sessao;
+    }
+
+    /**
+     * Valida o token de uma sessão e retorna o seu usuário, revalidado contra o banco.
+     *
+     * @param token O token da sessão.
+     * @return Um {@link CompletableFuture} completado com o {@link Usuario} da sessão, com as
+     * permissões atuais, ou com {@link AutenticacaoException} se o token for inválido, a sessão
+     * tiver expirado ou sido encerrada, ou o usuário tiver sido inativado.
+     */
+    public CompletableFuture<Usuario> validarAsync(String token) {
+        Sessao sessao;
+        try {
+            sessao = localizar(token);
+        } catch (AutenticacaoException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return revalidar(sessao);
+    }
+
+    /**
+     * Valida o token de uma sessão e retorna o seu usuário, revalidado contra o banco.
+     *
+     * @param token O token da sessão.
+     * @return O {@link Usuario} da sessão, com as permissões atuais.
+     * @throws AutenticacaoException se a sessão não for mais válida.
+     * @see #validarAsync(String)
+     */
+    public Usuario validar(String token) throws AutenticacaoException {
+        return Futuros.aguardar(validarAsync(token), AutenticacaoException.class);
+    }
+
+    /**
+     * Desbloqueia o terminal de uma sessão ativa. A senha é conferida com o verificador guardado
+     * na sessão (um HMAC), sem o BCrypt e sem consultar o banco para a senha.
+     *
+     * @param token O token da sessão.
+     * @param senha A senha digitada.
+     * @return Um {@link CompletableFuture} completado com o {@link Usuario} da sessão, ou com
+     * {@link AutenticacaoException} se a senha estiver incorreta ou a sessão não for mais válida.
+     */
+    public CompletableFuture<Usuario> desbloquearAsync(String token, String senha) {
+        Sessao sessao;
+        try {
+            sessao = localizar(token);
+            byte[] informado = verificadorSenha(sessao.getUsuario().getMatricula(), senha);
+            if (!MessageDigest.isEqual(informado, sessao.getVerificadorSenha())) {
+                throw new AutenticacaoException("ERRO: Senha incorreta.");
+            }
+        } catch (AutenticacaoException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return revalidar(sessao);
+    }
+
+    /**
+     * Desbloqueia o terminal de uma sessão ativa.
+     *
+     * @param token O token da sessão.
+     * @param senha A senha digitada.
+     * @return O {@link Usuario} da sessão.
+     * @throws AutenticacaoException se a senha estiver incorreta ou a sessão não for mais válida.
+     * @see #desbloquearAsync(String, String)
+     */
+    public Usuario desbloquear(String token, String senha) throws AutenticacaoException {
+        return Futuros.aguardar(desbloquearAsync(token, senha), AutenticacaoException.class);
+    }
+
+    /**
+     * Encerra uma sessão (logout). Tokens desconhecidos são ignorados.
+     *
+     * @param token O token da sessão.
+     */
+    public void encerrar(String token) {
+        if (token != null && sessoes.remove(token) != null) {
+            System.out.println("LOG: Sessão encerrada.");
+        }
+    }
+
+    /**
+     * Encerra todas as sessões de um usuário.
+     *
+     * @param matricula A matrícula do usuário.
+     * @return A quantidade de sessões encerradas.
+     */
+    public int encerrarSessoesDe(int matricula) {
+        int antes = sessoes.size();
+        sessoes.values().removeIf(sessao -> sessao.getUsuario().getMatricula() == matricula);
+        verificacoes.remove(matricula);
+        return antes - sessoes.size();
+    }
+
+    /**
+     * Descarta o registro do usuário guardado para a revalidação, de modo que a próxima
+     * validação de suas sessões leia o banco. Chamado após alterar o status ou as permissões
+     * do usuário neste terminal.
+     *
+     * @param matricula A matrícula do usuário.
+     */
+    public void invalidar(int matricula) {
+        verificacoes.remove(matricula);
+    }
+
+    /**
+     * Remove do registro as sessões expiradas.
+     * @return A quantidade de sessões removidas.
+     */
+    public int removerExpiradas() {
+        long agora = System.currentTimeMillis();
+        int antes = sessoes.size();
+        sessoes.values().removeIf(sessao -> sessao.isExpirada(agora));
+        return antes - sessoes.size();
+    }
+
+    /**
+     * Retorna a quantidade de sessões no registro, inclusive as expiradas ainda não removidas.
+     * @return O número de sessões.
+     */
+    public int getTotalSessoes() {
+        return sessoes.size();
+    }
+
+    /**
+     * Confere a assinatura e o prazo do token e o localiza no registro.
+     */
+    private Sessao localizar(String token) throws AutenticacaoException {
+        int separador = token == null ? -1 : token.lastIndexOf('.');
+        if (separador <= 0) {
+            throw new AutenticacaoException("ERRO: Sessão inválida.");
+        }
+        byte[] assinatura;
+        try {
+            assinatura = DECODIFICADOR.decode(token.substring(separador + 1));
+        } catch (IllegalArgumentException e) {
+            throw new AutenticacaoException("ERRO: Sessão inválida.");
+        }
+        if (!MessageDigest.isEqual(assinatura, assinar(token.substring(0, separador)))) {
+            throw new AutenticacaoException("ERRO: Sessão inválida.");
+        }
+
+        Sessao sessao = sessoes.get(token);
+        if (sessao == null) {
+            throw new AutenticacaoException("ERRO: Sessão encerrada. Faça login novamente.");
+        }
+        if (sessao.isExpirada(System.currentTimeMillis())) {
+            sessoes.remove(token);
+            throw new AutenticacaoException("ERRO: Sessão expirada. Faça login novamente.");
+        }
+        return sessao;
+    }
+
+    /**
+     * Confere o usuário da sessão contra o seu registro mais recente: encerra as sessões de um
+     * usuário inativado ou removido e atualiza as permissões que tiverem mudado.
+     */
+    private CompletableFuture<Usuario> revalidar(Sessao sessao) {
+        Usuario usuario = sessao.getUsuario();
+        int matricula = usuario.getMatricula();
+        return registroAtual(matricula).thenApply(registro -> {
+            if (registro == null || !registro.isAtivo()) {
+                encerrarSessoesDe(matricula);
+                System.out.println("LOG: Sessões da matrícula " + matricula + " encerradas: usuário inativo ou removido.");
+                throw new CompletionException(new AutenticacaoException("ERRO: Sessão encerrada: usuário inativo."));
+            }
+            if (registro.getMascaraPermissoes() != usuario.getMascaraPermissoes()) {
+                usuario.setMascaraPermissoes(registro.getMascaraPermissoes());
+                System.out.println("LOG: Permissões da sessão da matrícula " + matricula + " atualizadas.");
+            }
+            return usuario;
+        });
+    }
+
+    /**
+     * Retorna o registro do usuário lido há menos de um intervalo de verificação, ou inicia uma
+     * nova leitura. Leituras simultâneas da mesma matrícula são compartilhadas. Se a leitura
+     * falhar (por exemplo, sem conexão), o último registro conhecido continua sendo usado.
+     */
+    private CompletableFuture<Usuario> registroAtual(int matricula) {
+        long agora = System.currentTimeMillis();
+        Verificacao verificacao = verificacoes.compute(matricula, (chave, atual) -> {
+            if (atual != null && agora - atual.lidaEm < verificacaoMs) {
+                return atual;
+            }
+            CompletableFuture<Usuario> leitura = repository.buscarPorMatricula(matricula);
+            if (atual != null) {
+                CompletableFuture<Usuario> anterior = atual.registro;
+                leitura = leitura.handle((registro, erro) -> {
+                    if (erro == null) {
+                        return CompletableFuture.completedFuture(registro);
+                    }
+                    System.err.println("ERRO: Falha ao revalidar a matrícula " + matricula + "; usando o último registro conhecido: "
+                            + Futuros.causa(erro).getMessage());
+                    return anterior;
+                }).thenCompose(registro -> registro);
+            }
+            return new Verificacao(agora, leitura);
+        });
+        verificacao.registro.whenComplete((registro, erro) -> {
+            if (erro != null) {
+                verificacoes.remove(matricula, verificacao);
+            }
+        });
+        return Futuros.traduzir(verificacao.registro, "ERRO: Falha ao revalidar a sessão.");
+    }
+
+    private byte[] assinar(String carga) {
+        return macs.get().doFinal(carga.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] verificadorSenha(int matricula, String senha) {
+        return assinar("senha." + matricula + "." + senha);
+    }
+
+    private Mac novoMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(chave);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("ERRO: HMAC-SHA256 indisponível.", e);
+        }
+    }
+
+    /**
+     * Lê a chave de {@code pdv.sessao.chave} ou sorteia uma nova.
+     */
+    private static byte[] chaveConfigurada() {
+        String configurada = System.getProperty("pdv.sessao.chave");
+        if (configurada != null) {
+            return Base64.getDecoder().decode(configurada.trim());
+        }
+        byte[] chave = new byte[32];
+        new SecureRandom().nextBytes(chave);
+        return chave;
+    }
+}
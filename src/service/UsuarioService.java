@@ -7,36 +7,136 @@ package service;
  * Lorena da Silva Borges
  */
 
+import database.HistogramaLatencia;
+import database.Metricas;
+import interfaces.Alteracoes;
 import model.Atendente;
 import model.Gerente;
 import model.Permissao;
 import model.Usuario;
+import repository.Pagina;
+import repository.RelatorioIndiceLogin;
 import repository.UsuarioRepository;
 
 import excecoes.AcessoNegadoException;
 import excecoes.AutenticacaoException;
+import excecoes.PersistenciaException;
+import org.mindrot.jbcrypt.BCrypt;
 
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Classe de serviço que encapsula a lógica de negócio para autenticação e
  * gerenciamento de usuários.
  *  Ela utiliza o {@link UsuarioRepository} para interagir com a camada
  * de persistência de dados.
+ * <p>
+ * Assim como em {@link ProdutoService}, cada operação tem uma versão assíncrona
+ * (sufixo {@code Async}) e uma versão bloqueante que apenas a aguarda.
  *
  * @see Usuario
  * @see UsuarioRepository
  * @see Permissao
+ * @see Futuros
  */
 public class UsuarioService {
+    /**
+     * Tempo de verificação do hash BCrypt no login; senhas incorretas contam como erro.
+     * Como o custo do hash é calibrado por {@link CustoSenha}, a métrica mostra se ele
+     * continua adequado ao hardware.
+     */
+    private static final HistogramaLatencia LATENCIA_VERIFICAR_SENHA = Metricas.latencia("usuarios.verificarSenha");
+
+    /**
+     * Thread das regravações de senha, para que o BCrypt da regravação não dispute as threads
+     * que atendem os logins.
+     */
+    private static final Executor REGRAVACAO_SENHAS = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "regravacao-senhas");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final UsuarioRepository repository = new UsuarioRepository();
 
     /**
-     * Autentica um usuário com base em suas credenciais (login e senha).
+     * Autentica um usuário de forma assíncrona com base em suas credenciais (login e senha).
      * O metodo primeiro busca o usuário pelo seu nome de login no repositório.
      * Se encontrado, ele delega a verificação da senha para o próprio objeto {@link Usuario}.
+     * A verificação do hash é feita fora da thread de eventos do Firebase.
+     * <p>
+     * Se a senha estiver gravada com um fator de custo menor que o calibrado em
+     * {@link CustoSenha}, ela é regravada com o custo atual, aproveitando a senha em texto
+     * plano disponível apenas neste momento. Um hash mais forte nunca é enfraquecido: como
+     * cada terminal calibra o custo para o próprio hardware, um terminal mais lento não
+     * rebaixa as senhas gravadas por outro, e dois terminais diferentes não regravam as
+     * senhas um do outro a cada login. A regravação roda em uma thread própria e não atrasa
+     * o login: uma falha nela é apenas registrada, e a senha antiga continua válida.
+     *
+     * @param usuario O nome de usuário (login) para autenticar.
+     * @param senhaDigitada   A senha para verificação.
+     * @return Um {@link CompletableFuture} completado com o {@link Usuario} autenticado, ou com
+     * {@link AutenticacaoException} se o usuário não existir, estiver inativo ou a senha
+     * estiver incorreta.
+     */
+    public CompletableFuture<Usuario> autenticarAsync(String usuario, String senhaDigitada) {
+        CompletableFuture<Usuario> autenticacao = repository.buscarPorUsuario(usuario).thenApplyAsync(usuarioDoBanco -> {
+            if (usuarioDoBanco == null) {
+                throw new CompletionException(new AutenticacaoException("ERRO: Usuário ou senha inválidos."));
+            }
+            if (!usuarioDoBanco.isAtivo()) {
+                throw new CompletionException(new AutenticacaoException("ERRO: Usuário inativo."));
+            }
+            long inicio = System.nanoTime();
+            boolean verificada = false;
+            try {
+                usuarioDoBanco.autenticar(senhaDigitada);
+                verificada = true;
+            } catch (AutenticacaoException e) {
+                throw new CompletionException(e);
+            } catch (RuntimeException e) {
+                // Hash de senha ausente ou inválido no banco.
+                throw new CompletionException(new AutenticacaoException("ERRO: Usuário ou senha inválidos."));
+            } finally {
+                LATENCIA_VERIFICAR_SENHA.registrarDesde(inicio, !verificada);
+            }
+            if (usuarioDoBanco.getCustoHashSenha() < CustoSenha.configurar()) {
+                REGRAVACAO_SENHAS.execute(() -> regravarSenha(usuarioDoBanco, senhaDigitada));
+            }
+            return usuarioDoBanco;
+        });
+        return Futuros.traduzir(autenticacao, "ERRO: Falha ao consultar o usuário no banco de dados.");
+    }
+
+    /**
+     * Regrava o hash da senha com o fator de custo atual, alterando apenas o campo "senha".
+     * O usuário devolvido pelo login não é alterado, pois já está com quem chamou.
+     *
+     * @param usuario    O usuário recém-autenticado.
+     * @param senhaPlana A senha em texto plano, já verificada.
+     */
+    private void regravarSenha(Usuario usuario, String senhaPlana) {
+        int custoAnterior = usuario.getCustoHashSenha();
+        String novoHash = BCrypt.hashpw(senhaPlana, BCrypt.gensalt(Usuario.getCustoSenha()));
+        Futuros.de(repository.atualizarCampos(String.valueOf(usuario.getMatricula()),
+                        new Alteracoes<Usuario>().definir(Usuario.SENHA, novoHash)))
+                .whenComplete((ok, erro) -> {
+                    if (erro != null) {
+                        System.err.println("ERRO: Falha ao regravar a senha da matrícula " + usuario.getMatricula() + ": " + Futuros.causa(erro).getMessage());
+                    } else {
+                        System.out.println("LOG: Senha da matrícula " + usuario.getMatricula() + " regravada com custo "
+                                + Usuario.getCustoSenha() + " (antes: " + custoAnterior + ").");
+                    }
+                });
+    }
+
+    /**
+     * Autentica um usuário com base em suas credenciais (login e senha).
      *
      * @param usuario O nome de usuário (login) para autenticar.
      * @param senhaDigitada   A senha para verificação.
@@ -44,28 +144,40 @@ public class UsuarioService {
      * autenticado.
      * @throws AutenticacaoException se o nome de usuário não for encontrado ou se a senha
      * estiver incorreta.
+     * @see #autenticarAsync(String, String)
      */
     public Usuario autenticar(String usuario, String senhaDigitada) throws AutenticacaoException {
-        try {
-            Usuario usuarioDoBanco = repository.buscarPorUsuario(usuario).get();
+        return Futuros.aguardar(autenticarAsync(usuario, senhaDigitada), AutenticacaoException.class);
+    }
 
-            if (usuarioDoBanco != null) {
-                if (!usuarioDoBanco.isAtivo()) {
-                    throw new AutenticacaoException("ERRO: Usuário inativo.");
-                }
-                usuarioDoBanco.autenticar(senhaDigitada);
-                return usuarioDoBanco;
-            } else {
-                throw new AutenticacaoException("ERRO: Usuário ou senha inválidos.");
-            }
-        } catch (InterruptedException | ExecutionException e) {
-            if (e.getCause() instanceof AutenticacaoException) {
-                throw (AutenticacaoException) e.getCause();
-            }
-            throw new AutenticacaoException("ERRO: Usuário ou senha inválidos.");
+    /**
+     * Cadastra, de forma assíncrona, um novo atendente no sistema, validando a permissão
+     * do usuário executor. As verificações de matrícula e de login são feitas em paralelo.
+     *
+     * @param usuarioLogado  O usuário que está tentando realizar a operação de cadastro.
+     * @param novoAtendente  O objeto {@link Atendente} com os dados a serem salvos.
+     * @return Um {@link CompletableFuture} completado quando o atendente for gravado, ou com
+     * {@link AcessoNegadoException} ou {@link IllegalArgumentException}.
+     */
+    public CompletableFuture<Void> cadastrarAtendenteAsync(Usuario usuarioLogado, Atendente novoAtendente) {
+        if (!usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) {
+            return CompletableFuture.failedFuture(new AcessoNegadoException("ERRO: Você não tem permissão para gerenciar usuários!"));
         }
-    }
 
+        CompletableFuture<Void> cadastro = repository.buscarPorMatricula(novoAtendente.getMatricula())
+                .thenCombine(repository.buscarPorUsuario(novoAtendente.getUsuario()), (porMatricula, porLogin) -> {
+                    if (porMatricula != null) {
+                        throw new IllegalArgumentException("ERRO: A matrícula " + novoAtendente.getMatricula() + " já está cadastrada.");
+                    }
+                    if (porLogin != null) {
+                        throw new IllegalArgumentException("ERRO: O nome de usuário '" + novoAtendente.getUsuario() + "' já está em uso.");
+                    }
+                    return novoAtendente;
+                })
+                .thenCompose(atendente -> Futuros.de(repository.salvar(atendente)))
+                .thenRun(() -> System.out.println("LOG: Gerente '" + usuarioLogado.getNome() + "' cadastrou o atendente '" + novoAtendente.getNome() + "'."));
+        return Futuros.traduzir(cadastro, "Erro ao verificar matrícula no banco de dados.");
+    }
 
     /**
      * Cadastra um novo atendente no sistema, validando a permissão do usuário executor.
@@ -75,91 +187,206 @@ public class UsuarioService {
      * @param usuarioLogado  O usuário que está tentando realizar a operação de cadastro.
      * @param novoAtendente  O objeto {@link Atendente} com os dados a serem salvos.
      * @throws AcessoNegadoException    se o {@code usuarioLogado} não tiver a permissão necessária.
-     * @throws IllegalArgumentException se a matrícula do {@code novoAtendente} já estiver em uso.
+     * @throws IllegalArgumentException se a matrícula ou o nome de usuário do {@code novoAtendente}
+     * já estiverem em uso.
+     * @see #cadastrarAtendenteAsync(Usuario, Atendente)
      */
     public void cadastrarAtendente(Usuario usuarioLogado, Atendente novoAtendente) throws AcessoNegadoException {
-        if (!usuarioLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) {
-            throw new AcessoNegadoException("ERRO: Você não tem permissão para gerenciar usuários!");
-        }
-
-        try {
-            Usuario usuarioExistente = repository.buscarPorMatricula(novoAtendente.getMatricula()).get();
-            if (usuarioExistente != null) {
-                throw new IllegalArgumentException("ERRO: A matrícula " + novoAtendente.getMatricula() + " já está cadastrada.");
-            }
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Erro ao verificar matrícula no banco de dados.", e);
-        }
+        Futuros.aguardar(cadastrarAtendenteAsync(usuarioLogado, novoAtendente), AcessoNegadoException.class);
+    }
 
-        repository.salvar(novoAtendente);
-        System.out.println("LOG: Gerente '" + usuarioLogado.getNome() + "' cadastrou o atendente '" + novoAtendente.getNome() + "'.");
+    /**
+     * Busca, de forma assíncrona, todos os usuários do banco de dados.
+     * @return Um {@link CompletableFuture} completado com a lista de usuários.
+     */
+    public CompletableFuture<List<Usuario>> buscarTodosUsuariosAsync() {
+        return Futuros.traduzir(repository.buscarTodos(), "ERRO: Erro ao buscar todos os usuários.");
     }
 
     /**
      * Retorna uma lista com todos os usuários do banco de dados.
      * @return Uma Lista de Usuários.
-     * @throws RuntimeException se ocorrer um erro de baixo nível durante a busca.
+     * @throws PersistenciaException se ocorrer um erro de baixo nível durante a busca.
      */
     public List<Usuario> buscarTodosUsuarios() {
-        try {
-            return repository.buscarTodos().get();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("ERRO: Erro ao buscar todos os usuários.", e);
-        }
+        return Futuros.aguardar(buscarTodosUsuariosAsync(), RuntimeException.class);
     }
 
     /**
-     * Altera o status (ativo/inativo) de um atendente.
+     * Busca, de forma assíncrona, uma página de usuários em ordem de matrícula.
+     *
+     * @param cursor  O cursor devolvido pela página anterior, ou {@code null} para a primeira.
+     * @param tamanho A quantidade máxima de usuários da página.
+     * @return Um {@link CompletableFuture} completado com a {@link Pagina} de usuários.
+     */
+    public CompletableFuture<Pagina<Usuario>> buscarPaginaUsuariosAsync(String cursor, int tamanho) {
+        return Futuros.traduzir(repository.buscarPagina(cursor, tamanho), "ERRO: Erro ao buscar a página de usuários.");
+    }
+
+    /**
+     * Altera, de forma assíncrona, o status (ativo/inativo) de um atendente, gravando
+     * apenas o campo "ativo".
      * @param gerenteLogado O gerente executando a ação.
      * @param matriculaAtendente A matrícula do atendente a ser alterado.
      * @param novoStatus O novo status (true para ativar, false para inativar).
-     * @throws AcessoNegadoException se o executor não tiver a permissão necessária.
-     * @throws IllegalArgumentException se o atendente não for encontrado ou se um gerente tentar se auto-inativar.
+     * @return Um {@link CompletableFuture} completado quando o status for gravado, ou com
+     * {@link AcessoNegadoException} ou {@link IllegalArgumentException}.
      */
-    public void alterarStatusAtendente(Usuario gerenteLogado, int matriculaAtendente, boolean novoStatus) throws AcessoNegadoException {
+    public CompletableFuture<Void> alterarStatusAtendenteAsync(Usuario gerenteLogado, int matriculaAtendente, boolean novoStatus) {
         if (!gerenteLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) {
-            throw new AcessoNegadoException("ERRO: Você não tem permissão para gerenciar usuários!");
+            return CompletableFuture.failedFuture(new AcessoNegadoException("ERRO: Você não tem permissão para gerenciar usuários!"));
         }
         if (gerenteLogado.getMatricula() == matriculaAtendente) {
-            throw new IllegalArgumentException("ERRO: Um gerente não pode inativar a si mesmo.");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("ERRO: Um gerente não pode inativar a si mesmo."));
         }
 
-        try {
-            Usuario atendente = repository.buscarPorMatricula(matriculaAtendente).get();
+        CompletableFuture<Void> alteracao = repository.buscarPorMatricula(matriculaAtendente).thenCompose(atendente -> {
             if (atendente == null || atendente instanceof Gerente) {
                 throw new IllegalArgumentException("ERRO: Atendente com a matrícula " + matriculaAtendente + " não encontrado.");
             }
-            atendente.setAtivo(novoStatus);
-            repository.salvar(atendente);
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Erro ao buscar atendente para inativar.", e);
-        }
+            if (atendente.isAtivo() == novoStatus) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return Futuros.de(repository.atualizarCampos(String.valueOf(matriculaAtendente),
+                    new Alteracoes<Usuario>().definir(Usuario.ATIVO, novoStatus)))
+                    .thenRun(() -> SessaoService.getInstancia().invalidar(matriculaAtendente));
+        });
+        return Futuros.traduzir(alteracao, "Erro ao buscar atendente para inativar.");
     }
 
     /**
-     * Atualiza o mapa de permissões de um usuário específico.
+     * Altera o status (ativo/inativo) de um atendente.
+     * @param gerenteLogado O gerente executando a ação.
+     * @param matriculaAtendente A matrícula do atendente a ser alterado.
+     * @param novoStatus O novo status (true para ativar, false para inativar).
+     * @throws AcessoNegadoException se o executor não tiver a permissão necessária.
+     * @throws IllegalArgumentException se o atendente não for encontrado ou se um gerente tentar se auto-inativar.
+     * @see #alterarStatusAtendenteAsync(Usuario, int, boolean)
+     */
+    public void alterarStatusAtendente(Usuario gerenteLogado, int matriculaAtendente, boolean novoStatus) throws AcessoNegadoException {
+        Futuros.aguardar(alterarStatusAtendenteAsync(gerenteLogado, matriculaAtendente, novoStatus), AcessoNegadoException.class);
+    }
+
+    /**
+     * Atualiza, de forma assíncrona, as permissões de um usuário específico.
+     * No formato de mapa, somente as permissões que mudaram em relação ao registro atual são
+     * enviadas ao banco; no armazenamento compacto, é gravada a nova máscara. Se o registro
+     * estiver no outro formato, ele é convertido para o formato em uso nesta mesma escrita.
      * @param gerenteLogado O gerente que está executando a ação.
      * @param matriculaAlvo A matrícula do usuário cujas permissões serão alteradas.
-     * @param novasPermissoes O novo mapa de permissões a ser salvo.
-     * @throws AcessoNegadoException sse o executor não tiver a permissão necessária.
-     * @throws IllegalArgumentException se o usuário alvo não for encontrado.
+     * @param novasPermissoes As permissões concedidas; as ausentes são consideradas negadas.
+     * @return Um {@link CompletableFuture} completado quando as permissões forem gravadas, ou com
+     * {@link AcessoNegadoException} ou {@link IllegalArgumentException}.
      */
-    public void atualizarPermissoes(Usuario gerenteLogado, int matriculaAlvo, Map<String, Boolean> novasPermissoes) throws AcessoNegadoException {
+    public CompletableFuture<Void> atualizarPermissoesAsync(Usuario gerenteLogado, int matriculaAlvo, Set<Permissao> novasPermissoes) {
         if (!gerenteLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) {
-            throw new AcessoNegadoException("ERRO: Apenas gerentes podem alterar permissões!");
+            return CompletableFuture.failedFuture(new AcessoNegadoException("ERRO: Apenas gerentes podem alterar permissões!"));
         }
 
-        try {
-            Usuario usuarioAlvo = repository.buscarPorMatricula(matriculaAlvo).get();
+        CompletableFuture<Void> atualizacao = repository.buscarPorMatricula(matriculaAlvo).thenCompose(usuarioAlvo -> {
             if (usuarioAlvo == null) {
                 throw new IllegalArgumentException("ERRO: Usuário com a matrícula " + matriculaAlvo + " não encontrado.");
             }
 
-            usuarioAlvo.setPermissoes(novasPermissoes);
-            repository.salvar(usuarioAlvo);
+            long novaMascara = Permissao.mascaraDe(novasPermissoes);
+            Alteracoes<Usuario> alteracoes = new Alteracoes<>();
+            if (Usuario.isArmazenamentoCompacto()) {
+                if (!usuarioAlvo.isPermissoesCompactas() || usuarioAlvo.getMascaraPermissoes() != novaMascara) {
+                    alteracoes.definir(Usuario.PERMISSOES_MASCARA, novaMascara);
+                    alteracoes.definir(Usuario.PERMISSOES, null);
+                }
+            } else if (usuarioAlvo.isPermissoesCompactas()) {
+                alteracoes.definir(Usuario.PERMISSOES, Permissao.mapaDe(novaMascara));
+                alteracoes.definir(Usuario.PERMISSOES_MASCARA, null);
+            } else {
+                for (Permissao permissao : Permissao.values()) {
+                    boolean nova = (novaMascara & permissao.bit()) != 0;
+                    if (usuarioAlvo.temPermissao(permissao) != nova) {
+                        alteracoes.definir(Usuario.permissao(permissao), nova);
+                    }
+                }
+            }
+            if (alteracoes.isVazia()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return Futuros.de(repository.atualizarCampos(String.valueOf(matriculaAlvo), alteracoes))
+                    .thenRun(() -> {
+                        SessaoService.getInstancia().invalidar(matriculaAlvo);
+                        System.out.println("LOG: Permissões alteradas para a matrícula " + matriculaAlvo + ": " + alteracoes + ".");
+                    });
+        });
+        return Futuros.traduzir(atualizacao, "Erro ao buscar usuário para atualizar permissões.");
+    }
+
+    /**
+     * Atualiza as permissões de um usuário específico.
+     * @param gerenteLogado O gerente que está executando a ação.
+     * @param matriculaAlvo A matrícula do usuário cujas permissões serão alteradas.
+     * @param novasPermissoes As permissões concedidas; as ausentes são consideradas negadas.
+     * @throws AcessoNegadoException sse o executor não tiver a permissão necessária.
+     * @throws IllegalArgumentException se o usuário alvo não for encontrado.
+     * @see #atualizarPermissoesAsync(Usuario, int, Set)
+     */
+    public void atualizarPermissoes(Usuario gerenteLogado, int matriculaAlvo, Set<Permissao> novasPermissoes) throws AcessoNegadoException {
+        Futuros.aguardar(atualizarPermissoesAsync(gerenteLogado, matriculaAlvo, novasPermissoes), AcessoNegadoException.class);
+    }
 
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Erro ao buscar usuário para atualizar permissões.", e);
+    /**
+     * Reconstrói, de forma assíncrona, o índice de login ({@code usuarios_por_login}) a partir
+     * dos usuários cadastrados. Usado para preencher o índice de bases antigas ou corrigi-lo
+     * depois de uma verificação com inconsistências.
+     *
+     * @param gerenteLogado O gerente que está executando a ação.
+     * @return Um {@link CompletableFuture} completado com o número de entradas gravadas no índice,
+     * ou com {@link AcessoNegadoException}.
+     */
+    public CompletableFuture<Integer> reconstruirIndiceLoginAsync(Usuario gerenteLogado) {
+        if (!gerenteLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) {
+            return CompletableFuture.failedFuture(new AcessoNegadoException("ERRO: Você não tem permissão para gerenciar usuários!"));
+        }
+
+        CompletableFuture<Integer> reconstrucao = repository.reconstruirIndiceLogin().thenApply(entradas -> {
+            System.out.println("LOG: Gerente '" + gerenteLogado.getNome() + "' reconstruiu o índice de login (" + entradas + " entradas).");
+            return entradas;
+        });
+        return Futuros.traduzir(reconstrucao, "ERRO: Erro ao reconstruir o índice de login.");
+    }
+
+    /**
+     * Reconstrói o índice de login a partir dos usuários cadastrados.
+     *
+     * @param gerenteLogado O gerente que está executando a ação.
+     * @return O número de entradas gravadas no índice.
+     * @throws AcessoNegadoException se o executor não tiver a permissão necessária.
+     * @see #reconstruirIndiceLoginAsync(Usuario)
+     */
+    public int reconstruirIndiceLogin(Usuario gerenteLogado) throws AcessoNegadoException {
+        return Futuros.aguardar(reconstruirIndiceLoginAsync(gerenteLogado), AcessoNegadoException.class);
+    }
+
+    /**
+     * Verifica, de forma assíncrona, se o índice de login está consistente com os usuários cadastrados.
+     *
+     * @param gerenteLogado O gerente que está executando a ação.
+     * @return Um {@link CompletableFuture} completado com o {@link RelatorioIndiceLogin}, ou com
+     * {@link AcessoNegadoException}.
+     */
+    public CompletableFuture<RelatorioIndiceLogin> verificarIndiceLoginAsync(Usuario gerenteLogado) {
+        if (!gerenteLogado.temPermissao(Permissao.GERENCIAR_USUARIOS)) {
+            return CompletableFuture.failedFuture(new AcessoNegadoException("ERRO: Você não tem permissão para gerenciar usuários!"));
         }
+        return Futuros.traduzir(repository.verificarIndiceLogin(), "ERRO: Erro ao verificar o índice de login.");
+    }
+
+    /**
+     * Verifica se o índice de login está consistente com os usuários cadastrados.
+     *
+     * @param gerenteLogado O gerente que está executando a ação.
+     * @return O {@link RelatorioIndiceLogin} com as inconsistências encontradas.
+     * @throws AcessoNegadoException se o executor não tiver a permissão necessária.
+     * @see #verificarIndiceLoginAsync(Usuario)
+     */
+    public RelatorioIndiceLogin verificarIndiceLogin(Usuario gerenteLogado) throws AcessoNegadoException {
+        return Futuros.aguardar(verificarIndiceLoginAsync(gerenteLogado), AcessoNegadoException.class);
     }
 }
@@ -7,17 +7,64 @@ package service;
  * Lorena da Silva Borges
  */
 
+import database.HistogramaLatencia;
+import database.Metricas;
+import model.Carrinho;
+import model.ConflitoEstoque;
 import model.FormaPagamento;
+import model.ItemVenda;
 import model.Produto;
 import model.Venda;
 import model.Usuario;
 import excecoes.*;
+import model.VendaDTO;
+import repository.DiarioVendas;
+import repository.DimensaoVenda;
 import repository.VendaRepository;
 
+import repository.AgregacaoVendas;
+import repository.ArmazemVendas;
+import repository.ConsolidacaoVendas;
+import repository.ConsolidadoDia;
+import repository.Pagina;
+import repository.ReservasEstoque;
+import repository.ResultadoEstoque;
+import repository.UsuarioRepository;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Classe de serviço que orquestra a lógica de negócio para o registro de vendas.
  * Suas responsabilidades incluem a validação de dados,
  * a atualização do estoque e a persistência do registro da venda.
+ * <p>
+ * Com o diário local habilitado (propriedade {@code pdv.vendas.diario}, padrão {@code true})
+ * e a réplica do catálogo carregada, a venda é validada em memória e confirmada no
+ * {@link DiarioVendas}, sem esperar pela rede; o envio ao Firebase fica a cargo do
+ * {@link repository.ReprodutorDiario}. Sem a réplica, a venda segue o caminho online.
+ * <p>
+ * Vendas com vários produtos são finalizadas a partir de um {@link Carrinho}, com tudo ou
+ * nada: ou todas as linhas têm o estoque baixado e a venda é gravada, ou nada é alterado.
+ * <p>
+ * Enquanto o caixa monta a venda, as unidades podem ser seguradas por uma reserva
+ * ({@link #reservarAsync(String, int)}), convertida em baixa quando a venda é confirmada.
+ * As vendas sem reserva também respeitam as unidades reservadas por outras vendas.
+ * <p>
+ * O tempo de cada venda, da chamada até a confirmação devolvida ao caixa, é medido em
+ * {@link Metricas}: {@code vendas.registrarVenda} para um produto e
+ * {@code vendas.finalizarCarrinho} para um carrinho.
  *
  * @see Venda
  * @see ProdutoService
@@ -25,8 +72,15 @@ import repository.VendaRepository;
  * @see VendaService
  */
 public class VendaService {
+    private static final HistogramaLatencia LATENCIA_REGISTRAR_VENDA = Metricas.latencia("vendas.registrarVenda");
+    private static final HistogramaLatencia LATENCIA_FINALIZAR_CARRINHO = Metricas.latencia("vendas.finalizarCarrinho");
+
     private final ProdutoService produtoService;
     private final VendaRepository vendaRepository;
+    private final DiarioVendas diario;
+    private final ConsolidacaoVendas consolidacao = ConsolidacaoVendas.getPadrao();
+    private final ArmazemVendas armazem = abrirArmazemPadrao();
+    private final ReservasEstoque reservas = ReservasEstoque.getPadrao();
 
     /**
      * Construtor que utiliza injeção de dependência para receber as instâncias
@@ -38,19 +92,203 @@ public class VendaService {
      * persistir os dados da venda.
      */
     public VendaService(ProdutoService produtoService, VendaRepository vendaRepository) {
+        this(produtoService, vendaRepository, abrirDiarioPadrao());
+    }
+
+    /**
+     * Construtor que permite informar o diário local de vendas.
+     *
+     * @param produtoService  A instância do serviço de produtos.
+     * @param vendaRepository A instância do repositório de vendas.
+     * @param diario          O diário em que as vendas são confirmadas localmente, ou
+     * {@code null} para registrar todas as vendas diretamente no Firebase.
+     */
+    public VendaService(ProdutoService produtoService, VendaRepository vendaRepository, DiarioVendas diario) {
         this.produtoService = produtoService;
         this.vendaRepository = vendaRepository;
+        this.diario = diario;
+    }
+
+    private static ArmazemVendas abrirArmazemPadrao() {
+        try {
+            return ArmazemVendas.getPadrao();
+        } catch (UncheckedIOException e) {
+            System.err.println("ERRO: Armazém de vendas indisponível; os relatórios analíticos ficarão desativados: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static DiarioVendas abrirDiarioPadrao() {
+        if (!Boolean.parseBoolean(System.getProperty("pdv.vendas.diario", "true"))) {
+            return null;
+        }
+        try {
+            return DiarioVendas.getPadrao();
+        } catch (UncheckedIOException e) {
+            System.err.println("ERRO: Diário de vendas indisponível; as vendas serão registradas diretamente no Firebase: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Executa o processo completo de registro de uma nova venda no sistema.
-     * Este metodo orquestra uma sequência de operações transacionais:
+     * Executa, de forma assíncrona, o processo completo de registro de uma nova venda.
+     * As etapas são encadeadas como estágios de um {@link CompletableFuture}, sem
+     * bloquear a thread chamadora:
      * 1. Busca e valida o produto.
      * 2. Valida o valor do desconto.
      * 3. Comanda a redução do estoque.
      * 4. Gera um ID único para a venda.
      * 5. Cria a entidade {@link Venda} com os dados finais da transação.
-     * 6. Persiste a venda através do repositório.
+     * 6. Entrega a venda ao repositório, que a grava no próximo lote de escrita, e aguarda a
+     * confirmação do lote. Se a gravação falhar, mesmo ao ser entregue ao buffer, o estoque é devolvido.
+     *
+     * @param usuario        O {@link Usuario} que está realizando a venda.
+     * @param produtoId      O ID do {@link Produto} a ser vendido.
+     * @param quantidade     A quantidade de itens a serem vendidos.
+     * @param formaPagamento A {@link FormaPagamento} utilizada.
+     * @param desconto       O valor do desconto a ser aplicado sobre o valor bruto.
+     * @return Um {@link CompletableFuture} completado com a {@link Venda} registrada, ou com
+     * {@link ProdutoNaoEncontradoException}, {@link EstoqueInsuficienteException},
+     * {@link IllegalArgumentException} (desconto inválido) ou {@link PersistenciaException}.
+     */
+    public CompletableFuture<Venda> registrarVendaAsync(Usuario usuario, String produtoId, int quantidade,
+                                                        FormaPagamento formaPagamento, double desconto) {
+        return registrarVendaAsync(usuario, produtoId, quantidade, formaPagamento, desconto, 0, null);
+    }
+
+    /**
+     * Executa, de forma assíncrona, o registro de uma venda cujas unidades foram reservadas
+     * por {@link #reservarAsync(String, int)}. A reserva fica retida durante o registro e é
+     * convertida na baixa de estoque quando a venda é confirmada; se o registro falhar, ela
+     * continua ativa e pode ser usada de novo.
+     *
+     * @param usuario        O {@link Usuario} que está realizando a venda.
+     * @param reserva        A reserva com o produto e a quantidade vendidos.
+     * @param formaPagamento A {@link FormaPagamento} utilizada.
+     * @param desconto       O valor do desconto a ser aplicado sobre o valor bruto.
+     * @return Um {@link CompletableFuture} completado com a {@link Venda} registrada, ou com as
+     * mesmas falhas de {@link #registrarVendaAsync(Usuario, String, int, FormaPagamento, double)};
+     * {@link EstoqueInsuficienteException} também indica uma reserva expirada ou já usada.
+     */
+    public CompletableFuture<Venda> registrarVendaAsync(Usuario usuario, ReservasEstoque.Reserva reserva,
+                                                        FormaPagamento formaPagamento, double desconto) {
+        return registrarVendaAsync(usuario, reserva, formaPagamento, desconto, null);
+    }
+
+    /**
+     * Registra uma venda reservada dentro de uma operação. O produto lido ao reservar é
+     * reaproveitado em vez de buscado de novo, e a quantidade confirmada pela baixa de estoque
+     * fica no contexto para a releitura seguinte.
+     *
+     * @param usuario        O {@link Usuario} que está realizando a venda.
+     * @param reserva        A reserva com o produto e a quantidade vendidos.
+     * @param formaPagamento A {@link FormaPagamento} utilizada.
+     * @param desconto       O valor do desconto a ser aplicado sobre o valor bruto.
+     * @param contexto       As leituras da operação em andamento, ou {@code null}.
+     * @return O mesmo que {@link #registrarVendaAsync(Usuario, ReservasEstoque.Reserva, FormaPagamento, double)}.
+     */
+    public CompletableFuture<Venda> registrarVendaAsync(Usuario usuario, ReservasEstoque.Reserva reserva,
+                                                        FormaPagamento formaPagamento, double desconto,
+                                                        ContextoLeitura contexto) {
+        return reservas.converter(Collections.singletonList(reserva), () -> registrarVendaAsync(usuario,
+                reserva.getProdutoId(), reserva.getQuantidade(), formaPagamento, desconto, reserva.getQuantidade(), contexto));
+    }
+
+    /**
+     * Registra a venda, descontando do estoque livre as unidades reservadas por outras vendas.
+     *
+     * @param reservadoProprio As unidades do produto reservadas pela própria venda.
+     * @param contexto         As leituras da operação em andamento, ou {@code null}.
+     */
+    private CompletableFuture<Venda> registrarVendaAsync(Usuario usuario, String produtoId, int quantidade,
+                                                         FormaPagamento formaPagamento, double desconto, int reservadoProprio,
+                                                         ContextoLeitura contexto) {
+        long inicio = System.nanoTime();
+        int reservadoOutros = reservas.getReservado(produtoId) - reservadoProprio;
+        if (diario != null && produtoService.isCatalogoCarregado()) {
+            return LATENCIA_REGISTRAR_VENDA.medir(inicio,
+                    registrarVendaLocal(usuario, produtoId, quantidade, formaPagamento, desconto, reservadoOutros));
+        }
+        return LATENCIA_REGISTRAR_VENDA.medir(inicio, produtoService.buscarProdutoAsync(produtoId, contexto).thenCompose(produto -> {
+            double valorBruto = produto.getPreco() * quantidade;
+            if (desconto < 0 || desconto > valorBruto) {
+                throw new IllegalArgumentException("ERRO: O valor do desconto é inválido.");
+            }
+            verificarEstoqueLivre(produto, quantidade, reservadoOutros);
+            return produtoService.reduzirEstoqueAsync(produtoId, quantidade, contexto).thenCompose(resultado -> {
+                String novoIdVenda = java.util.UUID.randomUUID().toString();
+
+                Venda novaVenda;
+                CompletableFuture<Void> escrita;
+                try {
+                    novaVenda = new Venda(novoIdVenda, usuario, produto, quantidade, formaPagamento, desconto);
+                    escrita = vendaRepository.salvar(novaVenda);
+                } catch (RuntimeException e) {
+                    // Buffer de escrita já fechado ou falha na conversão: a venda nem chegou a ser enviada.
+                    devolverEstoque(novoIdVenda, usuario, produtoId, quantidade);
+                    return CompletableFuture.failedFuture(new PersistenciaException(
+                            "ERRO: Falha ao gravar a venda; o estoque do produto foi devolvido.", e));
+                }
+
+                CompletableFuture<Venda> gravacao = new CompletableFuture<>();
+                escrita.whenComplete((gravada, erroGravacao) -> {
+                    if (erroGravacao != null) {
+                        devolverEstoque(novoIdVenda, usuario, produtoId, quantidade);
+                        gravacao.completeExceptionally(new PersistenciaException(
+                                "ERRO: Falha ao gravar a venda; o estoque do produto foi devolvido.", Futuros.causa(erroGravacao)));
+                        return;
+                    }
+                    gravacao.complete(novaVenda);
+                });
+                return gravacao;
+            });
+        }));
+    }
+
+    /**
+     * Registra a venda no diário local. O produto vem da réplica do catálogo, então o future
+     * retornado já está completo quando o método retorna; o estoque e a venda são enviados
+     * ao Firebase depois, em ordem, pelo {@link repository.ReprodutorDiario}.
+     */
+    private CompletableFuture<Venda> registrarVendaLocal(Usuario usuario, String produtoId, int quantidade,
+                                                         FormaPagamento formaPagamento, double desconto, int reservadoOutros) {
+        return produtoService.buscarProdutoAsync(produtoId).thenApply(produto -> {
+            if (quantidade <= 0) {
+                throw new IllegalArgumentException("LOG: A quantidade a ser removida deve ser maior que zero.");
+            }
+            double valorBruto = produto.getPreco() * quantidade;
+            if (desconto < 0 || desconto > valorBruto) {
+                throw new IllegalArgumentException("ERRO: O valor do desconto é inválido.");
+            }
+            String novoIdVenda = java.util.UUID.randomUUID().toString();
+            Venda novaVenda = new Venda(novoIdVenda, usuario, produto, quantidade, formaPagamento, desconto);
+            try {
+                diario.registrarVenda(new VendaDTO(novaVenda), -quantidade, produto.getQuantidade() - reservadoOutros);
+            } catch (EstoqueInsuficienteException e) {
+                throw new CompletionException(e);
+            } catch (UncheckedIOException e) {
+                throw new PersistenciaException("ERRO: Falha ao gravar a venda no diário local.", e);
+            }
+            System.out.println("LOG: Venda " + novoIdVenda + " confirmada no diário local.");
+            return novaVenda;
+        });
+    }
+
+    /**
+     * Falha com {@link EstoqueInsuficienteException} se o estoque do produto, descontadas as
+     * unidades reservadas por outras vendas, não comportar a quantidade.
+     */
+    private static void verificarEstoqueLivre(Produto produto, int quantidade, int reservadoOutros) {
+        int livre = produto.getQuantidade() - reservadoOutros;
+        if (quantidade > livre) {
+            throw new CompletionException(new EstoqueInsuficienteException("ERRO: Estoque insuficiente para o produto: "
+                    + produto.getId() + " (disponível: " + Math.max(livre, 0) + ")"));
+        }
+    }
+
+    /**
+     * Executa o processo completo de registro de uma nova venda no sistema.
+     * Aguarda a conclusão de {@link #registrarVendaAsync(Usuario, String, int, FormaPagamento, double)}.
      *
      * @param usuario        O {@link Usuario} que está realizando a venda.
      * @param produtoId      O ID do {@link Produto} a ser vendido.
@@ -64,19 +302,639 @@ public class VendaService {
      */
     public Venda registrarVenda(Usuario usuario, String produtoId, int quantidade, FormaPagamento formaPagamento, double desconto)
             throws ProdutoNaoEncontradoException, EstoqueInsuficienteException {
+        return Futuros.aguardar(registrarVendaAsync(usuario, produtoId, quantidade, formaPagamento, desconto),
+                ProdutoNaoEncontradoException.class, EstoqueInsuficienteException.class);
+    }
 
-        Produto produto = produtoService.buscarProduto(produtoId);
+    /**
+     * Registra uma venda cujas unidades foram reservadas.
+     * Aguarda a conclusão de {@link #registrarVendaAsync(Usuario, ReservasEstoque.Reserva, FormaPagamento, double)}.
+     *
+     * @param usuario        O {@link Usuario} que está realizando a venda.
+     * @param reserva        A reserva com o produto e a quantidade vendidos.
+     * @param formaPagamento A {@link FormaPagamento} utilizada.
+     * @param desconto       O valor do desconto a ser aplicado sobre o valor bruto.
+     * @return O objeto {@link Venda} finalizado e salvo.
+     * @throws ProdutoNaoEncontradoException se o produto não existir mais.
+     * @throws EstoqueInsuficienteException  se a reserva tiver expirado ou o estoque do servidor
+     * não comportar a venda.
+     */
+    public Venda registrarVenda(Usuario usuario, ReservasEstoque.Reserva reserva, FormaPagamento formaPagamento, double desconto)
+            throws ProdutoNaoEncontradoException, EstoqueInsuficienteException {
+        return registrarVenda(usuario, reserva, formaPagamento, desconto, null);
+    }
+
+    /**
+     * Registra uma venda reservada dentro de uma operação.
+     *
+     * @param usuario        O {@link Usuario} que está realizando a venda.
+     * @param reserva        A reserva com o produto e a quantidade vendidos.
+     * @param formaPagamento A {@link FormaPagamento} utilizada.
+     * @param desconto       O valor do desconto a ser aplicado sobre o valor bruto.
+     * @param contexto       As leituras da operação em andamento, ou {@code null}.
+     * @return A {@link Venda} registrada.
+     * @throws ProdutoNaoEncontradoException se o produto não existir mais.
+     * @throws EstoqueInsuficienteException  se a reserva tiver expirado ou o estoque do servidor
+     * não comportar a venda.
+     * @see #registrarVendaAsync(Usuario, ReservasEstoque.Reserva, FormaPagamento, double, ContextoLeitura)
+     */
+    public Venda registrarVenda(Usuario usuario, ReservasEstoque.Reserva reserva, FormaPagamento formaPagamento,
+                                double desconto, ContextoLeitura contexto)
+            throws ProdutoNaoEncontradoException, EstoqueInsuficienteException {
+        return Futuros.aguardar(registrarVendaAsync(usuario, reserva, formaPagamento, desconto, contexto),
+                ProdutoNaoEncontradoException.class, EstoqueInsuficienteException.class);
+    }
+
+    /**
+     * Reserva, de forma assíncrona, unidades de um produto para uma venda em andamento. A
+     * reserva é local e barata: usa o produto da réplica do catálogo, quando carregada, e não
+     * grava nada no banco. Ela expira sozinha se não for usada em
+     * {@link ReservasEstoque#TTL_PADRAO_SEG} segundos.
+     *
+     * @param produtoId  O ID do produto.
+     * @param quantidade O número de unidades.
+     * @return Um {@link CompletableFuture} completado com a {@link ReservasEstoque.Reserva}, ou com
+     * {@link ProdutoNaoEncontradoException}, {@link EstoqueInsuficienteException} ou
+     * {@link IllegalArgumentException} (quantidade menor ou igual a zero).
+     */
+    public CompletableFuture<ReservasEstoque.Reserva> reservarAsync(String produtoId, int quantidade) {
+        return reservarAsync(produtoId, quantidade, null);
+    }
+
+    /**
+     * Reserva unidades de um produto dentro de uma operação, reaproveitando o produto se ele
+     * já foi lido no contexto.
+     *
+     * @param produtoId  O ID do produto.
+     * @param quantidade O número de unidades.
+     * @param contexto   As leituras da operação em andamento, ou {@code null}.
+     * @return O mesmo que {@link #reservarAsync(String, int)}.
+     */
+    public CompletableFuture<ReservasEstoque.Reserva> reservarAsync(String produtoId, int quantidade, ContextoLeitura contexto) {
+        return produtoService.buscarProdutoAsync(produtoId, contexto).thenApply(produto -> {
+            try {
+                return reservas.reservar(produtoId, quantidade, estoqueConhecido(produto));
+            } catch (EstoqueInsuficienteException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Reserva unidades de um produto para uma venda em andamento.
+     *
+     * @param produtoId  O ID do produto.
+     * @param quantidade O número de unidades.
+     * @return A reserva criada.
+     * @throws ProdutoNaoEncontradoException se o produto não existir.
+     * @throws EstoqueInsuficienteException  se não houver unidades livres suficientes.
+     * @see #reservarAsync(String, int)
+     */
+    public ReservasEstoque.Reserva reservar(String produtoId, int quantidade)
+            throws ProdutoNaoEncontradoException, EstoqueInsuficienteException {
+        return reservar(produtoId, quantidade, null);
+    }
+
+    /**
+     * Reserva unidades de um produto dentro de uma operação.
+     *
+     * @param produtoId  O ID do produto.
+     * @param quantidade O número de unidades.
+     * @param contexto   As leituras da operação em andamento, ou {@code null}.
+     * @return A reserva criada.
+     * @throws ProdutoNaoEncontradoException se o produto não existir.
+     * @throws EstoqueInsuficienteException  se não houver unidades livres suficientes.
+     * @see #reservarAsync(String, int, ContextoLeitura)
+     */
+    public ReservasEstoque.Reserva reservar(String produtoId, int quantidade, ContextoLeitura contexto)
+            throws ProdutoNaoEncontradoException, EstoqueInsuficienteException {
+        return Futuros.aguardar(reservarAsync(produtoId, quantidade, contexto),
+                ProdutoNaoEncontradoException.class, EstoqueInsuficienteException.class);
+    }
 
-        double valorBruto = produto.getPreco() * quantidade;
-        if (desconto < 0 || desconto > valorBruto) {
-            throw new IllegalArgumentException("ERRO: O valor do desconto é inválido.");
+    /**
+     * Libera uma reserva que não será usada, como a de uma venda cancelada.
+     *
+     * @param reserva A reserva a ser liberada.
+     * @return {@code true} se a reserva ainda estava ativa.
+     */
+    public boolean liberarReserva(ReservasEstoque.Reserva reserva) {
+        return reservas.liberar(reserva);
+    }
+
+    /**
+     * Retorna a quantidade de um produto disponível para venda neste terminal: o estoque
+     * conhecido, menos as vendas locais ainda não enviadas e as unidades reservadas.
+     *
+     * @param produto O produto, como lido da réplica ou do banco.
+     * @return As unidades livres, nunca negativas.
+     */
+    public int getDisponivelParaVenda(Produto produto) {
+        return Math.max(0, estoqueConhecido(produto) - reservas.getReservado(produto.getId()));
+    }
+
+    private int estoqueConhecido(Produto produto) {
+        return produto.getQuantidade() + (diario != null ? diario.getDeltaPendente(produto.getId()) : 0);
+    }
+
+    /**
+     * Finaliza, de forma assíncrona, a venda de um {@link Carrinho} com vários produtos, com
+     * semântica de tudo ou nada.
+     * <p>
+     * No caminho online, os produtos são buscados e as baixas de estoque são feitas em
+     * paralelo, cada uma pela transação do seu produto, de modo que a latência não cresce
+     * com o número de linhas. O Realtime Database não oferece transações que abranjam vários
+     * nós; por isso, se alguma baixa for recusada, ou se a gravação da venda falhar, as baixas
+     * já confirmadas são desfeitas antes de o future falhar. A venda é gravada como um único
+     * registro, com a lista de itens, somente depois de todas as baixas.
+     * <p>
+     * Com o diário local, todas as linhas são validadas contra a réplica do catálogo e a venda
+     * é confirmada como uma única entrada do {@link DiarioVendas}.
+     *
+     * @param usuario        O {@link Usuario} que está realizando a venda.
+     * @param carrinho       O carrinho com as linhas da venda.
+     * @param formaPagamento A {@link FormaPagamento} utilizada.
+     * @return Um {@link CompletableFuture} completado com a {@link Venda} registrada, ou com
+     * {@link ProdutoNaoEncontradoException}, {@link EstoqueInsuficienteException},
+     * {@link IllegalArgumentException} (carrinho vazio ou desconto inválido) ou
+     * {@link PersistenciaException}.
+     */
+    public CompletableFuture<Venda> finalizarCarrinhoAsync(Usuario usuario, Carrinho carrinho, FormaPagamento formaPagamento) {
+        return finalizarCarrinhoAsync(usuario, carrinho, formaPagamento, Collections.emptyList());
+    }
+
+    /**
+     * Finaliza, de forma assíncrona, a venda de um {@link Carrinho} cujas linhas foram
+     * reservadas. As reservas ficam retidas durante a finalização e são convertidas nas baixas
+     * de estoque quando a venda é confirmada; se a venda falhar, continuam ativas.
+     *
+     * @param usuario        O {@link Usuario} que está realizando a venda.
+     * @param carrinho       O carrinho com as linhas da venda.
+     * @param formaPagamento A {@link FormaPagamento} utilizada.
+     * @param reservasVenda  As reservas feitas para as linhas do carrinho.
+     * @return Um {@link CompletableFuture} completado com a {@link Venda} registrada, ou com as
+     * mesmas falhas de {@link #finalizarCarrinhoAsync(Usuario, Carrinho, FormaPagamento)};
+     * {@link EstoqueInsuficienteException} também indica uma reserva expirada ou já usada.
+     */
+    public CompletableFuture<Venda> finalizarCarrinhoAsync(Usuario usuario, Carrinho carrinho, FormaPagamento formaPagamento,
+                                                           Collection<ReservasEstoque.Reserva> reservasVenda) {
+        if (reservasVenda.isEmpty()) {
+            return finalizarCarrinhoAsync(usuario, carrinho, formaPagamento, Collections.emptyMap());
         }
-        produtoService.reduzirEstoque(produtoId, quantidade);
-        String novoIdVenda = java.util.UUID.randomUUID().toString();
+        Map<String, Integer> proprias = new HashMap<>();
+        for (ReservasEstoque.Reserva reserva : reservasVenda) {
+            proprias.merge(reserva.getProdutoId(), reserva.getQuantidade(), Integer::sum);
+        }
+        return reservas.converter(reservasVenda, () -> finalizarCarrinhoAsync(usuario, carrinho, formaPagamento, proprias));
+    }
 
-        Venda novaVenda = new Venda(novoIdVenda, usuario, produto, quantidade, formaPagamento, desconto);
+    private CompletableFuture<Venda> finalizarCarrinhoAsync(Usuario usuario, Carrinho carrinho, FormaPagamento formaPagamento,
+                                                            Map<String, Integer> proprias) {
+        long inicio = System.nanoTime();
+        if (carrinho.isVazio()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("ERRO: O carrinho está vazio."));
+        }
+        List<Carrinho.Linha> linhas = carrinho.getLinhas();
+        List<CompletableFuture<Produto>> buscas = new ArrayList<>(linhas.size());
+        for (Carrinho.Linha linha : linhas) {
+            buscas.add(produtoService.buscarProdutoAsync(linha.getProdutoId()));
+        }
+        CompletableFuture<List<ItemVenda>> itens = CompletableFuture.allOf(buscas.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignorado -> {
+                    List<ItemVenda> resultado = new ArrayList<>(linhas.size());
+                    for (int i = 0; i < linhas.size(); i++) {
+                        Carrinho.Linha linha = linhas.get(i);
+                        resultado.add(new ItemVenda(buscas.get(i).join(), linha.getQuantidade(), linha.getDesconto()));
+                    }
+                    return resultado;
+                });
+        if (diario != null && produtoService.isCatalogoCarregado()) {
+            return LATENCIA_FINALIZAR_CARRINHO.medir(inicio,
+                    itens.thenApply(lista -> finalizarCarrinhoLocal(usuario, lista, formaPagamento, proprias)));
+        }
+        return LATENCIA_FINALIZAR_CARRINHO.medir(inicio,
+                itens.thenCompose(lista -> finalizarCarrinhoOnline(usuario, lista, formaPagamento, proprias)));
+    }
 
-        vendaRepository.salvar(novaVenda);
+    /**
+     * Confirma a venda do carrinho no diário local, que valida o estoque de todas as linhas
+     * antes de gravar a entrada.
+     */
+    private Venda finalizarCarrinhoLocal(Usuario usuario, List<ItemVenda> itens, FormaPagamento formaPagamento,
+                                         Map<String, Integer> proprias) {
+        Map<String, Integer> estoques = new HashMap<>();
+        for (ItemVenda item : itens) {
+            String produtoId = item.getProduto().getId();
+            estoques.put(produtoId, item.getProduto().getQuantidade() - reservadoPorOutras(produtoId, proprias));
+        }
+        Venda novaVenda = new Venda(java.util.UUID.randomUUID().toString(), usuario, itens, formaPagamento);
+        try {
+            diario.registrarVendaItens(new VendaDTO(novaVenda), estoques);
+        } catch (EstoqueInsuficienteException e) {
+            throw new CompletionException(e);
+        } catch (UncheckedIOException e) {
+            throw new PersistenciaException("ERRO: Falha ao gravar a venda no diário local.", e);
+        }
+        System.out.println("LOG: Venda " + novaVenda.getId() + " com " + itens.size() + " itens confirmada no diário local.");
         return novaVenda;
     }
-}
\ No newline at end of file
+
+    /**
+     * Baixa o estoque de todas as linhas em paralelo e grava a venda. Qualquer falha desfaz
+     * as baixas já confirmadas.
+     * <p>
+     * As baixas são transações separadas, uma por produto: o Realtime Database só garante a
+     * atomicidade de uma transação dentro de um nó, e uma transação sobre o nó raiz, que
+     * contém os produtos e as vendas, bloquearia todos os terminais. Por isso, outro terminal
+     * pode ver o estoque já baixado de uma venda que ainda será desfeita, e uma devolução que
+     * falhar é registrada em "conflitos_estoque" para conferência.
+     */
+    private CompletableFuture<Venda> finalizarCarrinhoOnline(Usuario usuario, List<ItemVenda> itens, FormaPagamento formaPagamento,
+                                                             Map<String, Integer> proprias) {
+        try {
+            for (ItemVenda item : itens) {
+                verificarEstoqueLivre(item.getProduto(), item.getQuantidade(), reservadoPorOutras(item.getProduto().getId(), proprias));
+            }
+        } catch (CompletionException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        }
+        List<CompletableFuture<ResultadoEstoque>> baixas = new ArrayList<>(itens.size());
+        for (ItemVenda item : itens) {
+            baixas.add(produtoService.reduzirEstoqueAsync(item.getProduto().getId(), item.getQuantidade()));
+        }
+        String novoIdVenda = java.util.UUID.randomUUID().toString();
+        CompletableFuture<Venda> resultado = new CompletableFuture<>();
+        CompletableFuture.allOf(baixas.toArray(new CompletableFuture<?>[0])).whenComplete((ignorado, erroBaixa) -> {
+            if (erroBaixa != null) {
+                desfazerBaixas(novoIdVenda, usuario, itens, baixas);
+                resultado.completeExceptionally(primeiraFalha(baixas));
+                return;
+            }
+            Venda novaVenda;
+            CompletableFuture<Void> escrita;
+            try {
+                novaVenda = new Venda(novoIdVenda, usuario, itens, formaPagamento);
+                escrita = vendaRepository.salvar(novaVenda);
+            } catch (RuntimeException e) {
+                // Buffer de escrita já fechado ou falha na conversão: a venda nem chegou a ser enviada.
+                desfazerBaixas(novoIdVenda, usuario, itens, baixas);
+                resultado.completeExceptionally(new PersistenciaException(
+                        "ERRO: Falha ao gravar a venda; o estoque dos itens foi devolvido.", e));
+                return;
+            }
+            escrita.whenComplete((gravada, erroGravacao) -> {
+                if (erroGravacao != null) {
+                    desfazerBaixas(novoIdVenda, usuario, itens, baixas);
+                    resultado.completeExceptionally(new PersistenciaException(
+                            "ERRO: Falha ao gravar a venda; o estoque dos itens foi devolvido.", Futuros.causa(erroGravacao)));
+                    return;
+                }
+                System.out.println("LOG: Venda " + novaVenda.getId() + " com " + itens.size() + " itens registrada.");
+                resultado.complete(novaVenda);
+            });
+        });
+        return resultado;
+    }
+
+    private int reservadoPorOutras(String produtoId, Map<String, Integer> proprias) {
+        return reservas.getReservado(produtoId) - proprias.getOrDefault(produtoId, 0);
+    }
+
+    /**
+     * Devolve ao estoque as quantidades das baixas confirmadas.
+     */
+    private void desfazerBaixas(String idVenda, Usuario usuario, List<ItemVenda> itens,
+                                List<CompletableFuture<ResultadoEstoque>> baixas) {
+        for (int i = 0; i < itens.size(); i++) {
+            if (baixas.get(i).isCompletedExceptionally()) {
+                continue;
+            }
+            devolverEstoque(idVenda, usuario, itens.get(i).getProduto().getId(), itens.get(i).getQuantidade());
+        }
+    }
+
+    /**
+     * Devolve ao estoque a quantidade de uma baixa confirmada cuja venda não foi concluída.
+     * Se a devolução falhar, o estoque do produto fica baixado sem venda; a baixa é então
+     * registrada em "conflitos_estoque", como as do diário, para que o gerente a corrija.
+     */
+    private void devolverEstoque(String idVenda, Usuario usuario, String produtoId, int quantidade) {
+        produtoService.adicionarEstoqueAsync(produtoId, quantidade).whenComplete((r, erro) -> {
+            if (erro == null) {
+                return;
+            }
+            String motivo = "Devolução de " + quantidade + " unidade(s) não aplicada após a venda não concluída: "
+                    + Futuros.causa(erro).getMessage();
+            System.err.println("ERRO: Falha ao devolver o estoque do produto " + produtoId + " (venda " + idVenda + "): "
+                    + Futuros.causa(erro).getMessage());
+            ConflitoEstoque conflito = new ConflitoEstoque(idVenda, produtoId, quantidade, usuario.getMatricula(),
+                    LocalDateTime.now().toString(), motivo);
+            Futuros.de(vendaRepository.registrarConflito(conflito)).whenComplete((ok, erroConflito) -> {
+                if (erroConflito != null) {
+                    System.err.println("ERRO: Falha ao registrar o conflito de estoque da venda " + idVenda
+                            + " (produto " + produtoId + "): " + Futuros.causa(erroConflito).getMessage());
+                }
+            });
+        });
+    }
+
+    /**
+     * Retorna a causa da primeira baixa recusada, na ordem das linhas do carrinho.
+     */
+    private static Throwable primeiraFalha(List<? extends CompletableFuture<?>> baixas) {
+        for (CompletableFuture<?> baixa : baixas) {
+            if (baixa.isCompletedExceptionally()) {
+                try {
+                    baixa.join();
+                } catch (RuntimeException e) {
+                    return Futuros.causa(e);
+                }
+            }
+        }
+        return new IllegalStateException();
+    }
+
+    /**
+     * Finaliza a venda de um {@link Carrinho} com vários produtos.
+     * Aguarda a conclusão de {@link #finalizarCarrinhoAsync(Usuario, Carrinho, FormaPagamento)}.
+     *
+     * @param usuario        O {@link Usuario} que está realizando a venda.
+     * @param carrinho       O carrinho com as linhas da venda.
+     * @param formaPagamento A {@link FormaPagamento} utilizada.
+     * @return A {@link Venda} registrada.
+     * @throws ProdutoNaoEncontradoException se algum produto do carrinho não existir.
+     * @throws EstoqueInsuficienteException  se alguma linha exceder o estoque disponível; nesse
+     * caso, nenhum estoque é alterado.
+     * @throws IllegalArgumentException      se o carrinho estiver vazio ou algum desconto for inválido.
+     */
+    public Venda finalizarCarrinho(Usuario usuario, Carrinho carrinho, FormaPagamento formaPagamento)
+            throws ProdutoNaoEncontradoException, EstoqueInsuficienteException {
+        return Futuros.aguardar(finalizarCarrinhoAsync(usuario, carrinho, formaPagamento),
+                ProdutoNaoEncontradoException.class, EstoqueInsuficienteException.class);
+    }
+
+    /**
+     * Busca, de forma assíncrona, as vendas realizadas em um período.
+     *
+     * @param inicio O início do período, inclusivo.
+     * @param fim    O fim do período, exclusivo.
+     * @return Um {@link CompletableFuture} completado com as vendas em ordem cronológica, ou com
+     * {@link IllegalArgumentException} (período invertido) ou {@link PersistenciaException}.
+     */
+    public CompletableFuture<List<VendaDTO>> buscarVendasPorPeriodoAsync(LocalDateTime inicio, LocalDateTime fim) {
+        if (fim.isBefore(inicio)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("ERRO: O fim do período é anterior ao início."));
+        }
+        ZoneId fuso = ZoneId.systemDefault();
+        long de = inicio.atZone(fuso).toInstant().toEpochMilli();
+        long ate = fim.atZone(fuso).toInstant().toEpochMilli();
+        return Futuros.traduzir(vendaRepository.buscarPorPeriodo(de, ate), "ERRO: Erro ao buscar as vendas do período.");
+    }
+
+    /**
+     * Busca, de forma assíncrona, as vendas de um dia, no fuso horário do sistema.
+     *
+     * @param dia O dia desejado.
+     * @return Um {@link CompletableFuture} completado com as vendas do dia em ordem cronológica.
+     */
+    public CompletableFuture<List<VendaDTO>> buscarVendasDoDiaAsync(LocalDate dia) {
+        return buscarVendasPorPeriodoAsync(dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Busca as vendas de um dia, no fuso horário do sistema.
+     *
+     * @param dia O dia desejado.
+     * @return As vendas do dia em ordem cronológica.
+     * @see #buscarVendasDoDiaAsync(LocalDate)
+     */
+    public List<VendaDTO> buscarVendasDoDia(LocalDate dia) {
+        return Futuros.aguardar(buscarVendasDoDiaAsync(dia), RuntimeException.class);
+    }
+
+    /**
+     * Busca, de forma assíncrona, as vendas mais recentes.
+     *
+     * @param quantidade O número máximo de vendas.
+     * @return Um {@link CompletableFuture} completado com as vendas em ordem cronológica,
+     * terminando pela mais recente.
+     */
+    public CompletableFuture<List<VendaDTO>> buscarUltimasVendasAsync(int quantidade) {
+        if (quantidade <= 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("ERRO: A quantidade de vendas deve ser maior que zero."));
+        }
+        return Futuros.traduzir(vendaRepository.buscarUltimas(quantidade), "ERRO: Erro ao buscar as últimas vendas.");
+    }
+
+    /**
+     * Busca, de forma assíncrona, as vendas registradas depois de um cursor.
+     *
+     * @param cursor  O cursor da última venda recebida, ou {@code null} para começar da primeira.
+     * @param tamanho A quantidade máxima de vendas.
+     * @return Um {@link CompletableFuture} completado com a {@link Pagina} de vendas.
+     * @see VendaRepository#buscarDesde(String, int)
+     */
+    public CompletableFuture<Pagina<VendaDTO>> buscarVendasDesdeAsync(String cursor, int tamanho) {
+        return Futuros.traduzir(vendaRepository.buscarDesde(cursor, tamanho), "ERRO: Erro ao buscar as vendas.");
+    }
+
+    /**
+     * Exporta, de forma assíncrona, as vendas de um período para um arquivo CSV ou JSON Lines,
+     * página por página, sem carregar o período inteiro em memória.
+     *
+     * @param destino O arquivo a ser gerado.
+     * @param inicio  O início do período, inclusivo.
+     * @param fim     O fim do período, exclusivo.
+     * @param formato O formato do arquivo.
+     * @param gzip    Se o arquivo deve ser comprimido em gzip.
+     * @return Um {@link CompletableFuture} completado com o {@link ResumoExportacao}, ou com
+     * {@link IllegalArgumentException} (período invertido) ou {@link PersistenciaException}.
+     * @see ExportadorVendas
+     */
+    public CompletableFuture<ResumoExportacao> exportarVendasAsync(Path destino, LocalDateTime inicio, LocalDateTime fim,
+                                                                   ExportadorVendas.Formato formato, boolean gzip) {
+        if (fim.isBefore(inicio)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("ERRO: O fim do período é anterior ao início."));
+        }
+        ZoneId fuso = ZoneId.systemDefault();
+        long de = inicio.atZone(fuso).toInstant().toEpochMilli();
+        long ate = fim.atZone(fuso).toInstant().toEpochMilli();
+        return Futuros.traduzir(CompletableFuture.supplyAsync(() -> novoExportador().exportarPeriodo(destino, de, ate, formato, gzip)),
+                "ERRO: Falha ao exportar as vendas.");
+    }
+
+    /**
+     * Exporta, de forma assíncrona, todo o histórico de vendas, em ordem de chave.
+     *
+     * @param destino O arquivo a ser gerado.
+     * @param formato O formato do arquivo.
+     * @param gzip    Se o arquivo deve ser comprimido em gzip.
+     * @return Um {@link CompletableFuture} completado com o {@link ResumoExportacao}, ou com
+     * {@link PersistenciaException}.
+     * @see ExportadorVendas#exportarTodas(Path, ExportadorVendas.Formato, boolean)
+     */
+    public CompletableFuture<ResumoExportacao> exportarTodasVendasAsync(Path destino, ExportadorVendas.Formato formato, boolean gzip) {
+        return Futuros.traduzir(CompletableFuture.supplyAsync(() -> novoExportador().exportarTodas(destino, formato, gzip)),
+                "ERRO: Falha ao exportar as vendas.");
+    }
+
+    /**
+     * Exporta as vendas de um período. Como a exportação de um histórico longo pode levar
+     * minutos, aguarda sem o tempo limite de {@link Futuros#TEMPO_LIMITE_MS}; cada página
+     * lida do banco ainda respeita esse limite.
+     *
+     * @param destino O arquivo a ser gerado.
+     * @param inicio  O início do período, inclusivo, ou {@code null} para todo o histórico.
+     * @param fim     O fim do período, exclusivo; ignorado se {@code inicio} for {@code null}.
+     * @param formato O formato do arquivo.
+     * @param gzip    Se o arquivo deve ser comprimido em gzip.
+     * @return O {@link ResumoExportacao}.
+     * @throws IllegalArgumentException se o período estiver invertido.
+     * @see #exportarVendasAsync(Path, LocalDateTime, LocalDateTime, ExportadorVendas.Formato, boolean)
+     */
+    public ResumoExportacao exportarVendas(Path destino, LocalDateTime inicio, LocalDateTime fim,
+                                           ExportadorVendas.Formato formato, boolean gzip) {
+        CompletableFuture<ResumoExportacao> exportacao = inicio == null
+                ? exportarTodasVendasAsync(destino, formato, gzip)
+                : exportarVendasAsync(destino, inicio, fim, formato, gzip);
+        try {
+            return exportacao.join();
+        } catch (CompletionException e) {
+            Throwable causa = Futuros.causa(e);
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new PersistenciaException("ERRO: Falha ao exportar as vendas.", causa);
+        }
+    }
+
+    private ExportadorVendas novoExportador() {
+        return new ExportadorVendas(vendaRepository, produtoService, new UsuarioRepository());
+    }
+
+    /**
+     * Preenche, de forma assíncrona, o timestamp das vendas gravadas antes de o campo existir,
+     * para que elas passem a aparecer nas consultas por período.
+     *
+     * @return Um {@link CompletableFuture} completado com o número de vendas atualizadas.
+     */
+    public CompletableFuture<Integer> preencherTimestampsVendasAsync() {
+        return Futuros.traduzir(vendaRepository.preencherTimestamps(), "ERRO: Erro ao preencher o timestamp das vendas.");
+    }
+
+    /**
+     * Preenche o timestamp das vendas gravadas antes de o campo existir.
+     *
+     * @return O número de vendas atualizadas.
+     * @see #preencherTimestampsVendasAsync()
+     */
+    public int preencherTimestampsVendas() {
+        return Futuros.aguardar(preencherTimestampsVendasAsync(), RuntimeException.class);
+    }
+
+    /**
+     * Busca, de forma assíncrona, os contadores consolidados de um dia (total, por produto,
+     * por forma de pagamento e por usuário), sem ler as vendas individuais.
+     *
+     * @param dia O dia desejado.
+     * @return Um {@link CompletableFuture} completado com o {@link ConsolidadoDia}.
+     */
+    public CompletableFuture<ConsolidadoDia> buscarConsolidadoDoDiaAsync(LocalDate dia) {
+        return Futuros.traduzir(consolidacao.buscar(dia), "ERRO: Erro ao buscar o consolidado de vendas do dia.");
+    }
+
+    /**
+     * Busca os contadores consolidados de um dia.
+     *
+     * @param dia O dia desejado.
+     * @return O {@link ConsolidadoDia} lido do banco.
+     * @see #buscarConsolidadoDoDiaAsync(LocalDate)
+     */
+    public ConsolidadoDia buscarConsolidadoDoDia(LocalDate dia) {
+        return Futuros.aguardar(buscarConsolidadoDoDiaAsync(dia), RuntimeException.class);
+    }
+
+    /**
+     * Recalcula, de forma assíncrona, os contadores consolidados de um dia a partir das vendas.
+     *
+     * @param dia O dia a ser reconstruído.
+     * @return Um {@link CompletableFuture} completado com o consolidado recalculado.
+     */
+    public CompletableFuture<ConsolidadoDia> reconstruirConsolidadoDoDiaAsync(LocalDate dia) {
+        return Futuros.traduzir(consolidacao.reconstruir(dia), "ERRO: Erro ao reconstruir o consolidado de vendas do dia.");
+    }
+
+    /**
+     * Recalcula os contadores consolidados de um dia a partir das vendas.
+     *
+     * @param dia O dia a ser reconstruído.
+     * @return O consolidado recalculado.
+     * @see #reconstruirConsolidadoDoDiaAsync(LocalDate)
+     */
+    public ConsolidadoDia reconstruirConsolidadoDoDia(LocalDate dia) {
+        return Futuros.aguardar(reconstruirConsolidadoDoDiaAsync(dia), RuntimeException.class);
+    }
+
+    /**
+     * Recalcula, de forma assíncrona, os contadores consolidados de todos os dias.
+     *
+     * @return Um {@link CompletableFuture} completado com o número de dias gravados.
+     * @see ConsolidacaoVendas#reconstruirTodos()
+     */
+    public CompletableFuture<Integer> reconstruirTodosConsolidadosAsync() {
+        return Futuros.traduzir(consolidacao.reconstruirTodos(), "ERRO: Erro ao reconstruir os consolidados de vendas.");
+    }
+
+    /**
+     * Traz para o armazém analítico local, de forma assíncrona, as vendas de todos os caixas
+     * registradas desde a última sincronização.
+     *
+     * @return Um {@link CompletableFuture} completado com o número de vendas adicionadas.
+     * @see ArmazemVendas#sincronizar(VendaRepository)
+     */
+    public CompletableFuture<Integer> sincronizarArmazemAsync() {
+        if (armazem == null) {
+            return CompletableFuture.failedFuture(new PersistenciaException("ERRO: O armazém de vendas não está disponível."));
+        }
+        return Futuros.traduzir(armazem.sincronizar(vendaRepository), "ERRO: Erro ao sincronizar o armazém de vendas.");
+    }
+
+    /**
+     * Agrupa, de forma assíncrona, as vendas de um período do armazém analítico local por até
+     * duas dimensões (por exemplo, receita por tipo de produto e por semana).
+     *
+     * @param inicio    O início do período, inclusivo.
+     * @param fim       O fim do período, exclusivo.
+     * @param dimensao1 A primeira dimensão do agrupamento.
+     * @param dimensao2 A segunda dimensão, ou {@link DimensaoVenda#NENHUMA}.
+     * @return Um {@link CompletableFuture} completado com a {@link AgregacaoVendas}.
+     */
+    public CompletableFuture<AgregacaoVendas> agregarVendasAsync(LocalDateTime inicio, LocalDateTime fim,
+                                                                 DimensaoVenda dimensao1, DimensaoVenda dimensao2) {
+        if (armazem == null) {
+            return CompletableFuture.failedFuture(new PersistenciaException("ERRO: O armazém de vendas não está disponível."));
+        }
+        if (fim.isBefore(inicio)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("ERRO: O fim do período é anterior ao início."));
+        }
+        ZoneId fuso = ZoneId.systemDefault();
+        long de = inicio.atZone(fuso).toInstant().toEpochMilli();
+        long ate = fim.atZone(fuso).toInstant().toEpochMilli();
+        return CompletableFuture.supplyAsync(() -> armazem.agregar(de, ate, dimensao1, dimensao2));
+    }
+
+    /**
+     * Sincroniza o armazém analítico e agrupa as vendas de um período.
+     *
+     * @param inicio    O início do período, inclusivo.
+     * @param fim       O fim do período, exclusivo.
+     * @param dimensao1 A primeira dimensão do agrupamento.
+     * @param dimensao2 A segunda dimensão, ou {@link DimensaoVenda#NENHUMA}.
+     * @return A {@link AgregacaoVendas} do período.
+     * @see #agregarVendasAsync(LocalDateTime, LocalDateTime, DimensaoVenda, DimensaoVenda)
+     */
+    public AgregacaoVendas agregarVendas(LocalDateTime inicio, LocalDateTime fim, DimensaoVenda dimensao1, DimensaoVenda dimensao2) {
+        return Futuros.aguardar(sincronizarArmazemAsync()
+                .thenCompose(adicionadas -> agregarVendasAsync(inicio, fim, dimensao1, dimensao2)), RuntimeException.class);
+    }
+}